@@ -0,0 +1,102 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.convert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.basho.riak.client.IRiakObject;
+
+/**
+ * Compares {@link JSONConverter} with {@link CachingJSONConverter}, with and
+ * without afterburner, converting a mid-sized document both ways.
+ * 
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="JSONConverterBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JSONConverterBenchmark {
+
+    @Param({ "plain", "caching", "afterburner" }) public String mode;
+
+    private Converter<Document> converter;
+    private Document document;
+    private IRiakObject stored;
+
+    @Setup public void setUp() throws ConversionException {
+        switch (mode) {
+        case "caching":
+            converter = new CachingJSONConverter<>(Document.class);
+            break;
+        case "afterburner":
+            converter = new CachingJSONConverter<>(ObjectMapperSelector.DEFAULT_SELECTOR, Document.class, true);
+            break;
+        default:
+            converter = new JSONConverter<>(Document.class);
+        }
+
+        document = new Document();
+        document.id = "doc-1";
+        document.title = "A moderately sized document";
+        document.version = 7;
+        for (int i = 0; i < 50; i++) {
+            Line l = new Line();
+            l.sku = "sku-" + i;
+            l.quantity = i;
+            l.price = i * 1.25d;
+            document.lines.add(l);
+        }
+        stored = converter.fromDomain("bench", document, null);
+    }
+
+    @Benchmark public IRiakObject fromDomain() throws ConversionException {
+        return converter.fromDomain("bench", document, null);
+    }
+
+    @Benchmark public Document toDomain() throws ConversionException {
+        return converter.toDomain(stored);
+    }
+
+    public static class Document {
+        @RiakKey public String id;
+        public String title;
+        public int version;
+        public List<Line> lines = new ArrayList<>();
+    }
+
+    public static class Line {
+        public String sku;
+        public int quantity;
+        public double price;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.convert.reflect;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.basho.riak.client.RiakLink;
+import com.basho.riak.client.cap.BasicVClock;
+import com.basho.riak.client.cap.VClock;
+import com.basho.riak.client.convert.RiakIndex;
+import com.basho.riak.client.convert.RiakKey;
+import com.basho.riak.client.convert.RiakLinks;
+import com.basho.riak.client.convert.RiakTombstone;
+import com.basho.riak.client.convert.RiakUsermeta;
+import com.basho.riak.client.convert.RiakVClock;
+import com.basho.riak.client.query.indexes.RiakIndexes;
+
+/**
+ * Compares the compiled {@link Accessor}s in {@link AnnotationInfo} with the
+ * plain reflective path, for the work {@code JSONConverter} does per object:
+ * reading every annotated member in <code>fromDomain</code> and writing them in
+ * <code>toDomain</code>.
+ * 
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="AnnotationAccessBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnnotationAccessBenchmark {
+
+    @Param({ "true", "false" }) public boolean compiled;
+
+    private AnnotationInfo info;
+    private Domain domain;
+    private VClock vclock;
+    private Map<String, String> usermeta;
+    private RiakIndexes indexes;
+    private Collection<RiakLink> links;
+
+    @Setup public void setUp() {
+        info = AnnotationHelper.annotationInfo(Domain.class, compiled);
+        domain = new Domain();
+        vclock = new BasicVClock("a85hYGBgzGDKBVIcypz/fvZ".getBytes());
+        usermeta = new HashMap<>();
+        usermeta.put("owner", "bob");
+        usermeta.put("other", "value");
+        indexes = new RiakIndexes();
+        indexes.add("email_bin", "bob@example.com");
+        indexes.add("age_int", 42L);
+        links = new ArrayList<>();
+        links.add(new RiakLink("people", "alice", "friend"));
+    }
+
+    @Benchmark public void fromDomain(Blackhole bh) {
+        bh.consume(info.getRiakKey(domain));
+        bh.consume(info.getRiakVClock(domain));
+        bh.consume(info.getRiakTombstone(domain));
+        bh.consume(info.getUsermetaData(domain));
+        bh.consume(info.getIndexes(domain));
+        bh.consume(info.getLinks(domain));
+    }
+
+    @Benchmark public Domain toDomain() {
+        final Domain d = new Domain();
+        info.setRiakKey(d, "bob");
+        info.setRiakVClock(d, vclock);
+        info.setRiakTombstone(d, false);
+        info.setUsermetaData(usermeta, d);
+        info.setIndexes(indexes, d);
+        info.setLinks(links, d);
+        return d;
+    }
+
+    public static class Domain {
+        @RiakKey private String key = "bob";
+        @RiakVClock private byte[] vclock = "a85hYGBgzGDKBVIcypz/fvZ".getBytes();
+        @RiakTombstone private boolean deleted;
+        @RiakUsermeta(key = "owner") private String owner = "bob";
+        @RiakUsermeta private Map<String, String> usermeta = new HashMap<>();
+        @RiakIndex(name = "email") private String email = "bob@example.com";
+        @RiakIndex(name = "age") private long age = 42L;
+        @RiakLinks private Collection<RiakLink> links = new ArrayList<>();
+
+        public String name = "Bob";
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.pbc;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.cap.DefaultResolver;
+import com.basho.riak.client.cap.DefaultRetrier;
+import com.basho.riak.client.convert.PassThroughConverter;
+import com.basho.riak.client.operations.FetchObject;
+import com.basho.riak.client.raw.FetchMeta;
+import com.basho.riak.client.raw.RiakResponse;
+import com.basho.riak.pbc.RiakObject;
+import com.basho.riak.test.util.StubRawClient;
+import com.google.protobuf.ByteString;
+
+/**
+ * Allocation per PB fetch, from the decoded {@link RiakObject} to the value
+ * handed back by {@link FetchObject#execute()}. <code>plain</code> objects
+ * have no links, indexes or user meta, which is the common case and the one
+ * the fetch path avoids allocating for; <code>rich</code> objects have all
+ * three. The number to watch is <code>gc.alloc.rate.norm</code>:
+ * 
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="FetchPathBenchmark -prof gc"
+ * </pre>
+ * 
+ * <code>FetchPathAllocationTest</code> checks the bytes per conversion
+ * against a budget when run with
+ * <code>-Dcom.basho.riak.allocation.budget=true</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FetchPathBenchmark {
+
+    @Param({ "plain", "rich" }) public String shape;
+
+    private RiakObject[] siblings;
+    private FetchObject<IRiakObject> fetch;
+
+    @Setup public void setUp() {
+        RiakObject o = new RiakObject(ByteString.copyFromUtf8("vclock"), ByteString.copyFromUtf8("bench"),
+                                      ByteString.copyFromUtf8("key"), ByteString.copyFromUtf8("{\"a\":1}"));
+        o.setContentType("application/json");
+        if ("rich".equals(shape)) {
+            o.addLink("tag", "bench", "other");
+            o.addUsermetaItem("owner", "bench");
+            o.addIndex("email_bin", "someone@example.com");
+            o.addIndex("age_int", 42);
+        }
+        siblings = new RiakObject[] { o };
+
+        StubRawClient client = new StubRawClient() {
+            @Override public RiakResponse fetch(String bucket, String key, FetchMeta fetchMeta) throws IOException {
+                return ConversionUtil.convert(siblings);
+            }
+        };
+        fetch = new FetchObject<IRiakObject>(client, "bench", "key", new DefaultRetrier(1))
+            .withConverter(PassThroughConverter.getInstance())
+            .withResolver(DefaultResolver.<IRiakObject> getInstance())
+            .r(2);
+    }
+
+    @Benchmark public RiakResponse convert() {
+        return ConversionUtil.convert(siblings);
+    }
+
+    @Benchmark public IRiakObject fetchObject() throws Exception {
+        return fetch.execute();
+    }
+}
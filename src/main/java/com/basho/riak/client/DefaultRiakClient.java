@@ -1,6 +1,7 @@
 package com.basho.riak.client;
 
 import com.basho.riak.client.bucket.Bucket;
+import com.basho.riak.client.bucket.BucketPropertiesCache;
 import com.basho.riak.client.bucket.FetchBucket;
 import com.basho.riak.client.bucket.WriteBucket;
 import com.basho.riak.client.cap.DefaultRetrier;
@@ -44,6 +45,7 @@ public final class DefaultRiakClient implements IRiakClient {
 
     private final RawClient rawClient;
     private final Retrier retrier;
+    private volatile BucketPropertiesCache bucketPropertiesCache;
 
     /**
      * Create an instance that wraps the provided {@link RawClient} and passes it and the {@link Retrier}
@@ -97,21 +99,21 @@ public final class DefaultRiakClient implements IRiakClient {
      * @see com.basho.riak.client.IRiakClient#updateBucket(com.basho.riak.client.bucket.Bucket)
      */
     public WriteBucket updateBucket(final Bucket b) {
-        return new WriteBucket(rawClient, b, retrier);
+        return new WriteBucket(rawClient, b, retrier).withCache(bucketPropertiesCache);
     }
 
     /* (non-Javadoc)
      * @see com.basho.riak.client.IRiakClient#fetchBucket(java.lang.String)
      */
     public FetchBucket fetchBucket(String bucketName) {
-        return new FetchBucket(rawClient, bucketName, retrier);
+        return new FetchBucket(rawClient, bucketName, retrier).withCache(bucketPropertiesCache);
     }
 
     /* (non-Javadoc)
      * @see com.basho.riak.client.IRiakClient#createBucket(java.lang.String)
      */
     public WriteBucket createBucket(String bucketName) {
-        return new WriteBucket(rawClient, bucketName, retrier);
+        return new WriteBucket(rawClient, bucketName, retrier).withCache(bucketPropertiesCache);
     }
 
     /**
@@ -124,8 +126,28 @@ public final class DefaultRiakClient implements IRiakClient {
             rawClient.resetBucketProperties(bucketName);
         } catch (IOException ex) {
             throw new RiakException(ex);
+        } finally {
+            final BucketPropertiesCache cache = bucketPropertiesCache;
+            if (cache != null) {
+                cache.invalidate(bucketName);
+            }
         }
     }
+
+    /* (non-Javadoc)
+     * @see com.basho.riak.client.IRiakClient#setBucketPropertiesCache(com.basho.riak.client.bucket.BucketPropertiesCache)
+     */
+    public IRiakClient setBucketPropertiesCache(BucketPropertiesCache cache) {
+        this.bucketPropertiesCache = cache;
+        return this;
+    }
+
+    /* (non-Javadoc)
+     * @see com.basho.riak.client.IRiakClient#getBucketPropertiesCache()
+     */
+    public BucketPropertiesCache getBucketPropertiesCache() {
+        return bucketPropertiesCache;
+    }
     // CLIENT ID
 
     /* (non-Javadoc)
@@ -53,13 +53,21 @@ public class DefaultRiakObject implements IRiakObject {
   private final long lastModified;
   private final boolean isDeleted;
 
+  // objects fetched without links, user meta or indexes share these empty
+  // instances until something is added
+  private static final Collection<RiakLink> NO_LINKS = Collections.emptyList();
+  private static final Map<String, String> NO_USER_META = Collections.emptyMap();
+  private static final RiakIndexes NO_INDEXES = new RiakIndexes();
+
   private final Object linksLock = new Object();
-  private final Collection<RiakLink> links;
+  private volatile Collection<RiakLink> links;
   private final Object userMetaLock = new Object();
-  private final Map<String, String> userMeta;
-  private final RiakIndexes indexes;
+  private volatile Map<String, String> userMeta;
+  private final Object indexesLock = new Object();
+  private volatile RiakIndexes indexes;
 
   private volatile String contentType;
+  private final String contentEncoding;
   private volatile byte[] value;
 
   /**
@@ -72,13 +80,24 @@ public class DefaultRiakObject implements IRiakObject {
    * @param lastModified the last modified date from Riak (if relevant)
    * @param contentType  the content-type of the value
    * @param value        a byte[] of the data payload to store in Riak. Note: this is cloned on construction of this instance.
-   * @param links        the List of {@link RiakLink}s from this object. Note: this is copied.
-   * @param userMeta     the {@link Map} of user meta data to store/stored with this object. Note: this is copied.
-   * @param indexes      the {@link RiakIndexes} for this object. These will be copied to a new {@link RiakIndexes}
+   * @param links        the List of {@link RiakLink}s from this object, null for none. Note: this is copied.
+   * @param userMeta     the {@link Map} of user meta data to store/stored with this object, null for none. Note: this is copied.
+   * @param indexes      the {@link RiakIndexes} for this object, null for none. These will be copied to a new {@link RiakIndexes}
    */
   public DefaultRiakObject(String bucket, String key, VClock vclock, String vtag, final Date lastModified,
                            String contentType, byte[] value, final Collection<RiakLink> links, final Map<String, String> userMeta,
                            final RiakIndexes indexes, final boolean isDeleted) {
+    this(bucket, key, vclock, vtag, lastModified, contentType, null, value, links, userMeta, indexes, isDeleted);
+  }
+
+  /**
+   * As above, with the content-encoding of <code>value</code>.
+   *
+   * @param contentEncoding the content-encoding of <code>value</code>, null if it is not encoded
+   */
+  public DefaultRiakObject(String bucket, String key, VClock vclock, String vtag, final Date lastModified,
+                           String contentType, String contentEncoding, byte[] value, final Collection<RiakLink> links,
+                           final Map<String, String> userMeta, final RiakIndexes indexes, final boolean isDeleted) {
 
     if (bucket == null) {
       throw new IllegalArgumentException("Bucket cannot be null");
@@ -91,10 +110,11 @@ public class DefaultRiakObject implements IRiakObject {
     this.vtag = vtag;
     this.lastModified = lastModified == null ? 0 : lastModified.getTime();
     safeSetContentType(contentType);
+    this.contentEncoding = contentEncoding;
     this.value = value;
-    this.links = links;
-    this.userMeta = userMeta;
-    this.indexes = indexes;
+    this.links = links == null ? NO_LINKS : links;
+    this.userMeta = userMeta == null ? NO_USER_META : userMeta;
+    this.indexes = indexes == null ? NO_INDEXES : indexes;
   }
 
   /**
@@ -163,6 +183,13 @@ public class DefaultRiakObject implements IRiakObject {
     return contentType;
   }
 
+  /* (non-Javadoc)
+   * @see com.basho.riak.client.IRiakObject#getContentEncoding()
+   */
+  public String getContentEncoding() {
+    return contentEncoding;
+  }
+
   /**
    * NOTE: a copy is returned. Mutating the return value will not effect the state of this instance.
    *
@@ -219,6 +246,9 @@ public class DefaultRiakObject implements IRiakObject {
   public IRiakObject addLink(RiakLink link) {
     if (link != null) {
       synchronized (linksLock) {
+        if (links == NO_LINKS) {
+          links = new ArrayList<>();
+        }
         links.add(link);
       }
     }
@@ -276,6 +306,9 @@ public class DefaultRiakObject implements IRiakObject {
    */
   public IRiakObject addUsermeta(String key, String value) {
     synchronized (userMetaLock) {
+      if (userMeta == NO_USER_META) {
+        userMeta = new HashMap<>();
+      }
       userMeta.put(key, value);
     }
     return this;
@@ -321,10 +354,14 @@ public class DefaultRiakObject implements IRiakObject {
 
   /**
    * return an unmodifiable view of the user meta entries. Attempts to modify
-   * will throw UnsupportedOperationException.
+   * will throw UnsupportedOperationException. Each iteration reads the
+   * object's current user meta, so the view sees entries added after it was
+   * taken.
    */
   public Iterable<Map.Entry<String, String>> userMetaEntries() {
-    return Collections.unmodifiableCollection(userMeta.entrySet());
+    // not a view of the map itself, which is the shared empty one until the
+    // first addUsermeta swaps in a map of this object's own
+    return () -> Collections.unmodifiableCollection(userMeta.entrySet()).iterator();
   }
 
   /*
@@ -419,7 +456,7 @@ public class DefaultRiakObject implements IRiakObject {
    * @see com.basho.riak.client.IRiakObject#addIndex(java.lang.String, java.lang.String)
    */
   public IRiakObject addIndex(String index, String value) {
-    indexes.add(index, value);
+    writableIndexes().add(index, value);
     return this;
   }
 
@@ -431,7 +468,7 @@ public class DefaultRiakObject implements IRiakObject {
    * @see com.basho.riak.client.IRiakObject#addIndex(java.lang.String, long)
    */
   public IRiakObject addIndex(String index, long value) {
-    indexes.add(index, value);
+    writableIndexes().add(index, value);
     return this;
   }
 
@@ -443,7 +480,7 @@ public class DefaultRiakObject implements IRiakObject {
    * @see com.basho.riak.client.IRiakObject#removeIndex(com.basho.riak.client.query.indexes.BinIndex)
    */
   public IRiakObject removeBinIndex(String index) {
-    indexes.removeAll(BinIndex.named(index));
+    writableIndexes().removeAll(BinIndex.named(index));
     return this;
   }
 
@@ -451,10 +488,27 @@ public class DefaultRiakObject implements IRiakObject {
    * @see com.basho.riak.client.IRiakObject#removeIndex(com.basho.riak.client.query.indexes.IntIndex)
    */
   public IRiakObject removeIntIndex(String index) {
-    indexes.removeAll(IntIndex.named(index));
+    writableIndexes().removeAll(IntIndex.named(index));
     return this;
   }
 
+  /**
+   * @return this object's own {@link RiakIndexes}, never the shared empty one
+   */
+  private RiakIndexes writableIndexes() {
+    RiakIndexes current = indexes;
+    if (current == NO_INDEXES) {
+      synchronized (indexesLock) {
+        current = indexes;
+        if (current == NO_INDEXES) {
+          current = new RiakIndexes();
+          indexes = current;
+        }
+      }
+    }
+    return current;
+  }
+
   @Override
   public boolean isDeleted() {
     return this.isDeleted;
@@ -16,6 +16,7 @@ package com.basho.riak.client;
 import java.util.Set;
 
 import com.basho.riak.client.bucket.Bucket;
+import com.basho.riak.client.bucket.BucketPropertiesCache;
 import com.basho.riak.client.bucket.FetchBucket;
 import com.basho.riak.client.bucket.WriteBucket;
 import com.basho.riak.client.cap.ClientId;
@@ -143,6 +144,23 @@ public interface IRiakClient {
      * @param bucketName 
      */
     void resetBucket(String bucketName) throws RiakException;
+
+    /**
+     * Read bucket properties through a shared {@link BucketPropertiesCache}.
+     * Every {@link FetchBucket} and {@link WriteBucket} created afterwards
+     * uses it, and {@link #resetBucket(String)} invalidates the bucket.
+     * 
+     * @param cache
+     *            the cache, <code>null</code> to fetch from Riak every time
+     *            (the default)
+     * @return this
+     */
+    IRiakClient setBucketPropertiesCache(BucketPropertiesCache cache);
+
+    /**
+     * @return the {@link BucketPropertiesCache} in use, or null
+     */
+    BucketPropertiesCache getBucketPropertiesCache();
     
     /**
      * Create a {@link LinkWalk} operation that starts at startObject.
@@ -114,6 +114,19 @@ public interface IRiakObject extends Iterable<RiakLink> {
    */
   String getContentType();
 
+  /**
+   * The content-encoding of this object's value, as sent to/held by Riak.
+   * <p>
+   * Values stored with an encoding known to
+   * {@link com.basho.riak.client.compress.ValueCodecs} are decoded when
+   * fetched, so this is only set for values in an encoding the client can't
+   * decode, or on a value that is about to be stored compressed.
+   * </p>
+   *
+   * @return the content-encoding or null if the value is not encoded
+   */
+  String getContentEncoding();
+
   /**
    * A List of {@link RiakLink}s from this object. See also <a
    * href="http://wiki.basho.com/Links.html">Link Walking</a> on the basho
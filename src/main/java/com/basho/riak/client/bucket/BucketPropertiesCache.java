@@ -0,0 +1,245 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.bucket;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.basho.riak.client.IRiakClient;
+import com.basho.riak.client.RiakRetryFailedException;
+import com.basho.riak.client.cap.Retrier;
+import com.basho.riak.client.raw.RawClient;
+
+/**
+ * A bounded cache of {@link BucketProperties} with a time to live, so that
+ * fetching a {@link Bucket} does not cost a round trip to Riak every time.
+ * 
+ * <p>
+ * Set one on an {@link IRiakClient} with
+ * {@link IRiakClient#setBucketPropertiesCache(BucketPropertiesCache)};
+ * {@link FetchBucket} and {@link LazyBucketProperties} then read through it,
+ * and {@link WriteBucket} and {@link IRiakClient#resetBucket(String)}
+ * invalidate the bucket they change. Changes made by other clients are seen
+ * once the cached entry expires. Concurrent misses for the same bucket share
+ * one fetch. A cache holds the properties of one cluster, so it should not
+ * be shared between clients of different clusters.
+ * </p>
+ * 
+ * <pre>
+ * IRiakClient client = RiakFactory.pbcClient();
+ * client.setBucketPropertiesCache(new BucketPropertiesCache.Builder().ttl(5, TimeUnit.MINUTES).build());
+ * </pre>
+ */
+public class BucketPropertiesCache {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private final int maxBuckets;
+    private final long ttlNanos;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private BucketPropertiesCache(Builder builder) {
+        this.maxBuckets = builder.maxBuckets;
+        this.ttlNanos = builder.ttlNanos;
+    }
+
+    /**
+     * Get the properties of <code>bucket</code>, fetching them with
+     * <code>client</code> if they are not cached or have expired.
+     * 
+     * @param client
+     *            the client to fetch with
+     * @param retrier
+     *            retries the fetch
+     * @param bucket
+     *            the bucket
+     * @return the bucket's properties
+     * @throws RiakRetryFailedException
+     *             if the fetch fails, nothing is cached, or if interrupted
+     *             while waiting for another thread's fetch of the bucket, the
+     *             thread's interrupt status is set
+     */
+    public BucketProperties get(final RawClient client, final Retrier retrier, final String bucket)
+            throws RiakRetryFailedException {
+        final long now = System.nanoTime();
+        for (;;) {
+            final Entry entry = entries.get(bucket);
+            if (entry != null && !entry.expired(now)) {
+                hits.incrementAndGet();
+                return entry.await(this, bucket);
+            }
+
+            final Entry fresh = new Entry(new FutureTask<BucketProperties>(() -> retrier.attempt(() -> client
+                .fetchBucket(bucket))), now + ttlNanos);
+            final boolean installed = entry == null ? entries.putIfAbsent(bucket, fresh) == null : entries
+                .replace(bucket, entry, fresh);
+            // if another thread got there first go round and wait on theirs
+            if (installed) {
+                misses.incrementAndGet();
+                evictIfFull(now);
+                fresh.fetch.run();
+                return fresh.await(this, bucket);
+            }
+        }
+    }
+
+    /**
+     * Drop the cached properties of <code>bucket</code>, the next lookup
+     * fetches them again.
+     * 
+     * @param bucket
+     *            the bucket
+     */
+    public void invalidate(String bucket) {
+        entries.remove(bucket);
+    }
+
+    /**
+     * Drop every cached entry.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * @return the number of buckets cached, including any expired entries
+     *         not yet replaced
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups that fetched from Riak
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of entries dropped to stay within the maximum size
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private void evictIfFull(long now) {
+        if (entries.size() <= maxBuckets) {
+            return;
+        }
+        // expired entries first, then whichever expires soonest
+        Map.Entry<String, Entry> soonest = null;
+        for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Entry> e = it.next();
+            if (e.getValue().expired(now)) {
+                it.remove();
+                evictions.incrementAndGet();
+            } else if (soonest == null || e.getValue().expiresAt - soonest.getValue().expiresAt < 0) {
+                soonest = e;
+            }
+        }
+        if (entries.size() > maxBuckets && soonest != null &&
+            entries.remove(soonest.getKey(), soonest.getValue())) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static final class Entry {
+        private final FutureTask<BucketProperties> fetch;
+        private final long expiresAt;
+
+        Entry(FutureTask<BucketProperties> fetch, long expiresAt) {
+            this.fetch = fetch;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean expired(long now) {
+            return now - expiresAt >= 0;
+        }
+
+        BucketProperties await(BucketPropertiesCache cache, String bucket) throws RiakRetryFailedException {
+            try {
+                return fetch.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RiakRetryFailedException(e);
+            } catch (ExecutionException e) {
+                // don't cache failures
+                cache.entries.remove(bucket, this);
+                if (e.getCause() instanceof RiakRetryFailedException) {
+                    throw (RiakRetryFailedException) e.getCause();
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new RiakRetryFailedException(e);
+            }
+        }
+    }
+
+    /**
+     * Builds a {@link BucketPropertiesCache}.
+     * 
+     * Defaults: at most 1000 buckets, each cached for 60 seconds.
+     */
+    public static class Builder {
+        private int maxBuckets = 1000;
+        private long ttlNanos = TimeUnit.SECONDS.toNanos(60);
+
+        /**
+         * @param maxBuckets
+         *            the most buckets to cache
+         * @return this
+         */
+        public Builder maxBuckets(int maxBuckets) {
+            if (maxBuckets < 1) {
+                throw new IllegalArgumentException("maxBuckets must be at least 1");
+            }
+            this.maxBuckets = maxBuckets;
+            return this;
+        }
+
+        /**
+         * @param ttl
+         *            how long fetched properties are used for
+         * @param unit
+         *            the unit of <code>ttl</code>
+         * @return this
+         */
+        public Builder ttl(long ttl, TimeUnit unit) {
+            if (ttl < 1) {
+                throw new IllegalArgumentException("ttl must be positive");
+            }
+            this.ttlNanos = unit.toNanos(ttl);
+            return this;
+        }
+
+        public BucketPropertiesCache build() {
+            return new BucketPropertiesCache(this);
+        }
+    }
+}
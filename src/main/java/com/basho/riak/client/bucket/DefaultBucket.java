@@ -16,6 +16,7 @@ package com.basho.riak.client.bucket;
 import com.basho.riak.client.*;
 import com.basho.riak.client.builders.RiakObjectBuilder;
 import com.basho.riak.client.cap.*;
+import com.basho.riak.client.compress.Compression;
 import com.basho.riak.client.convert.*;
 import com.basho.riak.client.http.util.Constants;
 import com.basho.riak.client.operations.*;
@@ -74,6 +75,7 @@ public class DefaultBucket implements Bucket {
     private final BucketProperties properties;
     private final RawClient client;
     private final Retrier retrier;
+    private final Compression compression;
 
     /**
      * All {@link RiakOperation}s created by this instance will use the
@@ -85,10 +87,30 @@ public class DefaultBucket implements Bucket {
      * @param retrier a {@link Retrier} to use for all {@link RiakOperation}s
      */
     protected DefaultBucket(String name, final BucketProperties properties, final RawClient client, final Retrier retrier) {
+        this(name, properties, client, retrier, null);
+    }
+
+    /**
+     * As above, but values stored by operations created by this instance are
+     * compressed according to <code>compression</code>.
+     * 
+     * @param compression the {@link Compression} for stored values, may be null
+     */
+    protected DefaultBucket(String name, final BucketProperties properties, final RawClient client,
+            final Retrier retrier, final Compression compression) {
         this.name = name;
         this.properties = properties;
         this.client = client;
         this.retrier = retrier;
+        this.compression = compression;
+    }
+
+    /**
+     * @return the {@link Compression} applied to stored values or null if
+     *         values are stored as they are
+     */
+    public Compression getCompression() {
+        return compression;
     }
 
     // BUCKET PROPS
@@ -315,6 +337,10 @@ public class DefaultBucket implements Bucket {
 
     private static final SimpleCache<Class, JSONConverter> JSON_CONVERTERS = new SimpleCache<>(JSONConverter::new);
 
+    private <T> Converter<T> compressing(Converter<T> converter) {
+        return CompressingConverter.wrap(converter, compression);
+    }
+
     @SuppressWarnings("unchecked")
     public static  <T> Converter<T> getDefaultConverter(Class<T> clazz) {
         if (IRiakObject.class.isAssignableFrom(clazz)) {
@@ -369,7 +395,7 @@ public class DefaultBucket implements Bucket {
                 original.setValue(value);
                 return original;
             }
-        }).withResolver(DefaultResolver.getInstance()).withConverter(PassThroughConverter.getInstance());
+        }).withResolver(DefaultResolver.getInstance()).withConverter(compressing(PassThroughConverter.getInstance()));
     }
 
     /**
@@ -451,7 +477,7 @@ public class DefaultBucket implements Bucket {
     @SuppressWarnings("unchecked")
     public <T> StoreObject<T> store(final T o) {
         return new StoreObject<>(client, name, o, getKey(o), retrier)
-           .withConverter(getDefaultConverter((Class<T>) o.getClass()))
+           .withConverter(compressing(getDefaultConverter((Class<T>) o.getClass())))
            .withResolver(DefaultResolver.getInstance());
     }
 
@@ -484,7 +510,7 @@ public class DefaultBucket implements Bucket {
      */
     public <T> StoreObject<T> store(final T o, Converter<T> converter) {
         return new StoreObject<>(client, name, o, getKey(o), retrier)
-           .withConverter(converter)
+           .withConverter(compressing(converter))
            .withResolver(DefaultResolver.getInstance());
     }
 
@@ -512,7 +538,7 @@ public class DefaultBucket implements Bucket {
     @SuppressWarnings("unchecked")
     public <T> StoreObject<T> store(final String key, final T o) {
         return new StoreObject<>(client, name, o, key, retrier)
-           .withConverter(getDefaultConverter((Class<T>) o.getClass()))
+           .withConverter(compressing(getDefaultConverter((Class<T>) o.getClass())))
            .withResolver(DefaultResolver.getInstance());
     }
 
@@ -540,7 +566,7 @@ public class DefaultBucket implements Bucket {
     @SuppressWarnings("unchecked")
     public <T> StoreObject<T> store(final String key, final T o, Converter<T> converter) {
         return new StoreObject<>(client, name, o, key, retrier)
-           .withConverter(converter)
+           .withConverter(compressing(converter))
            .withResolver(DefaultResolver.getInstance());
     }
 
@@ -47,6 +47,7 @@ public class FetchBucket implements RiakOperation<Bucket> {
 
     private Retrier retrier;
     private boolean lazyLoadProperties = false;
+    private BucketPropertiesCache cache;
 
     /**
      * Create a FetchBucket that delegates to the provided {@link RawClient}.
@@ -69,11 +70,13 @@ public class FetchBucket implements RiakOperation<Bucket> {
     public Bucket execute() throws RiakRetryFailedException {
         BucketProperties properties;
         if (!lazyLoadProperties) {
-            properties = retrier.attempt(() -> client.fetchBucket(bucket));
+            properties = cache == null ? retrier.attempt(() -> client.fetchBucket(bucket)) : cache.get(client,
+                                                                                                      retrier,
+                                                                                                      bucket);
         }
         else
         {
-            properties = new LazyBucketProperties(client, retrier, bucket);
+            properties = new LazyBucketProperties(client, retrier, bucket, cache);
         }
         
         return new DefaultBucket(bucket, properties, client, retrier);
@@ -90,6 +93,19 @@ public class FetchBucket implements RiakOperation<Bucket> {
         return this;
     }
     
+    /**
+     * Read the {@link BucketProperties} through a {@link BucketPropertiesCache}
+     * rather than always fetching them from Riak.
+     * 
+     * @param cache
+     *            the cache to use, <code>null</code> to always fetch
+     * @return this
+     */
+    public FetchBucket withCache(final BucketPropertiesCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
     /**
      * Prior to the addition of this method there was no way to prevent 
      * {@link #execute() } from fetching the {@link BucketProperties} from Riak. 
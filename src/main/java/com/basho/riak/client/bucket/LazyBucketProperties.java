@@ -45,7 +45,23 @@ public class LazyBucketProperties implements BucketProperties {
      * @param bucketName - Name of the Riak bucket 
      */
     public LazyBucketProperties(final RawClient client, final Retrier retrier, final String bucket) {
-        future = new FutureTask<>(() -> retrier.attempt(() -> client.fetchBucket(bucket)));
+        this(client, retrier, bucket, null);
+    }
+
+    /**
+     * 
+     * @param client - a {@link RawClient} to be used to fetch the bucket properties
+     * @param retrier - the {@link Retrier} to use
+     * @param bucketName - Name of the Riak bucket 
+     * @param cache - a {@link BucketPropertiesCache} to read through, may be null
+     */
+    public LazyBucketProperties(final RawClient client, final Retrier retrier, final String bucket,
+            final BucketPropertiesCache cache) {
+        if (cache == null) {
+            future = new FutureTask<>(() -> retrier.attempt(() -> client.fetchBucket(bucket)));
+        } else {
+            future = new FutureTask<>(() -> cache.get(client, retrier, bucket));
+        }
     }
 
     /**
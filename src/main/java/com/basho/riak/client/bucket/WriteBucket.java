@@ -21,6 +21,7 @@ import com.basho.riak.client.RiakRetryFailedException;
 import com.basho.riak.client.builders.BucketPropertiesBuilder;
 import com.basho.riak.client.cap.Quora;
 import com.basho.riak.client.cap.Retrier;
+import com.basho.riak.client.compress.Compression;
 import com.basho.riak.client.operations.RiakOperation;
 import com.basho.riak.client.query.functions.NamedErlangFunction;
 import com.basho.riak.client.query.functions.NamedFunction;
@@ -56,6 +57,8 @@ public class WriteBucket implements RiakOperation<Bucket> {
 
     private BucketPropertiesBuilder builder = new BucketPropertiesBuilder();
     private boolean lazyLoadProperties = false;
+    private Compression compression;
+    private BucketPropertiesCache cache;
     
     /**
      * Create WriteBucket operation that delegates to the given {@link RawClient} via the give {@link Retrier}.
@@ -90,6 +93,10 @@ public class WriteBucket implements RiakOperation<Bucket> {
         // replace the default builder with one using the properties from the 
         // bucket that was passed in.
         builder = BucketPropertiesBuilder.from(bucket);
+
+        if (bucket instanceof DefaultBucket) {
+            compression = ((DefaultBucket) bucket).getCompression();
+        }
     }
 
     /**
@@ -106,14 +113,20 @@ public class WriteBucket implements RiakOperation<Bucket> {
 
         BucketProperties properties;
         
+        if (cache != null) {
+            cache.invalidate(name);
+        }
+
         if (!lazyLoadProperties) {
-            properties = retrier.attempt(() -> client.fetchBucket(name));
+            properties = cache == null ? retrier.attempt(() -> client.fetchBucket(name)) : cache.get(client,
+                                                                                                    retrier,
+                                                                                                    name);
         } else {
-            properties = new LazyBucketProperties(client, retrier, name);
+            properties = new LazyBucketProperties(client, retrier, name, cache);
         }
             
 
-        return new DefaultBucket(name, properties, client, retrier);
+        return new DefaultBucket(name, properties, client, retrier, compression);
     }
 
     /**
@@ -424,6 +437,31 @@ public class WriteBucket implements RiakOperation<Bucket> {
         return this;
     }
 
+    /**
+     * Invalidate this bucket's entry in <code>cache</code> once the update is
+     * written, and read the updated properties back through it.
+     * 
+     * @param cache
+     *            the {@link BucketPropertiesCache} in use, may be null
+     * @return this
+     */
+    public WriteBucket withCache(final BucketPropertiesCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * Compress values stored through the returned {@link Bucket}. This is
+     * client side only, nothing is stored in the bucket properties.
+     *
+     * @param compression the {@link Compression} to apply, null for none
+     * @return this
+     */
+    public WriteBucket compression(Compression compression) {
+        this.compression = compression;
+        return this;
+    }
+
     /**
      * convenience for setting search=true **and** adding the search precommit
      * hook (support for both pre-1.0 and 1.0 search)
@@ -17,6 +17,8 @@ import com.basho.riak.client.bucket.Bucket;
 import com.basho.riak.client.bucket.DefaultBucket;
 import com.basho.riak.client.bucket.DomainBucket;
 import com.basho.riak.client.cap.*;
+import com.basho.riak.client.compress.Compression;
+import com.basho.riak.client.convert.CompressingConverter;
 import com.basho.riak.client.convert.Converter;
 import com.basho.riak.client.convert.JSONConverter;
 import com.basho.riak.client.raw.DeleteMeta;
@@ -33,6 +35,7 @@ import com.basho.riak.client.raw.StoreMeta;
  * <li> {@link Converter} : {@link JSONConverter} </li>
  * <li> {@link Retrier} : {@link DefaultRetrier#attempts(int)} configured for 3 attempts </li>
  * <li> {@link MutationProducer} : anonymous instance that produces a {@link ClobberMutation} for {@link MutationProducer#produce(Object)}</li>
+ * <li> {@link Compression} : none, values are stored as the {@link Converter} produces them</li>
  * </p>
  * @author russell
  * @param <T>
@@ -50,6 +53,7 @@ public class DomainBucketBuilder<T> {
     private MutationProducer<T> mutationProducer;
     private Retrier retrier = DefaultRetrier.attempts(3);
     private boolean withoutFetch;
+    private Compression compression;
 
     private FetchMeta.Builder fetchMetaBuilder = new FetchMeta.Builder();
     private StoreMeta.Builder storeMetaBuilder = new StoreMeta.Builder();
@@ -79,7 +83,7 @@ public class DomainBucketBuilder<T> {
             mutationProducer = ClobberMutation::new;
         }
 
-        return new DomainBucket<>(bucket, resolver, converter, mutationProducer,
+        return new DomainBucket<>(bucket, resolver, CompressingConverter.wrap(converter, compression), mutationProducer,
            storeMetaBuilder.returnBody(returnBody).build(), fetchMetaBuilder.build(), deleteMetaBuilder.build(),
            clazz, retrier, withoutFetch);
     }
@@ -337,5 +341,16 @@ public class DomainBucketBuilder<T> {
         this.withoutFetch = withoutFetch;
         return this;
     }
+
+    /**
+     * Compress values stored by the built {@link DomainBucket}, wraps the
+     * {@link Converter} in a {@link CompressingConverter}.
+     * @param compression the {@link Compression} to apply, null for none (the default)
+     * @return this
+     */
+    public DomainBucketBuilder<T> compression(Compression compression) {
+        this.compression = compression;
+        return this;
+    }
     
 }
@@ -37,10 +37,13 @@ public class RiakObjectBuilder {
     private VClock vclock;
     private String vtag;
     private Date lastModified;
-    private Collection<RiakLink> links = new ArrayList<>();
-    private RiakIndexes indexes = new RiakIndexes();
-    private Map<String, String> userMeta = new HashMap<>();
+    // links, indexes and user meta are only allocated when set; most
+    // fetched objects have none of them
+    private Collection<RiakLink> links;
+    private RiakIndexes indexes;
+    private Map<String, String> userMeta;
     private String contentType;
+    private String contentEncoding;
     private boolean isDeleted = false;
     /**
      * Create a new builder for a {@link IRiakObject} at bucket/key
@@ -77,6 +80,7 @@ public class RiakObjectBuilder {
         RiakObjectBuilder rob = new RiakObjectBuilder(o.getBucket(), key);
         rob.vclock = o.getVClock();
         rob.contentType = o.getContentType();
+        rob.contentEncoding = o.getContentEncoding();
         rob.lastModified = o.getLastModified();
         rob.value = o.getValue();
         rob.links = o.getLinks();
@@ -98,6 +102,7 @@ public class RiakObjectBuilder {
         RiakObjectBuilder rob = new RiakObjectBuilder(o.getBucket(), o.getKey());
         rob.vclock = o.getVClock();
         rob.contentType = o.getContentType();
+        rob.contentEncoding = o.getContentEncoding();
         rob.lastModified = o.getLastModified();
         rob.value = o.getValue();
         rob.links = o.getLinks();
@@ -112,8 +117,8 @@ public class RiakObjectBuilder {
      * @return an {@link IRiakObject} with the values from this builder.
      */
     public IRiakObject build() {
-        return new DefaultRiakObject(bucket, key, vclock, vtag, lastModified, contentType, value, links, userMeta,
-                                     indexes, isDeleted);
+        return new DefaultRiakObject(bucket, key, vclock, vtag, lastModified, contentType, contentEncoding, value,
+                                     links, userMeta, indexes, isDeleted);
     }
 
     /**
@@ -206,6 +211,9 @@ public class RiakObjectBuilder {
      * @return this
      */
     public RiakObjectBuilder addLink(String bucket, String key, String tag) {
+        if (links == null) {
+            links = new ArrayList<>();
+        }
         synchronized (links) {
             links.add(new RiakLink(bucket, key, tag));
         }
@@ -234,7 +242,7 @@ public class RiakObjectBuilder {
      * @return this
      */
     public RiakObjectBuilder addIndex(String index, long value) {
-        this.indexes.add(index, value);
+        indexes().add(index, value);
         return this;
     }
 
@@ -246,10 +254,17 @@ public class RiakObjectBuilder {
      * @return this
      */
     public RiakObjectBuilder addIndex(String index, String value) {
-        this.indexes.add(index, value);
+        indexes().add(index, value);
         return this;
     }
 
+    private RiakIndexes indexes() {
+        if (indexes == null) {
+            indexes = new RiakIndexes();
+        }
+        return indexes;
+    }
+
     /**
      * A map of user meta data to set on the new riak object.
      * 
@@ -273,6 +288,9 @@ public class RiakObjectBuilder {
      * @return this
      */
     public RiakObjectBuilder addUsermeta(String key, String value) {
+        if (userMeta == null) {
+            userMeta = new HashMap<>();
+        }
         synchronized (userMeta) {
             userMeta.put(key, value);
         }
@@ -290,6 +308,18 @@ public class RiakObjectBuilder {
         return this;
     }
 
+    /**
+     * The content-encoding of the data payload, if it is already encoded
+     * (e.g. <code>gzip</code>).
+     * 
+     * @param contentEncoding
+     * @return this
+     */
+    public RiakObjectBuilder withContentEncoding(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+        return this;
+    }
+
     /**
      * The new Riak objects vector clock.
      * @param vclock
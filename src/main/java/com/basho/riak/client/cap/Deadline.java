@@ -0,0 +1,194 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.cap;
+
+import java.util.concurrent.TimeUnit;
+
+import com.basho.riak.client.operations.RiakOperation;
+
+/**
+ * A point in time by which a {@link RiakOperation} must finish, however many
+ * retries, pool waits and round trips it takes.
+ * 
+ * <p>
+ * Give one to an operation with <code>withDeadline</code>. While the
+ * operation executes the deadline is bound to the calling thread (see
+ * {@link #bind(Deadline)}) and each layer spends from what is left:
+ * {@link DefaultRetrier} stops retrying, the PB connection pool waits no
+ * longer than the remaining time for a connection, PB socket reads time out
+ * with it, and the server side <code>timeout</code> of fetches, stores and
+ * deletes is capped to it. When it is used up a
+ * {@link DeadlineExceededException} is thrown.
+ * </p>
+ * <p>
+ * A deadline is absolute, so the same one can be shared by several
+ * operations that together must meet one budget:
+ * </p>
+ * 
+ * <pre>
+ * Deadline d = Deadline.in(100, TimeUnit.MILLISECONDS);
+ * MyPojo p = bucket.fetch(&quot;k&quot;, MyPojo.class).withDeadline(d).execute();
+ * bucket.store(p).withDeadline(d).execute();
+ * </pre>
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<Deadline>();
+    private static final Scope NO_OP = () -> {};
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @param duration
+     *            how long from now
+     * @param unit
+     *            the unit of <code>duration</code>
+     * @return a deadline <code>duration</code> from now
+     */
+    public static Deadline in(long duration, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(duration));
+    }
+
+    /**
+     * @return the time left in nanoseconds, negative once passed
+     */
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    /**
+     * @return the time left in whole milliseconds, rounded up so that a
+     *         deadline not yet passed never reports 0, negative or 0 once
+     *         passed
+     */
+    public long remainingMillis() {
+        long nanos = remainingNanos();
+        return nanos <= 0 ? TimeUnit.NANOSECONDS.toMillis(nanos) : TimeUnit.NANOSECONDS.toMillis(nanos + 999999);
+    }
+
+    /**
+     * @return true if the deadline has passed
+     */
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * @param doing
+     *            what was being done, for the message
+     * @throws DeadlineExceededException
+     *             if the deadline has passed
+     */
+    public void check(String doing) {
+        if (isExpired()) {
+            throw exceeded(doing, null);
+        }
+    }
+
+    /**
+     * @param doing
+     *            what was being done, for the message
+     * @param cause
+     *            the failure seen when the deadline was found to have passed,
+     *            may be null
+     * @return an exception to throw
+     */
+    public DeadlineExceededException exceeded(String doing, Throwable cause) {
+        return new DeadlineExceededException("deadline exceeded by " + TimeUnit.NANOSECONDS.toMillis(-remainingNanos())
+                                             + "ms " + doing, cause);
+    }
+
+    /**
+     * @return the deadline bound to the calling thread, or null
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Bind <code>deadline</code> to the calling thread until the returned
+     * {@link Scope} is closed. If the thread already has an earlier deadline
+     * that one stays in force.
+     * 
+     * <pre>
+     * Deadline.Scope scope = Deadline.bind(deadline);
+     * try {
+     *     ...
+     * } finally {
+     *     scope.close();
+     * }
+     * </pre>
+     * 
+     * @param deadline
+     *            the deadline, null binds nothing
+     * @return a {@link Scope} that restores the previous deadline on close
+     */
+    public static Scope bind(Deadline deadline) {
+        if (deadline == null) {
+            return NO_OP;
+        }
+        final Deadline previous = CURRENT.get();
+        if (previous != null && previous.deadlineNanos - deadline.deadlineNanos <= 0) {
+            return NO_OP;
+        }
+        CURRENT.set(deadline);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * The server side timeout to send with a request: <code>timeout</code>
+     * capped at what is left of the calling thread's deadline.
+     * 
+     * @param timeout
+     *            the timeout asked for, in milliseconds, or null
+     * @return the timeout to send, null if neither is set
+     * @throws DeadlineExceededException
+     *             if the calling thread's deadline has passed
+     */
+    public static Integer capTimeout(Integer timeout) {
+        final Deadline current = CURRENT.get();
+        if (current == null) {
+            return timeout;
+        }
+        final long remaining = current.remainingMillis();
+        if (remaining <= 0) {
+            throw current.exceeded("before sending the request", null);
+        }
+        if (timeout != null && timeout <= remaining) {
+            return timeout;
+        }
+        return (int) Math.min(remaining, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Restores the thread's previous deadline when closed.
+     */
+    public interface Scope extends AutoCloseable {
+        void close();
+    }
+
+    @Override public String toString() {
+        return "Deadline [remainingMillis=" + remainingMillis() + "]";
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.cap;
+
+/**
+ * Thrown when an operation's {@link Deadline} passes before it completes.
+ * Unchecked so it passes through the {@link Retrier} and
+ * {@link com.basho.riak.client.raw.RawClient} layers unchanged; it is never
+ * retried.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = -2412783004716380455L;
+
+    /**
+     * @param message
+     * @param cause
+     *            the failure seen as the deadline passed, may be null
+     */
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
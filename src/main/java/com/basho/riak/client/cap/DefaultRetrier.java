@@ -30,6 +30,11 @@ import com.basho.riak.client.raw.MatchFoundException;
  * {@link RiakRetryFailedException}. It is important to note that there is no
  * backoff between attempts.
  * </p>
+ * <p>
+ * If the calling thread has a {@link Deadline} no attempt is started after it
+ * passes, and a failure after it passes is thrown as a
+ * {@link DeadlineExceededException} rather than retried.
+ * </p>
  * 
  * @author russell
  */
@@ -68,11 +73,18 @@ public class DefaultRetrier implements Retrier {
      *             if the Callable throws an exception <code>times</code> times
      */
     public static <T> T attempt(final Callable<T> command, final int times) throws RiakRetryFailedException {
+        final Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            deadline.check("before attempting the operation");
+        }
         try {
             return command.call();
-        } catch (MatchFoundException | ConversionException e) {
+        } catch (MatchFoundException | ConversionException | DeadlineExceededException e) {
             throw e;
         } catch (Exception e) {
+            if (deadline != null && deadline.isExpired()) {
+                throw deadline.exceeded("after a failed attempt", e);
+            }
             if (times == 0) {
                 throw new RiakRetryFailedException(e);
             } else {
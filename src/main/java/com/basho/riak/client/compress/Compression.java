@@ -0,0 +1,123 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.compress;
+
+import java.io.IOException;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.builders.RiakObjectBuilder;
+
+/**
+ * When, and how, to compress values on store.
+ * <p>
+ * Values smaller than the threshold, already encoded, or that don't get
+ * smaller when encoded are stored as they are. Creating a
+ * <code>Compression</code> registers its codec with {@link ValueCodecs} so
+ * that the values it writes are decoded on fetch.
+ * </p>
+ * 
+ * @see com.basho.riak.client.builders.DomainBucketBuilder#compression(Compression)
+ * @see com.basho.riak.client.bucket.WriteBucket#compression(Compression)
+ */
+public final class Compression {
+
+    /**
+     * Values below this many bytes are not worth compressing by default
+     */
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    private final ValueCodec codec;
+    private final int threshold;
+
+    /**
+     * Compress values of {@link #DEFAULT_THRESHOLD} bytes or more with
+     * <code>codec</code>
+     * 
+     * @param codec
+     */
+    public Compression(ValueCodec codec) {
+        this(codec, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param codec
+     *            the codec to compress with
+     * @param threshold
+     *            the size in bytes at and above which values are compressed
+     */
+    public Compression(ValueCodec codec, int threshold) {
+        if (codec == null) {
+            throw new IllegalArgumentException("codec cannot be null");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold cannot be negative");
+        }
+        this.codec = codec;
+        this.threshold = threshold;
+        ValueCodecs.register(codec);
+    }
+
+    public static Compression gzip() {
+        return new Compression(ValueCodecs.GZIP);
+    }
+
+    public static Compression deflate() {
+        return new Compression(ValueCodecs.DEFLATE);
+    }
+
+    public static Compression lz4() {
+        return new Compression(ValueCodecs.LZ4);
+    }
+
+    public ValueCodec getCodec() {
+        return codec;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Compress the value of <code>riakObject</code> if this policy applies to
+     * it.
+     * 
+     * @param riakObject
+     *            the object about to be stored, is not changed
+     * @return <code>riakObject</code> or a copy with the encoded value and
+     *         content-encoding
+     * @throws IOException
+     *             if the codec fails
+     */
+    public IRiakObject compress(IRiakObject riakObject) throws IOException {
+        if (riakObject == null || riakObject.getContentEncoding() != null) {
+            return riakObject;
+        }
+
+        final byte[] value = riakObject.getValue();
+        if (value == null || value.length < threshold) {
+            return riakObject;
+        }
+
+        final byte[] encoded = codec.encode(value);
+        if (encoded.length >= value.length) {
+            return riakObject;
+        }
+
+        return RiakObjectBuilder.from(riakObject)
+            .withVtag(riakObject.getVtag())
+            .withValue(encoded)
+            .withContentEncoding(codec.getEncoding())
+            .build();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.compress;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The <code>deflate</code> content-encoding (zlib wrapped deflate, as in
+ * HTTP).
+ */
+public class DeflateCodec implements ValueCodec {
+
+    public static final String ENCODING = "deflate";
+
+    private final int level;
+
+    /**
+     * A codec using the default compression level
+     */
+    public DeflateCodec() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param level
+     *            the compression level, 1 (fastest) to 9 (smallest)
+     */
+    public DeflateCodec(int level) {
+        this.level = level;
+    }
+
+    public String getEncoding() {
+        return ENCODING;
+    }
+
+    public byte[] encode(byte[] value) throws IOException {
+        Deflater deflater = new Deflater(level);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(value.length / 2 + 16);
+            try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+                deflate.write(value);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public byte[] decode(byte[] value) throws IOException {
+        Inflater inflater = new Inflater();
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(value), inflater)) {
+            return ValueCodecs.readFully(in, value.length * 4);
+        } finally {
+            inflater.end();
+        }
+    }
+}
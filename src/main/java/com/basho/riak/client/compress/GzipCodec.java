@@ -0,0 +1,47 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.compress;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The <code>gzip</code> content-encoding.
+ */
+public class GzipCodec implements ValueCodec {
+
+    public static final String ENCODING = "gzip";
+
+    public String getEncoding() {
+        return ENCODING;
+    }
+
+    public byte[] encode(byte[] value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(value.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(value);
+        }
+        return out.toByteArray();
+    }
+
+    public byte[] decode(byte[] value) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(value))) {
+            return ValueCodecs.readFully(in, value.length * 4);
+        }
+    }
+}
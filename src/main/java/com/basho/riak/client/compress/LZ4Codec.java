@@ -0,0 +1,237 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.compress;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A fast, dependency free, codec using the LZ4 block format.
+ * <p>
+ * Encoded values are the 4 byte big-endian length of the plain value
+ * followed by a single LZ4 block. Compression is the greedy single pass
+ * LZ4 algorithm: it trades ratio for speed, typically compressing less than
+ * {@link GzipCodec} but several times faster in both directions.
+ * </p>
+ * <p>
+ * The content-encoding is <code>x-lz4</code>; other clients reading the
+ * same bucket need to understand it.
+ * </p>
+ */
+public class LZ4Codec implements ValueCodec {
+
+    public static final String ENCODING = "x-lz4";
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    // a match can't start in the last 12 bytes of the input
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_DISTANCE = 65535;
+    private static final int HASH_LOG = 12;
+    private static final int RUN_MASK = 15;
+    private static final int HEADER = 4;
+
+    public String getEncoding() {
+        return ENCODING;
+    }
+
+    public byte[] encode(byte[] src) {
+        final int len = src.length;
+        final byte[] dst = new byte[HEADER + len + len / 255 + 16];
+        writeIntBE(dst, 0, len);
+        int op = HEADER;
+        int anchor = 0;
+
+        if (len > MF_LIMIT) {
+            final int[] table = new int[1 << HASH_LOG];
+            Arrays.fill(table, -1);
+            final int matchLimit = len - MF_LIMIT;
+            final int limit = len - LAST_LITERALS;
+            int ip = 0;
+
+            while (ip < matchLimit) {
+                final int sequence = readInt(src, ip);
+                final int h = hash(sequence);
+                int ref = table[h];
+                table[h] = ip;
+
+                if (ref < 0 || ip - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    ip++;
+                    continue;
+                }
+
+                // catch up on literals that also match
+                while (ip > anchor && ref > 0 && src[ip - 1] == src[ref - 1]) {
+                    ip--;
+                    ref--;
+                }
+
+                int matchLen = MIN_MATCH;
+                while (ip + matchLen < limit && src[ip + matchLen] == src[ref + matchLen]) {
+                    matchLen++;
+                }
+
+                op = writeSequence(dst, op, src, anchor, ip - anchor, ip - ref, matchLen);
+                ip += matchLen;
+                anchor = ip;
+            }
+        }
+
+        op = writeLiterals(dst, op, src, anchor, len - anchor);
+        return Arrays.copyOf(dst, op);
+    }
+
+    public byte[] decode(byte[] src) throws IOException {
+        if (src.length < HEADER + 1) {
+            throw new IOException("LZ4 value too short");
+        }
+        final int len = readIntBE(src, 0);
+        // LZ4 can't expand a byte to more than 255, don't trust a length beyond that
+        if (len < 0 || len > (long) (src.length - HEADER) * 255) {
+            throw new IOException("Corrupt LZ4 value, bad length " + len);
+        }
+        final byte[] dst = new byte[len];
+        int ip = HEADER;
+        int op = 0;
+
+        try {
+            while (true) {
+                final int token = src[ip++] & 0xFF;
+
+                int literals = token >>> 4;
+                if (literals == RUN_MASK) {
+                    int b;
+                    do {
+                        b = src[ip++] & 0xFF;
+                        literals += b;
+                    } while (b == 255);
+                }
+                if (op + literals > len || ip + literals > src.length) {
+                    throw new IOException("Corrupt LZ4 value, literals overrun");
+                }
+                System.arraycopy(src, ip, dst, op, literals);
+                ip += literals;
+                op += literals;
+
+                if (ip == src.length) {
+                    break; // the last sequence has only literals
+                }
+
+                final int offset = (src[ip] & 0xFF) | ((src[ip + 1] & 0xFF) << 8);
+                ip += 2;
+                if (offset == 0 || offset > op) {
+                    throw new IOException("Corrupt LZ4 value, bad offset " + offset);
+                }
+
+                int matchLen = token & RUN_MASK;
+                if (matchLen == RUN_MASK) {
+                    int b;
+                    do {
+                        b = src[ip++] & 0xFF;
+                        matchLen += b;
+                    } while (b == 255);
+                }
+                matchLen += MIN_MATCH;
+                if (op + matchLen > len) {
+                    throw new IOException("Corrupt LZ4 value, match overrun");
+                }
+
+                int ref = op - offset;
+                if (offset >= matchLen) {
+                    System.arraycopy(dst, ref, dst, op, matchLen);
+                    op += matchLen;
+                } else {
+                    // overlapping copy repeats the last <offset> bytes
+                    for (int end = op + matchLen; op < end;) {
+                        dst[op++] = dst[ref++];
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Corrupt LZ4 value, truncated", e);
+        }
+
+        if (op != len) {
+            throw new IOException("Corrupt LZ4 value, expected " + len + " bytes but got " + op);
+        }
+        return dst;
+    }
+
+    private static int writeSequence(byte[] dst, int op, byte[] src, int literalStart, int literals, int offset,
+            int matchLen) {
+        final int tokenPos = op++;
+        int token;
+
+        if (literals >= RUN_MASK) {
+            token = RUN_MASK << 4;
+            op = writeLength(dst, op, literals - RUN_MASK);
+        } else {
+            token = literals << 4;
+        }
+        System.arraycopy(src, literalStart, dst, op, literals);
+        op += literals;
+
+        dst[op++] = (byte) offset;
+        dst[op++] = (byte) (offset >>> 8);
+
+        final int ml = matchLen - MIN_MATCH;
+        if (ml >= RUN_MASK) {
+            token |= RUN_MASK;
+            op = writeLength(dst, op, ml - RUN_MASK);
+        } else {
+            token |= ml;
+        }
+        dst[tokenPos] = (byte) token;
+        return op;
+    }
+
+    private static int writeLiterals(byte[] dst, int op, byte[] src, int literalStart, int literals) {
+        if (literals >= RUN_MASK) {
+            dst[op++] = (byte) (RUN_MASK << 4);
+            op = writeLength(dst, op, literals - RUN_MASK);
+        } else {
+            dst[op++] = (byte) (literals << 4);
+        }
+        System.arraycopy(src, literalStart, dst, op, literals);
+        return op + literals;
+    }
+
+    private static int writeLength(byte[] dst, int op, int length) {
+        while (length >= 255) {
+            dst[op++] = (byte) 255;
+            length -= 255;
+        }
+        dst[op++] = (byte) length;
+        return op;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static int readInt(byte[] b, int i) {
+        return (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16 | (b[i + 3] & 0xFF) << 24;
+    }
+
+    private static int readIntBE(byte[] b, int i) {
+        return (b[i] & 0xFF) << 24 | (b[i + 1] & 0xFF) << 16 | (b[i + 2] & 0xFF) << 8 | (b[i + 3] & 0xFF);
+    }
+
+    private static void writeIntBE(byte[] b, int i, int v) {
+        b[i] = (byte) (v >>> 24);
+        b[i + 1] = (byte) (v >>> 16);
+        b[i + 2] = (byte) (v >>> 8);
+        b[i + 3] = (byte) v;
+    }
+}
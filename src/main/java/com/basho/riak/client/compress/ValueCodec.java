@@ -0,0 +1,50 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.compress;
+
+import java.io.IOException;
+
+/**
+ * Encodes and decodes object values for one content-encoding.
+ * <p>
+ * Implementations must be thread safe.
+ * </p>
+ *
+ * @see ValueCodecs
+ */
+public interface ValueCodec {
+
+    /**
+     * @return the content-encoding stored with values encoded by this codec,
+     *         e.g. <code>gzip</code>
+     */
+    String getEncoding();
+
+    /**
+     * @param value
+     *            the plain value
+     * @return the encoded value
+     * @throws IOException
+     */
+    byte[] encode(byte[] value) throws IOException;
+
+    /**
+     * @param value
+     *            a value produced by {@link #encode(byte[])}
+     * @return the plain value
+     * @throws IOException
+     *             if <code>value</code> is not validly encoded
+     */
+    byte[] decode(byte[] value) throws IOException;
+}
@@ -0,0 +1,109 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.compress;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@link ValueCodec}s known to the client, by content-encoding.
+ * <p>
+ * {@link #GZIP}, {@link #DEFLATE} and {@link #LZ4} are registered from the
+ * start. The raw clients decode any fetched value whose content-encoding is
+ * registered here, register custom codecs before fetching values written
+ * with them.
+ * </p>
+ */
+public final class ValueCodecs {
+
+    public static final ValueCodec GZIP = new GzipCodec();
+    public static final ValueCodec DEFLATE = new DeflateCodec();
+    public static final ValueCodec LZ4 = new LZ4Codec();
+
+    private static final ConcurrentMap<String, ValueCodec> CODECS = new ConcurrentHashMap<>();
+
+    static {
+        register(GZIP);
+        register(DEFLATE);
+        register(LZ4);
+    }
+
+    private ValueCodecs() {}
+
+    /**
+     * Register <code>codec</code> for its content-encoding, replacing any
+     * codec already registered for it.
+     * 
+     * @param codec
+     */
+    public static void register(ValueCodec codec) {
+        CODECS.put(normalize(codec.getEncoding()), codec);
+    }
+
+    /**
+     * @param contentEncoding
+     *            a content-encoding, may be null
+     * @return the registered codec for <code>contentEncoding</code> or null
+     *         if there isn't one (or <code>contentEncoding</code> is null or
+     *         <code>identity</code>)
+     */
+    public static ValueCodec forEncoding(String contentEncoding) {
+        if (contentEncoding == null) {
+            return null;
+        }
+        return CODECS.get(normalize(contentEncoding));
+    }
+
+    /**
+     * Decode <code>value</code> if there is a codec registered for
+     * <code>contentEncoding</code>.
+     * 
+     * @param contentEncoding
+     *            the content-encoding the value was stored with, may be null
+     * @param value
+     *            the stored value, may be null
+     * @return the decoded value, or null if there is no codec for
+     *         <code>contentEncoding</code> or <code>value</code> is not
+     *         validly encoded
+     */
+    public static byte[] tryDecode(String contentEncoding, byte[] value) {
+        final ValueCodec codec = forEncoding(contentEncoding);
+        if (codec == null || value == null) {
+            return null;
+        }
+        try {
+            return codec.decode(value);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String normalize(String encoding) {
+        return encoding.trim().toLowerCase(Locale.ENGLISH);
+    }
+
+    static byte[] readFully(InputStream in, int sizeHint) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(sizeHint, 64));
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+/**
+ * Client side compression of object values.
+ * <p>
+ * A {@link com.basho.riak.client.compress.Compression} given to a
+ * {@link com.basho.riak.client.builders.DomainBucketBuilder} or
+ * {@link com.basho.riak.client.bucket.WriteBucket} compresses values over a
+ * size threshold with a {@link com.basho.riak.client.compress.ValueCodec} and
+ * stores them with the codec's content-encoding. Fetched values with a
+ * content-encoding registered in
+ * {@link com.basho.riak.client.compress.ValueCodecs} are decoded by the raw
+ * clients, whatever bucket they are read through.
+ * </p>
+ */
+package com.basho.riak.client.compress;
@@ -0,0 +1,168 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.convert;
+
+import com.basho.riak.client.IRiakObject;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.basho.riak.client.convert.ObjectMapperSelector.DEFAULT_SELECTOR;
+
+/**
+ * A {@link JSONConverter} that resolves its Jackson {@link ObjectWriter} and
+ * {@link ObjectReader}s once instead of on every call.
+ * <p>
+ * The writer is built from the selector's writing mapper when the converter
+ * is created, readers are built per content-type on first use and reused.
+ * Values are serialized into pooled output buffers. Optionally, if
+ * <code>jackson-module-afterburner</code> is on the classpath, the mappers
+ * are copied with the afterburner module registered so property access uses
+ * generated bytecode.
+ * </p>
+ * <p>
+ * Only use this converter with an {@link ObjectMapperSelector} that returns
+ * the same, fully configured, mappers on every call: changes made to a mapper
+ * after the converter has cached a reader or writer for it are not seen.
+ * </p>
+ */
+public class CachingJSONConverter<T> extends JSONConverter<T>
+{
+  private static final String AFTERBURNER_MODULE = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+  // a reader per content-type, but don't let odd content-types grow the cache
+  private static final int MAX_CACHED_READERS = 16;
+  private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+  // don't hold on to buffers that grew for unusually large values
+  private static final int MAX_POOLED_BUFFER = 64 * 1024;
+
+  private final boolean afterburner;
+  private final ObjectWriter writer;
+  private final Map<String, ObjectReader> readers = new ConcurrentHashMap<>();
+  private final Map<ObjectMapper, ObjectMapper> afterburnerCopies = new ConcurrentHashMap<>();
+  private final BlockingQueue<ByteArrayBuilder> buffers = new ArrayBlockingQueue<>(POOL_SIZE);
+
+  /**
+   * Create a caching converter for <code>clazz</code> using the default
+   * {@link ObjectMapperSelector}
+   *
+   * @param clazz the type to convert to/from
+   */
+  public CachingJSONConverter(Class<T> clazz)
+  {
+    this(DEFAULT_SELECTOR, clazz, false);
+  }
+
+  /**
+   * @param selector the source of the mappers to build readers/writers from
+   * @param clazz    the type to convert to/from
+   */
+  public CachingJSONConverter(ObjectMapperSelector selector, Class<T> clazz)
+  {
+    this(selector, clazz, false);
+  }
+
+  /**
+   * @param selector    the source of the mappers to build readers/writers from
+   * @param clazz       the type to convert to/from
+   * @param afterburner true to register Jackson's afterburner module on
+   *                    copies of the selected mappers, if it is available
+   */
+  public CachingJSONConverter(ObjectMapperSelector selector, Class<T> clazz, boolean afterburner)
+  {
+    super(selector, clazz);
+    this.afterburner = afterburner && isAfterburnerAvailable();
+    this.writer = prepare(selector.writingMapper()).writerFor(clazz);
+  }
+
+  /**
+   * @return true if <code>jackson-module-afterburner</code> can be loaded
+   */
+  public static boolean isAfterburnerAvailable()
+  {
+    try {
+      Class.forName(AFTERBURNER_MODULE, false, CachingJSONConverter.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * @return true if this converter is using afterburner enabled mappers
+   */
+  public boolean isAfterburner()
+  {
+    return afterburner;
+  }
+
+  @Override
+  protected byte[] writeValue(T domainObject) throws IOException
+  {
+    ByteArrayBuilder buffer = buffers.poll();
+    if (buffer == null) {
+      buffer = new ByteArrayBuilder();
+    }
+    try {
+      writer.writeValue(buffer, domainObject);
+      return buffer.toByteArray();
+    } finally {
+      buffer.reset();
+      if (buffer.getCurrentSegment().length <= MAX_POOLED_BUFFER) {
+        buffers.offer(buffer);
+      }
+    }
+  }
+
+  @Override
+  protected T readValue(IRiakObject riakObject) throws IOException
+  {
+    return reader(riakObject.getContentType()).readValue(riakObject.getValue());
+  }
+
+  private ObjectReader reader(String contentType)
+  {
+    final String cacheKey = contentType == null ? "" : contentType;
+    ObjectReader reader = readers.get(cacheKey);
+    if (reader == null) {
+      reader = prepare(getObjectMapperSelector().readingMapper(contentType)).readerFor(getDomainClass());
+      if (readers.size() < MAX_CACHED_READERS) {
+        readers.put(cacheKey, reader);
+      }
+    }
+    return reader;
+  }
+
+  private ObjectMapper prepare(ObjectMapper mapper)
+  {
+    if (!afterburner) {
+      return mapper;
+    }
+    return afterburnerCopies.computeIfAbsent(mapper, m -> {
+      try {
+        Module module = (Module) Class.forName(AFTERBURNER_MODULE).getDeclaredConstructor().newInstance();
+        return m.copy().registerModule(module);
+      } catch (ReflectiveOperationException e) {
+        return m;
+      }
+    });
+  }
+}
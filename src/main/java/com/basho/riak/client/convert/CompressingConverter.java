@@ -0,0 +1,75 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.convert;
+
+import java.io.IOException;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.cap.VClock;
+import com.basho.riak.client.compress.Compression;
+
+/**
+ * Wraps a {@link Converter} to compress the values it produces according to
+ * a {@link Compression}.
+ * <p>
+ * Nothing is needed on the way back: the raw clients decode values with a
+ * registered content-encoding before conversion.
+ * </p>
+ * 
+ * @param <T>
+ *            the domain type
+ */
+public class CompressingConverter<T> implements Converter<T> {
+
+    private final Converter<T> delegate;
+    private final Compression compression;
+
+    /**
+     * @param delegate
+     *            the converter to wrap
+     * @param compression
+     *            when and how to compress
+     */
+    public CompressingConverter(Converter<T> delegate, Compression compression) {
+        this.delegate = delegate;
+        this.compression = compression;
+    }
+
+    /**
+     * Returns <code>converter</code> wrapped to compress with
+     * <code>compression</code>, or <code>converter</code> itself if
+     * <code>compression</code> is null.
+     */
+    public static <T> Converter<T> wrap(Converter<T> converter, Compression compression) {
+        return compression == null ? converter : new CompressingConverter<>(converter, compression);
+    }
+
+    /* (non-Javadoc)
+     * @see com.basho.riak.client.convert.Converter#fromDomain(java.lang.String, java.lang.Object, com.basho.riak.client.cap.VClock)
+     */
+    public IRiakObject fromDomain(String bucket, T domainObject, VClock vclock) throws ConversionException {
+        try {
+            return compression.compress(delegate.fromDomain(bucket, domainObject, vclock));
+        } catch (IOException e) {
+            throw new ConversionException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.basho.riak.client.convert.Converter#toDomain(com.basho.riak.client.IRiakObject)
+     */
+    public T toDomain(IRiakObject riakObject) throws ConversionException {
+        return delegate.toDomain(riakObject);
+    }
+}
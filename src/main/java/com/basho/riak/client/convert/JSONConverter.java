@@ -87,7 +87,7 @@ public class JSONConverter<T> implements Converter<T>
     try {
       String key = getKey(domainObject);
 
-      final byte[] value = selector.writingMapper().writeValueAsBytes(domainObject);
+      final byte[] value = writeValue(domainObject);
       Map<String, String> usermetaData = annotationInfo.getUsermetaData(domainObject);
       RiakIndexes indexes = annotationInfo.getIndexes(domainObject);
       Collection<RiakLink> links = annotationInfo.getLinks(domainObject);
@@ -131,9 +131,7 @@ public class JSONConverter<T> implements Converter<T>
       }
     } else {
       try {
-        final T domainObject = selector
-          .readingMapper(riakObject.getContentType())
-          .readValue(riakObject.getValue(), clazz);
+        final T domainObject = readValue(riakObject);
         annotationInfo.setRiakKey(domainObject, riakObject.getKey());
         annotationInfo.setRiakVClock(domainObject, riakObject.getVClock());
         annotationInfo.setUsermetaData(riakObject.getMeta(), domainObject);
@@ -146,6 +144,40 @@ public class JSONConverter<T> implements Converter<T>
     }
   }
 
+  /**
+   * Serializes <code>domainObject</code> for the payload. Resolves the
+   * writing {@link ObjectMapper} from the selector on every call.
+   *
+   * @param domainObject the object to serialize
+   * @return the serialized bytes
+   */
+  protected byte[] writeValue(T domainObject) throws IOException
+  {
+    return selector.writingMapper().writeValueAsBytes(domainObject);
+  }
+
+  /**
+   * Deserializes the payload of <code>riakObject</code>. Resolves the reading
+   * {@link ObjectMapper} for the object's content-type on every call.
+   *
+   * @param riakObject a non deleted {@link IRiakObject}
+   * @return a new instance of <code>T</code>
+   */
+  protected T readValue(IRiakObject riakObject) throws IOException
+  {
+    return selector
+      .readingMapper(riakObject.getContentType())
+      .readValue(riakObject.getValue(), clazz);
+  }
+
+  /**
+   * @return the type this converter converts to/from
+   */
+  protected Class<T> getDomainClass()
+  {
+    return clazz;
+  }
+
   /**
    * Returns the {@link ObjectMapper} being used.
    * This is a convenience method to allow changing its behavior.
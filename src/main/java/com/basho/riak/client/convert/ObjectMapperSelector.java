@@ -2,37 +2,99 @@ package com.basho.riak.client.convert;
 
 import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 
+import static com.basho.riak.client.http.util.Constants.CTYPE_CBOR;
 import static com.basho.riak.client.http.util.Constants.CTYPE_JSON_UTF8;
+import static com.basho.riak.client.http.util.Constants.CTYPE_SMILE;
 
 /**
+ * Selects the Jackson {@link ObjectMapper} to read and write payloads with.
+ * <p>
+ * The built in selectors all read by content-type: a payload stored as
+ * Smile or CBOR is read with the matching binary mapper and anything else
+ * as JSON, whatever format the selector writes. So a bucket can be moved to
+ * a binary format one write at a time.
+ * </p>
+ *
  * @author Guido Medina, created by gmedina on 25/11/18.
  */
 public interface ObjectMapperSelector
 {
   Module RIAK_JACKSON_MODULE = new RiakJacksonModule();
   ObjectMapper OBJECT_MAPPER = new ObjectMapper().registerModule(RIAK_JACKSON_MODULE);
+  ObjectMapper SMILE_OBJECT_MAPPER = new ObjectMapper(new SmileFactory()).registerModule(RIAK_JACKSON_MODULE);
+  ObjectMapper CBOR_OBJECT_MAPPER = new ObjectMapper(new CBORFactory()).registerModule(RIAK_JACKSON_MODULE);
 
-  ObjectMapperSelector DEFAULT_SELECTOR = new ObjectMapperSelector()
+  ObjectMapperSelector DEFAULT_SELECTOR = forFormat(OBJECT_MAPPER, CTYPE_JSON_UTF8);
+
+  /**
+   * Writes Smile, reads any of JSON, Smile or CBOR.
+   */
+  ObjectMapperSelector SMILE_SELECTOR = forFormat(SMILE_OBJECT_MAPPER, CTYPE_SMILE);
+
+  /**
+   * Writes CBOR, reads any of JSON, Smile or CBOR.
+   */
+  ObjectMapperSelector CBOR_SELECTOR = forFormat(CBOR_OBJECT_MAPPER, CTYPE_CBOR);
+
+  /**
+   * Returns the built in mapper for the format named by
+   * <code>contentType</code>, parameters such as charset are ignored.
+   *
+   * @param contentType content-type, may be null
+   * @return the Smile or CBOR mapper for those content-types, otherwise the
+   * JSON mapper
+   */
+  static ObjectMapper mapperForContentType(String contentType)
   {
-    @Override
-    public ObjectMapper readingMapper(String contentType)
-    {
+    if (contentType == null) {
       return OBJECT_MAPPER;
     }
-
-    @Override
-    public ObjectMapper writingMapper()
-    {
-      return OBJECT_MAPPER;
+    int end = contentType.indexOf(';');
+    String mimeType = (end < 0 ? contentType : contentType.substring(0, end)).trim();
+    if (CTYPE_SMILE.equalsIgnoreCase(mimeType)) {
+      return SMILE_OBJECT_MAPPER;
+    } else if (CTYPE_CBOR.equalsIgnoreCase(mimeType)) {
+      return CBOR_OBJECT_MAPPER;
     }
+    return OBJECT_MAPPER;
+  }
 
-    @Override
-    public String contentType()
+  /**
+   * Creates a selector that writes with <code>writingMapper</code>, tagging
+   * values with <code>contentType</code>, and reads with
+   * {@link #mapperForContentType(String)}.
+   *
+   * @param writingMapper the mapper to write with
+   * @param contentType   the content-type of what <code>writingMapper</code>
+   *                      produces
+   * @return a new selector
+   */
+  static ObjectMapperSelector forFormat(final ObjectMapper writingMapper, final String contentType)
+  {
+    return new ObjectMapperSelector()
     {
-      return CTYPE_JSON_UTF8;
-    }
-  };
+      @Override
+      public ObjectMapper readingMapper(String readContentType)
+      {
+        return mapperForContentType(readContentType);
+      }
+
+      @Override
+      public ObjectMapper writingMapper()
+      {
+        return writingMapper;
+      }
+
+      @Override
+      public String contentType()
+      {
+        return contentType;
+      }
+    };
+  }
 
   /**
    * Returns the reading ObjectMapper associated with this content-type.
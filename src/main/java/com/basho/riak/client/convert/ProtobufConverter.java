@@ -0,0 +1,110 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.convert;
+
+import static com.basho.riak.client.http.util.Constants.CTYPE_PROTOBUF;
+
+import java.util.function.Function;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.builders.RiakObjectBuilder;
+import com.basho.riak.client.cap.VClock;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+
+/**
+ * Stores protocol buffers messages as their binary encoding, with the
+ * <code>application/x-protobuf</code> content-type.
+ * <p>
+ * Generated message classes can't carry a {@link RiakKey} annotation, so the
+ * key is taken from the message with a function. Vector clocks, user meta
+ * data, indexes and links are not mapped.
+ * </p>
+ * <p>
+ * To move a bucket over from another format, give a fallback
+ * {@link Converter} (for instance a {@link JSONConverter} for a class that
+ * maps the old JSON) to read values that are not protocol buffers.
+ * </p>
+ *
+ * @param <T> the message type
+ */
+public class ProtobufConverter<T extends MessageLite> implements Converter<T> {
+
+    private final Parser<T> parser;
+    private final Function<? super T, String> keyFunction;
+    private final Converter<T> fallback;
+
+    /**
+     * @param parser
+     *            the parser of the message type, e.g. <code>Person.PARSER</code>
+     * @param keyFunction
+     *            gets the Riak key of a message
+     */
+    public ProtobufConverter(Parser<T> parser, Function<? super T, String> keyFunction) {
+        this(parser, keyFunction, null);
+    }
+
+    /**
+     * @param parser
+     *            the parser of the message type, e.g. <code>Person.PARSER</code>
+     * @param keyFunction
+     *            gets the Riak key of a message
+     * @param fallback
+     *            converts values with a content-type other than
+     *            <code>application/x-protobuf</code>, may be null
+     */
+    public ProtobufConverter(Parser<T> parser, Function<? super T, String> keyFunction, Converter<T> fallback) {
+        this.parser = parser;
+        this.keyFunction = keyFunction;
+        this.fallback = fallback;
+    }
+
+    /* (non-Javadoc)
+     * @see com.basho.riak.client.convert.Converter#fromDomain(java.lang.String, java.lang.Object, com.basho.riak.client.cap.VClock)
+     */
+    public IRiakObject fromDomain(String bucket, T domainObject, VClock vclock) throws ConversionException {
+        return RiakObjectBuilder.newBuilder(bucket, keyFunction.apply(domainObject))
+            .withValue(domainObject.toByteArray())
+            .withVClock(vclock)
+            .withContentType(CTYPE_PROTOBUF)
+            .build();
+    }
+
+    /**
+     * Parses the value of <code>riakObject</code>. Deleted objects convert to
+     * <code>null</code> as a message has nowhere to mark a tombstone.
+     *
+     * @see com.basho.riak.client.convert.Converter#toDomain(com.basho.riak.client.IRiakObject)
+     */
+    public T toDomain(IRiakObject riakObject) throws ConversionException {
+        if (riakObject == null || riakObject.isDeleted()) {
+            return null;
+        }
+
+        if (fallback != null && !isProtobuf(riakObject.getContentType())) {
+            return fallback.toDomain(riakObject);
+        }
+
+        try {
+            return parser.parseFrom(riakObject.getValue());
+        } catch (InvalidProtocolBufferException e) {
+            throw new ConversionException(e);
+        }
+    }
+
+    private static boolean isProtobuf(String contentType) {
+        return contentType != null && contentType.regionMatches(true, 0, CTYPE_PROTOBUF, 0, CTYPE_PROTOBUF.length());
+    }
+}
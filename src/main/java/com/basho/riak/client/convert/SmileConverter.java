@@ -0,0 +1,40 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.convert;
+
+import static com.basho.riak.client.convert.ObjectMapperSelector.SMILE_SELECTOR;
+
+/**
+ * A {@link JSONConverter} that stores values in Jackson's binary Smile
+ * format, with the <code>application/x-jackson-smile</code> content-type.
+ * <p>
+ * Reads go by content-type, so values previously stored as JSON (or any
+ * other format known to {@link ObjectMapperSelector#mapperForContentType(String)})
+ * are still read, and are rewritten as Smile when next stored.
+ * </p>
+ */
+public class SmileConverter<T> extends JSONConverter<T>
+{
+  /**
+   * Create a SmileConverter for creating instances of <code>clazz</code>
+   * from Smile (or JSON) and instances of {@link com.basho.riak.client.IRiakObject}
+   * with a Smile payload from instances of <code>clazz</code>
+   *
+   * @param clazz the type to convert to/from
+   */
+  public SmileConverter(Class<T> clazz)
+  {
+    super(SMILE_SELECTOR, clazz);
+  }
+}
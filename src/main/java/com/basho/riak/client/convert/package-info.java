@@ -26,6 +26,15 @@
  * implementation that uses Jackson JSON library.
  * See <a href="http://wiki.fasterxml.com/JacksonHome">Jackson</a>
  * </p>
+ * <p>
+ * {@link com.basho.riak.client.convert.SmileConverter} and
+ * {@link com.basho.riak.client.convert.CBORConverter} store the same values in
+ * smaller, faster to parse, binary formats and
+ * {@link com.basho.riak.client.convert.ProtobufConverter} stores protocol
+ * buffers messages. Any of them can be given to a
+ * {@link com.basho.riak.client.bucket.DomainBucket} with
+ * {@link com.basho.riak.client.builders.DomainBucketBuilder#withConverter(Converter)}.
+ * </p>
  * 
  * @see com.basho.riak.client.convert.JSONConverter
  * 
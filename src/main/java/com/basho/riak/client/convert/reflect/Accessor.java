@@ -0,0 +1,41 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.convert.reflect;
+
+/**
+ * Reads and writes a single Riak annotated member of a domain object.
+ * 
+ * @see Accessors
+ */
+public interface Accessor {
+
+    /**
+     * @param target
+     *            the domain object
+     * @return the value of the member on <code>target</code>
+     * @throws IllegalStateException
+     *             if the value cannot be read
+     */
+    Object get(Object target);
+
+    /**
+     * @param target
+     *            the domain object
+     * @param value
+     *            the new value for the member on <code>target</code>
+     * @throws IllegalStateException
+     *             if the value cannot be written
+     */
+    void set(Object target, Object value);
+}
@@ -0,0 +1,289 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.convert.reflect;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Factory for {@link Accessor}s.
+ * <p>
+ * Public getter/setter methods on public classes are bound with
+ * {@link LambdaMetafactory}, other methods and all fields with
+ * {@link MethodHandle}s. Both are inlined by the JIT, unlike
+ * {@link Field#get(Object)} and {@link Method#invoke(Object, Object...)}. If a
+ * member cannot be bound (security manager, class loader visibility, static
+ * members) a reflective {@link Accessor} is returned instead.
+ * </p>
+ */
+public final class Accessors {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final Accessor NONE = new Accessor() {
+        public Object get(Object target) {
+            return null;
+        }
+
+        public void set(Object target, Object value) {}
+    };
+
+    private Accessors() {}
+
+    /**
+     * @param field
+     *            an accessible field, or null
+     * @return a compiled {@link Accessor} for <code>field</code>, reflective if
+     *         it cannot be compiled, or a no-op {@link Accessor} if
+     *         <code>field</code> is null.
+     */
+    public static Accessor forField(Field field) {
+        if (field == null) {
+            return NONE;
+        }
+        if (Modifier.isStatic(field.getModifiers())) {
+            return reflective(field);
+        }
+
+        final MethodHandle getter;
+        MethodHandle setter = null;
+        try {
+            getter = LOOKUP.unreflectGetter(field).asType(GETTER);
+        } catch (IllegalAccessException | RuntimeException e) {
+            return reflective(field);
+        }
+        try {
+            setter = LOOKUP.unreflectSetter(field).asType(SETTER);
+        } catch (IllegalAccessException | RuntimeException e) {
+            // final field, writes go through reflection
+        }
+        return new MethodHandleAccessor(getter, setter, field);
+    }
+
+    /**
+     * @param getter
+     *            an accessible no-arg method, or null
+     * @param setter
+     *            an accessible one arg method, or null
+     * @return a compiled {@link Accessor} that reads with <code>getter</code>
+     *         and writes with <code>setter</code>. A null method makes that
+     *         side a no-op.
+     */
+    public static Accessor forMethods(Method getter, Method setter) {
+        if (getter == null && setter == null) {
+            return NONE;
+        }
+        return new MethodsAccessor(compileGetter(getter), compileSetter(setter));
+    }
+
+    /**
+     * @param field
+     *            an accessible field, or null
+     * @return an {@link Accessor} that uses plain reflection
+     */
+    public static Accessor reflective(final Field field) {
+        if (field == null) {
+            return NONE;
+        }
+        return new Accessor() {
+            public Object get(Object target) {
+                return ClassUtil.getFieldValue(field, target);
+            }
+
+            public void set(Object target, Object value) {
+                ClassUtil.setFieldValue(field, target, value);
+            }
+        };
+    }
+
+    /**
+     * @param getter
+     *            an accessible no-arg method, or null
+     * @param setter
+     *            an accessible one arg method, or null
+     * @return an {@link Accessor} that uses plain reflection
+     */
+    public static Accessor reflective(final Method getter, final Method setter) {
+        if (getter == null && setter == null) {
+            return NONE;
+        }
+        return new Accessor() {
+            public Object get(Object target) {
+                return getter == null ? null : ClassUtil.getMethodValue(getter, target);
+            }
+
+            public void set(Object target, Object value) {
+                if (setter != null) {
+                    ClassUtil.setMethodValue(setter, target, value);
+                }
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked") private static Function<Object, Object> compileGetter(final Method getter) {
+        if (getter == null) {
+            return null;
+        }
+        if (isLinkable(getter)) {
+            try {
+                MethodHandle mh = LOOKUP.unreflect(getter);
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply",
+                                                              MethodType.methodType(Function.class),
+                                                              MethodType.methodType(Object.class, Object.class),
+                                                              mh, mh.type().wrap());
+                final Function<Object, Object> linked = (Function<Object, Object>) site.getTarget().invoke();
+                // fail the same way whichever path the getter took
+                return target -> {
+                    try {
+                        return linked.apply(target);
+                    } catch (RuntimeException e) {
+                        throw new IllegalStateException("Unable to get Riak annotated method value", e);
+                    }
+                };
+            } catch (Throwable t) {
+                // fall through to a method handle
+            }
+        }
+        try {
+            final MethodHandle mh = LOOKUP.unreflect(getter).asType(GETTER);
+            return target -> {
+                try {
+                    return mh.invokeExact(target);
+                } catch (Throwable t) {
+                    throw new IllegalStateException("Unable to get Riak annotated method value", t);
+                }
+            };
+        } catch (IllegalAccessException | RuntimeException e) {
+            return target -> ClassUtil.getMethodValue(getter, target);
+        }
+    }
+
+    @SuppressWarnings("unchecked") private static BiConsumer<Object, Object> compileSetter(final Method setter) {
+        if (setter == null) {
+            return null;
+        }
+        if (isLinkable(setter)) {
+            try {
+                MethodHandle mh = LOOKUP.unreflect(setter);
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept",
+                                                              MethodType.methodType(BiConsumer.class),
+                                                              MethodType.methodType(void.class, Object.class,
+                                                                                    Object.class),
+                                                              mh, mh.type().wrap().changeReturnType(void.class));
+                final BiConsumer<Object, Object> linked = (BiConsumer<Object, Object>) site.getTarget().invoke();
+                return (target, value) -> {
+                    try {
+                        linked.accept(target, value);
+                    } catch (RuntimeException e) {
+                        throw new IllegalStateException("Unable to set Riak annotated method value", e);
+                    }
+                };
+            } catch (Throwable t) {
+                // fall through to a method handle
+            }
+        }
+        try {
+            final MethodHandle mh = LOOKUP.unreflect(setter).asType(SETTER);
+            return (target, value) -> {
+                try {
+                    mh.invokeExact(target, value);
+                } catch (Throwable t) {
+                    throw new IllegalStateException("Unable to set Riak annotated method value", t);
+                }
+            };
+        } catch (IllegalAccessException | RuntimeException e) {
+            return (target, value) -> ClassUtil.setMethodValue(setter, target, value);
+        }
+    }
+
+    /**
+     * A lambda spun by {@link LambdaMetafactory} links against the method's
+     * class by name from this class, so it has to be public, non-static and
+     * visible from our class loader.
+     */
+    private static boolean isLinkable(Method method) {
+        final Class<?> declaring = method.getDeclaringClass();
+        if (Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers())
+            || !Modifier.isPublic(declaring.getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(declaring.getName(), false, Accessors.class.getClassLoader()) == declaring;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static final class MethodHandleAccessor implements Accessor {
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        private final Field field;
+
+        MethodHandleAccessor(MethodHandle getter, MethodHandle setter, Field field) {
+            this.getter = getter;
+            this.setter = setter;
+            this.field = field;
+        }
+
+        public Object get(Object target) {
+            try {
+                return getter.invokeExact(target);
+            } catch (Throwable t) {
+                throw new IllegalStateException("Unable to get Riak annotated field value", t);
+            }
+        }
+
+        public void set(Object target, Object value) {
+            if (setter == null) {
+                ClassUtil.setFieldValue(field, target, value);
+                return;
+            }
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw new IllegalStateException("Unable to set Riak annotated field value", t);
+            }
+        }
+    }
+
+    private static final class MethodsAccessor implements Accessor {
+        private final Function<Object, Object> getter;
+        private final BiConsumer<Object, Object> setter;
+
+        MethodsAccessor(Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        public Object get(Object target) {
+            return getter == null ? null : getter.apply(target);
+        }
+
+        public void set(Object target, Object value) {
+            if (setter != null) {
+                setter.accept(target, value);
+            }
+        }
+    }
+}
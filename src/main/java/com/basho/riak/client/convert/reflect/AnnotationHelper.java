@@ -24,7 +24,9 @@ import java.util.Set;
 
 /**
  * Singleton that wraps a cache of Class -> AnnotatioInfo and provides
- * convenience methods for getting and setting Riak annotated field values
+ * convenience methods for getting and setting Riak annotated field values.
+ * Each cached {@link AnnotationInfo} holds compiled {@link Accessor}s for its
+ * class, so the reflective scan and binding happen once per class.
  * 
  * @author russell
  * 
@@ -36,6 +38,17 @@ public class AnnotationHelper {
     private SimpleCache<Class, AnnotationInfo> annotationCache = new SimpleCache<>(AnnotationHelper::annotationInfo);
 
     private static AnnotationInfo annotationInfo(Class clazz) {
+        return annotationInfo(clazz, true);
+    }
+
+    /**
+     * Scan <code>clazz</code> for Riak annotations.
+     * 
+     * @param compileAccessors
+     *            false to have the {@link AnnotationInfo} use plain
+     *            reflection, only useful for comparison
+     */
+    static AnnotationInfo annotationInfo(Class clazz, boolean compileAccessors) {
         Field riakKeyField = null;
         Method riakKeyGetterMethod = null;
         Method riakKeySetterMethod = null;
@@ -146,7 +159,7 @@ public class AnnotationHelper {
         return new AnnotationInfo(riakKeyField, riakKeyGetterMethod, riakKeySetterMethod,
            usermetaItemFields, usermetaMapField,
            indexFields, indexMethods, linksField, riakVClockField,
-           riakTombstoneField);
+           riakTombstoneField, compileAccessors);
     }
 
     private AnnotationHelper() {}
@@ -22,10 +22,9 @@ import com.basho.riak.client.query.indexes.RiakIndexes;
 import java.lang.reflect.*;
 import java.util.*;
 
-import static com.basho.riak.client.convert.reflect.ClassUtil.*;
-
 /**
- * Class that contains the Riak annotated fields for an annotated class
+ * Class that contains the Riak annotated fields for an annotated class, and
+ * the {@link Accessor}s used to read and write them.
  * 
  * @author russell
  * 
@@ -43,11 +42,36 @@ public class AnnotationInfo {
     private final Field riakVClockField;
     private final Field riakTombstoneField;
 
+    // compiled accessors for the members above, built once per class
+    private final Accessor riakKeyAccessor;
+    private final Accessor[] usermetaItemAccessors;
+    private final Accessor usermetaMapAccessor;
+    private final Accessor[] indexFieldAccessors;
+    private final Accessor[] indexMethodAccessors;
+    private final Accessor riakLinksAccessor;
+    private final Accessor riakVClockAccessor;
+    private final boolean riakVClockIsVClock;
+    private final Accessor riakTombstoneAccessor;
+
     AnnotationInfo(Field riakKeyField, Method riakKeyGetterMethod,
                    Method riakKeySetterMethod, List<UsermetaField> usermetaItemFields,
                    Field usermetaMapField, List<RiakIndexField> indexFields,
                    List<RiakIndexMethod> indexMethods, Field riakLinksField,
                    Field riakVClockField, Field riakTombstoneField) {
+        this(riakKeyField, riakKeyGetterMethod, riakKeySetterMethod, usermetaItemFields, usermetaMapField,
+             indexFields, indexMethods, riakLinksField, riakVClockField, riakTombstoneField, true);
+    }
+
+    /**
+     * @param compileAccessors
+     *            false to access members with plain reflection, only useful
+     *            for comparison
+     */
+    AnnotationInfo(Field riakKeyField, Method riakKeyGetterMethod,
+                   Method riakKeySetterMethod, List<UsermetaField> usermetaItemFields,
+                   Field usermetaMapField, List<RiakIndexField> indexFields,
+                   List<RiakIndexMethod> indexMethods, Field riakLinksField,
+                   Field riakVClockField, Field riakTombstoneField, boolean compileAccessors) {
         this.riakKeyField = riakKeyField;
         this.riakKeyGetterMethod = riakKeyGetterMethod;
         this.riakKeySetterMethod = riakKeySetterMethod;
@@ -60,6 +84,35 @@ public class AnnotationInfo {
         this.riakLinksField = riakLinksField;
         this.riakVClockField = riakVClockField;
         this.riakTombstoneField = riakTombstoneField;
+
+        if (riakKeyField != null) {
+            this.riakKeyAccessor = accessor(riakKeyField, compileAccessors);
+        } else {
+            this.riakKeyAccessor = compileAccessors ? Accessors.forMethods(riakKeyGetterMethod, riakKeySetterMethod)
+                    : Accessors.reflective(riakKeyGetterMethod, riakKeySetterMethod);
+        }
+        this.usermetaItemAccessors = new Accessor[usermetaItemFields.size()];
+        for (int i = 0; i < usermetaItemAccessors.length; i++) {
+            usermetaItemAccessors[i] = accessor(usermetaItemFields.get(i).getField(), compileAccessors);
+        }
+        this.usermetaMapAccessor = accessor(usermetaMapField, compileAccessors);
+        this.indexFieldAccessors = new Accessor[indexFields.size()];
+        for (int i = 0; i < indexFieldAccessors.length; i++) {
+            indexFieldAccessors[i] = accessor(indexFields.get(i).getField(), compileAccessors);
+        }
+        this.indexMethodAccessors = new Accessor[indexMethods.size()];
+        for (int i = 0; i < indexMethodAccessors.length; i++) {
+            Method m = indexMethods.get(i).getMethod();
+            indexMethodAccessors[i] = compileAccessors ? Accessors.forMethods(m, null) : Accessors.reflective(m, null);
+        }
+        this.riakLinksAccessor = accessor(riakLinksField, compileAccessors);
+        this.riakVClockAccessor = accessor(riakVClockField, compileAccessors);
+        this.riakVClockIsVClock = riakVClockField != null && riakVClockField.getType().isAssignableFrom(VClock.class);
+        this.riakTombstoneAccessor = accessor(riakTombstoneField, compileAccessors);
+    }
+
+    private static Accessor accessor(Field field, boolean compile) {
+        return compile ? Accessors.forField(field) : Accessors.reflective(field);
     }
 
     /**
@@ -107,24 +160,12 @@ public class AnnotationInfo {
      * @return
      */
     public <T> String getRiakKey(T obj) {
-        Object key = null;
-        if (riakKeyField != null)
-        {
-            key = getFieldValue(riakKeyField, obj);
-        }
-        else if (riakKeyGetterMethod != null)
-        {
-            key = getMethodValue(riakKeyGetterMethod, obj);
-        }
+        Object key = riakKeyAccessor.get(obj);
         return key == null ? null : key.toString();
     }
 
     public <T> void setRiakKey(T obj, String key) {
-        if (riakKeyField != null) {
-            setFieldValue(riakKeyField, obj, key);
-        } else if (riakKeySetterMethod != null) {
-            setMethodValue(riakKeySetterMethod, obj, key);
-        }
+        riakKeyAccessor.set(obj, key);
     }
 
     public <T> VClock getRiakVClock(T obj) {
@@ -135,10 +176,10 @@ public class AnnotationInfo {
         // We allow the annotated field to be either an actual VClock, or
         // a byte array. This is enforced in the AnnotationScanner
         
-        if (riakVClockField.getType().isAssignableFrom(VClock.class)) {
-            return (VClock) getFieldValue(riakVClockField, obj);
+        if (riakVClockIsVClock) {
+            return (VClock) riakVClockAccessor.get(obj);
         } else {
-            return new BasicVClock((byte[]) getFieldValue(riakVClockField, obj));
+            return new BasicVClock((byte[]) riakVClockAccessor.get(obj));
         }
     }
     
@@ -147,22 +188,22 @@ public class AnnotationInfo {
             // We allow the annotated field to be either an actual VClock, or
             // a byte array. This is enforced in the AnnotationScanner
         
-            if (riakVClockField.getType().isAssignableFrom(VClock.class)) {
-                setFieldValue(riakVClockField, obj, vclock);
+            if (riakVClockIsVClock) {
+                riakVClockAccessor.set(obj, vclock);
             } else {
-                setFieldValue(riakVClockField, obj, vclock.getBytes());
+                riakVClockAccessor.set(obj, vclock.getBytes());
             }
         }
     }
 
     public <T> Boolean getRiakTombstone(T obj)
     {
-        return riakTombstoneField == null ? null : (Boolean)getFieldValue(riakTombstoneField, obj);
+        return riakTombstoneField == null ? null : (Boolean)riakTombstoneAccessor.get(obj);
     }
     
     public <T> void setRiakTombstone(T obj, Boolean isDeleted) {
         if (riakTombstoneField != null) {
-            setFieldValue(riakTombstoneField, obj, isDeleted);
+            riakTombstoneAccessor.set(obj, isDeleted);
         }
     }
     
@@ -170,8 +211,9 @@ public class AnnotationInfo {
         final Map<String, String> usermetaData = new LinkedHashMap<>();
         Map<String, String> objectMetaMap = null;
 
-        for (UsermetaField f : usermetaItemFields) {
-            Object o = getFieldValue(f.getField(), obj);
+        for (int i = 0; i < usermetaItemAccessors.length; i++) {
+            final UsermetaField f = usermetaItemFields.get(i);
+            Object o = usermetaItemAccessors[i].get(obj);
             String val = o == null ? null : o.toString();
             String key = f.getUsermetaDataKey();
             // null is not a user meta datum
@@ -181,7 +223,7 @@ public class AnnotationInfo {
         }
 
         if (usermetaMapField != null) {
-            objectMetaMap = (Map) getFieldValue(usermetaMapField, obj);
+            objectMetaMap = (Map) usermetaMapAccessor.get(obj);
         }
 
         if (objectMetaMap != null) {
@@ -195,16 +237,17 @@ public class AnnotationInfo {
         final Map<String, String> localMetaCopy = new HashMap<>(usermetaData);
 
         // set any individual annotated fields
-        for (UsermetaField f : usermetaItemFields) {
+        for (int i = 0; i < usermetaItemAccessors.length; i++) {
+            final UsermetaField f = usermetaItemFields.get(i);
             if (localMetaCopy.containsKey(f.getUsermetaDataKey())) {
-                setFieldValue(f.getField(), obj, localMetaCopy.get(f.getUsermetaDataKey()));
+                usermetaItemAccessors[i].set(obj, localMetaCopy.get(f.getUsermetaDataKey()));
                 localMetaCopy.remove(f.getUsermetaDataKey());
             }
         }
 
         // set a catch all map field
         if(usermetaMapField != null) {
-            setFieldValue(usermetaMapField, obj, localMetaCopy);
+            usermetaMapAccessor.set(obj, localMetaCopy);
         }
     }
 
@@ -216,19 +259,20 @@ public class AnnotationInfo {
     @SuppressWarnings("unchecked") public <T> RiakIndexes getIndexes(T obj) {
         final RiakIndexes riakIndexes = new RiakIndexes();
 
-        for (RiakIndexField f : indexFields) {
+        for (int i = 0; i < indexFieldAccessors.length; i++) {
+            final RiakIndexField f = indexFields.get(i);
             if (Set.class.isAssignableFrom(f.getType())) {
                 final Type t = f.getField().getGenericType();
                 if (t instanceof ParameterizedType) {
                     Class genericType = (Class)((ParameterizedType)t).getActualTypeArguments()[0];
                     if (String.class.equals(genericType)) {
-                        riakIndexes.addBinSet(f.getIndexName(), (Set<String>)getFieldValue(f.getField(), obj)); 
+                        riakIndexes.addBinSet(f.getIndexName(), (Set<String>)indexFieldAccessors[i].get(obj)); 
                     } else if (Long.class.equals(genericType) || Integer.class.equals(genericType)) {
-                        riakIndexes.addIntSet(f.getIndexName(), (Set<Long>)getFieldValue(f.getField(), obj));
+                        riakIndexes.addIntSet(f.getIndexName(), (Set<Long>)indexFieldAccessors[i].get(obj));
                     }
                 }
             } else {
-                final Object val = getFieldValue(f.getField(), obj);
+                final Object val = indexFieldAccessors[i].get(obj);
                 // null is not an index value
                 if (val != null) {
                     if (val instanceof String) {
@@ -243,11 +287,12 @@ public class AnnotationInfo {
             }
         }
 
-        for (RiakIndexMethod m : indexMethods) {
+        for (int i = 0; i < indexMethodAccessors.length; i++) {
+            final RiakIndexMethod m = indexMethods.get(i);
             if (Set.class.isAssignableFrom(m.getType())) {
                 final Type t = m.getMethod().getGenericReturnType();
                 if (t instanceof ParameterizedType) {
-                    final Object val = getMethodValue(m.getMethod(), obj);
+                    final Object val = indexMethodAccessors[i].get(obj);
                     if (val != null) {
                         final Class<?> genericType = (Class<?>) ((ParameterizedType) t).getActualTypeArguments()[0];
                         if (String.class.equals(genericType)) {
@@ -258,15 +303,15 @@ public class AnnotationInfo {
                             // Supporting Integer as legacy. All new code should use Long
                             Set<Integer> iSet = (Set<Integer>) val;
                             Set<Long> lSet = new HashSet<>();
-                            for (Integer i : iSet) {
-                                lSet.add(i.longValue());
+                            for (Integer integer : iSet) {
+                                lSet.add(integer.longValue());
                             }
                             riakIndexes.addIntSet(m.getIndexName(), lSet);
                         }
                     }
                 }
             } else {
-                final Object val = getMethodValue(m.getMethod(), obj);
+                final Object val = indexMethodAccessors[i].get(obj);
                 // null is not an index value
                 if (val != null) {
                     if (val instanceof String) {
@@ -292,7 +337,8 @@ public class AnnotationInfo {
      */
     public <T> void setIndexes(RiakIndexes indexes, T obj) {
         // copy the index values to the correct fields
-        for (RiakIndexField f : indexFields) {
+        for (int i = 0; i < indexFieldAccessors.length; i++) {
+            final RiakIndexField f = indexFields.get(i);
             Set<?> val = null;
             
             if (Set.class.isAssignableFrom(f.getType())) {
@@ -306,7 +352,7 @@ public class AnnotationInfo {
                     }
                 }
                 if (val != null && !val.isEmpty()) {
-                    setFieldValue(f.getField(), obj, val); 
+                    indexFieldAccessors[i].set(obj, val);
                 }
             } else {
                 if (Integer.class.equals(f.getType()) || int.class.equals(f.getType())) {
@@ -324,7 +370,7 @@ public class AnnotationInfo {
                 } 
             
                 if (val != null && !val.isEmpty()) {
-                    setFieldValue(f.getField(), obj, val.iterator().next()); // take the first value
+                    indexFieldAccessors[i].set(obj, val.iterator().next()); // take the first value
                 }
             }
         }
@@ -333,7 +379,7 @@ public class AnnotationInfo {
     @SuppressWarnings("unchecked") public <T> Collection<RiakLink> getLinks(T obj) {
         final Collection<RiakLink> links = new ArrayList<>();
         if (riakLinksField != null) {
-            Object o = getFieldValue(riakLinksField, obj);
+            Object o = riakLinksAccessor.get(obj);
             if (o != null && o instanceof Collection) {
                 links.addAll((Collection<RiakLink>) o);
             }
@@ -343,7 +389,7 @@ public class AnnotationInfo {
 
     public <T> void setLinks(Collection<RiakLink> links, T obj) {
         if (riakLinksField != null) {
-            setFieldValue(riakLinksField, obj, links);
+            riakLinksAccessor.set(obj, links);
         }
     }
 }
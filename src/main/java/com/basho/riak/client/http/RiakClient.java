@@ -25,6 +25,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 import java.util.Set;
 
@@ -184,6 +185,46 @@ public class RiakClient {
         return new StoreResponse(new FetchResponse(r, this));
     }
 
+    /**
+     * Store <code>object</code> with its value read from <code>value</code>
+     * as the request is sent, rather than held in memory. The stream is read
+     * to its end but not closed. Any value set on <code>object</code> is
+     * ignored.
+     * <p>
+     * Unless <code>meta</code> asks for it the body is not returned, as
+     * Riak would send the whole value back.
+     * </p>
+     * <p>
+     * The request cannot be repeated, so the configured retry handler is not
+     * used for it.
+     * </p>
+     * 
+     * @param object
+     *            the bucket, key and metadata to store
+     * @param value
+     *            the value
+     * @param length
+     *            the length of <code>value</code> in bytes, or -1 if unknown
+     *            in which case the value is sent with chunked transfer
+     *            encoding
+     * @param meta
+     *            Extra metadata to attach to the request such as w and dw
+     *            values, HTTP headers, and other query parameters, may be null
+     * @return a {@link StoreResponse} with the result of the store
+     */
+    public StoreResponse store(RiakObject object, InputStream value, long length, RequestMeta meta) {
+        if (meta == null) {
+            meta = new RequestMeta();
+        }
+        if (meta.getQueryParam(Constants.QP_RETURN_BODY) == null) {
+            meta.setQueryParam(Constants.QP_RETURN_BODY, "false");
+        }
+
+        setAcceptHeader(meta);
+        HttpResponse r = helper.store(object, value, length, meta);
+        return new StoreResponse(new FetchResponse(r, this));
+    }
+
     /**
      * Ensure that Accept header includes
      * {@link Constants#CTYPE_MULTIPART_MIXED} so that we may parse siblings
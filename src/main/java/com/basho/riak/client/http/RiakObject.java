@@ -48,6 +48,7 @@ public class RiakObject {
     @SuppressWarnings("rawtypes") private List<RiakIndex> indexes;
     private Map<String, String> userMetaData;
     private String contentType;
+    private String contentEncoding;
     private String vclock;
     private String lastmod;
     private String vtag;
@@ -212,6 +213,7 @@ public class RiakObject {
             userMetaData.putAll(object.userMetaData);
         }
         contentType = object.contentType;
+        contentEncoding = object.contentEncoding;
         vclock = object.vclock;
         lastmod = object.lastmod;
         vtag = object.vtag;
@@ -226,6 +228,7 @@ public class RiakObject {
         links = object.links;
         userMetaData = object.userMetaData;
         contentType = object.contentType;
+        contentEncoding = object.contentEncoding;
         vclock = object.vclock;
         lastmod = object.lastmod;
         vtag = object.vtag;
@@ -528,6 +531,25 @@ public class RiakObject {
         }
     }
 
+    /**
+     * @return the content-encoding of the value (e.g. <code>gzip</code>), or
+     *         null if the value is not encoded
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * Sets the content-encoding sent with the value. The value must already
+     * be encoded, nothing is compressed here.
+     * 
+     * @param contentEncoding
+     *            the encoding, or null for none
+     */
+    public void setContentEncoding(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
     /* (non-Javadoc)
      * @see com.basho.riak.client.HttpRiakObject#getVclock()
      */
@@ -730,6 +752,9 @@ public class RiakObject {
                 entity = new ByteArrayEntity(EMPTY);
             }
             entity.setContentType(contentType);
+            if (contentEncoding != null) {
+                entity.setContentEncoding(contentEncoding);
+            }
             entityEnclosingMethod.setEntity(entity);
         }
     }
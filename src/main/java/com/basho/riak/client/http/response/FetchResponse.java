@@ -108,6 +108,7 @@ public class FetchResponse extends HttpResponseDecorator implements WithBodyResp
                                     headers.get(Constants.HDR_VCLOCK), headers.get(Constants.HDR_LAST_MODIFIED),
                                     headers.get(Constants.HDR_ETAG), indexes, 
                                     headers.get(Constants.HDR_DELETED) != null ? true : false);
+            object.setContentEncoding(headers.get(Constants.HDR_CONTENT_ENCODING));
 
             Long contentLength = null;
             try {
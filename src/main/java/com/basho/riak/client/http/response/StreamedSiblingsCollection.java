@@ -75,6 +75,7 @@ public class StreamedSiblingsCollection extends CollectionWrapper<RiakObject> {
                                  links, usermeta, vclock, headers.get(Constants.HDR_LAST_MODIFIED),
                                  headers.get(Constants.HDR_ETAG), indexes,
                                  headers.get(Constants.HDR_DELETED) != null ? true : false);
+            o.setContentEncoding(headers.get(Constants.HDR_CONTENT_ENCODING));
             o.setValueStream(part.getStream());
             cache(o);
             return true;
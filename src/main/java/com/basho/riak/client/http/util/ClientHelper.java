@@ -18,27 +18,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
-import org.apache.http.NameValuePair;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
-import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.client.utils.URLEncodedUtils;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.util.EntityUtils;
 import org.json.JSONObject;
 
@@ -54,7 +50,6 @@ import com.basho.riak.client.http.response.RiakExceptionHandler;
 import com.basho.riak.client.http.response.RiakIORuntimeException;
 import com.basho.riak.client.http.response.RiakResponseRuntimeException;
 import com.basho.riak.client.http.response.StreamHandler;
-import com.basho.riak.client.util.CharsetUtils;
 import java.nio.charset.Charset;
 
 /**
@@ -188,6 +183,41 @@ public class ClientHelper {
      * Same as {@link RiakClient}, except only returning the HTTP response
      */
     public HttpResponse store(RiakObject object, RequestMeta meta) {
+        meta = storeMeta(meta);
+        String bucket = object.getBucket();
+        String key = object.getKey();
+        String url = ClientUtils.makeURI(config, bucket, key);
+        HttpRequestBase storeMethod = createStoreHttpMethod(key, url);
+
+        object.writeToHttpMethod(storeMethod);
+        return executeMethod(bucket, key, storeMethod, meta);
+    }
+
+    /**
+     * Same as {@link RiakClient#store(RiakObject, InputStream, long, RequestMeta)},
+     * except only returning the HTTP response. Any value set on
+     * <code>object</code> is ignored.
+     */
+    public HttpResponse store(RiakObject object, InputStream value, long length, RequestMeta meta) {
+        meta = storeMeta(meta);
+        String bucket = object.getBucket();
+        String key = object.getKey();
+        String url = ClientUtils.makeURI(config, bucket, key);
+        HttpRequestBase storeMethod = createStoreHttpMethod(key, url);
+
+        object.writeToHttpMethod(storeMethod);
+        HttpEntityEnclosingRequestBase entityMethod = (HttpEntityEnclosingRequestBase) storeMethod;
+        HttpEntity metadata = entityMethod.getEntity();
+        InputStreamEntity entity = new InputStreamEntity(value, length);
+        entity.setChunked(length < 0);
+        entity.setContentType(metadata.getContentType());
+        entity.setContentEncoding(metadata.getContentEncoding());
+        entityMethod.setEntity(entity);
+
+        return executeMethod(bucket, key, storeMethod, meta);
+    }
+
+    private RequestMeta storeMeta(RequestMeta meta) {
         if (meta == null) {
             meta = new RequestMeta();
         }
@@ -197,14 +227,7 @@ public class ClientHelper {
         if (meta.getHeader(Constants.HDR_CONNECTION) == null) {
             meta.setHeader(Constants.HDR_CONNECTION, "keep-alive");
         }
-
-        String bucket = object.getBucket();
-        String key = object.getKey();
-        String url = ClientUtils.makeURI(config, bucket, key);
-        HttpRequestBase storeMethod = createStoreHttpMethod(key, url);
-
-        object.writeToHttpMethod(storeMethod);
-        return executeMethod(bucket, key, storeMethod, meta);
+        return meta;
     }
 
     /**
@@ -502,32 +525,23 @@ public class ClientHelper {
                                boolean streamResponse) {
 
         if (meta != null) {
-            Map<String, String> headers = meta.getHeaders();
-            for (String header : headers.keySet()) {
-                httpMethod.addHeader(header, headers.get(header));
+            for (Map.Entry<String, String> header : meta.getHeaders().entrySet()) {
+                Header shared = RequestTemplates.sharedHeader(header.getKey(), header.getValue());
+                if (shared != null) {
+                    httpMethod.addHeader(shared);
+                } else {
+                    httpMethod.addHeader(header.getKey(), header.getValue());
+                }
             }
 
             Map<String, String> queryParams = meta.getQueryParamMap();
             if (!queryParams.isEmpty()) {
-                URI originalURI = httpMethod.getURI();
-                List<NameValuePair> currentQuery = URLEncodedUtils.parse(originalURI, CharsetUtils.UTF_8.name());
-                List<NameValuePair> newQuery = new LinkedList<>(currentQuery);
-
-                for(Map.Entry<String, String> qp : queryParams.entrySet()) {
-                    newQuery.add(new BasicNameValuePair(qp.getKey(), qp.getValue()));
-                }
-
-                // For this, HC4.1 authors, I hate you
-                URI newURI;
+                String uri = RequestTemplates.withQuery(httpMethod.getURI().toString(), queryParams);
                 try {
-                    newURI = new URIBuilder(originalURI)
-                                 .setQuery(URLEncodedUtils.format(newQuery, "UTF-8"))
-                                 .build();
+                    httpMethod.setURI(new URI(uri));
                 } catch (URISyntaxException e) {
-                    e.printStackTrace();
                     throw new RiakIORuntimeException(e);
                 }
-                httpMethod.setURI(newURI);
             }
         }
         HttpEntity entity = null;
@@ -92,7 +92,7 @@ public class ClientUtils {
      * @return URL to the bucket
      */
     public static String makeURI(RiakConfig config, String bucket) {
-        return config.getUrl() + "/" + urlEncode(bucket);
+        return RequestTemplates.objectUri(config.getUrl(), bucket, null);
     }
 
     /**
@@ -107,9 +107,7 @@ public class ClientUtils {
      * @return URL to the object
      */
     public static String makeURI(RiakConfig config, String bucket, String key) {
-        if (key == null)
-            return makeURI(config, bucket);
-        return makeURI(config, bucket) + "/" + urlEncode(key);
+        return RequestTemplates.objectUri(config.getUrl(), bucket, key);
     }
 
     /**
@@ -184,7 +182,7 @@ public class ClientUtils {
     private static StringBuilder makeBaseIndexURI(RiakConfig config, String bucket, String index) {
         return new StringBuilder(config.getBaseUrl()).append("/")
             .append("buckets").append("/")
-            .append(urlEncode(bucket)).append("/")
+            .append(RequestTemplates.encodedBucket(bucket)).append("/")
             .append("index").append("/")
             .append(index).append("/");
     }
@@ -202,6 +200,9 @@ public class ClientUtils {
      * UTF-8 encode the string
      */
     public static String urlEncode(String s) {
+        if (RequestTemplates.isUnreserved(s)) {
+            return s;
+        }
         try {
             return URLEncoder.encode(s, "UTF-8");
         } catch (UnsupportedEncodingException unreached) {
@@ -527,6 +528,7 @@ public class ClientUtils {
                                               headers.get(Constants.HDR_CONTENT_TYPE), links, usermeta, vclock,
                                               headers.get(Constants.HDR_LAST_MODIFIED), headers.get(Constants.HDR_ETAG),
                                               indexes, headers.get(Constants.HDR_DELETED) != null ? true : false);
+                o.setContentEncoding(headers.get(Constants.HDR_CONTENT_ENCODING));
                 objects.add(o);
             }
         }
@@ -61,6 +61,7 @@ public interface Constants {
     String HDR_CONNECTION = "connection";
     String HDR_CONTENT_LENGTH = "content-length";
     String HDR_CONTENT_TYPE = "content-type";
+    String HDR_CONTENT_ENCODING = "content-encoding";
     String HDR_ETAG = "etag";
     String HDR_IF_MATCH = "if-match";
     String HDR_IF_MODIFIED_SINCE = "if-modified-since";
@@ -88,6 +89,9 @@ public interface Constants {
     String CTYPE_MULTIPART_MIXED = "multipart/mixed";
     String CTYPE_TEXT = "text/plain";
     String CTYPE_TEXT_UTF8 = "text/plain; charset=UTF-8";
+    String CTYPE_SMILE = "application/x-jackson-smile";
+    String CTYPE_CBOR = "application/cbor";
+    String CTYPE_PROTOBUF = "application/x-protobuf";
 
     // Values for the "keys" query parameter
     String NO_KEYS = "false";
@@ -0,0 +1,208 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.http.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+
+/**
+ * The pieces of a request that repeat from one request to the next, built
+ * once and reused: URL encoded bucket names, encoded query parameters and
+ * header objects. Also does the URI and query string building for
+ * {@link ClientUtils} and {@link ClientHelper} in a single pass over one
+ * presized {@link StringBuilder}.
+ * 
+ * <p>
+ * Query parameters and headers are only shared for the fixed name/value pairs
+ * the client itself sends (<code>returnbody=true</code>,
+ * <code>accept: application/json</code>, ...); those tables are built once and
+ * never grow, and any other pair is built each time. Bucket names are cached
+ * up to {@link #MAX_CACHED} entries; keys are never cached.
+ * </p>
+ */
+final class RequestTemplates {
+
+    static final int MAX_CACHED = 1024;
+
+    private static final ConcurrentHashMap<String, String> ENCODED_BUCKETS = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, String>> ENCODED_PARAMS;
+    private static final Map<String, Map<String, Header>> HEADERS;
+
+    static {
+        String[] flags = { "true", "false" };
+        String[] quorums = { "one", "quorum", "all", "default", "1", "2", "3" };
+        Map<String, Map<String, String>> params = new HashMap<String, Map<String, String>>();
+        for (String name : new String[] { Constants.QP_RETURN_BODY, Constants.QP_KEYS, Constants.QP_BUCKETS,
+                                          Constants.QP_NOT_FOUND_OK, Constants.QP_BASIC_QUORUM, Constants.QP_ASIS,
+                                          Constants.QP_INDEX_STREAM, Constants.QP_INDEX_RETURN_TERMS,
+                                          Constants.QP_RETURNVALUE }) {
+            addParams(params, name, flags);
+        }
+        addParams(params, Constants.QP_KEYS, new String[] { Constants.STREAM_KEYS });
+        for (String name : new String[] { Constants.QP_R, Constants.QP_W, Constants.QP_DW, Constants.QP_RW,
+                                          Constants.QP_PR, Constants.QP_PW }) {
+            addParams(params, name, quorums);
+        }
+        ENCODED_PARAMS = Collections.unmodifiableMap(params);
+
+        Map<String, Map<String, Header>> headers = new HashMap<String, Map<String, Header>>();
+        addHeaders(headers, Constants.HDR_ACCEPT, Constants.CTYPE_JSON, Constants.CTYPE_ANY,
+                   Constants.CTYPE_ANY + ", " + Constants.CTYPE_MULTIPART_MIXED);
+        addHeaders(headers, Constants.HDR_CONTENT_TYPE, Constants.CTYPE_JSON);
+        addHeaders(headers, Constants.HDR_CONNECTION, "keep-alive");
+        HEADERS = Collections.unmodifiableMap(headers);
+    }
+
+    private RequestTemplates() {}
+
+    /**
+     * @return <code>url/bucket</code>, or <code>url/bucket/key</code> if
+     *         <code>key</code> is not null, with bucket and key URL encoded
+     */
+    static String objectUri(String url, String bucket, String key) {
+        StringBuilder sb = builder();
+        sb.append(url).append('/').append(encodedBucket(bucket));
+        if (key != null) {
+            sb.append('/');
+            encode(key, sb);
+        }
+        return release(sb);
+    }
+
+    /**
+     * @return the URL encoded form of <code>bucket</code>
+     */
+    static String encodedBucket(String bucket) {
+        String encoded = ENCODED_BUCKETS.get(bucket);
+        if (encoded == null) {
+            encoded = ClientUtils.urlEncode(bucket);
+            if (ENCODED_BUCKETS.size() < MAX_CACHED) {
+                ENCODED_BUCKETS.putIfAbsent(bucket, encoded);
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * Append <code>params</code> to <code>uri</code> as form encoded query
+     * parameters, after any query <code>uri</code> already has.
+     */
+    static String withQuery(String uri, Map<String, String> params) {
+        if (params.isEmpty()) {
+            return uri;
+        }
+        StringBuilder sb = builder();
+        sb.append(uri);
+        char separator = uri.indexOf('?') < 0 ? '?' : '&';
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            sb.append(separator).append(encodedParam(param.getKey(), param.getValue()));
+            separator = '&';
+        }
+        return release(sb);
+    }
+
+    /**
+     * @return <code>name=value</code>, form encoded, or just the name if
+     *         <code>value</code> is null
+     */
+    static String encodedParam(String name, String value) {
+        Map<String, String> byValue = ENCODED_PARAMS.get(name);
+        String encoded = byValue == null || value == null ? null : byValue.get(value);
+        return encoded != null ? encoded : encodeParam(name, value);
+    }
+
+    /**
+     * @return a shared, immutable {@link Header} for <code>name: value</code>
+     *         if it is one of the fixed headers the client sends, otherwise
+     *         null
+     */
+    static Header sharedHeader(String name, String value) {
+        Map<String, Header> byValue = HEADERS.get(name);
+        return byValue == null || value == null ? null : byValue.get(value);
+    }
+
+    /**
+     * Append the URL encoded form of <code>s</code> to <code>sb</code>,
+     * skipping the encoder when there is nothing to encode.
+     */
+    static void encode(String s, StringBuilder sb) {
+        if (isUnreserved(s)) {
+            sb.append(s);
+        } else {
+            sb.append(ClientUtils.urlEncode(s));
+        }
+    }
+
+    /**
+     * @return true if {@link java.net.URLEncoder} would return
+     *         <code>s</code> unchanged
+     */
+    static boolean isUnreserved(String s) {
+        for (int i = 0, len = s.length(); i < len; i++) {
+            char c = s.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' ||
+                  c == '-' || c == '*' || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addParams(Map<String, Map<String, String>> params, String name, String[] values) {
+        Map<String, String> byValue = params.get(name);
+        if (byValue == null) {
+            byValue = new HashMap<String, String>();
+            params.put(name, byValue);
+        }
+        for (String value : values) {
+            byValue.put(value, encodeParam(name, value));
+        }
+    }
+
+    private static void addHeaders(Map<String, Map<String, Header>> headers, String name, String... values) {
+        Map<String, Header> byValue = new HashMap<String, Header>();
+        for (String value : values) {
+            byValue.put(value, new BasicHeader(name, value));
+        }
+        headers.put(name, byValue);
+    }
+
+    private static String encodeParam(String name, String value) {
+        StringBuilder sb = new StringBuilder();
+        encode(name, sb);
+        if (value != null) {
+            sb.append('=');
+            encode(value, sb);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A fresh builder per call rather than one cached per thread: with a
+     * virtual thread per request a thread local is never reused, it just
+     * pins a buffer to every thread.
+     */
+    private static StringBuilder builder() {
+        return new StringBuilder(256);
+    }
+
+    private static String release(StringBuilder sb) {
+        return sb.toString();
+    }
+}
@@ -18,6 +18,8 @@ import java.util.concurrent.Callable;
 import com.basho.riak.client.RiakException;
 import com.basho.riak.client.bucket.Bucket;
 import com.basho.riak.client.bucket.DomainBucket;
+import com.basho.riak.client.cap.Deadline;
+import com.basho.riak.client.cap.DeadlineExceededException;
 import com.basho.riak.client.cap.Quora;
 import com.basho.riak.client.cap.Quorum;
 import com.basho.riak.client.cap.Retrier;
@@ -46,6 +48,7 @@ public class DeleteObject implements RiakOperation<Void> {
     private final String key;
 
     private Retrier retrier;
+    private Deadline deadline;
     private boolean fetchBeforeDelete = false;
 
     private final DeleteMeta.Builder deleteMetaBuilder = new DeleteMeta.Builder();
@@ -82,6 +85,15 @@ public class DeleteObject implements RiakOperation<Void> {
      * @return null, always null.
      */
     public Void execute() throws RiakException {
+        final Deadline.Scope scope = Deadline.bind(deadline);
+        try {
+            return doDelete();
+        } finally {
+            scope.close();
+        }
+    }
+
+    private Void doDelete() throws RiakException {
         if(fetchBeforeDelete) {
             Callable<RiakResponse> fetch = () -> {
                 RiakResponse response = client.head(bucket, key, fetchMetaBuilder.build());
@@ -320,6 +332,21 @@ public class DeleteObject implements RiakOperation<Void> {
         return this;
     }
 
+    /**
+     * Fail with a {@link DeadlineExceededException} rather than run past
+     * <code>deadline</code>. It covers both the fetch
+     * (if any) and the delete.
+     * 
+     * @param deadline
+     *            the {@link Deadline}, null for none
+     * @return this
+     * @see Deadline
+     */
+    public DeleteObject withDeadline(final Deadline deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
     /**
      * If you want to provide a vclock to delete, but don't have one, setting
      * this true will have the operation first perform a fetch (using the
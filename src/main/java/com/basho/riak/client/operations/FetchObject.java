@@ -48,6 +48,7 @@ public class FetchObject<T> implements RiakOperation<T> {
     private RiakResponse rawResponse;
 
     private Retrier retrier;
+    private Deadline deadline;
 
     private FetchMeta.Builder builder;
 
@@ -127,7 +128,12 @@ public class FetchObject<T> implements RiakOperation<T> {
         final FetchMeta fetchMeta = builder.build();
         Callable<RiakResponse> command = () -> client.fetch(bucket, key, fetchMeta);
 
-        rawResponse = retrier.attempt(command);
+        final Deadline.Scope scope = Deadline.bind(deadline);
+        try {
+            rawResponse = retrier.attempt(command);
+        } finally {
+            scope.close();
+        }
         final Collection<T> siblings = new ArrayList<>(rawResponse.numberOfValues());
         
         // When talking about tombstones, our two protocols have 
@@ -338,6 +344,22 @@ public class FetchObject<T> implements RiakOperation<T> {
         return this;
     }
 
+    /**
+     * Fail with a {@link DeadlineExceededException} rather than run past
+     * <code>deadline</code>. Retries, waiting for a
+     * connection, the round trip and the server side timeout all count
+     * against it.
+     * 
+     * @param deadline
+     *            the {@link Deadline}, null for none
+     * @return this
+     * @see Deadline
+     */
+    public FetchObject<T> withDeadline(final Deadline deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
     // Meta information from the raw response
 
     /**
@@ -16,6 +16,8 @@
 package com.basho.riak.client.operations;
 
 import com.basho.riak.client.cap.ConflictResolver;
+import com.basho.riak.client.cap.Deadline;
+import com.basho.riak.client.cap.DeadlineExceededException;
 import com.basho.riak.client.cap.Quora;
 import com.basho.riak.client.cap.Quorum;
 import com.basho.riak.client.cap.Retrier;
@@ -23,10 +25,13 @@ import com.basho.riak.client.convert.Converter;
 import com.basho.riak.client.query.MultiFetchFuture;
 import com.basho.riak.client.raw.FetchMeta;
 import com.basho.riak.client.raw.RawClient;
+import com.basho.riak.client.util.RiakThreads;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -87,6 +92,12 @@ import java.util.concurrent.TimeUnit;
  * has no effect and is simply set to match. 
  * </p>
  * <p>
+ * On Java 21 or later {@link #setVirtualThreads(boolean)} runs every fetch on
+ * its own virtual thread instead, so the number of keys in flight is bounded
+ * only by the connection pool. A single operation can also be given its own
+ * {@link Executor} with {@link #withExecutor(Executor)}.
+ * </p>
+ * <p>
  * Be aware that because requests are being parallelized performance is also
  * dependent on the client's underlying connection pool. If there are no connections 
  * available performance will suffer initially as connections will need to be established
@@ -114,6 +125,8 @@ public class MultiFetchObject<T> implements RiakOperation<List<MultiFetchFuture<
         threadPool.allowCoreThreadTimeOut(true);
     }
     
+    private static volatile ExecutorService virtualThreads;
+    
     private final String bucket;
     private final RawClient client;
     private final List<String> keys;
@@ -123,6 +136,8 @@ public class MultiFetchObject<T> implements RiakOperation<List<MultiFetchFuture<
     private ConflictResolver<T> resolver;
     private Converter<T> converter;
     private Retrier retrier;
+    private Deadline deadline;
+    private Executor executor;
     
     
     /**
@@ -159,22 +174,34 @@ public class MultiFetchObject<T> implements RiakOperation<List<MultiFetchFuture<
     {
         List<MultiFetchFuture<T>> futureList = new ArrayList<>(keys.size());
         FetchMeta fetchMeta = builder.build();
+        Executor fetchExecutor = fetchExecutor();
         for (String key : keys)
         {
             FetchObject<T> fetchObject = new FetchObject<T>(client, bucket, key, retrier, fetchMeta)
                                                 .withConverter(converter)
-                                                .withResolver(resolver);
+                                                .withResolver(resolver)
+                                                .withDeadline(deadline);
             
             MultiFetchCallable<T> callable = new MultiFetchCallable<>(fetchObject);
             MultiFetchFuture<T> task = new MultiFetchFuture(key, callable);
             futureList.add(task);
-            threadPool.execute(task);
+            fetchExecutor.execute(task);
         }
         
         return futureList;
         
     }
 
+    private Executor fetchExecutor()
+    {
+        if (executor != null)
+        {
+            return executor;
+        }
+        final ExecutorService virtual = virtualThreads;
+        return virtual != null ? virtual : threadPool;
+    }
+
     /**
      * Sets the core number of threads in the internal {@link ThreadPoolExecutor}.
      * 
@@ -187,6 +214,40 @@ public class MultiFetchObject<T> implements RiakOperation<List<MultiFetchFuture<
         threadPool.setMaximumPoolSize(size);
     }
     
+    /**
+     * Run the fetches of every multi-fetch operation without its own
+     * {@link Executor} on a new virtual thread each, rather than on the
+     * internal {@link ThreadPoolExecutor}. Blocked fetches then cost a parked
+     * virtual thread rather than a pooled platform thread.
+     * 
+     * @param enabled true for virtual threads, false for the thread pool
+     * @throws UnsupportedOperationException if enabling on a JVM older than
+     *             Java 21
+     * @see RiakThreads#isVirtualThreadSupported()
+     */
+    public static synchronized void setVirtualThreads(boolean enabled)
+    {
+        if (enabled && virtualThreads == null)
+        {
+            virtualThreads = RiakThreads.newVirtualThreadPerTaskExecutor();
+        }
+        else if (!enabled && virtualThreads != null)
+        {
+            // fetches already started run to completion
+            virtualThreads.shutdown();
+            virtualThreads = null;
+        }
+    }
+
+    /**
+     * @return true if fetches run on virtual threads
+     * @see #setVirtualThreads(boolean)
+     */
+    public static boolean isVirtualThreads()
+    {
+        return virtualThreads != null;
+    }
+    
     /**
      * Returns the core number of threads from the internal {@link ThreadPoolExecutor}
      * @return the core number of threads
@@ -367,6 +428,35 @@ public class MultiFetchObject<T> implements RiakOperation<List<MultiFetchFuture<
         return this;
     }
 
+    /**
+     * Fail with a {@link DeadlineExceededException} rather than run past
+     * <code>deadline</code>. Every key shares the
+     * one deadline, including time spent queued for a fetch thread; a key
+     * that misses it fails its {@link MultiFetchFuture}.
+     * 
+     * @param deadline
+     *            the {@link Deadline}, null for none
+     * @return this
+     * @see Deadline
+     */
+    public MultiFetchObject<T> withDeadline(final Deadline deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * Run this operation's fetches on <code>executor</code> rather than the
+     * shared pool (or virtual threads). The caller owns the executor.
+     * 
+     * @param executor
+     *            the {@link Executor}, null for the default
+     * @return this
+     */
+    public MultiFetchObject<T> withExecutor(final Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
     private class MultiFetchCallable<T> implements Callable<T>
     {
         private FetchObject<T> fetchObject;
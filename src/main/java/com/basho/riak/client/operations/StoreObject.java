@@ -49,6 +49,7 @@ public class StoreObject<T> implements RiakOperation<T> {
     private final FetchObject<T> fetchObject;
 
     private Retrier retrier;
+    private Deadline deadline;
 
     private final StoreMeta.Builder storeMetaBuilder = new StoreMeta.Builder();
     private final boolean hasKey;
@@ -144,7 +145,13 @@ public class StoreObject<T> implements RiakOperation<T> {
 
         final boolean hasMutated = !(mutation instanceof ConditionalStoreMutation<?>) || ((ConditionalStoreMutation<T>) mutation).hasMutated();
         if (hasMutated) {
-            final RiakResponse stored = retrier.attempt(() -> client.store(o, storeMeta));
+            final RiakResponse stored;
+            final Deadline.Scope scope = Deadline.bind(deadline);
+            try {
+                stored = retrier.attempt(() -> client.store(o, storeMeta));
+            } finally {
+                scope.close();
+            }
         
             final Collection<T> storedSiblings = new ArrayList<>(stored.numberOfValues());
 
@@ -484,6 +491,21 @@ public class StoreObject<T> implements RiakOperation<T> {
         return this;
     }
 
+    /**
+     * Fail with a {@link DeadlineExceededException} rather than run past
+     * <code>deadline</code>. It covers both the fetch and the store.
+     * 
+     * @param deadline
+     *            the {@link Deadline}, null for none
+     * @return this
+     * @see Deadline
+     */
+    public StoreObject<T> withDeadline(final Deadline deadline) {
+        this.deadline = deadline;
+        this.fetchObject.withDeadline(deadline);
+        return this;
+    }
+
     /**
      * The {@link Mutation} to apply to the value retrieved from the fetch operation
      * @param mutation a {@link Mutation}
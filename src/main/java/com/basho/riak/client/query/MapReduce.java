@@ -22,11 +22,14 @@ import java.util.LinkedList;
 
 import com.basho.riak.client.IRiakClient;
 import com.basho.riak.client.RiakException;
+import com.basho.riak.client.cap.Deadline;
+import com.basho.riak.client.cap.DeadlineExceededException;
 import com.basho.riak.client.operations.RiakOperation;
 import com.basho.riak.client.query.functions.Function;
 import com.basho.riak.client.query.serialize.FunctionToJson;
 import com.basho.riak.client.raw.RawClient;
 import com.basho.riak.client.raw.query.MapReduceSpec;
+import com.basho.riak.client.util.CharsetUtils;
 import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -45,10 +48,20 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  */
 public abstract class MapReduce implements RiakOperation<MapReduceResult> {
 
+    /**
+     * Thread safe once configured, so shared by all jobs rather than created
+     * per execution. Generators from its factory can write any object.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory JSON = MAPPER.getFactory();
+    private static final byte[] INPUTS = CharsetUtils.utf8StringToBytes("{\"inputs\":");
+    private static final byte[] QUERY = CharsetUtils.utf8StringToBytes(",\"query\":");
+
     private final RawClient client;
 
     private Collection<MapReducePhase> phases = new LinkedList<>();
     private Long timeout;
+    private Deadline deadline;
 
     /**
      * Create the MapRedcue operation with the {@link RawClient} to delegate to.
@@ -72,16 +85,57 @@ public abstract class MapReduce implements RiakOperation<MapReduceResult> {
      * @throws InvalidMapReduceException
      */
     public MapReduceResult execute() throws RiakException {
-        validate();
-        final String strSpec = writeSpec();
-        MapReduceSpec spec = new MapReduceSpec(strSpec);
+        final Deadline.Scope scope = Deadline.bind(deadline);
         try {
+            MapReduceSpec spec = spec();
             return client.mapReduce(spec);
         } catch (IOException e) {
+            if (deadline != null && deadline.isExpired()) {
+                throw deadline.exceeded("running map/reduce", e);
+            }
             throw new RiakException(e);
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Validate this job and write its spec.
+     * 
+     * @return the spec to pass to {@link RawClient#mapReduce(MapReduceSpec)}
+     * @throws RiakException
+     *             if the job cannot be written as JSON
+     */
+    MapReduceSpec spec() throws RiakException {
+        validate();
+        final Deadline.Scope scope = Deadline.bind(deadline);
+        try {
+            return new MapReduceSpec(writeSpec(writeQuery(), capTimeout(timeout)));
+        } finally {
+            scope.close();
         }
     }
 
+    /**
+     * Serialise the phases of this job once, so that it can be run many times
+     * over different inputs without writing them again. The timeout is
+     * written as each job is sent, capped at what is left of its
+     * {@link Deadline}.
+     * 
+     * <p>
+     * Phases added after this call are not part of the returned job.
+     * </p>
+     * 
+     * @return a {@link PreparedMapReduce} that runs against the
+     *         {@link RawClient} this operation was constructed with
+     * @throws RiakException
+     *             if the phases cannot be written as JSON
+     * @see PreparedMapReduce#execute(MapReduce)
+     */
+    public PreparedMapReduce prepare() throws RiakException {
+        return new PreparedMapReduce(client, writeQuery(), timeout);
+    }
+
     /**
      * Check that this map/reduce job is valid
      * @throws InvalidMapReduceException
@@ -92,50 +146,80 @@ public abstract class MapReduce implements RiakOperation<MapReduceResult> {
 	}
 
     /**
-     * Creates the JSON string of the M/R job for submitting to the
-     * {@link RawClient}
-     * 
-     * Uses Jackson to write out the JSON string. I'm not very happy with this
-     * method, it is a candidate for change.
+     * Creates the UTF-8 JSON of the M/R job for submitting to the
+     * {@link RawClient}: this job's inputs followed by <code>query</code> and
+     * <code>timeout</code>.
      * 
-     * TODO re-evaluate this method, look for something smaller and more elegant.
-     * 
-     * @return a String of JSON
+     * @param query
+     *            the phases of the job, from {@link #writeQuery()}
+     * @param timeout
+     *            the job timeout to write, or null
+     * @return the UTF-8 bytes of the JSON job
      * @throws RiakException
-     *             if, for some reason, we can't create a JSON string.
+     *             if, for some reason, we can't create the JSON.
      */
-    private String writeSpec() throws RiakException {
-
-        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] writeSpec(byte[] query, Long timeout) throws RiakException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(INPUTS.length + query.length + 96);
 
         try {
-            JsonGenerator jg = new JsonFactory().createJsonGenerator(out, JsonEncoding.UTF8);
-            jg.setCodec(new ObjectMapper());
+            out.write(INPUTS);
+            JsonGenerator jg = JSON.createGenerator(out, JsonEncoding.UTF8);
+            writeInput(jg);
+            jg.flush();
+            out.write(query);
+            if (timeout != null) {
+                out.write(CharsetUtils.utf8StringToBytes(",\"timeout\":" + timeout));
+            }
+            out.write('}');
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RiakException(e);
+        }
+    }
 
-            jg.writeStartObject();
+    /**
+     * Writes the phases of the job, which follow the inputs.
+     * 
+     * @return UTF-8 JSON for {@link #writeSpec(byte[], Long)}
+     * @throws RiakException
+     *             if, for some reason, we can't create the JSON.
+     */
+    private byte[] writeQuery() throws RiakException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
 
-            jg.writeFieldName("inputs");
-            writeInput(jg);
+        try {
+            out.write(QUERY);
+            JsonGenerator jg = JSON.createGenerator(out, JsonEncoding.UTF8);
 
-            jg.writeFieldName("query");
             jg.writeStartArray();
-
             writePhases(jg);
-
             jg.writeEndArray();
-            if (timeout != null) {
-                jg.writeNumberField("timeout", timeout);
-            }
-
-            jg.writeEndObject();
             jg.flush();
 
-            return out.toString("UTF8");
+            return out.toByteArray();
         } catch (IOException e) {
             throw new RiakException(e);
         }
     }
 
+    /**
+     * @param timeout
+     *            the job's own timeout, or null
+     * @return the timeout to send: <code>timeout</code> capped at what is
+     *         left of the calling thread's {@link Deadline}
+     */
+    static Long capTimeout(Long timeout) {
+        final Deadline current = Deadline.current();
+        if (current == null) {
+            return timeout;
+        }
+        final long remaining = current.remainingMillis();
+        if (remaining <= 0) {
+            throw current.exceeded("before sending the map/reduce job", null);
+        }
+        return timeout == null ? remaining : Math.min(timeout, remaining);
+    }
+
     /**
      * Write the collection of phases to the json output generator
      * @param jg
@@ -215,6 +299,29 @@ public abstract class MapReduce implements RiakOperation<MapReduceResult> {
         return this;
     }
 
+    /**
+     * Fail with a {@link DeadlineExceededException} rather than run past
+     * <code>deadline</code>. The job's timeout is capped at the time left
+     * when it is sent, also when this job supplies the inputs of a
+     * {@link PreparedMapReduce} or is run by a {@link StreamingReduce}.
+     * 
+     * @param deadline
+     *            the {@link Deadline}, null for none
+     * @return this
+     * @see Deadline
+     */
+    public MapReduce withDeadline(final Deadline deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * @return the deadline set with {@link #withDeadline(Deadline)}, or null
+     */
+    Deadline getDeadline() {
+        return deadline;
+    }
+
     /**
      * Add {@link MapPhase} to the query
      * 
@@ -0,0 +1,103 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.query;
+
+import java.io.IOException;
+
+import com.basho.riak.client.RiakException;
+import com.basho.riak.client.cap.Deadline;
+import com.basho.riak.client.cap.DeadlineExceededException;
+import com.basho.riak.client.raw.RawClient;
+import com.basho.riak.client.raw.query.MapReduceSpec;
+
+/**
+ * A Map/Reduce job whose phases have already been written as JSON, obtained
+ * from {@link MapReduce#prepare()}.
+ * 
+ * <p>
+ * Each execution only writes the inputs, taken from any {@link MapReduce}
+ * (for example a {@link BucketKeyMapReduce} or an {@link IndexMapReduce}),
+ * and splices them in front of the prepared phases. The timeout is capped
+ * at what is left of the inputs' {@link com.basho.riak.client.cap.Deadline
+ * deadline}, or the calling thread's, as each job is sent. The job is sent as
+ * UTF-8 bytes, which the protocol buffers transport uses as is. Instances
+ * are immutable and can be shared between threads.
+ * </p>
+ * 
+ * <pre>
+ * PreparedMapReduce counts = client.mapReduce().addMapPhase(countFn).addReducePhase(sumFn).prepare();
+ * 
+ * MapReduceResult r = counts.execute(client.mapReduce().addInput("orders", orderId));
+ * </pre>
+ */
+public class PreparedMapReduce {
+
+    private final RawClient client;
+    private final byte[] query;
+    private final Long timeout;
+
+    PreparedMapReduce(RawClient client, byte[] query, Long timeout) {
+        this.client = client;
+        this.query = query;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Write the spec of the prepared job over the inputs of
+     * <code>inputs</code>. Any phases of <code>inputs</code> are ignored.
+     * 
+     * @param inputs
+     *            the job to take the inputs from
+     * @return the spec to pass to {@link RawClient#mapReduce(MapReduceSpec)}
+     * @throws RiakException
+     *             if the inputs cannot be written as JSON
+     * @throws NoInputsException
+     *             if <code>inputs</code> requires inputs and has none
+     * @throws DeadlineExceededException
+     *             if the deadline has already passed
+     */
+    public MapReduceSpec spec(MapReduce inputs) throws RiakException {
+        inputs.validate();
+        final Deadline.Scope scope = Deadline.bind(inputs.getDeadline());
+        try {
+            return new MapReduceSpec(inputs.writeSpec(query, MapReduce.capTimeout(timeout)));
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Run the prepared job over the inputs of <code>inputs</code>, against
+     * the {@link RawClient} the job was prepared with.
+     * 
+     * @param inputs
+     *            the job to take the inputs from, its phases are ignored
+     * @return a {@link MapReduceResult} containing the results of the query.
+     * @throws RiakException
+     */
+    public MapReduceResult execute(MapReduce inputs) throws RiakException {
+        final Deadline deadline = inputs.getDeadline();
+        final Deadline.Scope scope = Deadline.bind(deadline);
+        try {
+            return client.mapReduce(spec(inputs));
+        } catch (IOException e) {
+            if (deadline != null && deadline.isExpired()) {
+                throw deadline.exceeded("running map/reduce", e);
+            }
+            throw new RiakException(e);
+        } finally {
+            scope.close();
+        }
+    }
+}
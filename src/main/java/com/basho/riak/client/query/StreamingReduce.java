@@ -0,0 +1,365 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.query;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collector;
+
+import com.basho.riak.client.RiakException;
+import com.basho.riak.client.cap.Deadline;
+import com.basho.riak.client.raw.ClusterClient;
+import com.basho.riak.client.raw.RawClient;
+import com.basho.riak.client.raw.StreamingMapReduceClient;
+import com.basho.riak.client.raw.StreamingMapReduceClient.ChunkHandler;
+import com.basho.riak.client.raw.query.MapReduceSpec;
+import com.basho.riak.client.raw.query.MapReduceTimeoutException;
+import com.basho.riak.client.util.CharsetUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Runs a Map/Reduce job and reduces its results on the client with a
+ * {@link Collector}, as the results stream in.
+ * 
+ * <p>
+ * Rather than waiting for the whole result and reducing it afterwards, or
+ * making the Riak coordinator run the final reduce phase, each chunk Riak
+ * sends is parsed and accumulated on a {@link ForkJoinPool} while the next
+ * chunk is read. Large chunks are split and accumulated in parallel, and the
+ * partial results are combined in the order the chunks arrived, so the
+ * collector need not be commutative. Only a bounded number of chunks are
+ * held at once, so memory does not grow with the size of the result.
+ * </p>
+ * <p>
+ * Chunks are streamed from clients that implement
+ * {@link StreamingMapReduceClient} (protocol buffers, and {@link ClusterClient}
+ * when the node it picks is one). With other clients the
+ * whole result is fetched and reduced as a single chunk.
+ * </p>
+ * 
+ * <pre>
+ * StreamingReduce&lt;Long, Long&gt; total = new StreamingReduce.Builder&lt;Long, Long&gt;(client, Long.class,
+ *                                                                              Collectors.summingLong(l -&gt; l))
+ *     .build();
+ * Long sum = total.execute(client.mapReduce("orders").addMapPhase(amounts));
+ * </pre>
+ * 
+ * @param <T>
+ *            the type each result is read as
+ * @param <R>
+ *            the type of the reduced result
+ */
+public class StreamingReduce<T, R> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final RawClient client;
+    private final ObjectReader reader;
+    private final Collector<? super T, ?, R> collector;
+    private final Integer phase;
+    private final ForkJoinPool pool;
+    private final int maxPendingChunks;
+    private final int splitThreshold;
+
+    private StreamingReduce(Builder<T, R> builder) {
+        this.client = builder.client;
+        this.reader = MAPPER.readerFor(MAPPER.getTypeFactory().constructCollectionType(List.class, builder.type));
+        this.collector = builder.collector;
+        this.phase = builder.phase;
+        this.pool = builder.pool;
+        this.maxPendingChunks = builder.maxPendingChunks;
+        this.splitThreshold = builder.splitThreshold;
+    }
+
+    /**
+     * Run <code>job</code> and reduce its results. The job is run against
+     * this reducer's client, not the one it was created with. Chunks are read
+     * on the calling thread, so the job's {@link Deadline} bounds the whole
+     * run; the pool only parses and accumulates them.
+     * 
+     * @param job
+     *            the Map/Reduce job
+     * @return the reduced result
+     * @throws RiakException
+     *             if the job or the reduction fails
+     */
+    public R execute(MapReduce job) throws RiakException {
+        final Deadline deadline = job.getDeadline();
+        final Deadline.Scope scope = Deadline.bind(deadline);
+        try {
+            return execute(job.spec());
+        } catch (IOException e) {
+            if (deadline != null && deadline.isExpired()) {
+                throw deadline.exceeded("running map/reduce", e);
+            }
+            throw new RiakException(e);
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Run the job described by <code>spec</code> and reduce its results.
+     * 
+     * @param spec
+     *            the Map/Reduce job, for example from
+     *            {@link PreparedMapReduce#spec(MapReduce)}
+     * @return the reduced result
+     * @throws IOException
+     *             if the job fails, a chunk cannot be read as the result
+     *             type, or the collector throws
+     * @throws MapReduceTimeoutException
+     *             if the job times out
+     */
+    public R execute(MapReduceSpec spec) throws IOException, MapReduceTimeoutException {
+        return reduce(collector, spec);
+    }
+
+    private <A> R reduce(final Collector<? super T, A, R> c, MapReduceSpec spec) throws IOException,
+            MapReduceTimeoutException {
+        final Deque<ForkJoinTask<A>> pending = new ArrayDeque<ForkJoinTask<A>>();
+        final Object[] total = new Object[1];
+
+        final ChunkHandler handler = new ChunkHandler() {
+            public void onChunk(int chunkPhase, byte[] json) throws IOException {
+                if (phase != null && chunkPhase != StreamingMapReduceClient.ALL_PHASES && phase != chunkPhase) {
+                    return;
+                }
+                pending.addLast(pool.submit(new ChunkTask<A>(c, json)));
+                // fold in finished chunks, and stop reading while too many
+                // are still being reduced
+                while (!pending.isEmpty() && (pending.peekFirst().isDone() || pending.size() > maxPendingChunks)) {
+                    total[0] = combine(c, total[0], await(pending.pollFirst()));
+                }
+            }
+        };
+
+        try {
+            if (client instanceof StreamingMapReduceClient) {
+                ((StreamingMapReduceClient) client).mapReduce(spec, handler);
+            } else {
+                MapReduceResult result = client.mapReduce(spec);
+                handler.onChunk(StreamingMapReduceClient.ALL_PHASES,
+                                CharsetUtils.utf8StringToBytes(result.getResultRaw()));
+            }
+            while (!pending.isEmpty()) {
+                total[0] = combine(c, total[0], await(pending.pollFirst()));
+            }
+        } finally {
+            for (ForkJoinTask<A> task : pending) {
+                task.cancel(true);
+            }
+        }
+
+        @SuppressWarnings("unchecked") A result = total[0] == null ? c.supplier().get() : (A) total[0];
+        return finish(c, result);
+    }
+
+    @SuppressWarnings("unchecked") private static <A> A combine(Collector<?, A, ?> c, Object total, A partial) {
+        return total == null ? partial : c.combiner().apply((A) total, partial);
+    }
+
+    @SuppressWarnings("unchecked") private static <A, R> R finish(Collector<?, A, R> c, A container) {
+        if (c.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return (R) container;
+        }
+        return c.finisher().apply(container);
+    }
+
+    private static <A> A await(ForkJoinTask<A> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            // fork/join may rethrow a copy of the task's exception, so look
+            // down the chain for a parse failure
+            for (Throwable t = e.getCause(); t != null; t = t.getCause()) {
+                if (t instanceof IOException) {
+                    throw (IOException) t;
+                }
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Parses a chunk and accumulates it.
+     */
+    private final class ChunkTask<A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+        private final Collector<? super T, A, R> c;
+        private final byte[] json;
+
+        ChunkTask(Collector<? super T, A, R> c, byte[] json) {
+            this.c = c;
+            this.json = json;
+        }
+
+        @Override protected A compute() {
+            final List<T> items;
+            try {
+                items = reader.readValue(json);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new Accumulate<A>(c, items, 0, items == null ? 0 : items.size()).compute();
+        }
+    }
+
+    /**
+     * Accumulates a range of a chunk, splitting it if it is large.
+     */
+    private final class Accumulate<A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+        private final Collector<? super T, A, R> c;
+        private final List<T> items;
+        private final int from;
+        private final int to;
+
+        Accumulate(Collector<? super T, A, R> c, List<T> items, int from, int to) {
+            this.c = c;
+            this.items = items;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override protected A compute() {
+            if (to - from > splitThreshold) {
+                int mid = (from + to) >>> 1;
+                Accumulate<A> left = new Accumulate<A>(c, items, from, mid);
+                left.fork();
+                A right = new Accumulate<A>(c, items, mid, to).compute();
+                return c.combiner().apply(left.join(), right);
+            }
+            A container = c.supplier().get();
+            for (int i = from; i < to; i++) {
+                c.accumulator().accept(container, items.get(i));
+            }
+            return container;
+        }
+    }
+
+    /**
+     * Builds a {@link StreamingReduce}.
+     * 
+     * Defaults: all phases are reduced, on the common {@link ForkJoinPool},
+     * with up to twice its parallelism chunks in flight and chunks of more
+     * than 1024 results split.
+     * 
+     * @param <T>
+     *            the type each result is read as
+     * @param <R>
+     *            the type of the reduced result
+     */
+    public static class Builder<T, R> {
+        private final RawClient client;
+        private final Class<T> type;
+        private final Collector<? super T, ?, R> collector;
+        private Integer phase;
+        private ForkJoinPool pool = ForkJoinPool.commonPool();
+        private int maxPendingChunks = -1;
+        private int splitThreshold = 1024;
+
+        /**
+         * @param client
+         *            the client to run jobs with, if it is a
+         *            {@link ClusterClient} jobs are spread across its nodes
+         * @param type
+         *            the type to read each result as, with Jackson
+         * @param collector
+         *            reduces the results, its combiner must be associative
+         */
+        public Builder(RawClient client, Class<T> type, Collector<? super T, ?, R> collector) {
+            if (client == null || type == null || collector == null) {
+                throw new IllegalArgumentException("client, type and collector cannot be null");
+            }
+            this.client = client;
+            this.type = type;
+            this.collector = collector;
+        }
+
+        /**
+         * @param phase
+         *            only reduce the results of this phase, for jobs that
+         *            keep the results of more than one
+         * @return this
+         */
+        public Builder<T, R> phase(int phase) {
+            if (phase < 0) {
+                throw new IllegalArgumentException("phase cannot be negative");
+            }
+            this.phase = phase;
+            return this;
+        }
+
+        /**
+         * @param pool
+         *            runs the parsing and accumulating
+         * @return this
+         */
+        public Builder<T, R> pool(ForkJoinPool pool) {
+            if (pool == null) {
+                throw new IllegalArgumentException("pool cannot be null");
+            }
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * @param maxPendingChunks
+         *            the most chunks being reduced at once before reading
+         *            from Riak waits
+         * @return this
+         */
+        public Builder<T, R> maxPendingChunks(int maxPendingChunks) {
+            if (maxPendingChunks < 1) {
+                throw new IllegalArgumentException("maxPendingChunks must be at least 1");
+            }
+            this.maxPendingChunks = maxPendingChunks;
+            return this;
+        }
+
+        /**
+         * @param splitThreshold
+         *            chunks with more results than this are accumulated in
+         *            parallel pieces
+         * @return this
+         */
+        public Builder<T, R> splitThreshold(int splitThreshold) {
+            if (splitThreshold < 1) {
+                throw new IllegalArgumentException("splitThreshold must be at least 1");
+            }
+            this.splitThreshold = splitThreshold;
+            return this;
+        }
+
+        public StreamingReduce<T, R> build() {
+            if (maxPendingChunks < 0) {
+                maxPendingChunks = 2 * pool.getParallelism();
+            }
+            return new StreamingReduce<T, R>(this);
+        }
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.query.filter;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link KeyFilter} sequence compiled to a Java {@link Predicate}, so keys
+ * can be filtered on the client with the same semantics Riak applies in a
+ * {@link com.basho.riak.client.query.BucketMapReduce}.
+ * 
+ * <p>
+ * Use it to filter the keys of a listKeys or 2i stream, to prune the inputs
+ * of a {@link com.basho.riak.client.query.BucketKeyMapReduce} before it is
+ * sent, or to test a filter without a cluster. The filters are read once,
+ * from {@link KeyFilter#asArray()}: arguments are converted, regular
+ * expressions compiled and set members hashed up front, so evaluating a key
+ * allocates only what the transforms produce.
+ * </p>
+ * <p>
+ * As with Riak, the filters are applied in order: transforms change the
+ * value the following filters see and predicates must all pass. Where Riak
+ * would fail the job (for example <code>string_to_int</code> of a key that
+ * isn't a number, or <code>tokenize</code> past the last token) the key
+ * simply doesn't match. Numbers sort before strings, as Erlang terms do.
+ * </p>
+ * 
+ * <pre>
+ * Predicate&lt;String&gt; recent = CompiledKeyFilter.compile(new TokenizeFilter("-", 2),
+ *                                                         new StringToIntFilter(),
+ *                                                         new GreaterThanFilter(2012));
+ * </pre>
+ */
+public final class CompiledKeyFilter implements Predicate<String> {
+
+    /**
+     * Returned by a {@link Stage} to reject the key.
+     */
+    private static final Object REJECT = new Object();
+
+    private final Stage[] stages;
+
+    private CompiledKeyFilter(Stage[] stages) {
+        this.stages = stages;
+    }
+
+    /**
+     * Compile a sequence of filters.
+     * 
+     * @param filters
+     *            the filters, in the order Riak would apply them
+     * @return a predicate that is true for keys that pass every filter
+     * @throws IllegalArgumentException
+     *             for an unknown filter or malformed arguments
+     */
+    public static CompiledKeyFilter compile(KeyFilter... filters) {
+        return compile(Arrays.asList(filters));
+    }
+
+    /**
+     * Compile a sequence of filters, for example those of a
+     * {@link com.basho.riak.client.query.BucketMapReduce}.
+     * 
+     * @param filters
+     *            the filters, in the order Riak would apply them
+     * @return a predicate that is true for keys that pass every filter
+     * @throws IllegalArgumentException
+     *             for an unknown filter or malformed arguments
+     */
+    public static CompiledKeyFilter compile(Iterable<? extends KeyFilter> filters) {
+        final List<Stage> stages = new ArrayList<Stage>();
+        for (KeyFilter filter : filters) {
+            if (filter instanceof LogicalFilterGroup) {
+                for (Object f : filter.asArray()) {
+                    stages.add(stage((Object[]) f));
+                }
+            } else {
+                stages.add(stage(filter.asArray()));
+            }
+        }
+        return new CompiledKeyFilter(stages.toArray(new Stage[stages.size()]));
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.function.Predicate#test(java.lang.Object)
+     */
+    public boolean test(String key) {
+        return run(stages, key) != REJECT;
+    }
+
+    private static Object run(Stage[] stages, Object value) {
+        Object v = value;
+        for (Stage s : stages) {
+            v = s.apply(v);
+            if (v == REJECT) {
+                break;
+            }
+        }
+        return v;
+    }
+
+    /**
+     * One filter: returns the transformed value, the value itself if a
+     * predicate passes, or {@link #REJECT}.
+     */
+    private interface Stage {
+        Object apply(Object value);
+    }
+
+    private static Stage[] sequence(Object sequence) {
+        final Object[] filters = (Object[]) sequence;
+        final Stage[] stages = new Stage[filters.length];
+        for (int i = 0; i < filters.length; i++) {
+            stages[i] = stage((Object[]) filters[i]);
+        }
+        return stages;
+    }
+
+    private static Stage[][] branches(Object[] filter) {
+        final Stage[][] branches = new Stage[filter.length - 1][];
+        for (int i = 1; i < filter.length; i++) {
+            branches[i - 1] = sequence(filter[i]);
+        }
+        return branches;
+    }
+
+    private static Stage stage(final Object[] filter) {
+        if (filter == null || filter.length == 0) {
+            throw new IllegalArgumentException("empty key filter");
+        }
+        final String name = String.valueOf(filter[0]);
+
+        if ("and".equals(name) || "or".equals(name)) {
+            final Stage[][] branches = branches(filter);
+            final boolean and = "and".equals(name);
+            return new Stage() {
+                public Object apply(Object value) {
+                    for (Stage[] branch : branches) {
+                        if ((run(branch, value) != REJECT) != and) {
+                            return and ? REJECT : value;
+                        }
+                    }
+                    return and ? value : REJECT;
+                }
+            };
+        }
+        if ("not".equals(name)) {
+            final Stage[][] branches = branches(filter);
+            return new Stage() {
+                public Object apply(Object value) {
+                    for (Stage[] branch : branches) {
+                        if (run(branch, value) == REJECT) {
+                            return value;
+                        }
+                    }
+                    return REJECT;
+                }
+            };
+        }
+
+        if ("int_to_string".equals(name) || "float_to_string".equals(name)) {
+            return new Stage() {
+                public Object apply(Object value) {
+                    return value instanceof Number ? value.toString() : REJECT;
+                }
+            };
+        }
+        if ("string_to_int".equals(name)) {
+            return new Stage() {
+                public Object apply(Object value) {
+                    if (value instanceof String) {
+                        try {
+                            return Long.valueOf((String) value);
+                        } catch (NumberFormatException e) {
+                            // no match
+                        }
+                    }
+                    return REJECT;
+                }
+            };
+        }
+        if ("string_to_float".equals(name)) {
+            return new Stage() {
+                public Object apply(Object value) {
+                    if (value instanceof String) {
+                        try {
+                            return Double.valueOf((String) value);
+                        } catch (NumberFormatException e) {
+                            // no match
+                        }
+                    }
+                    return REJECT;
+                }
+            };
+        }
+        if ("to_upper".equals(name) || "to_lower".equals(name)) {
+            final boolean upper = "to_upper".equals(name);
+            return new Stage() {
+                public Object apply(Object value) {
+                    if (!(value instanceof String)) {
+                        return REJECT;
+                    }
+                    return upper ? ((String) value).toUpperCase() : ((String) value).toLowerCase();
+                }
+            };
+        }
+        if ("urldecode".equals(name)) {
+            return new Stage() {
+                public Object apply(Object value) {
+                    if (value instanceof String) {
+                        try {
+                            return URLDecoder.decode((String) value, "UTF-8");
+                        } catch (UnsupportedEncodingException e) {
+                            throw new IllegalStateException(e);
+                        } catch (IllegalArgumentException e) {
+                            // malformed escape, no match
+                        }
+                    }
+                    return REJECT;
+                }
+            };
+        }
+        if ("tokenize".equals(name)) {
+            return tokenize(string(filter, 1), integer(filter, 2));
+        }
+
+        if ("eq".equals(name) || "neq".equals(name)) {
+            final Object operand = constant(filter, 1);
+            final boolean eq = "eq".equals(name);
+            return new Stage() {
+                public Object apply(Object value) {
+                    return (compare(value, operand) == 0) == eq ? value : REJECT;
+                }
+            };
+        }
+        if ("greater_than".equals(name)) {
+            return comparison(constant(filter, 1), 1, Integer.MAX_VALUE);
+        }
+        if ("greater_than_eq".equals(name) || "greater_than_or_eq".equals(name)) {
+            return comparison(constant(filter, 1), 0, Integer.MAX_VALUE);
+        }
+        if ("less_than".equals(name)) {
+            return comparison(constant(filter, 1), Integer.MIN_VALUE, -1);
+        }
+        if ("less_than_eq".equals(name)) {
+            return comparison(constant(filter, 1), Integer.MIN_VALUE, 0);
+        }
+        if ("between".equals(name)) {
+            final Object from = constant(filter, 1);
+            final Object to = constant(filter, 2);
+            final boolean inclusive = filter.length < 4 || Boolean.TRUE.equals(filter[3]);
+            return new Stage() {
+                public Object apply(Object value) {
+                    int low = compare(value, from);
+                    int high = compare(value, to);
+                    boolean in = inclusive ? low >= 0 && high <= 0 : low > 0 && high < 0;
+                    return in ? value : REJECT;
+                }
+            };
+        }
+        if ("matches".equals(name)) {
+            final Pattern pattern = Pattern.compile(string(filter, 1));
+            return new Stage() {
+                public Object apply(Object value) {
+                    return value instanceof String && pattern.matcher((String) value).find() ? value : REJECT;
+                }
+            };
+        }
+        if ("starts_with".equals(name) || "ends_with".equals(name)) {
+            final String affix = string(filter, 1);
+            final boolean starts = "starts_with".equals(name);
+            return new Stage() {
+                public Object apply(Object value) {
+                    if (!(value instanceof String)) {
+                        return REJECT;
+                    }
+                    String s = (String) value;
+                    return (starts ? s.startsWith(affix) : s.endsWith(affix)) ? value : REJECT;
+                }
+            };
+        }
+        if ("set_member".equals(name)) {
+            final Set<Object> members = new HashSet<Object>();
+            for (int i = 1; i < filter.length; i++) {
+                members.add(constant(filter, i));
+            }
+            return new Stage() {
+                public Object apply(Object value) {
+                    return members.contains(normalise(value)) ? value : REJECT;
+                }
+            };
+        }
+        if ("similar_to".equals(name)) {
+            final String target = string(filter, 1);
+            final int distance = integer(filter, 2);
+            return new Stage() {
+                public Object apply(Object value) {
+                    return value instanceof String && editDistance((String) value, target, distance) <= distance
+                            ? value : REJECT;
+                }
+            };
+        }
+        throw new IllegalArgumentException("unknown key filter " + name);
+    }
+
+    private static Stage tokenize(String separators, final int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("tokenize token number must be at least 1");
+        }
+        final char[] seps = separators.toCharArray();
+        return new Stage() {
+            public Object apply(Object value) {
+                if (!(value instanceof String)) {
+                    return REJECT;
+                }
+                // like Erlang's string:tokens, any separator character splits
+                // and empty tokens are skipped
+                final String s = (String) value;
+                int token = 0;
+                int start = -1;
+                for (int i = 0; i <= s.length(); i++) {
+                    boolean sep = i == s.length() || isSeparator(s.charAt(i), seps);
+                    if (sep) {
+                        if (start >= 0 && ++token == n) {
+                            return s.substring(start, i);
+                        }
+                        start = -1;
+                    } else if (start < 0) {
+                        start = i;
+                    }
+                }
+                return REJECT;
+            }
+        };
+    }
+
+    private static boolean isSeparator(char c, char[] seps) {
+        for (char sep : seps) {
+            if (c == sep) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Stage comparison(final Object operand, final int min, final int max) {
+        return new Stage() {
+            public Object apply(Object value) {
+                int c = compare(value, operand);
+                return c >= min && c <= max ? value : REJECT;
+            }
+        };
+    }
+
+    /**
+     * Compares as Erlang terms: numbers by value, before strings, strings by
+     * character.
+     */
+    private static int compare(Object value, Object operand) {
+        if (value instanceof Number && operand instanceof Number) {
+            if (value instanceof Long && operand instanceof Long) {
+                return Long.compare((Long) value, (Long) operand);
+            }
+            return Double.compare(((Number) value).doubleValue(), ((Number) operand).doubleValue());
+        }
+        if (value instanceof String && operand instanceof String) {
+            return Integer.signum(((String) value).compareTo((String) operand));
+        }
+        return value instanceof Number ? -1 : 1;
+    }
+
+    private static Object normalise(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) {
+            return ((Number) value).doubleValue();
+        }
+        return value;
+    }
+
+    private static Object constant(Object[] filter, int index) {
+        if (filter.length <= index || filter[index] == null) {
+            throw new IllegalArgumentException("key filter " + filter[0] + " is missing argument " + index);
+        }
+        return normalise(filter[index]);
+    }
+
+    private static String string(Object[] filter, int index) {
+        Object arg = constant(filter, index);
+        if (!(arg instanceof String)) {
+            throw new IllegalArgumentException("key filter " + filter[0] + " argument " + index + " must be a string");
+        }
+        return (String) arg;
+    }
+
+    private static int integer(Object[] filter, int index) {
+        Object arg = constant(filter, index);
+        if (!(arg instanceof Long)) {
+            throw new IllegalArgumentException("key filter " + filter[0] + " argument " + index +
+                                               " must be an integer");
+        }
+        return ((Long) arg).intValue();
+    }
+
+    /**
+     * Levenshtein distance, giving up once every path exceeds
+     * <code>limit</code>.
+     */
+    private static int editDistance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.basho.riak.client.IRiakObject;
+
+/**
+ * A {@link RawClient} that can also perform the key/value operations without
+ * blocking the calling thread.
+ * 
+ * <p>
+ * The returned futures complete exceptionally with the same exceptions the
+ * blocking methods throw. Callbacks attached with the non-async methods of
+ * {@link CompletableFuture} run on the transport's I/O threads and must not
+ * block.
+ * </p>
+ */
+public interface AsyncRawClient extends RawClient {
+
+    /**
+     * Fetch the data at <code>bucket/key</code>
+     * 
+     * @param bucket
+     *            the bucket
+     * @param key
+     *            the key
+     * @param fetchMeta
+     *            the fetch options, may be null
+     * @return a future {@link RiakResponse}
+     * @see RawClient#fetch(String, String, FetchMeta)
+     */
+    CompletableFuture<RiakResponse> fetchAsync(String bucket, String key, FetchMeta fetchMeta);
+
+    /**
+     * Store the given {@link IRiakObject}
+     * 
+     * @param object
+     *            the data to store
+     * @param storeMeta
+     *            the store options
+     * @return a future {@link RiakResponse}
+     * @see RawClient#store(IRiakObject, StoreMeta)
+     */
+    CompletableFuture<RiakResponse> storeAsync(IRiakObject object, StoreMeta storeMeta);
+
+    /**
+     * Delete the data at <code>bucket/key</code>
+     * 
+     * @param bucket
+     *            the bucket
+     * @param key
+     *            the key
+     * @param deleteMeta
+     *            the delete options, may be null
+     * @return a future that completes when Riak has acknowledged the delete
+     * @see RawClient#delete(String, String, DeleteMeta)
+     */
+    CompletableFuture<Void> deleteAsync(String bucket, String key, DeleteMeta deleteMeta);
+}
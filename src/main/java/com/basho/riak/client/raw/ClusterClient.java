@@ -16,43 +16,134 @@ package com.basho.riak.client.raw;
 import com.basho.riak.client.IndexEntry;
 import com.basho.riak.client.query.StreamingOperation;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.basho.riak.client.IRiakObject;
 import com.basho.riak.client.bucket.BucketProperties;
 import com.basho.riak.client.query.MapReduceResult;
 import com.basho.riak.client.query.NodeStats;
 import com.basho.riak.client.query.WalkResult;
+import com.basho.riak.client.raw.breaker.CircuitBreaker;
+import com.basho.riak.client.raw.breaker.CircuitBreakerConfig;
+import com.basho.riak.client.raw.breaker.CircuitOpenException;
 import com.basho.riak.client.raw.config.ClusterConfig;
 import com.basho.riak.client.raw.config.Configuration;
+import com.basho.riak.client.raw.config.HostListProvider;
 import com.basho.riak.client.raw.query.IndexSpec;
 import com.basho.riak.client.raw.query.LinkWalkSpec;
 import com.basho.riak.client.raw.query.MapReduceSpec;
 import com.basho.riak.client.raw.query.MapReduceTimeoutException;
 import com.basho.riak.client.raw.query.indexes.IndexQuery;
+import com.basho.riak.client.util.CharsetUtils;
+import com.basho.riak.client.util.HashedWheelTimer;
+import com.basho.riak.client.util.HashedWheelTimer.Timeout;
+import com.basho.riak.client.util.RiakThreads;
+import com.basho.riak.pbc.RiakError;
 
 /**
  * A {@link RawClient} that can be configured with a cluster of Riak clients
  * that connect to different Riak nodes.
  * 
  * It uses a very basic modulus round robin algorithm to select the client to
- * use.
+ * use, weighted by each node's share (1 unless set with
+ * {@link #addNode(Configuration, int)} or
+ * {@link #setNodeWeight(String, int)}).
+ * 
+ * <p>
+ * Membership can change while the client is in use. Nodes are added with
+ * {@link #addNode(Configuration)}, stop taking new requests with
+ * {@link #drainNode(String)} and leave with
+ * {@link #removeNode(String, long, TimeUnit)}, which waits for requests in
+ * flight before shutting the node's client down. The other nodes and their
+ * connection pools are untouched. {@link #startRefresh(HostListProvider,
+ * Configuration, long, TimeUnit)} keeps the membership in step with a
+ * {@link HostListProvider}.
+ * </p>
+ * <p>
+ * If the {@link ClusterConfig} has a
+ * {@link ClusterConfig#withCircuitBreaker(CircuitBreakerConfig) circuit
+ * breaker config} each node gets a {@link CircuitBreaker}. Every call records
+ * its duration and whether the node failed to answer, and nodes whose breaker
+ * is open are skipped by the round robin until a <code>ping()</code> shows
+ * they have recovered. If every node is open calls fail fast with a
+ * {@link CircuitOpenException}.
+ * </p>
+ * <p>
+ * With a {@link ClusterConfig#withLocalZone(String) local zone} the round
+ * robin is over the nodes in that zone. Other nodes are used only while
+ * every local node is open, drained or has more of its pool busy than the
+ * {@link ClusterConfig#withSaturationThreshold(int) saturation threshold};
+ * {@link #getLocalRequestCount()} and {@link #getRemoteRequestCount()} show
+ * the split.
+ * </p>
+ * <p>
+ * Values can be streamed through the cluster, see {@link StreamingRawClient},
+ * when its nodes' clients support it, as HTTP clients do. The call goes to
+ * whichever node is picked, like any other.
+ * </p>
  * 
  * @author russell
  * 
  */
-public abstract class ClusterClient<T extends Configuration> implements RawClient {
+public abstract class ClusterClient<T extends Configuration> implements StreamingMapReduceClient,
+        StreamingRawClient {
+
+    /**
+     * How long {@link #refresh(HostListProvider, Configuration)} waits for
+     * requests in flight on a node that has left the host list.
+     */
+    public static final long REFRESH_DRAIN_TIMEOUT_MILLIS = 30000;
+
+    private static final AtomicInteger CLUSTER_COUNT = new AtomicInteger();
 
-    private final RawClient[] cluster;
-    private final int clusterSize;
     private final AtomicInteger counter;
+    private final CircuitBreakerConfig breakerConfig;
+    private final String localZone;
+    private final int saturationThreshold;
+    private final AtomicLong localRequests = new AtomicLong();
+    private final AtomicLong remoteRequests = new AtomicLong();
+    private final AtomicInteger unnamed = new AtomicInteger();
+    // copy on write, replaced whole under membershipLock
+    private volatile Members members;
+    private final Object membershipLock = new Object();
+    private volatile Timeout refreshTask;
+    private ExecutorService refresher;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
 
     public ClusterClient(ClusterConfig<T> clusterConfig) throws IOException {
-        cluster = fromConfig(clusterConfig);
-        clusterSize = cluster.length;
         counter = new AtomicInteger(0);
+        breakerConfig = clusterConfig.getCircuitBreakerConfig();
+        localZone = clusterConfig.getLocalZone();
+        saturationThreshold = clusterConfig.getSaturationThreshold();
+
+        final RawClient[] cluster = fromConfig(clusterConfig);
+        final List<T> configs = clusterConfig.getClients();
+        final Node[] nodes = new Node[cluster.length];
+        for (int i = 0; i < cluster.length; i++) {
+            // subclasses may not build one client per config
+            final T config = configs.size() == cluster.length ? configs.get(i) : null;
+            final String name = nodeName(config);
+            nodes[i] = newNode(name, config == null ? name : nodeAddress(config), config, cluster[i], 1);
+        }
+        members = new Members(nodes, localZone);
     }
 
     /**
@@ -64,17 +155,807 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
     protected abstract RawClient[] fromConfig(ClusterConfig<T> clusterConfig) throws IOException;
 
     /**
-     * Get a {@link RawClient} delegate from the array that makes up the
-     * cluster, basic round robin.
+     * Create a client for a node added with {@link #addNode(Configuration)}.
+     * Transports that support adding nodes at runtime override this, by
+     * default it is unsupported.
+     * 
+     * @param nodeConfig
+     *            the node's config
+     * @return a {@link RawClient} for the node
+     * @throws IOException
+     */
+    protected RawClient newClient(T nodeConfig) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot add nodes");
+    }
+
+    /**
+     * Make the config for a host named by a {@link HostListProvider}. Transports
+     * that support {@link #refresh(HostListProvider, Configuration)} override
+     * this, by default it is unsupported.
+     * 
+     * @param template
+     *            the config every refreshed node shares
+     * @param host
+     *            the host
+     * @return <code>template</code> with its host set to <code>host</code>
+     */
+    protected T configForHost(T template, String host) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot refresh nodes");
+    }
+
+    /**
+     * Name a node. Nodes are added, drained and removed by name, and breakers
+     * are named after their node.
+     * 
+     * @param nodeConfig
+     *            the node's config, null if the node was made by
+     *            {@link #fromConfig(ClusterConfig)} without one
+     * @return by default "node-" and a number
+     */
+    protected String nodeName(T nodeConfig) {
+        return "node-" + unnamed.getAndIncrement();
+    }
+
+    /**
+     * Where a node is, for matching hosts from a {@link HostListProvider}
+     * against the nodes already in the cluster, so a node configured by host
+     * name and listed by IP address (or the other way round) is one node.
+     * 
+     * @param nodeConfig
+     *            the node's config
+     * @return by default the node's {@link #nodeName(Configuration) name}
+     */
+    protected String nodeAddress(T nodeConfig) {
+        return nodeName(nodeConfig);
+    }
+
+    /**
+     * @param host
+     *            a host name or address
+     * @return the host's IP address, or <code>host</code> if it cannot be
+     *         resolved
+     * @see #nodeAddress(Configuration)
+     */
+    protected static String resolve(String host) {
+        try {
+            return InetAddress.getByName(host).getHostAddress();
+        } catch (UnknownHostException e) {
+            return host;
+        }
+    }
+
+    /**
+     * The availability zone or rack of a node, for
+     * {@link ClusterConfig#withLocalZone(String)}.
+     * 
+     * @param nodeConfig
+     *            the node's config
+     * @return by default null, the zone is unknown
+     */
+    protected String zoneOf(T nodeConfig) {
+        return null;
+    }
+
+    /**
+     * How many requests a node can serve at once, for
+     * {@link ClusterConfig#withSaturationThreshold(int)}.
+     * 
+     * @param nodeConfig
+     *            the node's config
+     * @return by default 0, unlimited
+     */
+    protected int poolCapacity(T nodeConfig) {
+        return 0;
+    }
+
+    /**
+     * Called once for each node's {@link CircuitBreaker} as the node joins the
+     * cluster, so that transports can have their connection pools honour it.
+     * Does nothing by default.
+     * 
+     * @param node
+     *            the node's client
+     * @param breaker
+     *            the node's breaker
+     */
+    protected void bindCircuitBreaker(RawClient node, CircuitBreaker breaker) {}
+
+    private Node newNode(String name, String address, T config, RawClient client, int weight) {
+        CircuitBreaker breaker = null;
+        if (breakerConfig != null) {
+            breaker = new CircuitBreaker(name, breakerConfig, client::ping);
+            bindCircuitBreaker(client, breaker);
+        }
+        final String zone = config == null ? null : zoneOf(config);
+        final int capacity = config == null ? 0 : poolCapacity(config);
+        return new Node(name, address, client, breaker, zone, capacity, weight);
+    }
+
+    /**
+     * Add a node to the cluster. It takes a share of new requests at once.
+     * 
+     * @param nodeConfig
+     *            the node's config
+     * @param weight
+     *            the node's share of requests relative to the other nodes, 1
+     *            for an equal share
+     * @return the name of the new node
+     * @throws IOException
+     *             if the node's client cannot be created
+     * @throws IllegalArgumentException
+     *             if a node of the same name is already in the cluster
+     */
+    public String addNode(T nodeConfig, int weight) throws IOException {
+        checkWeight(weight);
+        final String name = nodeName(nodeConfig);
+        final String address = nodeAddress(nodeConfig);
+        if (members.find(name) != null || members.findAddress(address) != null) {
+            throw new IllegalArgumentException(name + " is already in the cluster");
+        }
+        if (!join(newNode(name, address, nodeConfig, newClient(nodeConfig), weight))) {
+            throw new IllegalArgumentException(name + " is already in the cluster");
+        }
+        return name;
+    }
+
+    /**
+     * Make <code>node</code> a member unless one of the same name or address
+     * joined
+     * while its client was being created, outside the lock as that can mean
+     * connecting to the node. The loser is shut down.
+     * 
+     * @return false if the node was already a member
+     */
+    private boolean join(Node node) {
+        synchronized (membershipLock) {
+            if (members.find(node.name) == null && members.findAddress(node.address) == null) {
+                members = members.with(node);
+                return true;
+            }
+        }
+        if (node.breaker != null) {
+            node.breaker.shutdown();
+        }
+        node.client.shutdown();
+        return false;
+    }
+
+    /**
+     * Add a node with an equal share of requests.
+     * 
+     * @see #addNode(Configuration, int)
+     */
+    public String addNode(T nodeConfig) throws IOException {
+        return addNode(nodeConfig, 1);
+    }
+
+    /**
+     * Stop sending new requests to a node. Requests in flight finish, and the
+     * node's connections stay open; it can be put back with
+     * {@link #setNodeWeight(String, int)}.
+     * 
+     * @param name
+     *            the node's name
+     * @return false if there is no such node
+     */
+    public boolean drainNode(String name) {
+        return setNodeWeight(name, 0);
+    }
+
+    /**
+     * Change a node's share of requests.
+     * 
+     * @param name
+     *            the node's name
+     * @param weight
+     *            the share relative to the other nodes, 0 drains the node
+     * @return false if there is no such node
+     */
+    public boolean setNodeWeight(String name, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight cannot be negative");
+        }
+        synchronized (membershipLock) {
+            final Node node = members.find(name);
+            if (node == null) {
+                return false;
+            }
+            node.weight = weight;
+            members = members.reschedule();
+            return true;
+        }
+    }
+
+    /**
+     * Take a node out of the cluster: stop sending it requests, wait for those
+     * in flight to finish, then shut its client down.
+     * 
+     * @param name
+     *            the node's name
+     * @param timeout
+     *            how long to wait for requests in flight
+     * @param unit
+     *            the unit of <code>timeout</code>
+     * @return true if the node drained in time, false if there is no such node
+     *         or it was shut down with requests still in flight
+     * @throws InterruptedException
+     *             if interrupted while waiting, the node is out of the
+     *             cluster but not yet shut down
+     */
+    public boolean removeNode(String name, long timeout, TimeUnit unit) throws InterruptedException {
+        final Node node;
+        synchronized (membershipLock) {
+            node = members.find(name);
+            if (node == null) {
+                return false;
+            }
+            // callers that already picked it see this and pick again
+            node.removed = true;
+            members = members.without(node);
+        }
+
+        final long giveUp = System.nanoTime() + unit.toNanos(timeout);
+        while (node.inFlight.get() > 0 && System.nanoTime() - giveUp < 0) {
+            Thread.sleep(10);
+        }
+        final boolean drained = node.inFlight.get() == 0;
+        if (node.breaker != null) {
+            node.breaker.shutdown();
+        }
+        node.client.shutdown();
+        return drained;
+    }
+
+    /**
+     * Make the cluster match a host list: add the hosts that are new, with an
+     * equal share of requests, and remove (draining for up to
+     * {@link #REFRESH_DRAIN_TIMEOUT_MILLIS}) the nodes that are no longer
+     * listed. Hosts and nodes are matched by
+     * {@link #nodeAddress(Configuration) address}, so the same node named
+     * differently is left alone. An empty list is taken to be a fault of the
+     * provider and ignored.
+     * 
+     * @param provider
+     *            where to get the hosts from
+     * @param template
+     *            the config for new nodes, see
+     *            {@link #configForHost(Configuration, String)}
+     * @return true if the membership changed
+     * @throws IOException
+     *             if the provider fails or a new node's client cannot be
+     *             created
+     * @throws InterruptedException
+     *             if interrupted while draining a removed node
+     */
+    public boolean refresh(HostListProvider provider, T template) throws IOException, InterruptedException {
+        final List<String> hosts = provider.getHosts();
+        if (hosts.isEmpty()) {
+            return false;
+        }
+        // nodes are matched by address, see nodeAddress
+        final Set<String> wanted = new HashSet<>();
+        boolean changed = false;
+        for (String host : hosts) {
+            final T config = configForHost(template, host);
+            final String address = nodeAddress(config);
+            wanted.add(address);
+            if (members.findAddress(address) == null) {
+                final String name = nodeName(config);
+                if (members.find(name) == null && join(newNode(name, address, config, newClient(config), 1))) {
+                    changed = true;
+                }
+            }
+        }
+        for (Node node : members.nodes) {
+            if (!wanted.contains(node.address)) {
+                removeNode(node.name, REFRESH_DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * {@link #refresh(HostListProvider, Configuration) Refresh} the cluster
+     * from <code>provider</code> every <code>period</code>, on a background
+     * thread, until {@link #stopRefresh()} or {@link #shutdown()}. Replaces
+     * any refresh already running.
+     * 
+     * @param provider
+     *            where to get the hosts from
+     * @param template
+     *            the config for new nodes
+     * @param period
+     *            how often to refresh
+     * @param unit
+     *            the unit of <code>period</code>
+     */
+    public void startRefresh(final HostListProvider provider, final T template, long period, TimeUnit unit) {
+        startRefresh(provider, template, period, unit, null);
+    }
+
+    /**
+     * Told when a periodic refresh fails, see
+     * {@link ClusterClient#startRefresh(HostListProvider, Configuration, long, TimeUnit, RefreshListener)}.
+     */
+    public interface RefreshListener {
+        /**
+         * Called on the refresh thread. The refresh is tried again next
+         * period.
+         * 
+         * @param e
+         *            why the host list could not be read or a new node's
+         *            client could not be created
+         */
+        void onRefreshFailed(IOException e);
+    }
+
+    /**
+     * {@link #startRefresh(HostListProvider, Configuration, long, TimeUnit)
+     * Start refreshing}, telling <code>listener</code> about failed refreshes.
+     * 
+     * @param listener
+     *            told about failures, if null they go to the refresh thread's
+     *            {@link Thread.UncaughtExceptionHandler}
+     */
+    public void startRefresh(final HostListProvider provider, final T template, long period, TimeUnit unit,
+            final RefreshListener listener) {
+        if (provider == null || template == null) {
+            throw new IllegalArgumentException("provider and template cannot be null");
+        }
+        synchronized (membershipLock) {
+            stopRefresh();
+            if (refresher == null) {
+                refresher = Executors.newSingleThreadExecutor(RiakThreads
+                    .newThreadFactory("riak-cluster-refresh-" + CLUSTER_COUNT.incrementAndGet()));
+            }
+            final ExecutorService executor = refresher;
+            refreshTask = HashedWheelTimer.shared().scheduleAtFixedRate(() -> {
+                // a slow provider or drain skips ticks rather than queueing them
+                if (!refreshing.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    executor.execute(() -> {
+                        try {
+                            refresh(provider, template);
+                        } catch (IOException e) {
+                            if (listener != null) {
+                                listener.onRefreshFailed(e);
+                            } else {
+                                RiakThreads.reportUncaught(e);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            refreshing.set(false);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    refreshing.set(false);
+                }
+            }, period, period, unit);
+        }
+    }
+
+    /**
+     * Stop the periodic refresh started by
+     * {@link #startRefresh(HostListProvider, Configuration, long, TimeUnit)}.
+     */
+    public void stopRefresh() {
+        final Timeout task = refreshTask;
+        if (task != null) {
+            task.cancel();
+            refreshTask = null;
+        }
+    }
+
+    private static void checkWeight(int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight must be at least 1, use drainNode to send a node nothing");
+        }
+    }
+
+    /**
+     * Pick the next node, weighted round robin, passing over nodes whose
+     * breaker is not closed, and count the request as in flight on it.
      * 
      * TODO abstract this out to a strategy so users can provide alternative
      * load balancing/client selection strategies
      * 
-     * @return a {@link RawClient} to be a delegate for the requested operation.
+     * @return the node to be a delegate for the requested operation.
+     * @throws CircuitOpenException
+     *             if every node's breaker is open
+     * @throws IOException
+     *             if every node has been drained or removed
+     */
+    private Node acquire() throws IOException {
+        while (true) {
+            final Members current = members;
+            if (current.preferred.length + current.spill.length == 0) {
+                throw new IOException("no nodes in the cluster are taking requests");
+            }
+            final int start = counter.getAndIncrement();
+            Node picked = null;
+            Node saturated = null;
+            for (int i = 0; i < current.preferred.length && picked == null; i++) {
+                final Node node = current.nodes[current.preferred[Math.abs((start + i) % current.preferred.length)]];
+                if (!isPermitted(node)) {
+                    continue;
+                }
+                if (localZone != null && isSaturated(node)) {
+                    if (saturated == null) {
+                        saturated = node;
+                    }
+                    continue;
+                }
+                picked = node;
+            }
+            for (int i = 0; i < current.spill.length && picked == null; i++) {
+                final Node node = current.nodes[current.spill[Math.abs((start + i) % current.spill.length)]];
+                if (isPermitted(node)) {
+                    picked = node;
+                }
+            }
+            if (picked == null) {
+                // a busy local node beats failing
+                picked = saturated;
+            }
+            if (picked == null) {
+                // the call itself is refused: count it once with each breaker
+                // that turned it away
+                for (Node node : current.nodes) {
+                    if (node.weight > 0 && !isPermitted(node)) {
+                        node.breaker.onCallNotPermitted();
+                    }
+                }
+                throw new CircuitOpenException("all " + current.nodes.length + " nodes in the cluster have open circuits");
+            }
+            picked.inFlight.incrementAndGet();
+            if (!picked.removed) {
+                if (localZone != null) {
+                    (localZone.equals(picked.zone) ? localRequests : remoteRequests).incrementAndGet();
+                }
+                return picked;
+            }
+            // lost a race with removeNode, which may already have seen no
+            // requests in flight
+            picked.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Whether <code>node</code>'s breaker lets calls through, without counting
+     * a refusal: passing over an open node for another is not refusing the
+     * call.
      */
-    private RawClient getDelegate() {
-        int delegateIndex = Math.abs(counter.getAndIncrement() % clusterSize);
-        return cluster[delegateIndex];
+    private static boolean isPermitted(Node node) {
+        return node.breaker == null || node.breaker.isCallPermitted();
+    }
+
+    private boolean isSaturated(Node node) {
+        return node.capacity > 0 && node.inFlight.get() * 100 >= node.capacity * saturationThreshold;
+    }
+
+    private static void release(Node node, boolean failure, long start) {
+        node.inFlight.decrementAndGet();
+        if (node.breaker != null) {
+            final long duration = System.nanoTime() - start;
+            if (failure) {
+                node.breaker.onFailure(duration);
+            } else {
+                node.breaker.onSuccess(duration);
+            }
+        }
+    }
+
+    /**
+     * An operation on a single node's client.
+     * 
+     * @param <R>
+     *            the operation's result
+     * @see ClusterClient#execute(String, NodeOperation)
+     */
+    public interface NodeOperation<R> {
+        R execute(RawClient node) throws IOException;
+    }
+
+    /**
+     * Run <code>operation</code> on the next node, recording the outcome with
+     * that node's breaker.
+     */
+    private <R> R execute(NodeOperation<R> operation) throws IOException {
+        final Node node = acquire();
+        final long start = System.nanoTime();
+        boolean failure = false;
+        try {
+            return operation.execute(node.client);
+        } catch (IOException e) {
+            failure = isNodeFailure(e);
+            throw e;
+        } finally {
+            release(node, failure, start);
+        }
+    }
+
+    /**
+     * Run <code>operation</code> on the named node, for callers that need to
+     * reach every node rather than any one of them. The request counts as in
+     * flight on the node and its outcome is recorded with the node's breaker,
+     * as for any other call. Drained nodes can still be reached this way.
+     * 
+     * @param name
+     *            a node's name, from {@link #getNodeNames()}
+     * @param operation
+     *            the operation to run with the node's client
+     * @return the operation's result
+     * @throws CircuitOpenException
+     *             if the node's breaker is open
+     * @throws IOException
+     *             if there is no such node, it has been removed, or the
+     *             operation fails
+     */
+    public <R> R execute(String name, NodeOperation<R> operation) throws IOException {
+        final Node node = acquire(name);
+        final long start = System.nanoTime();
+        boolean failure = false;
+        try {
+            return operation.execute(node.client);
+        } catch (IOException e) {
+            failure = isNodeFailure(e);
+            throw e;
+        } finally {
+            release(node, failure, start);
+        }
+    }
+
+    private Node acquire(String name) throws IOException {
+        final Node node = members.find(name);
+        if (node == null) {
+            throw new IOException("no node " + name + " in the cluster");
+        }
+        if (node.breaker != null && !node.breaker.tryAcquirePermission()) {
+            throw new CircuitOpenException("node " + name + " has an open circuit");
+        }
+        node.inFlight.incrementAndGet();
+        if (node.removed) {
+            node.inFlight.decrementAndGet();
+            throw new IOException("node " + name + " has been removed from the cluster");
+        }
+        return node;
+    }
+
+    /**
+     * Errors Riak answered with, and conditional store refusals, show the node
+     * is up; anything else that is an {@link IOException} counts against it.
+     */
+    private static boolean isNodeFailure(IOException e) {
+        return !(e instanceof RiakError || e instanceof ModifiedException || e instanceof CircuitOpenException);
+    }
+
+    /**
+     * The circuit breaker for a node.
+     * 
+     * @param name
+     *            the node's name, from {@link #getNodeNames()}
+     * @return the node's {@link CircuitBreaker}, null if there is no such node
+     *         or the cluster was configured without breakers
+     */
+    public CircuitBreaker getCircuitBreaker(String name) {
+        final Node node = members.find(name);
+        return node == null ? null : node.breaker;
+    }
+
+    /**
+     * @return the per node breakers by node name, in the same order as
+     *         {@link #getNodeNames()}, empty if the cluster was configured
+     *         without breakers
+     */
+    public Map<String, CircuitBreaker> getCircuitBreakers() {
+        final Map<String, CircuitBreaker> breakers = new LinkedHashMap<>();
+        if (breakerConfig != null) {
+            for (Node node : members.nodes) {
+                breakers.put(node.name, node.breaker);
+            }
+        }
+        return breakers;
+    }
+
+    /**
+     * The per node delegates that make up the cluster. Includes drained nodes.
+     * Calls made on them directly bypass the cluster's breakers, drain and
+     * request counts, and keep going to a node after it has been removed;
+     * use {@link #execute(String, NodeOperation)} to reach a particular node.
+     *
+     * @return a copy of the array of {@link RawClient} delegates
+     */
+    public RawClient[] getNodes() {
+        final Node[] nodes = members.nodes;
+        final RawClient[] clients = new RawClient[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            clients[i] = nodes[i].client;
+        }
+        return clients;
+    }
+
+    /**
+     * @return the names of the nodes, in the same order as {@link #getNodes()}
+     */
+    public List<String> getNodeNames() {
+        final List<String> names = new ArrayList<>();
+        for (Node node : members.nodes) {
+            names.add(node.name);
+        }
+        return names;
+    }
+
+    /**
+     * @param name
+     *            a node's name
+     * @return its share of requests, 0 if drained, -1 if there is no such node
+     */
+    public int getNodeWeight(String name) {
+        final Node node = members.find(name);
+        return node == null ? -1 : node.weight;
+    }
+
+    /**
+     * @return the client's zone, null if nodes are not chosen by zone
+     * @see ClusterConfig#withLocalZone(String)
+     */
+    public String getLocalZone() {
+        return localZone;
+    }
+
+    /**
+     * @return how many requests went to nodes in the local zone, 0 if there
+     *         is no local zone
+     */
+    public long getLocalRequestCount() {
+        return localRequests.get();
+    }
+
+    /**
+     * @return how many requests went to nodes in other zones, because the
+     *         local ones were unhealthy, saturated or drained. 0 if there is no
+     *         local zone
+     */
+    public long getRemoteRequestCount() {
+        return remoteRequests.get();
+    }
+
+    /**
+     * @param name
+     *            a node's name
+     * @return the node's zone, null if it is not known or there is no such
+     *         node
+     */
+    public String getNodeZone(String name) {
+        final Node node = members.find(name);
+        return node == null ? null : node.zone;
+    }
+
+    /**
+     * @param name
+     *            a node's name
+     * @return how many requests the node is serving, -1 if there is no such
+     *         node
+     */
+    public int getInFlight(String name) {
+        final Node node = members.find(name);
+        return node == null ? -1 : node.inFlight.get();
+    }
+
+    /**
+     * A member of the cluster.
+     */
+    private static final class Node {
+        final String name;
+        final String address;
+        final RawClient client;
+        final CircuitBreaker breaker;
+        final String zone;
+        // connections in the node's pool, 0 if unlimited
+        final int capacity;
+        final AtomicInteger inFlight = new AtomicInteger();
+        // only read when a new Members is built
+        volatile int weight;
+        volatile boolean removed;
+
+        Node(String name, String address, RawClient client, CircuitBreaker breaker, String zone, int capacity,
+                int weight) {
+            this.name = name;
+            this.address = address;
+            this.client = client;
+            this.breaker = breaker;
+            this.zone = zone;
+            this.capacity = capacity;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * An immutable membership: the nodes and the order requests are spread
+     * over them in.
+     */
+    private static final class Members {
+        final Node[] nodes;
+        final String localZone;
+        // indexes into nodes, each node appearing weight times, interleaved.
+        // Without a local zone every node is preferred
+        final int[] preferred;
+        final int[] spill;
+
+        Members(Node[] nodes, String localZone) {
+            this.nodes = nodes;
+            this.localZone = localZone;
+            this.preferred = schedule(nodes, localZone, true);
+            this.spill = schedule(nodes, localZone, false);
+        }
+
+        Members reschedule() {
+            return new Members(nodes, localZone);
+        }
+
+        Node find(String name) {
+            for (Node node : nodes) {
+                if (node.name.equals(name)) {
+                    return node;
+                }
+            }
+            return null;
+        }
+
+        Node findAddress(String address) {
+            for (Node node : nodes) {
+                if (node.address.equals(address)) {
+                    return node;
+                }
+            }
+            return null;
+        }
+
+        Members with(Node node) {
+            final Node[] grown = Arrays.copyOf(nodes, nodes.length + 1);
+            grown[nodes.length] = node;
+            return new Members(grown, localZone);
+        }
+
+        Members without(Node node) {
+            final List<Node> kept = new ArrayList<>(Arrays.asList(nodes));
+            kept.remove(node);
+            return new Members(kept.toArray(new Node[kept.size()]), localZone);
+        }
+
+        /**
+         * Smooth weighted round robin: each round every node gains its weight
+         * and the richest is picked and pays the total, so a node of weight 3
+         * among nodes of weight 1 is picked three times per cycle but not
+         * three times running. Equal weights give plain round robin.
+         */
+        private static int[] schedule(Node[] nodes, String localZone, boolean local) {
+            final int[] weights = new int[nodes.length];
+            int total = 0;
+            for (int i = 0; i < nodes.length; i++) {
+                final boolean inZone = localZone == null || localZone.equals(nodes[i].zone);
+                weights[i] = inZone == local ? nodes[i].weight : 0;
+                total += weights[i];
+            }
+            final int[] schedule = new int[total];
+            final int[] current = new int[nodes.length];
+            for (int slot = 0; slot < total; slot++) {
+                int best = -1;
+                for (int i = 0; i < nodes.length; i++) {
+                    current[i] += weights[i];
+                    if (weights[i] > 0 && (best == -1 || current[i] > current[best])) {
+                        best = i;
+                    }
+                }
+                current[best] -= total;
+                schedule[slot] = best;
+            }
+            return schedule;
+        }
     }
 
     /*
@@ -84,8 +965,7 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * java.lang.String)
      */
     public RiakResponse head(String bucket, String key, FetchMeta fetchMeta) throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.head(bucket, key, fetchMeta);
+        return execute(node -> node.head(bucket, key, fetchMeta));
     }
 
     /*
@@ -95,8 +975,7 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * java.lang.String)
      */
     public RiakResponse fetch(String bucket, String key) throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.fetch(bucket, key);
+        return execute(node -> node.fetch(bucket, key));
     }
 
     /*
@@ -106,16 +985,14 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * java.lang.String, int)
      */
     public RiakResponse fetch(String bucket, String key, int readQuorum) throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.fetch(bucket, key, readQuorum);
+        return execute(node -> node.fetch(bucket, key, readQuorum));
     }
 
     /* (non-Javadoc)
      * @see com.basho.riak.client.raw.RawClient#fetch(java.lang.String, java.lang.String, com.basho.riak.client.raw.FetchMeta)
      */
     public RiakResponse fetch(String bucket, String key, FetchMeta fetchMeta) throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.fetch(bucket, key, fetchMeta);
+        return execute(node -> node.fetch(bucket, key, fetchMeta));
     }
 
     /*
@@ -126,8 +1003,7 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * , com.basho.riak.client.raw.StoreMeta)
      */
     public RiakResponse store(IRiakObject object, StoreMeta storeMeta) throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.store(object, storeMeta);
+        return execute(node -> node.store(object, storeMeta));
     }
 
     /*
@@ -138,8 +1014,10 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * )
      */
     public void store(IRiakObject object) throws IOException {
-        final RawClient delegate = getDelegate();
-        delegate.store(object);
+        execute(node -> {
+            node.store(object);
+            return null;
+        });
     }
 
     /*
@@ -149,8 +1027,10 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * java.lang.String)
      */
     public void delete(String bucket, String key) throws IOException {
-        final RawClient delegate = getDelegate();
-        delegate.delete(bucket, key);
+        execute(node -> {
+            node.delete(bucket, key);
+            return null;
+        });
     }
 
     /*
@@ -160,8 +1040,10 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * java.lang.String, int)
      */
     public void delete(String bucket, String key, int deleteQuorum) throws IOException {
-        final RawClient delegate = getDelegate();
-        delegate.delete(bucket, key, deleteQuorum);
+        execute(node -> {
+            node.delete(bucket, key, deleteQuorum);
+            return null;
+        });
     }
 
     /*
@@ -171,8 +1053,10 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * java.lang.String, com.basho.riak.client.raw.DeleteMeta)
      */
     public void delete(String bucket, String key, DeleteMeta deleteMeta) throws IOException {
-        final RawClient delegate = getDelegate();
-        delegate.delete(bucket, key, deleteMeta);
+        execute(node -> {
+            node.delete(bucket, key, deleteMeta);
+            return null;
+        });
     }
 
     /*
@@ -181,13 +1065,11 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * @see com.basho.riak.client.raw.RawClient#listBuckets()
      */
     public Set<String> listBuckets() throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.listBuckets();
+        return execute(RawClient::listBuckets);
     }
 
     public StreamingOperation<String> listBucketsStreaming() throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.listBucketsStreaming();
+        return execute(RawClient::listBucketsStreaming);
     }
     
     /*
@@ -196,8 +1078,7 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * @see com.basho.riak.client.raw.RawClient#fetchBucket(java.lang.String)
      */
     public BucketProperties fetchBucket(String bucketName) throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.fetchBucket(bucketName);
+        return execute(node -> node.fetchBucket(bucketName));
     }
 
     /*
@@ -207,13 +1088,17 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * com.basho.riak.client.bucket.BucketProperties)
      */
     public void updateBucket(String name, BucketProperties bucketProperties) throws IOException {
-        final RawClient delegate = getDelegate();
-        delegate.updateBucket(name, bucketProperties);
+        execute(node -> {
+            node.updateBucket(name, bucketProperties);
+            return null;
+        });
     }
 
     public void resetBucketProperties(String bucketName) throws IOException {
-        final RawClient delegate = getDelegate();
-        delegate.resetBucketProperties(bucketName);
+        execute(node -> {
+            node.resetBucketProperties(bucketName);
+            return null;
+        });
     }
     
     /*
@@ -222,8 +1107,7 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * @see com.basho.riak.client.raw.RawClient#listKeys(java.lang.String)
      */
     public StreamingOperation<String> listKeys(String bucketName) throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.listKeys(bucketName);
+        return execute(node -> node.listKeys(bucketName));
     }
 
     /*
@@ -234,8 +1118,7 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * .query.LinkWalkSpec)
      */
     public WalkResult linkWalk(LinkWalkSpec linkWalkSpec) throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.linkWalk(linkWalkSpec);
+        return execute(node -> node.linkWalk(linkWalkSpec));
     }
 
     /*
@@ -246,8 +1129,111 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * .query.MapReduceSpec)
      */
     public MapReduceResult mapReduce(MapReduceSpec spec) throws IOException, MapReduceTimeoutException {
-        final RawClient delegate = getDelegate();
-        return delegate.mapReduce(spec);
+        final Node node = acquire();
+        final long start = System.nanoTime();
+        boolean failure = false;
+        try {
+            return node.client.mapReduce(spec);
+        } catch (IOException e) {
+            failure = isNodeFailure(e);
+            throw e;
+        } finally {
+            release(node, failure, start);
+        }
+    }
+
+    /**
+     * Run the job on the next node, streaming its results if that node's
+     * client is a {@link StreamingMapReduceClient}. Otherwise the whole
+     * result is passed to <code>handler</code> as one chunk, with the phase
+     * {@link StreamingMapReduceClient#ALL_PHASES}.
+     * 
+     * @see com.basho.riak.client.raw.StreamingMapReduceClient#mapReduce(MapReduceSpec,
+     *      ChunkHandler)
+     */
+    public void mapReduce(MapReduceSpec spec, ChunkHandler handler) throws IOException, MapReduceTimeoutException {
+        final Node node = acquire();
+        final long start = System.nanoTime();
+        boolean failure = false;
+        try {
+            if (node.client instanceof StreamingMapReduceClient) {
+                ((StreamingMapReduceClient) node.client).mapReduce(spec, handler);
+            } else {
+                final MapReduceResult result = node.client.mapReduce(spec);
+                handler.onChunk(ALL_PHASES, CharsetUtils.utf8StringToBytes(result.getResultRaw()));
+            }
+        } catch (IOException e) {
+            failure = isNodeFailure(e);
+            throw e;
+        } finally {
+            release(node, failure, start);
+        }
+    }
+
+    /**
+     * Store through the next node.
+     * 
+     * @throws UnsupportedOperationException
+     *             if the picked node's client cannot stream values
+     * @see com.basho.riak.client.raw.StreamingRawClient#storeStream(IRiakObject,
+     *      InputStream, long, StoreMeta)
+     */
+    public RiakResponse storeStream(final IRiakObject object, final InputStream value, final long length,
+                                    final StoreMeta storeMeta) throws IOException {
+        return stream(node -> node.storeStream(object, value, length, storeMeta));
+    }
+
+    /**
+     * Fetch through the next node.
+     * 
+     * @throws UnsupportedOperationException
+     *             if the picked node's client cannot stream values
+     * @see com.basho.riak.client.raw.StreamingRawClient#fetchStream(String,
+     *      String, FetchMeta, OutputStream)
+     */
+    public RiakResponse fetchStream(final String bucket, final String key, final FetchMeta fetchMeta,
+                                    final OutputStream out) throws IOException {
+        return stream(node -> node.fetchStream(bucket, key, fetchMeta, out));
+    }
+
+    /**
+     * Fetch through the next node.
+     * 
+     * @throws UnsupportedOperationException
+     *             if the picked node's client cannot stream values
+     * @see com.basho.riak.client.raw.StreamingRawClient#fetchStream(String,
+     *      String, FetchMeta, WritableByteChannel)
+     */
+    public RiakResponse fetchStream(final String bucket, final String key, final FetchMeta fetchMeta,
+                                    final WritableByteChannel out) throws IOException {
+        return stream(node -> node.fetchStream(bucket, key, fetchMeta, out));
+    }
+
+    private interface StreamOperation {
+        RiakResponse execute(StreamingRawClient node) throws IOException;
+    }
+
+    /**
+     * As {@link #execute(NodeOperation)} for a streaming call. A node that
+     * cannot stream is given back untouched: nothing was asked of it, so there
+     * is nothing for its breaker to record.
+     */
+    private RiakResponse stream(StreamOperation operation) throws IOException {
+        final Node node = acquire();
+        if (!(node.client instanceof StreamingRawClient)) {
+            node.inFlight.decrementAndGet();
+            throw new UnsupportedOperationException("node " + node.name + " cannot stream values, only HTTP nodes can");
+        }
+        final long start = System.nanoTime();
+        boolean failure = false;
+        try {
+            return operation.execute((StreamingRawClient) node.client);
+        } catch (IOException e) {
+            failure = isNodeFailure(e);
+            throw e;
+        } finally {
+            release(node, failure, start);
+        }
     }
 
     /*
@@ -256,8 +1242,7 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * @see com.basho.riak.client.raw.RawClient#generateAndSetClientId()
      */
     public byte[] generateAndSetClientId() throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.generateAndSetClientId();
+        return execute(RawClient::generateAndSetClientId);
     }
 
     /*
@@ -266,8 +1251,10 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * @see com.basho.riak.client.raw.RawClient#setClientId(byte[])
      */
     public void setClientId(byte[] clientId) throws IOException {
-        final RawClient delegate = getDelegate();
-        delegate.setClientId(clientId);
+        execute(node -> {
+            node.setClientId(clientId);
+            return null;
+        });
     }
 
     /*
@@ -276,8 +1263,7 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * @see com.basho.riak.client.raw.RawClient#getClientId()
      */
     public byte[] getClientId() throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.getClientId();
+        return execute(RawClient::getClientId);
     }
 
     /* 
@@ -285,7 +1271,7 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * throw an exception.
      */
     public void ping() throws IOException {
-        for(RawClient rc : cluster) {
+        for(RawClient rc : getNodes()) {
             rc.ping();
         }
     }
@@ -294,28 +1280,33 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      * @see com.basho.riak.client.raw.RawClient#fetchIndex(com.basho.riak.client.raw.query.IndexQuery)
      */
     public List<String> fetchIndex(IndexQuery indexQuery) throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.fetchIndex(indexQuery);
+        return execute(node -> node.fetchIndex(indexQuery));
     }
 
     public StreamingOperation<IndexEntry> fetchIndex(IndexSpec indexSpec) throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.fetchIndex(indexSpec);
+        return execute(node -> node.fetchIndex(indexSpec));
     }
     
     public Long incrementCounter(String bucket, String counter, long increment, StoreMeta meta) throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.incrementCounter(bucket, counter, increment, meta);
+        return execute(node -> node.incrementCounter(bucket, counter, increment, meta));
     }
     
     public Long fetchCounter(String bucket, String counter, FetchMeta meta) throws IOException {
-        final RawClient delegate = getDelegate();
-        return delegate.fetchCounter(bucket, counter, meta);
+        return execute(node -> node.fetchCounter(bucket, counter, meta));
     }
     
     public void shutdown(){
-        for(RawClient rc : cluster){
-            rc.shutdown();
+        synchronized (membershipLock) {
+            stopRefresh();
+            if (refresher != null) {
+                refresher.shutdownNow();
+            }
+        }
+        for (Node node : members.nodes) {
+            if (node.breaker != null) {
+                node.breaker.shutdown();
+            }
+            node.client.shutdown();
         }
     }
     
@@ -324,7 +1315,7 @@ public abstract class ClusterClient<T extends Configuration> implements RawClien
      */
     public NodeStats stats() throws IOException {
         NodeStats nodeStats = null;
-        for(RawClient rc : cluster) {
+        for(RawClient rc : getNodes()) {
             if (nodeStats == null)
                 nodeStats = rc.stats();
             else
@@ -16,6 +16,7 @@ package com.basho.riak.client.raw;
 import com.basho.riak.client.cap.Quora;
 import com.basho.riak.client.cap.Quorum;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.basho.riak.client.cap.VClock;
 
@@ -245,7 +246,7 @@ public class FetchMeta {
      * @return a {@link FetchMeta} with just an R value
      */
     public static FetchMeta withR(int readQuorum) {
-        return new FetchMeta(readQuorum, null, null, null, null, null, null, null, null);
+        return new Builder().r(readQuorum).build();
     }
 
     // Builder
@@ -266,13 +267,24 @@ public class FetchMeta {
             b.pr = fm.getPr();
             b.notFoundOK = fm.getNotFoundOK();
             b.basicQuorum = fm.getBasicQuorum();
+            b.headOnly = fm.getHeadOnly();
             b.returnDeletedVClock = fm.getReturnDeletedVClock();
             b.vclock = fm.getIfModifiedVClock();
             b.modifiedSince = fm.getIfModifiedSince();
+            b.timeout = fm.getTimeout();
             return b;
         }
 
+        /**
+         * @return a {@link FetchMeta}, shared with other builders when only
+         *         small or symbolic quorums, notFoundOK and basicQuorum are
+         *         set
+         */
         public FetchMeta build() {
+            if (headOnly == null && returnDeletedVClock == null && vclock == null && modifiedSince == null
+                && timeout == null) {
+                return Common.get(r, pr, notFoundOK, basicQuorum);
+            }
             return new FetchMeta(r, pr, notFoundOK, basicQuorum, headOnly, returnDeletedVClock, modifiedSince, vclock, timeout);
         }
 
@@ -342,6 +354,51 @@ public class FetchMeta {
         }
     }
 
+    /**
+     * The instances for plain quorum fetches, which is nearly every fetch.
+     * {@link FetchMeta} is immutable so one instance per combination is
+     * created on first use and shared. r and pr are cached for
+     * <code>null</code>, the symbolic {@link Quora} and the integers -1 to 5.
+     */
+    private static final class Common {
+        // null, then int values -5 (Quora.DEFAULT) to 5
+        private static final int QUORUM_SLOTS = 12;
+        // null, true, false
+        private static final int BOOLEAN_SLOTS = 3;
+        private static final AtomicReferenceArray<FetchMeta> CACHE =
+            new AtomicReferenceArray<>(QUORUM_SLOTS * QUORUM_SLOTS * BOOLEAN_SLOTS * BOOLEAN_SLOTS);
+
+        static FetchMeta get(Quorum r, Quorum pr, Boolean notFoundOK, Boolean basicQuorum) {
+            final int rSlot = slot(r);
+            final int prSlot = slot(pr);
+            if (rSlot < 0 || prSlot < 0) {
+                return new FetchMeta(r, pr, notFoundOK, basicQuorum, null, null, null, null, null);
+            }
+            final int i = ((rSlot * QUORUM_SLOTS + prSlot) * BOOLEAN_SLOTS + slot(notFoundOK)) * BOOLEAN_SLOTS
+                          + slot(basicQuorum);
+            FetchMeta fm = CACHE.get(i);
+            if (fm == null) {
+                fm = new FetchMeta(r, pr, notFoundOK, basicQuorum, null, null, null, null, null);
+                if (!CACHE.compareAndSet(i, null, fm)) {
+                    fm = CACHE.get(i);
+                }
+            }
+            return fm;
+        }
+
+        private static int slot(Quorum q) {
+            if (q == null) {
+                return 0;
+            }
+            final int i = q.getIntValue();
+            return i >= -5 && i <= 5 ? i + 6 : -1;
+        }
+
+        private static int slot(Boolean b) {
+            return b == null ? 0 : b ? 1 : 2;
+        }
+    }
+
     /**
      * @return a FetchMeta empty for everything except <code>headOnly</code>
      */
@@ -0,0 +1,68 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw;
+
+import java.io.IOException;
+
+import com.basho.riak.client.raw.query.MapReduceSpec;
+import com.basho.riak.client.raw.query.MapReduceTimeoutException;
+
+/**
+ * A {@link RawClient} that can hand over the results of a Map/Reduce job
+ * chunk by chunk as Riak sends them, rather than buffering the whole result.
+ * 
+ * @see com.basho.riak.client.query.StreamingReduce
+ */
+public interface StreamingMapReduceClient extends RawClient {
+
+    /**
+     * The phase passed to {@link ChunkHandler#onChunk(int, byte[])} when the
+     * chunk is the whole result of the job rather than the output of one
+     * phase, as when the node that ran the job could not stream it.
+     */
+    int ALL_PHASES = -1;
+
+    /**
+     * Receives the chunks of a Map/Reduce result, on the thread that called
+     * {@link StreamingMapReduceClient#mapReduce(MapReduceSpec, ChunkHandler)}
+     * , in the order Riak sent them.
+     */
+    interface ChunkHandler {
+        /**
+         * @param phase
+         *            the index of the phase that produced the chunk, or
+         *            {@link StreamingMapReduceClient#ALL_PHASES}
+         * @param json
+         *            the chunk, a UTF-8 JSON array of results
+         * @throws IOException
+         *             to abandon the job
+         */
+        void onChunk(int phase, byte[] json) throws IOException;
+    }
+
+    /**
+     * Run the job, passing each chunk of its results to <code>handler</code>
+     * as it arrives. Returns once the job is complete.
+     * 
+     * @param spec
+     *            the job
+     * @param handler
+     *            receives the result chunks
+     * @throws IOException
+     *             if the job fails or the handler throws
+     * @throws MapReduceTimeoutException
+     *             if the job times out
+     */
+    void mapReduce(MapReduceSpec spec, ChunkHandler handler) throws IOException, MapReduceTimeoutException;
+}
@@ -0,0 +1,86 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+
+import com.basho.riak.client.IRiakObject;
+
+/**
+ * A {@link RawClient} that can move values to and from Riak as streams, so a
+ * large value passes through the client without being held in memory.
+ * 
+ * <p>
+ * Values are streamed exactly as stored. If an object was stored with a
+ * content-encoding, the bytes written are the encoded bytes and the
+ * encoding is reported by {@link IRiakObject#getContentEncoding()} on the
+ * returned metadata.
+ * </p>
+ */
+public interface StreamingRawClient extends RawClient {
+
+    /**
+     * Store <code>object</code> with its value read from <code>value</code>.
+     * The bucket, key, content type, vclock, links, indexes and user meta
+     * come from <code>object</code>; its value is ignored.
+     * 
+     * @param object
+     *            the object to store, without its value
+     * @param value
+     *            the value, read to its end but not closed
+     * @param length
+     *            the number of bytes in <code>value</code>, or -1 if unknown
+     * @param storeMeta
+     *            the store options. Asking for the body back is not
+     *            supported, ask for the head instead.
+     * @return a {@link RiakResponse}, with the stored object's metadata if
+     *         {@link StoreMeta#getReturnHead()} was set
+     * @throws IOException
+     */
+    RiakResponse storeStream(IRiakObject object, InputStream value, long length, StoreMeta storeMeta)
+            throws IOException;
+
+    /**
+     * Fetch <code>bucket/key</code>, writing its value to <code>out</code>.
+     * 
+     * <p>
+     * If the object has siblings nothing is written to <code>out</code> and
+     * the response holds all the siblings with their values, as
+     * {@link RawClient#fetch(String, String, FetchMeta)} would.
+     * </p>
+     * 
+     * @param bucket
+     *            the bucket
+     * @param key
+     *            the key
+     * @param fetchMeta
+     *            the fetch options, may be null
+     * @param out
+     *            where to write the value, not closed
+     * @return a {@link RiakResponse} holding the object's metadata without
+     *         its value, or no objects if not found
+     * @throws IOException
+     */
+    RiakResponse fetchStream(String bucket, String key, FetchMeta fetchMeta, OutputStream out) throws IOException;
+
+    /**
+     * As {@link #fetchStream(String, String, FetchMeta, OutputStream)},
+     * writing the value to a channel.
+     */
+    RiakResponse fetchStream(String bucket, String key, FetchMeta fetchMeta, WritableByteChannel out)
+            throws IOException;
+}
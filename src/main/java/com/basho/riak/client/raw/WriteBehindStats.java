@@ -0,0 +1,129 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable snapshot of the counters of a {@link WriteBehindStore}.
+ *
+ * @see WriteBehindStore#getStats()
+ */
+public class WriteBehindStats {
+
+    private final int queueDepth;
+    private final int inFlight;
+    private final long accepted;
+    private final long coalesced;
+    private final long dropped;
+    private final long written;
+    private final long failed;
+    private final long oldestPendingNanos;
+    private final long totalLagNanos;
+    private final long uptimeNanos;
+
+    WriteBehindStats(int queueDepth, int inFlight, long accepted, long coalesced, long dropped, long written,
+            long failed, long oldestPendingNanos, long totalLagNanos, long uptimeNanos) {
+        this.queueDepth = queueDepth;
+        this.inFlight = inFlight;
+        this.accepted = accepted;
+        this.coalesced = coalesced;
+        this.dropped = dropped;
+        this.written = written;
+        this.failed = failed;
+        this.oldestPendingNanos = oldestPendingNanos;
+        this.totalLagNanos = totalLagNanos;
+        this.uptimeNanos = uptimeNanos;
+    }
+
+    /**
+     * @return the number of distinct keys waiting to be written
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return the number of writes currently being sent to Riak
+     */
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return the number of writes that took a new place in the queue
+     */
+    public long getAccepted() {
+        return accepted;
+    }
+
+    /**
+     * @return the number of writes that replaced a pending write to the same
+     *         key
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * @return the number of writes discarded by the overflow policy
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return the number of successful stores
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * @return the number of stores that failed after retrying
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * The current lag: how long the oldest pending write has been waiting.
+     *
+     * @return the age of the head of the queue in milliseconds, 0 if empty
+     */
+    public long getLagMillis() {
+        return TimeUnit.MILLISECONDS.convert(oldestPendingNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the mean time in milliseconds between a write being accepted
+     *         and it being stored
+     */
+    public double getMeanWriteLatencyMillis() {
+        return written == 0 ? 0 : (totalLagNanos / (double) written) / 1000000d;
+    }
+
+    /**
+     * @return successful stores per second since the store was created
+     */
+    public double getWritesPerSecond() {
+        return uptimeNanos == 0 ? 0 : written / (uptimeNanos / 1000000000d);
+    }
+
+    @Override public String toString() {
+        return "WriteBehindStats [queueDepth=" + queueDepth + ", inFlight=" + inFlight + ", accepted=" + accepted
+               + ", coalesced=" + coalesced + ", dropped=" + dropped + ", written=" + written + ", failed="
+               + failed + ", lagMillis=" + getLagMillis() + "]";
+    }
+}
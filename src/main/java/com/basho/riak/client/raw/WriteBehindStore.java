@@ -0,0 +1,566 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.RiakRetryFailedException;
+import com.basho.riak.client.cap.DefaultRetrier;
+import com.basho.riak.client.cap.Retrier;
+import com.basho.riak.client.util.RiakThreads;
+
+/**
+ * A write-behind buffer on top of {@link RawClient#store(IRiakObject, StoreMeta)}.
+ *
+ * <p>
+ * Objects handed to {@link #store(IRiakObject)} are put on a bounded queue and
+ * written to Riak asynchronously by a set of writer threads that share the
+ * client. When the client is a {@link ClusterClient} there are
+ * <code>writersPerNode</code> threads for each node it has when the store is
+ * built, and each write goes to whichever node the cluster picks.
+ * </p>
+ * <p>
+ * Repeated writes to the same bucket/key that have not yet been taken by a
+ * writer are coalesced: the latest object replaces the pending one and keeps
+ * its place in the queue. A key that is currently being written is not handed
+ * to a second writer until the first write completes, so writes to a key are
+ * never reordered.
+ * </p>
+ * <p>
+ * When the queue is full the {@link OverflowPolicy} decides what happens to
+ * the producer. Write failures (after the {@link Retrier} gives up) are passed
+ * to the {@link FailureHandler}, if any, and counted in the
+ * {@link WriteBehindStats}.
+ * </p>
+ * <p>
+ * NOTE: the {@link IRiakObject} is held by reference until it is written, do
+ * not mutate it after handing it over.
+ * </p>
+ *
+ * @see Builder
+ */
+public class WriteBehindStore {
+
+    /**
+     * What to do with a write when the queue is at capacity.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Backpressure: block the producer until there is room (or the
+         * configured offer timeout elapses).
+         */
+        BLOCK,
+        /**
+         * Discard the write being offered.
+         */
+        DROP_NEWEST,
+        /**
+         * Discard the oldest pending write to make room for this one.
+         */
+        DROP_OLDEST,
+        /**
+         * Throw a {@link RejectedExecutionException} to the producer.
+         */
+        FAIL;
+    }
+
+    /**
+     * Notified when a queued write could not be stored, on the writer thread.
+     * An exception thrown from the handler goes to that thread's
+     * {@link Thread.UncaughtExceptionHandler} and the writer carries on.
+     */
+    public interface FailureHandler {
+        /**
+         * @param object
+         *            the object that was not stored
+         * @param cause
+         *            the exception from the last attempt
+         */
+        void onFailure(IRiakObject object, Exception cause);
+    }
+
+    private final RawClient client;
+    private final StoreMeta storeMeta;
+    private final Retrier retrier;
+    private final FailureHandler failureHandler;
+    private final OverflowPolicy overflowPolicy;
+    private final long offerTimeoutNanos;
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition idle = lock.newCondition();
+    // pending writes in arrival order, keyed by bucket/key
+    private final LinkedHashMap<Object, Pending> pending = new LinkedHashMap<>();
+    private final Set<Object> inFlight = new HashSet<>();
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalLagNanos = new AtomicLong();
+
+    private WriteBehindStore(Builder builder) {
+        this.client = builder.client;
+        this.storeMeta = builder.storeMeta;
+        this.retrier = builder.retrier;
+        this.failureHandler = builder.failureHandler;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.offerTimeoutNanos = TimeUnit.NANOSECONDS.convert(builder.offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        this.capacity = builder.capacity;
+
+        final ThreadFactory threads = RiakThreads.newThreadFactory("riak-write-behind");
+        final int nodes = client instanceof ClusterClient ? ((ClusterClient<?>) client).getNodeNames().size() : 1;
+        for (int i = 0; i < Math.max(1, nodes) * builder.writersPerNode; i++) {
+            writers.add(threads.newThread(new Writer()));
+        }
+        for (Thread t : writers) {
+            t.start();
+        }
+    }
+
+    /**
+     * Queue <code>object</code> to be written.
+     *
+     * @param object
+     *            the object to store
+     * @return true if the write was accepted (or coalesced with a pending
+     *         write to the same key), false if it was dropped by the
+     *         {@link OverflowPolicy}
+     * @throws RejectedExecutionException
+     *             if the store is shut down, or the queue is full and the
+     *             policy is {@link OverflowPolicy#FAIL}
+     */
+    public boolean store(IRiakObject object) {
+        if (object == null) {
+            throw new IllegalArgumentException("object cannot be null");
+        }
+
+        final Object id = object.getKey() == null ? new Object() : new BKey(object.getBucket(), object.getKey());
+        final long now = System.nanoTime();
+
+        lock.lock();
+        try {
+            checkRunning();
+            while (true) {
+                Pending existing = pending.get(id);
+                if (existing != null) {
+                    existing.object = object;
+                    coalesced.incrementAndGet();
+                    return true;
+                }
+                if (pending.size() < capacity) {
+                    break;
+                }
+                if (!makeRoom()) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+            }
+
+            pending.put(id, new Pending(id, object, now));
+            accepted.incrementAndGet();
+            notEmpty.signal();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Apply the overflow policy, called with the lock held and the queue full.
+     *
+     * @return true if there is now room in the queue
+     */
+    private boolean makeRoom() throws InterruptedException {
+        switch (overflowPolicy) {
+        case BLOCK:
+            long nanos = offerTimeoutNanos;
+            while (pending.size() >= capacity) {
+                if (offerTimeoutNanos <= 0) {
+                    notFull.await();
+                } else if (nanos <= 0) {
+                    return false;
+                } else {
+                    nanos = notFull.awaitNanos(nanos);
+                }
+                checkRunning();
+            }
+            return true;
+        case DROP_OLDEST:
+            Iterator<Pending> it = pending.values().iterator();
+            it.next();
+            it.remove();
+            dropped.incrementAndGet();
+            return true;
+        case FAIL:
+            throw new RejectedExecutionException("write-behind queue full (" + capacity + ")");
+        default:
+            return false;
+        }
+    }
+
+    private void checkRunning() {
+        if (!running) {
+            throw new RejectedExecutionException("write-behind store is shut down");
+        }
+    }
+
+    /**
+     * Take the oldest pending write whose key is not already being written,
+     * waiting for one if needed.
+     *
+     * @return the next write or null if shut down and drained
+     */
+    private Pending take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                for (Iterator<Pending> it = pending.values().iterator(); it.hasNext();) {
+                    Pending p = it.next();
+                    if (!inFlight.contains(p.id)) {
+                        it.remove();
+                        inFlight.add(p.id);
+                        notFull.signal();
+                        return p;
+                    }
+                }
+                if (!running && pending.isEmpty()) {
+                    return null;
+                }
+                notEmpty.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void done(Pending p) {
+        lock.lock();
+        try {
+            inFlight.remove(p.id);
+            if (pending.containsKey(p.id)) {
+                // a newer write to this key was waiting on us
+                notEmpty.signal();
+            }
+            if (pending.isEmpty() && inFlight.isEmpty()) {
+                idle.signalAll();
+                if (!running) {
+                    notEmpty.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait for all writes accepted so far to be attempted.
+     *
+     * @param timeout
+     *            how long to wait
+     * @param unit
+     *            the unit of <code>timeout</code>
+     * @return true if the queue drained within the timeout
+     * @throws InterruptedException
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!pending.isEmpty() || !inFlight.isEmpty()) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = idle.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop accepting writes. Writes already queued are still written, use
+     * {@link #awaitTermination(long, TimeUnit)} to wait for them. Does not
+     * shut down the underlying {@link RawClient}.
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait for the writer threads to finish after {@link #shutdown()}.
+     *
+     * @return true if all writers finished within the timeout
+     * @throws InterruptedException
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread t : writers) {
+            long remaining = TimeUnit.MILLISECONDS.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (remaining <= 0) {
+                return false;
+            }
+            t.join(remaining);
+            if (t.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return a point in time snapshot of the queue and throughput counters
+     */
+    public WriteBehindStats getStats() {
+        final int depth;
+        final int inFlightCount;
+        final long oldestNanos;
+        lock.lock();
+        try {
+            depth = pending.size();
+            inFlightCount = inFlight.size();
+            oldestNanos = depth == 0 ? 0 : System.nanoTime() - pending.values().iterator().next().enqueuedNanos;
+        } finally {
+            lock.unlock();
+        }
+        return new WriteBehindStats(depth, inFlightCount, accepted.get(), coalesced.get(), dropped.get(),
+                                    written.get(), failed.get(), oldestNanos, totalLagNanos.get(),
+                                    System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Pulls writes from the queue and stores them through the shared client;
+     * with a {@link ClusterClient} each write goes to whichever node it picks
+     */
+    private final class Writer implements Runnable {
+        public void run() {
+            while (true) {
+                final Pending p;
+                try {
+                    p = take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (p == null) {
+                    return;
+                }
+                try {
+                    write(p);
+                } finally {
+                    done(p);
+                }
+            }
+        }
+
+        private void write(Pending p) {
+            final IRiakObject object = p.object;
+            try {
+                retrier.attempt(() -> client.store(object, storeMeta));
+                written.incrementAndGet();
+                totalLagNanos.addAndGet(System.nanoTime() - p.enqueuedNanos);
+            } catch (RiakRetryFailedException e) {
+                Throwable cause = e.getCause();
+                fail(object, cause instanceof Exception ? (Exception) cause : e);
+            } catch (RuntimeException e) {
+                fail(object, e);
+            }
+        }
+
+        /**
+         * Count the failure and tell the handler. A handler that throws is
+         * reported rather than allowed to kill the writer.
+         */
+        private void fail(IRiakObject object, Exception cause) {
+            failed.incrementAndGet();
+            if (failureHandler != null) {
+                try {
+                    failureHandler.onFailure(object, cause);
+                } catch (RuntimeException e) {
+                    RiakThreads.reportUncaught(e);
+                }
+            }
+        }
+    }
+
+    private static final class Pending {
+        private final Object id;
+        private final long enqueuedNanos;
+        // guarded by lock, replaced when a write is coalesced
+        private IRiakObject object;
+
+        Pending(Object id, IRiakObject object, long enqueuedNanos) {
+            this.id = id;
+            this.object = object;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    private static final class BKey {
+        private final String bucket;
+        private final String key;
+
+        BKey(String bucket, String key) {
+            this.bucket = bucket;
+            this.key = key;
+        }
+
+        @Override public int hashCode() {
+            return 31 * (bucket == null ? 0 : bucket.hashCode()) + key.hashCode();
+        }
+
+        @Override public boolean equals(Object obj) {
+            if (!(obj instanceof BKey)) {
+                return false;
+            }
+            BKey other = (BKey) obj;
+            return key.equals(other.key) && (bucket == null ? other.bucket == null : bucket.equals(other.bucket));
+        }
+    }
+
+    /**
+     * Builds a {@link WriteBehindStore}.
+     *
+     * Defaults: capacity 10000, 1 writer per node,
+     * {@link OverflowPolicy#BLOCK} with no timeout, an empty {@link StoreMeta}
+     * and a {@link DefaultRetrier} of 3 attempts.
+     */
+    public static class Builder {
+        private final RawClient client;
+        private int capacity = 10000;
+        private int writersPerNode = 1;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        private long offerTimeoutMillis = 0;
+        private StoreMeta storeMeta = StoreMeta.empty();
+        private Retrier retrier = DefaultRetrier.attempts(3);
+        private FailureHandler failureHandler;
+
+        /**
+         * @param client
+         *            the client to write through, if it is a
+         *            {@link ClusterClient} there are writers for each of its
+         *            nodes
+         */
+        public Builder(RawClient client) {
+            if (client == null) {
+                throw new IllegalArgumentException("client cannot be null");
+            }
+            this.client = client;
+        }
+
+        /**
+         * @param capacity
+         *            the maximum number of distinct keys waiting to be
+         *            written
+         * @return this
+         */
+        public Builder capacity(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be at least 1");
+            }
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * @param writersPerNode
+         *            number of writer threads for each node in the cluster
+         *            when the store is built
+         * @return this
+         */
+        public Builder writersPerNode(int writersPerNode) {
+            if (writersPerNode < 1) {
+                throw new IllegalArgumentException("writersPerNode must be at least 1");
+            }
+            this.writersPerNode = writersPerNode;
+            return this;
+        }
+
+        public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * For {@link OverflowPolicy#BLOCK} how long a producer waits for room
+         * before the write is dropped, 0 means wait forever.
+         *
+         * @param offerTimeoutMillis
+         * @return this
+         */
+        public Builder offerTimeoutMillis(long offerTimeoutMillis) {
+            this.offerTimeoutMillis = offerTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * @param storeMeta
+         *            the {@link StoreMeta} used for every write
+         * @return this
+         */
+        public Builder storeMeta(StoreMeta storeMeta) {
+            this.storeMeta = storeMeta;
+            return this;
+        }
+
+        public Builder withRetrier(Retrier retrier) {
+            this.retrier = retrier;
+            return this;
+        }
+
+        public Builder failureHandler(FailureHandler failureHandler) {
+            this.failureHandler = failureHandler;
+            return this;
+        }
+
+        /**
+         * Create the {@link WriteBehindStore} and start its writer threads.
+         *
+         * @return a running {@link WriteBehindStore}
+         */
+        public WriteBehindStore build() {
+            return new WriteBehindStore(this);
+        }
+    }
+}
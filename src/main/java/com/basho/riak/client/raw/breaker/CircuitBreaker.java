@@ -0,0 +1,344 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.breaker;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.basho.riak.client.util.HashedWheelTimer;
+import com.basho.riak.client.util.RiakThreads;
+
+/**
+ * Tracks the health of one node and stops calls to it while it is sick.
+ * 
+ * <p>
+ * A breaker starts {@link State#CLOSED}: calls are permitted and their
+ * outcomes recorded in a window of the most recent calls. When the failure
+ * or slow call rate over that window reaches the thresholds in its
+ * {@link CircuitBreakerConfig} it goes {@link State#OPEN} and calls are
+ * refused. After the configured open duration it goes
+ * {@link State#HALF_OPEN} and runs its {@link Probe} (for a cluster node, a
+ * <code>ping()</code>) on a background thread. If the probe succeeds the
+ * breaker closes with an empty window, if it fails the breaker opens again
+ * for another open duration.
+ * </p>
+ * <p>
+ * Ordinary calls are refused while half open, so a node that is still sick
+ * costs one probe per open duration rather than a thread per caller.
+ * </p>
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        /** calls are permitted and recorded */
+        CLOSED,
+        /** calls are refused until the open duration has passed */
+        OPEN,
+        /** calls are refused while the node is probed */
+        HALF_OPEN
+    }
+
+    /**
+     * Checks that a node has recovered.
+     */
+    public interface Probe {
+        /**
+         * @throws IOException
+         *             if the node is still unavailable
+         */
+        void probe() throws IOException;
+    }
+
+    private static final class ProbeExecutorHolder {
+        static final ExecutorService INSTANCE = newProbeExecutor();
+    }
+
+    private final String name;
+    private final CircuitBreakerConfig config;
+    private final Probe probe;
+    private final AtomicReference<State> state = new AtomicReference<State>(State.CLOSED);
+
+    // outcomes of the last config.getWindowSize() calls, guarded by this
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+
+    private final AtomicLong notPermittedCount = new AtomicLong();
+    private final AtomicLong openedCount = new AtomicLong();
+    private volatile HashedWheelTimer.Timeout pendingProbe;
+    private volatile boolean shutdown;
+
+    /**
+     * @param name
+     *            identifies the node in events and exceptions
+     * @param config
+     *            thresholds and listeners
+     * @param probe
+     *            run, half open, to check the node has recovered
+     */
+    public CircuitBreaker(String name, CircuitBreakerConfig config, Probe probe) {
+        if (config == null || probe == null) {
+            throw new IllegalArgumentException("config and probe cannot be null");
+        }
+        this.name = name;
+        this.config = config;
+        this.probe = probe;
+        this.failed = new boolean[config.getWindowSize()];
+        this.slow = new boolean[config.getWindowSize()];
+    }
+
+    /**
+     * Should a call be made to the node? Counts the refusal if not.
+     * 
+     * @return true if the breaker is closed
+     */
+    public boolean tryAcquirePermission() {
+        if (isCallPermitted()) {
+            return true;
+        }
+        onCallNotPermitted();
+        return false;
+    }
+
+    /**
+     * Would a call be let through to the node? Unlike
+     * {@link #tryAcquirePermission()} this counts nothing, for callers that
+     * are only choosing between nodes and may send the call elsewhere.
+     * 
+     * @return true if the breaker is closed
+     */
+    public boolean isCallPermitted() {
+        return state.get() == State.CLOSED;
+    }
+
+    /**
+     * Count a call that was refused because this breaker was not closed, see
+     * {@link #getNotPermittedCount()}.
+     */
+    public void onCallNotPermitted() {
+        notPermittedCount.incrementAndGet();
+    }
+
+    /**
+     * Record a call that the node answered, even if the answer was an error
+     * from Riak itself.
+     * 
+     * @param durationNanos
+     *            how long the call took
+     */
+    public void onSuccess(long durationNanos) {
+        record(false, durationNanos);
+    }
+
+    /**
+     * Record a call that failed because the node could not be reached or did
+     * not answer.
+     * 
+     * @param durationNanos
+     *            how long the call took
+     */
+    public void onFailure(long durationNanos) {
+        record(true, durationNanos);
+    }
+
+    private void record(boolean failure, long durationNanos) {
+        if (state.get() != State.CLOSED) {
+            // a straggler from before the breaker opened
+            return;
+        }
+        final boolean slowCall = durationNanos >= config.getSlowCallDurationNanos();
+        final boolean trip;
+
+        synchronized (this) {
+            if (calls == failed.length) {
+                if (failed[next]) {
+                    failures--;
+                }
+                if (slow[next]) {
+                    slowCalls--;
+                }
+            } else {
+                calls++;
+            }
+            failed[next] = failure;
+            slow[next] = slowCall;
+            if (failure) {
+                failures++;
+            }
+            if (slowCall) {
+                slowCalls++;
+            }
+            next = (next + 1) % failed.length;
+
+            trip = calls >= config.getMinimumCalls()
+                   && (failures * 100 >= config.getFailureRateThreshold() * calls
+                       || slowCalls * 100 >= config.getSlowCallRateThreshold() * calls);
+        }
+
+        if (trip) {
+            open(State.CLOSED);
+        }
+    }
+
+    private void open(State from) {
+        if (!transition(from, State.OPEN)) {
+            return;
+        }
+        openedCount.incrementAndGet();
+        if (!shutdown) {
+            pendingProbe = HashedWheelTimer.shared().schedule(new Runnable() {
+                public void run() {
+                    // off the timer thread, a ping can take a connect timeout
+                    ProbeExecutorHolder.INSTANCE.execute(new Runnable() {
+                        public void run() {
+                            probe();
+                        }
+                    });
+                }
+            }, config.getOpenDurationNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void probe() {
+        if (shutdown || !transition(State.OPEN, State.HALF_OPEN)) {
+            return;
+        }
+        try {
+            probe.probe();
+        } catch (IOException e) {
+            open(State.HALF_OPEN);
+            return;
+        } catch (RuntimeException e) {
+            open(State.HALF_OPEN);
+            return;
+        }
+        resetWindow();
+        transition(State.HALF_OPEN, State.CLOSED);
+    }
+
+    private boolean transition(State from, State to) {
+        if (!state.compareAndSet(from, to)) {
+            return false;
+        }
+        for (CircuitBreakerListener listener : config.getListeners()) {
+            try {
+                listener.onStateChange(this, from, to);
+            } catch (RuntimeException e) {
+                // the state has already changed, so the caller is not the place for this
+                RiakThreads.reportUncaught(e);
+            }
+        }
+        return true;
+    }
+
+    private synchronized void resetWindow() {
+        next = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    /**
+     * Close the breaker now, whatever its state, forgetting recorded calls.
+     * For operators who know better than the window.
+     */
+    public void reset() {
+        HashedWheelTimer.Timeout pending = pendingProbe;
+        if (pending != null) {
+            pending.cancel();
+        }
+        resetWindow();
+        State current = state.get();
+        while (current != State.CLOSED && !transition(current, State.CLOSED)) {
+            current = state.get();
+        }
+    }
+
+    /**
+     * Stop probing, the node is going away. The breaker stays in whatever
+     * state it is in.
+     */
+    public void shutdown() {
+        shutdown = true;
+        HashedWheelTimer.Timeout pending = pendingProbe;
+        if (pending != null) {
+            pending.cancel();
+        }
+    }
+
+    /**
+     * @return the node this breaker guards
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the current state
+     */
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * @return the percentage of recorded calls that failed, or -1 if fewer
+     *         than the minimum number of calls have been recorded
+     */
+    public synchronized float getFailureRate() {
+        return calls < config.getMinimumCalls() ? -1 : failures * 100f / calls;
+    }
+
+    /**
+     * @return the percentage of recorded calls that were slow, or -1 if fewer
+     *         than the minimum number of calls have been recorded
+     */
+    public synchronized float getSlowCallRate() {
+        return calls < config.getMinimumCalls() ? -1 : slowCalls * 100f / calls;
+    }
+
+    /**
+     * @return how many calls have been refused since the breaker was created
+     */
+    public long getNotPermittedCount() {
+        return notPermittedCount.get();
+    }
+
+    /**
+     * @return how many times the breaker has opened, including after failed
+     *         probes
+     */
+    public long getOpenedCount() {
+        return openedCount.get();
+    }
+
+    @Override public String toString() {
+        return "CircuitBreaker [name=" + name + ", state=" + state.get() + "]";
+    }
+
+    private static ExecutorService newProbeExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<Runnable>(),
+                                                             RiakThreads.newThreadFactory("riak-circuit-probe"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.breaker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When a {@link CircuitBreaker} opens and how it recovers.
+ * <p>
+ * The breaker looks at the outcome of the last <code>windowSize</code> calls
+ * to its node. Once at least <code>minimumCalls</code> have been made it
+ * opens if the percentage that failed reaches
+ * <code>failureRateThreshold</code>, or the percentage that took longer than
+ * <code>slowCallDuration</code> reaches <code>slowCallRateThreshold</code>.
+ * After <code>openDuration</code> it goes half open and pings the node,
+ * closing again if the ping succeeds.
+ * </p>
+ * 
+ * <pre>
+ * CircuitBreakerConfig breakers = new CircuitBreakerConfig.Builder()
+ *     .withFailureRateThreshold(50)
+ *     .withSlowCallDuration(2, TimeUnit.SECONDS)
+ *     .withSlowCallRateThreshold(80)
+ *     .withOpenDuration(10, TimeUnit.SECONDS)
+ *     .build();
+ * clusterConfig.withCircuitBreaker(breakers);
+ * </pre>
+ */
+public class CircuitBreakerConfig {
+
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallDurationNanos;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final List<CircuitBreakerListener> listeners;
+
+    private CircuitBreakerConfig(Builder builder) {
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallDurationNanos = builder.slowCallDurationNanos;
+        this.windowSize = builder.windowSize;
+        this.minimumCalls = builder.minimumCalls;
+        this.openDurationNanos = builder.openDurationNanos;
+        this.listeners = Collections.unmodifiableList(new ArrayList<CircuitBreakerListener>(builder.listeners));
+    }
+
+    /**
+     * @return the percentage of failed calls that opens the breaker
+     */
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * @return the percentage of slow calls that opens the breaker
+     */
+    public int getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    /**
+     * @return how long, in nanoseconds, a call must take to count as slow
+     */
+    public long getSlowCallDurationNanos() {
+        return slowCallDurationNanos;
+    }
+
+    /**
+     * @return how many of the most recent calls the rates are taken over
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * @return how many calls must have been made before the breaker can open
+     */
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    /**
+     * @return how long, in nanoseconds, the breaker stays open before probing
+     *         the node
+     */
+    public long getOpenDurationNanos() {
+        return openDurationNanos;
+    }
+
+    /**
+     * @return an <b>unmodifiable</b> view of the listeners every breaker made
+     *         from this config tells of its state changes
+     */
+    public List<CircuitBreakerListener> getListeners() {
+        return listeners;
+    }
+
+    public static class Builder {
+        private int failureRateThreshold = 50;
+        private int slowCallRateThreshold = 100;
+        private long slowCallDurationNanos = TimeUnit.SECONDS.toNanos(5);
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private long openDurationNanos = TimeUnit.SECONDS.toNanos(5);
+        private final List<CircuitBreakerListener> listeners = new ArrayList<CircuitBreakerListener>();
+
+        public CircuitBreakerConfig build() {
+            if (minimumCalls > windowSize) {
+                throw new IllegalArgumentException("minimumCalls cannot be more than windowSize");
+            }
+            return new CircuitBreakerConfig(this);
+        }
+
+        /**
+         * @param failureRateThreshold
+         *            percentage, 1 to 100, of failed calls that opens the
+         *            breaker. Defaults to 50.
+         * @return this
+         */
+        public Builder withFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = checkPercentage(failureRateThreshold);
+            return this;
+        }
+
+        /**
+         * @param slowCallRateThreshold
+         *            percentage, 1 to 100, of slow calls that opens the
+         *            breaker. Defaults to 100, only a node where every call is
+         *            slow is cut off.
+         * @return this
+         */
+        public Builder withSlowCallRateThreshold(int slowCallRateThreshold) {
+            this.slowCallRateThreshold = checkPercentage(slowCallRateThreshold);
+            return this;
+        }
+
+        /**
+         * @param duration
+         *            calls that take at least this long count as slow.
+         *            Defaults to 5 seconds.
+         * @param unit
+         *            the unit of <code>duration</code>
+         * @return this
+         */
+        public Builder withSlowCallDuration(long duration, TimeUnit unit) {
+            if (duration <= 0) {
+                throw new IllegalArgumentException("slowCallDuration must be positive");
+            }
+            this.slowCallDurationNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * @param windowSize
+         *            how many of the most recent calls to take the rates over.
+         *            Defaults to 20.
+         * @return this
+         */
+        public Builder withWindowSize(int windowSize) {
+            if (windowSize < 1) {
+                throw new IllegalArgumentException("windowSize must be at least 1");
+            }
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * @param minimumCalls
+         *            the breaker will not open on fewer calls than this, so a
+         *            single early failure cannot cut a node off. Defaults to
+         *            10.
+         * @return this
+         */
+        public Builder withMinimumCalls(int minimumCalls) {
+            if (minimumCalls < 1) {
+                throw new IllegalArgumentException("minimumCalls must be at least 1");
+            }
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * @param duration
+         *            how long an open breaker waits before pinging its node.
+         *            Defaults to 5 seconds.
+         * @param unit
+         *            the unit of <code>duration</code>
+         * @return this
+         */
+        public Builder withOpenDuration(long duration, TimeUnit unit) {
+            if (duration <= 0) {
+                throw new IllegalArgumentException("openDuration must be positive");
+            }
+            this.openDurationNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * @param listener
+         *            told of every state change of every breaker
+         * @return this
+         */
+        public Builder withListener(CircuitBreakerListener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("listener cannot be null");
+            }
+            this.listeners.add(listener);
+            return this;
+        }
+
+        private static int checkPercentage(int percentage) {
+            if (percentage < 1 || percentage > 100) {
+                throw new IllegalArgumentException("thresholds are percentages, 1 to 100");
+            }
+            return percentage;
+        }
+    }
+}
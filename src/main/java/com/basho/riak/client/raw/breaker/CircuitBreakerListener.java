@@ -0,0 +1,39 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.breaker;
+
+/**
+ * Told whenever a {@link CircuitBreaker} changes state.
+ * <p>
+ * Called on the thread that caused the change (a caller recording a failure,
+ * or the probe thread) so implementations should be quick and must not
+ * block. An exception a listener throws goes to that thread's
+ * {@link Thread.UncaughtExceptionHandler}; the other listeners are still
+ * told.
+ * </p>
+ * 
+ * @see CircuitBreakerConfig.Builder#withListener(CircuitBreakerListener)
+ */
+public interface CircuitBreakerListener {
+
+    /**
+     * @param breaker
+     *            the breaker that changed, see {@link CircuitBreaker#getName()}
+     * @param from
+     *            the state it left
+     * @param to
+     *            the state it is now in
+     */
+    void onStateChange(CircuitBreaker breaker, CircuitBreaker.State from, CircuitBreaker.State to);
+}
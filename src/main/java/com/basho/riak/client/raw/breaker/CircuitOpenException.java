@@ -0,0 +1,33 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.breaker;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of calling a node whose {@link CircuitBreaker} is open, or
+ * when every node in a cluster has an open circuit.
+ */
+public class CircuitOpenException extends IOException {
+
+    private static final long serialVersionUID = 6020387319658112735L;
+
+    /**
+     * @param message
+     *            which node, or nodes, are unavailable
+     */
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+/**
+ * Per node circuit breakers.
+ * <p>
+ * When a {@link com.basho.riak.client.raw.config.ClusterConfig} is given a
+ * {@link com.basho.riak.client.raw.breaker.CircuitBreakerConfig} its
+ * {@link com.basho.riak.client.raw.ClusterClient} keeps a
+ * {@link com.basho.riak.client.raw.breaker.CircuitBreaker} for each node.
+ * Nodes that fail or answer slowly too often are taken out of the round robin
+ * until a <code>ping()</code> shows they have recovered, and the PB connection
+ * pool of an open node stops trying to connect to it.
+ * </p>
+ */
+package com.basho.riak.client.raw.breaker;
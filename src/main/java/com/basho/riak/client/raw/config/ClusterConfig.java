@@ -17,6 +17,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import com.basho.riak.client.raw.breaker.CircuitBreakerConfig;
 import com.basho.riak.client.raw.http.HTTPClientConfig;
 import com.basho.riak.client.raw.pbc.PBClientConfig;
 
@@ -41,6 +42,9 @@ public abstract class ClusterConfig<T extends Configuration> implements Configur
 
     private final int totalMaximumConnections;
     private final List<T> nodes = new ArrayList<>();
+    private CircuitBreakerConfig circuitBreakerConfig;
+    private String localZone;
+    private int saturationThreshold = 90;
 
     /**
      * @param totalMaximumConnections
@@ -81,6 +85,78 @@ public abstract class ClusterConfig<T extends Configuration> implements Configur
         return Collections.unmodifiableList(nodes);
     }
 
+    /**
+     * Give each node in the cluster a circuit breaker, so that a node that
+     * keeps failing or answering slowly is skipped until it recovers.
+     * 
+     * @param circuitBreakerConfig
+     *            thresholds for the breakers, or null (the default) for none
+     * @return this, updated
+     * @see com.basho.riak.client.raw.breaker.CircuitBreaker
+     */
+    public synchronized ClusterConfig<T> withCircuitBreaker(CircuitBreakerConfig circuitBreakerConfig) {
+        this.circuitBreakerConfig = circuitBreakerConfig;
+        return this;
+    }
+
+    /**
+     * @return the circuit breaker config for each node, or null if nodes have
+     *         no breakers
+     */
+    public synchronized CircuitBreakerConfig getCircuitBreakerConfig() {
+        return circuitBreakerConfig;
+    }
+
+    /**
+     * Prefer nodes in the client's own availability zone or rack. Requests go
+     * to nodes whose config has this zone while any of them is healthy and
+     * not saturated, and spill to other zones only when none is.
+     * 
+     * @param localZone
+     *            the client's zone, compared with the zone of each node's
+     *            config, or null (the default) to treat every node alike
+     * @return this, updated
+     * @see PBClientConfig.Builder#withZone(String)
+     * @see HTTPClientConfig.Builder#withZone(String)
+     */
+    public synchronized ClusterConfig<T> withLocalZone(String localZone) {
+        this.localZone = localZone;
+        return this;
+    }
+
+    /**
+     * @return the client's zone, or null if nodes are not chosen by zone
+     */
+    public synchronized String getLocalZone() {
+        return localZone;
+    }
+
+    /**
+     * When a local node counts as saturated: the percentage of its
+     * connection pool (<code>poolSize</code> for PB,
+     * <code>maxConnections</code> for HTTP) busy with requests. Nodes with an
+     * unlimited pool are never saturated.
+     * 
+     * @param saturationThreshold
+     *            percentage, 1 to 100, defaults to 90
+     * @return this, updated
+     */
+    public synchronized ClusterConfig<T> withSaturationThreshold(int saturationThreshold) {
+        if (saturationThreshold < 1 || saturationThreshold > 100) {
+            throw new IllegalArgumentException("saturationThreshold is a percentage, 1 to 100");
+        }
+        this.saturationThreshold = saturationThreshold;
+        return this;
+    }
+
+    /**
+     * @return the percentage of its pool in use at which a local node is
+     *         passed over for remote ones
+     */
+    public synchronized int getSaturationThreshold() {
+        return saturationThreshold;
+    }
+
     /**
      * Convenience method for creating a cluster of hosts with a common, default
      * config except for host
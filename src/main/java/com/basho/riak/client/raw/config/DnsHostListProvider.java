@@ -0,0 +1,83 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.config;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resolves one name to the addresses of every node, e.g. a DNS round robin
+ * record kept up to date as nodes join and leave.
+ */
+public class DnsHostListProvider implements HostListProvider {
+
+    /**
+     * Turns a name into addresses. The default uses
+     * {@link InetAddress#getAllByName(String)}; supply another to use a
+     * different directory, or to stub resolution in tests.
+     */
+    public interface Resolver {
+        /**
+         * @param name
+         *            the name to resolve
+         * @return the addresses it names
+         * @throws IOException
+         *             if it cannot be resolved
+         */
+        InetAddress[] resolve(String name) throws IOException;
+    }
+
+    private static final Resolver SYSTEM = InetAddress::getAllByName;
+
+    private final String name;
+    private final Resolver resolver;
+
+    /**
+     * @param name
+     *            the name that resolves to the cluster's nodes
+     */
+    public DnsHostListProvider(String name) {
+        this(name, SYSTEM);
+    }
+
+    /**
+     * @param name
+     *            the name that resolves to the cluster's nodes
+     * @param resolver
+     *            how to resolve it
+     */
+    public DnsHostListProvider(String name, Resolver resolver) {
+        if (name == null || resolver == null) {
+            throw new IllegalArgumentException("name and resolver cannot be null");
+        }
+        this.name = name;
+        this.resolver = resolver;
+    }
+
+    /**
+     * Resolves the name afresh. Note the JVM caches lookups for
+     * <code>networkaddress.cache.ttl</code> seconds.
+     * 
+     * @return the address of each node
+     */
+    public List<String> getHosts() throws IOException {
+        final List<String> hosts = new ArrayList<String>();
+        for (InetAddress address : resolver.resolve(name)) {
+            hosts.add(address.getHostAddress());
+        }
+        return hosts;
+    }
+}
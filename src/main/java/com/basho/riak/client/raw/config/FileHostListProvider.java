@@ -0,0 +1,53 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads hosts from a text file, one per line. Blank lines and lines starting
+ * with <code>#</code> are ignored, so the file can be kept by hand or written
+ * by configuration management.
+ */
+public class FileHostListProvider implements HostListProvider {
+
+    private final File file;
+
+    /**
+     * @param file
+     *            the file to read on each refresh
+     */
+    public FileHostListProvider(File file) {
+        if (file == null) {
+            throw new IllegalArgumentException("file cannot be null");
+        }
+        this.file = file;
+    }
+
+    public List<String> getHosts() throws IOException {
+        final List<String> hosts = new ArrayList<String>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            final String host = line.trim();
+            if (host.length() > 0 && !host.startsWith("#")) {
+                hosts.add(host);
+            }
+        }
+        return hosts;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.config;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The hosts that should make up a cluster, for
+ * {@link com.basho.riak.client.raw.ClusterClient#startRefresh(HostListProvider, Configuration, long, java.util.concurrent.TimeUnit)}.
+ * 
+ * @see FileHostListProvider
+ * @see DnsHostListProvider
+ */
+public interface HostListProvider {
+
+    /**
+     * @return the hosts, as given to
+     *         {@link ClusterConfig#addHosts(Configuration, String...)}
+     * @throws IOException
+     *             if the list cannot be had, the cluster is left as it is
+     */
+    List<String> getHosts() throws IOException;
+}
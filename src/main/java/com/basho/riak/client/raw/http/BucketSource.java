@@ -19,13 +19,14 @@ import com.basho.riak.client.http.RiakClient;
 import com.basho.riak.client.http.response.ListBucketsResponse;
 import com.basho.riak.client.query.RiakStreamingRuntimeException;
 import com.basho.riak.client.query.StreamingOperation;
+import com.basho.riak.client.util.HashedWheelTimer;
+import com.basho.riak.client.util.HashedWheelTimer.Timeout;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Wraps the stream of keys from BucketResponse.getBucketInfo.getKeys in an
@@ -36,7 +37,6 @@ import java.util.TimerTask;
  */
 public class BucketSource implements StreamingOperation<String>
 {
-    private static final Timer timer = new Timer("riak-client-key-stream-timeout-thread", true);
     private final ListBucketsResponse listBucketsResponse;
     private final Iterator<String> buckets;
     private ReaperTask reaper;
@@ -127,17 +127,18 @@ public class BucketSource implements StreamingOperation<String>
      * resource is closed when the iterator is no longer reachable.
      * 
      */
-    static class ReaperTask extends TimerTask {
+    static class ReaperTask implements Runnable {
         private final ListBucketsResponse bucketResponse;
+        private final Timeout timeout;
         private WeakReference<?> ref;
 
         ReaperTask(Object holder, ListBucketsResponse conn) {
             this.bucketResponse = conn;
             this.ref = new WeakReference<>(holder);
-            BucketSource.timer.scheduleAtFixedRate(this, 500, 500);
+            this.timeout = HashedWheelTimer.shared().scheduleAtFixedRate(this, 500, 500, TimeUnit.MILLISECONDS);
         }
 
-        @Override public synchronized void run() {
+        public synchronized void run() {
             if (ref == null) {
                 // NO-OP
             } else if (ref.get() == null) {
@@ -148,9 +149,9 @@ public class BucketSource implements StreamingOperation<String>
             }
         }
 
-        @Override public synchronized boolean cancel() {
+        public synchronized void cancel() {
             ref = null;
-            return super.cancel();
+            timeout.cancel();
         }
     }
     
@@ -35,7 +35,9 @@ import com.basho.riak.client.RiakLink;
 import com.basho.riak.client.bucket.BucketProperties;
 import com.basho.riak.client.builders.BucketPropertiesBuilder;
 import com.basho.riak.client.builders.RiakObjectBuilder;
+import com.basho.riak.client.cap.Deadline;
 import com.basho.riak.client.cap.Quorum;
+import com.basho.riak.client.compress.ValueCodecs;
 import com.basho.riak.client.convert.ConversionException;
 import com.basho.riak.client.http.RiakBucketInfo;
 import com.basho.riak.client.http.RiakClient;
@@ -128,7 +130,18 @@ public final class ConversionUtil {
 
         RiakObjectBuilder builder = RiakObjectBuilder.newBuilder(o.getBucket(), o.getKey());
 
-        builder.withValue(o.getValueAsBytes());
+        byte[] value = o.getValueAsBytes();
+        String contentEncoding = o.getContentEncoding();
+        final byte[] decoded = ValueCodecs.tryDecode(contentEncoding, value);
+
+        // hand back values that can't be decoded as stored, with their encoding
+        if (decoded != null) {
+            value = decoded;
+            contentEncoding = null;
+        }
+
+        builder.withValue(value);
+        builder.withContentEncoding(contentEncoding);
         builder.withVClock(nullSafeGetBytes(o.getVclock()));
         builder.withVtag(o.getVtag());
         builder.withDeleted(o.isDeleted());
@@ -235,8 +248,10 @@ public final class ConversionUtil {
             requestMeta.setAsis(storeMeta.getAsis());
         }
         
-        if (storeMeta.hasTimeout()) {
-            requestMeta.setTimeout(storeMeta.getTimeout());
+        // capped by the calling thread's deadline, if it has one
+        final Integer timeout = Deadline.capTimeout(storeMeta.getTimeout());
+        if (timeout != null) {
+            requestMeta.setTimeout(timeout);
         }
 
         return requestMeta;
@@ -266,6 +281,7 @@ public final class ConversionUtil {
                                                                                            formatDate(object.getLastModified()),
                                                                                            object.getVtag(),
                                                                                            allIndexes, false);
+        riakObject.setContentEncoding(object.getContentEncoding());
         return riakObject;
     }
 
@@ -716,8 +732,10 @@ public final class ConversionUtil {
             rm.setIfModifiedSince(fetchMeta.getIfModifiedSince());
         }
         
-        if (fetchMeta.hasTimeout()) {
-            rm.setTimeout(fetchMeta.getTimeout());
+        // capped by the calling thread's deadline, if it has one
+        final Integer timeout = Deadline.capTimeout(fetchMeta.getTimeout());
+        if (timeout != null) {
+            rm.setTimeout(timeout);
         }
 
         return rm;
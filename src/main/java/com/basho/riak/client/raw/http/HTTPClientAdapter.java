@@ -16,6 +16,10 @@ package com.basho.riak.client.raw.http;
 import static com.basho.riak.client.raw.http.ConversionUtil.convert;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -49,6 +53,7 @@ import com.basho.riak.client.raw.ModifiedException;
 import com.basho.riak.client.raw.RawClient;
 import com.basho.riak.client.raw.RiakResponse;
 import com.basho.riak.client.raw.StoreMeta;
+import com.basho.riak.client.raw.StreamingRawClient;
 import com.basho.riak.client.query.StreamingOperation;
 import com.basho.riak.client.raw.Transport;
 import com.basho.riak.client.raw.query.IndexSpec;
@@ -60,6 +65,7 @@ import com.basho.riak.client.raw.query.indexes.IndexWriter;
 import com.basho.riak.client.util.CharsetUtils;
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import java.math.BigInteger;
 
@@ -69,7 +75,14 @@ import java.math.BigInteger;
  * @author russell
  * 
  */
-public class HTTPClientAdapter implements RawClient {
+public class HTTPClientAdapter implements StreamingRawClient {
+
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    /**
+     * Immutable and thread safe, so built once rather than per stats call.
+     */
+    private static final ObjectReader STATS_READER = statsReader();
 
     private final RiakClient client;
 
@@ -198,7 +211,7 @@ public class HTTPClientAdapter implements RawClient {
      * @return a {@link RiakResponse} with the data items copied from <code>resp</code>
      * @see ConversionUtil#convert(java.util.Collection)
      */
-    private RiakResponse handleBodyResponse(WithBodyResponse resp) {
+    static RiakResponse handleBodyResponse(WithBodyResponse resp) {
         boolean unmodified = resp.getStatusCode() == HttpStatus.SC_NOT_MODIFIED;
 
         RiakResponse response = RiakResponse.empty(unmodified);
@@ -233,7 +246,31 @@ public class HTTPClientAdapter implements RawClient {
         com.basho.riak.client.http.RiakObject riakObject = convert(object, client);
         RequestMeta requestMeta = convert(storeMeta);
         StoreResponse resp = client.store(riakObject, requestMeta);
+        checkStored(resp, storeMeta);
+
+        if (storeMeta.hasReturnBody() && storeMeta.getReturnBody()) {
+            response = handleBodyResponse(resp);
+        } else if(storeMeta.hasReturnHead() && storeMeta.getReturnHead()) {
+            // fake a returnHead by doing a head fetch now
+            FetchResponse fr = client.fetchMeta(object.getBucket(), object.getKey());
+            response = handleBodyResponse(fr);
+        }
+
+        return response;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.basho.riak.client.raw.RawClient#store(com.basho.riak.newapi.RiakObject
+     * )
+     */
+    public void store(IRiakObject object) throws IOException {
+        store(object, StoreMeta.empty());
+    }
 
+    private static void checkStored(StoreResponse resp, StoreMeta storeMeta) throws IOException {
         if (!resp.isSuccess()) {
             if (resp.getStatusCode() == HttpStatus.SC_PRECONDITION_FAILED) {
                 if (storeMeta.hasIfNoneMatch() && storeMeta.getIfNoneMatch()) {
@@ -244,27 +281,105 @@ public class HTTPClientAdapter implements RawClient {
             }
             throw new IOException(resp.getStatusCode() + " " + resp.getBodyAsString());
         }
+    }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.basho.riak.client.raw.StreamingRawClient#storeStream(com.basho.riak
+     * .client.IRiakObject, java.io.InputStream, long,
+     * com.basho.riak.client.raw.StoreMeta)
+     */
+    public RiakResponse storeStream(IRiakObject object, InputStream value, long length, StoreMeta storeMeta)
+            throws IOException {
+        if (object == null || object.getBucket() == null) {
+            throw new IllegalArgumentException("cannot store a null RiakObject, or a RiakObject without a bucket");
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        if (storeMeta == null) {
+            storeMeta = StoreMeta.empty();
+        }
         if (storeMeta.hasReturnBody() && storeMeta.getReturnBody()) {
-            response = handleBodyResponse(resp);
-        } else if(storeMeta.hasReturnHead() && storeMeta.getReturnHead()) {
-            // fake a returnHead by doing a head fetch now
-            FetchResponse fr = client.fetchMeta(object.getBucket(), object.getKey());
-            response = handleBodyResponse(fr);
+            throw new IllegalArgumentException("returnBody is not supported when streaming, use returnHead");
         }
 
-        return response;
+        com.basho.riak.client.http.RiakObject riakObject = convert(object, client);
+        StoreResponse resp = client.store(riakObject, value, length, convert(storeMeta));
+        checkStored(resp, storeMeta);
+
+        if (storeMeta.hasReturnHead() && storeMeta.getReturnHead()) {
+            FetchResponse fr = client.fetchMeta(object.getBucket(), resp.getKey());
+            return handleBodyResponse(fr);
+        }
+        return RiakResponse.empty();
     }
 
     /*
      * (non-Javadoc)
      * 
      * @see
-     * com.basho.riak.client.raw.RawClient#store(com.basho.riak.newapi.RiakObject
-     * )
+     * com.basho.riak.client.raw.StreamingRawClient#fetchStream(java.lang.String
+     * , java.lang.String, com.basho.riak.client.raw.FetchMeta,
+     * java.io.OutputStream)
      */
-    public void store(IRiakObject object) throws IOException {
-        store(object, StoreMeta.empty());
+    public RiakResponse fetchStream(String bucket, String key, FetchMeta fetchMeta, OutputStream out)
+            throws IOException {
+        if (bucket == null || bucket.trim().equals("")) {
+            throw new IllegalArgumentException(
+                                               "bucket must not be null and bucket.getName() must not be null or empty "
+                                                       + "or just whitespace.");
+        }
+
+        if (key == null || key.trim().equals("")) {
+            throw new IllegalArgumentException("Key cannot be null or empty or just whitespace");
+        }
+        RequestMeta rm = fetchMeta == null ? new RequestMeta() : convert(fetchMeta);
+
+        FetchResponse resp = client.stream(bucket, key, rm);
+        boolean complete = false;
+        try {
+            if (!resp.hasSiblings() && resp.hasObject()) {
+                InputStream in = resp.getObject().getValueStream();
+                if (in != null) {
+                    copy(in, out);
+                }
+            }
+            RiakResponse response = handleBodyResponse(resp);
+            complete = true;
+            return response;
+        } finally {
+            if (complete) {
+                resp.close();
+            } else if (resp.getHttpMethod() != null) {
+                // don't read the rest of a large value just to release the
+                // connection
+                resp.getHttpMethod().abort();
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.basho.riak.client.raw.StreamingRawClient#fetchStream(java.lang.String
+     * , java.lang.String, com.basho.riak.client.raw.FetchMeta,
+     * java.nio.channels.WritableByteChannel)
+     */
+    public RiakResponse fetchStream(String bucket, String key, FetchMeta fetchMeta, WritableByteChannel out)
+            throws IOException {
+        return fetchStream(bucket, key, fetchMeta, Channels.newOutputStream(out));
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
     }
 
     /*
@@ -528,11 +643,7 @@ public class HTTPClientAdapter implements RawClient {
                 + r.getStatusCode());
         } else {
             try {
-                NodeStats.UndefinedStatDeserializer usd = new NodeStats.UndefinedStatDeserializer();
-                SimpleModule module = new SimpleModule("UndefinedStatDeserializer", 
-                                                       new Version(1,0,0,null,null,null));
-                module.addDeserializer(BigInteger.class, usd);
-                return new ObjectMapper().registerModule(module).readValue(r.getBodyAsString(), NodeStats.class);
+                return STATS_READER.readValue(r.getBody());
             } catch (IOException e) {
                 throw new IOException("Could not parse stats JSON response, body: " + r.getBodyAsString(),e);
             }
@@ -545,4 +656,10 @@ public class HTTPClientAdapter implements RawClient {
     public RiakConfig getConfig() {
       return client.getConfig();
     }
+
+    private static ObjectReader statsReader() {
+        SimpleModule module = new SimpleModule("UndefinedStatDeserializer", new Version(1, 0, 0, null, null, null));
+        module.addDeserializer(BigInteger.class, new NodeStats.UndefinedStatDeserializer());
+        return new ObjectMapper().registerModule(module).readerFor(NodeStats.class);
+    }
 }
@@ -30,12 +30,33 @@ import com.basho.riak.client.raw.config.Configuration;
  * @see HTTPClusterConfig
  */
 public class HTTPClientConfig implements Configuration {
+
+	/**
+	 * The HTTP library a client created from this config sends requests with.
+	 */
+	public enum Engine {
+		/**
+		 * Apache HttpClient, one blocked thread per request in flight.
+		 */
+		APACHE,
+		/**
+		 * The JDK's <code>java.net.http.HttpClient</code> (Java 11 or later)
+		 * for fetch, store, delete and ping. Requests are sent
+		 * asynchronously, <code>maxConnections</code> (64 if unset) caps the
+		 * requests in flight to the node and further requests queue without
+		 * holding a thread. Other operations use Apache HttpClient.
+		 */
+		JDK
+	}
+
 	private final URI uri;
 	private final String mapreducePath;
 	private final HttpClient httpClient;
 	private final Integer timeout;
 	private final Integer maxConnections;
 	private final HttpRequestRetryHandler retryHandler;
+	private final Engine engine;
+	private final String zone;
 
 	/**
 	 * Create a new instance, use the {@link Builder}
@@ -55,9 +76,14 @@ public class HTTPClientConfig implements Configuration {
 	 * @param retryHandler
 	 *            an implementation of {@link HttpRequestRetryHandler} to be
 	 *            used by the underlying {@link HttpClient}
+	 * @param engine
+	 *            the HTTP library to send requests with
+	 * @param zone
+	 *            the availability zone or rack of the node, may be null
 	 */
 	private HTTPClientConfig(String url, String mapreducePath, HttpClient httpClient, Integer timeout,
-							 Integer maxConnections, HttpRequestRetryHandler retryHandler) {
+							 Integer maxConnections, HttpRequestRetryHandler retryHandler, Engine engine,
+							 String zone) {
 		try {
 			this.uri = new URI(url);
 		} catch (URISyntaxException e) {
@@ -69,6 +95,8 @@ public class HTTPClientConfig implements Configuration {
 		this.timeout = timeout;
 		this.maxConnections = maxConnections;
 		this.retryHandler = retryHandler;
+		this.engine = engine;
+		this.zone = zone;
 	}
 
 	/**
@@ -125,6 +153,21 @@ public class HTTPClientConfig implements Configuration {
 		return retryHandler;
 	}
 
+	/**
+	 * @return the {@link Engine} to send requests with
+	 */
+	public Engine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * @return the availability zone or rack of the node, or null if not known
+	 * @see com.basho.riak.client.raw.config.ClusterConfig#withLocalZone(String)
+	 */
+	public String getZone() {
+		return zone;
+	}
+
 	/**
 	 * Use the builder to create a new instance of {@link HTTPClientConfig}.
 	 * 
@@ -176,6 +219,14 @@ public class HTTPClientConfig implements Configuration {
 	 * <td>httpRequestRetryHandler</td>
 	 * <td>null (will use the HttpClient default)</td>
 	 * </tr>
+	 * <tr>
+	 * <td>engine</td>
+	 * <td>{@link Engine#APACHE}</td>
+	 * </tr>
+	 * <tr>
+	 * <td>zone</td>
+	 * <td>null (unknown)</td>
+	 * </tr>
 	 * </table>
 	 * 
 	 */
@@ -190,6 +241,8 @@ public class HTTPClientConfig implements Configuration {
 		private Integer timeout = null;
 		private Integer maxConnections = null;
 		private HttpRequestRetryHandler retryHandler = null;
+		private Engine engine = Engine.APACHE;
+		private String zone = null;
 
 		/**
 		 * @return a {@link HTTPClientConfig}
@@ -208,7 +261,8 @@ public class HTTPClientConfig implements Configuration {
 				builderUrl = uri.toString();
 			}
 
-			return new HTTPClientConfig(builderUrl, mapreducePath, httpClient, timeout, maxConnections, retryHandler);
+			return new HTTPClientConfig(builderUrl, mapreducePath, httpClient, timeout, maxConnections, retryHandler,
+										engine, zone);
 		}
 
 		/**
@@ -228,6 +282,8 @@ public class HTTPClientConfig implements Configuration {
 			b.timeout = copyConfig.timeout;
 			b.maxConnections = copyConfig.maxConnections;
 			b.retryHandler = copyConfig.retryHandler;
+			b.engine = copyConfig.engine;
+			b.zone = copyConfig.zone;
 
 			// This avoids the new builder from being unchangable due to
 			// the withUrl() method taking precendent
@@ -392,5 +448,31 @@ public class HTTPClientConfig implements Configuration {
 			this.retryHandler = retryHandler;
 			return this;
 		}
+
+		/**
+		 * The HTTP library to send requests with. {@link Engine#JDK} needs
+		 * Java 11 or later at runtime.
+		 * 
+		 * @param engine
+		 *            the {@link Engine}
+		 * @return this
+		 */
+		public Builder withEngine(Engine engine) {
+			this.engine = engine;
+			return this;
+		}
+
+		/**
+		 * Tag the node with the availability zone or rack it runs in, so a
+		 * cluster client can prefer nodes in its own zone.
+		 * 
+		 * @param zone
+		 *            any label, compared for equality
+		 * @return this
+		 */
+		public Builder withZone(String zone) {
+			this.zone = zone;
+			return this;
+		}
 	}
 }
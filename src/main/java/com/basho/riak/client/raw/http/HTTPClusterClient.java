@@ -49,6 +49,10 @@ import com.basho.riak.client.raw.config.ClusterConfig;
  */
 public class HTTPClusterClient extends ClusterClient<HTTPClientConfig> {
 
+    // set by fromConfig, during the super constructor, so no initializer. Null
+    // when the cluster has no connection limit
+    private ThreadSafeClientConnManager cm;
+
     /**
      * @param clusterConfig
      * @throws IOException
@@ -68,40 +72,87 @@ public class HTTPClusterClient extends ClusterClient<HTTPClientConfig> {
         List<RawClient> clients = new ArrayList<>();
         int maxTotal = clusterConfig.getTotalMaximumConnections();
 
-        // IE limitless
-        if (maxTotal == ClusterConfig.UNLIMITED_CONNECTIONS) {
-            // independent pools, independent clients
-            HTTPRiakClientFactory fac = HTTPRiakClientFactory.getInstance();
-            for (HTTPClientConfig node : clusterConfig.getClients()) {
-                clients.add(fac.newClient(node));
-            }
-        } else {
+        // IE not limitless
+        if (maxTotal != ClusterConfig.UNLIMITED_CONNECTIONS) {
             // create a ThreadSafeClientConnManager to be shared by all the
             // RiakClient instances
             // in the cluster
             // add a route per host and a max per route
-            ThreadSafeClientConnManager cm = new ThreadSafeClientConnManager();
+            cm = new ThreadSafeClientConnManager();
             cm.setMaxTotal(maxTotal);
+        }
+
+        for (HTTPClientConfig node : clusterConfig.getClients()) {
+            clients.add(newClient(node));
+        }
+        return clients.toArray(new RawClient[clients.size()]);
+    }
+
+    /**
+     * Creates a client for the node. If the cluster has a connection limit the
+     * client shares the cluster's connection manager.
+     */
+    @Override protected RawClient newClient(HTTPClientConfig node) throws IOException {
+        if (cm == null) {
+            // independent pools, independent clients
+            return HTTPRiakClientFactory.getInstance().newClient(node);
+        }
+
+        if (node.getMaxConnections() != null) {
+            cm.setMaxForRoute(makeRoute(node.getUrl()), node.getMaxConnections());
+        }
+        DefaultHttpClient httpClient = new DefaultHttpClient(cm);
+
+        if (node.getRetryHandler() != null) {
+            httpClient.setHttpRequestRetryHandler(node.getRetryHandler());
+        }
 
-            for (HTTPClientConfig node : clusterConfig.getClients()) {
-                if (node.getMaxConnections() != null) {
-                    cm.setMaxForRoute(makeRoute(node.getUrl()), node.getMaxConnections());
-                }
-                DefaultHttpClient httpClient = new DefaultHttpClient(cm);
+        RiakConfig riakConfig = new RiakConfig(node.getUrl());
+        riakConfig.setMapReducePath(node.getMapreducePath());
+        riakConfig.setTimeout(node.getTimeout());
+        riakConfig.setHttpClient(httpClient);
 
-                if (node.getRetryHandler() != null) {
-                    httpClient.setHttpRequestRetryHandler(node.getRetryHandler());
-                }
+        return new HTTPClientAdapter(new RiakClient(riakConfig));
+    }
 
-                RiakConfig riakConfig = new RiakConfig(node.getUrl());
-                riakConfig.setMapReducePath(node.getMapreducePath());
-                riakConfig.setTimeout(node.getTimeout());
-                riakConfig.setHttpClient(httpClient);
+    @Override protected HTTPClientConfig configForHost(HTTPClientConfig template, String host) {
+        return HTTPClientConfig.Builder.from(template).withHost(host).build();
+    }
 
-                clients.add(new HTTPClientAdapter(new RiakClient(riakConfig)));
+    @Override protected String zoneOf(HTTPClientConfig nodeConfig) {
+        return nodeConfig.getZone();
+    }
+
+    @Override protected int poolCapacity(HTTPClientConfig nodeConfig) {
+        final Integer maxConnections = nodeConfig.getMaxConnections();
+        return maxConnections == null ? 0 : maxConnections;
+    }
+
+    /**
+     * @return the URL of the node
+     */
+    @Override protected String nodeName(HTTPClientConfig nodeConfig) {
+        if (nodeConfig == null) {
+            return super.nodeName(null);
+        }
+        return nodeConfig.getUrl();
+    }
+
+    /**
+     * @return the node's URL with its host replaced by its IP address
+     */
+    @Override protected String nodeAddress(HTTPClientConfig nodeConfig) {
+        final String url = nodeConfig.getUrl();
+        try {
+            URI uri = new URI(url);
+            if (uri.getHost() == null) {
+                return url;
             }
+            return new URI(uri.getScheme(), uri.getUserInfo(), resolve(uri.getHost()), uri.getPort(), uri.getPath(),
+                           uri.getQuery(), uri.getFragment()).toString();
+        } catch (URISyntaxException e) {
+            return url;
         }
-        return clients.toArray(new RawClient[clients.size()]);
     }
 
     /**
@@ -13,6 +13,8 @@
  */
 package com.basho.riak.client.raw.http;
 
+import java.lang.reflect.InvocationTargetException;
+
 import com.basho.riak.client.http.RiakClient;
 import com.basho.riak.client.http.RiakConfig;
 import com.basho.riak.client.raw.RawClient;
@@ -29,6 +31,8 @@ import com.basho.riak.client.raw.config.Configuration;
  */
 public class HTTPRiakClientFactory implements RiakClientFactory {
 
+    private static final String JDK_ADAPTER = "com.basho.riak.client.raw.http.JdkHttpClientAdapter";
+
     private static final HTTPRiakClientFactory instance = new HTTPRiakClientFactory();
 
     private HTTPRiakClientFactory() {}
@@ -72,6 +76,32 @@ public class HTTPRiakClientFactory implements RiakClientFactory {
         riakConfig.setTimeout(config.getTimeout());
         riakConfig.setRetryHandler(config.getRetryHandler());
 
-        return new HTTPClientAdapter(new RiakClient(riakConfig));
+        RiakClient client = new RiakClient(riakConfig);
+        if (config.getEngine() == HTTPClientConfig.Engine.JDK) {
+            return newJdkClient(config, client);
+        }
+        return new HTTPClientAdapter(client);
+    }
+
+    /**
+     * The java.net.http adapter is compiled from src/main/java11 so is only
+     * present in builds made on Java 11 or later, and only usable there.
+     */
+    private RawClient newJdkClient(HTTPClientConfig config, RiakClient client) {
+        try {
+            Class<?> adapterClass = Class.forName(JDK_ADAPTER);
+            return (RawClient) adapterClass.getConstructor(HTTPClientConfig.class, RiakClient.class)
+                .newInstance(config, client);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new IllegalStateException("HTTPClientConfig.Engine.JDK requires Java 11 or later", e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
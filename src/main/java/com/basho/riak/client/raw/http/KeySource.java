@@ -15,13 +15,14 @@ package com.basho.riak.client.raw.http;
 
 import java.lang.ref.WeakReference;
 import java.util.Iterator;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 import com.basho.riak.client.http.RiakClient;
 import com.basho.riak.client.http.response.BucketResponse;
 import com.basho.riak.client.query.RiakStreamingRuntimeException;
 import com.basho.riak.client.query.StreamingOperation;
+import com.basho.riak.client.util.HashedWheelTimer;
+import com.basho.riak.client.util.HashedWheelTimer.Timeout;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -34,7 +35,6 @@ import java.util.NoSuchElementException;
  */
 public class KeySource implements StreamingOperation<String> {
 
-    private static final Timer timer = new Timer("riak-client-key-stream-timeout-thread", true);
     private final BucketResponse bucketResponse;
     private final Iterator<String> keys;
     private ReaperTask reaper;
@@ -124,17 +124,18 @@ public class KeySource implements StreamingOperation<String> {
      * resource is closed when the iterator is no longer reachable.
      * 
      */
-    static class ReaperTask extends TimerTask {
+    static class ReaperTask implements Runnable {
         private final BucketResponse bucketResponse;
+        private final Timeout timeout;
         private WeakReference<?> ref;
 
         ReaperTask(Object holder, BucketResponse conn) {
             this.bucketResponse = conn;
             this.ref = new WeakReference<>(holder);
-            KeySource.timer.scheduleAtFixedRate(this, 500, 500);
+            this.timeout = HashedWheelTimer.shared().scheduleAtFixedRate(this, 500, 500, TimeUnit.MILLISECONDS);
         }
 
-        @Override public synchronized void run() {
+        public synchronized void run() {
             if (ref == null) {
                 // NO-OP
             } else if (ref.get() == null) {
@@ -145,9 +146,9 @@ public class KeySource implements StreamingOperation<String> {
             }
         }
 
-        @Override public synchronized boolean cancel() {
+        public synchronized void cancel() {
             ref = null;
-            return super.cancel();
+            timeout.cancel();
         }
     }
 }
@@ -0,0 +1,58 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.largeobject;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a chunk read from Riak does not match the length or checksum
+ * recorded for it in the {@link Manifest}.
+ */
+public class CorruptChunkException extends IOException {
+
+    private static final long serialVersionUID = -4410245381127318632L;
+
+    private final String bucket;
+    private final String key;
+    private final int chunk;
+
+    public CorruptChunkException(Manifest manifest, int chunk) {
+        super("chunk " + chunk + " of " + manifest.getBucket() + "/" + manifest.getKey() +
+              " does not match its checksum");
+        this.bucket = manifest.getBucket();
+        this.key = manifest.getKey();
+        this.chunk = chunk;
+    }
+
+    /**
+     * @return the bucket of the large object
+     */
+    public String getBucket() {
+        return bucket;
+    }
+
+    /**
+     * @return the key of the large object
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the index of the corrupt chunk
+     */
+    public int getChunk() {
+        return chunk;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.largeobject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Future;
+
+/**
+ * A read only {@link SeekableByteChannel} over a large object.
+ * 
+ * <p>
+ * Chunks are fetched on demand. Once the chunk at the current position is
+ * read, the following chunks are fetched ahead in parallel, up to the
+ * {@link LargeObjectStore}'s window. Seeking drops read ahead chunks that
+ * are no longer needed, so a range read only fetches the chunks it covers
+ * plus the read ahead.
+ * </p>
+ * <p>
+ * Not safe for use by more than one thread at a time.
+ * </p>
+ * 
+ * @see LargeObjectStore#open(String, String)
+ */
+public class LargeObjectChannel implements SeekableByteChannel {
+
+    private final LargeObjectStore store;
+    private final Manifest manifest;
+    private final int window;
+    private final TreeMap<Integer, Future<byte[]>> ahead = new TreeMap<>();
+
+    private long position = 0;
+    private int currentChunk = -1;
+    private byte[] current;
+    private boolean open = true;
+
+    LargeObjectChannel(LargeObjectStore store, Manifest manifest, int window) {
+        this.store = store;
+        this.manifest = manifest;
+        this.window = window;
+    }
+
+    /**
+     * @return the {@link Manifest} of the object being read
+     */
+    public Manifest getManifest() {
+        return manifest;
+    }
+
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= manifest.getLength()) {
+            return -1;
+        }
+        int chunk = (int) (position / manifest.getChunkSize());
+        byte[] data = chunk(chunk);
+        int offset = (int) (position - (long) chunk * manifest.getChunkSize());
+        int count = Math.min(dst.remaining(), data.length - offset);
+        dst.put(data, offset, count);
+        position += count;
+        return count;
+    }
+
+    public int write(ByteBuffer src) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("position cannot be negative");
+        }
+        position = newPosition;
+        return this;
+    }
+
+    public long size() throws IOException {
+        ensureOpen();
+        return manifest.getLength();
+    }
+
+    public SeekableByteChannel truncate(long size) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public void close() {
+        open = false;
+        current = null;
+        for (Future<byte[]> f : ahead.values()) {
+            f.cancel(true);
+        }
+        ahead.clear();
+    }
+
+    private byte[] chunk(int chunk) throws IOException {
+        if (chunk == currentChunk) {
+            return current;
+        }
+        Future<byte[]> f = ahead.remove(chunk);
+        if (f == null) {
+            f = store.fetchChunk(manifest, chunk);
+        }
+        // forget what is behind us, and what a seek has put out of reach
+        Iterator<Map.Entry<Integer, Future<byte[]>>> it = ahead.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Future<byte[]>> e = it.next();
+            if (e.getKey() < chunk || e.getKey() >= chunk + window) {
+                e.getValue().cancel(true);
+                it.remove();
+            }
+        }
+        int last = Math.min(chunk + window - 1, manifest.getChunkCount() - 1);
+        for (int next = chunk + 1; next <= last; next++) {
+            if (!ahead.containsKey(next)) {
+                ahead.put(next, store.fetchChunk(manifest, next));
+            }
+        }
+
+        current = null;
+        currentChunk = -1;
+        byte[] data = LargeObjectStore.await(f);
+        current = data;
+        currentChunk = chunk;
+        return data;
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -0,0 +1,681 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.largeobject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.RiakRetryFailedException;
+import com.basho.riak.client.builders.RiakObjectBuilder;
+import com.basho.riak.client.cap.DefaultRetrier;
+import com.basho.riak.client.cap.Retrier;
+import com.basho.riak.client.http.util.Constants;
+import com.basho.riak.client.raw.ClusterClient;
+import com.basho.riak.client.raw.FetchMeta;
+import com.basho.riak.client.raw.RawClient;
+import com.basho.riak.client.raw.RiakResponse;
+import com.basho.riak.client.raw.StoreMeta;
+import com.basho.riak.client.util.HashedWheelTimer;
+import com.basho.riak.client.util.HashedWheelTimer.Timeout;
+import com.basho.riak.client.util.RiakThreads;
+
+/**
+ * Stores values of any size as a set of fixed size chunks plus a
+ * {@link Manifest}, on top of {@link RawClient}.
+ * 
+ * <p>
+ * {@link #put(String, String, InputStream, String)} reads the stream a chunk
+ * at a time and stores the chunks in parallel, at most <code>window</code>
+ * at once, so memory use is bounded by <code>window * chunkSize</code>
+ * whatever the size of the object. The manifest is stored once every chunk
+ * has been, so readers never see a partial object. Chunks of the version it
+ * replaced are deleted once the {@link Builder#replacedChunkGrace(long, TimeUnit)
+ * grace period} has passed, so readers still streaming that version can
+ * finish it.
+ * </p>
+ * <p>
+ * {@link #open(String, String)} returns a {@link LargeObjectChannel} that
+ * reads chunks on demand with read ahead, and supports seeking for range
+ * reads. Each chunk is checked against its CRC32 in the manifest; where
+ * a chunk has siblings the one that matches is used.
+ * </p>
+ * <p>
+ * Chunks are written and read several at a time. When the client is a
+ * {@link ClusterClient} each chunk goes to whichever node the cluster picks,
+ * spreading the transfer across the cluster.
+ * </p>
+ * 
+ * @see Builder
+ */
+public class LargeObjectStore {
+
+    /**
+     * The content type of manifest objects.
+     */
+    public static final String MANIFEST_CONTENT_TYPE = "application/x-riak-large-object+json";
+
+    private final RawClient client;
+    private final int chunkSize;
+    private final int window;
+    private final String chunkBucketSuffix;
+    private final StoreMeta storeMeta;
+    private final FetchMeta fetchMeta;
+    private final Retrier retrier;
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+    private final long replacedChunkGraceMillis;
+    private final Set<ReplacedChunks> replaced = ConcurrentHashMap.<ReplacedChunks> newKeySet();
+
+    private LargeObjectStore(Builder builder) {
+        this.client = builder.client;
+        this.chunkSize = builder.chunkSize;
+        this.window = builder.window;
+        this.chunkBucketSuffix = builder.chunkBucketSuffix;
+        this.storeMeta = builder.storeMeta;
+        this.fetchMeta = builder.fetchMeta;
+        this.retrier = builder.retrier;
+        this.replacedChunkGraceMillis = builder.replacedChunkGraceMillis;
+        this.ownExecutor = builder.executor == null;
+        this.executor = ownExecutor
+                ? Executors.newFixedThreadPool(window, RiakThreads.newThreadFactory("riak-large-object"))
+                : builder.executor;
+    }
+
+    /**
+     * Store the content of <code>in</code> as the large object at
+     * <code>bucket/key</code>, replacing any there already.
+     * 
+     * @param bucket
+     *            the bucket
+     * @param key
+     *            the key
+     * @param in
+     *            the value, read to the end but not closed
+     * @param contentType
+     *            recorded in the manifest, may be null
+     * @return the {@link Manifest} of the stored object
+     * @throws IOException
+     *             if reading <code>in</code> or storing a chunk or the
+     *             manifest fails. Chunks already stored are deleted and any
+     *             previous version of the object is left as it was.
+     */
+    public Manifest put(String bucket, String key, InputStream in, String contentType) throws IOException {
+        if (bucket == null || key == null || in == null) {
+            throw new IllegalArgumentException("bucket, key and in cannot be null");
+        }
+        final Manifest previous = getManifest(bucket, key);
+        final String chunkBucket = chunkBucket(bucket);
+        final String uploadId = UUID.randomUUID().toString().replace("-", "");
+
+        final Semaphore permits = new Semaphore(window);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final List<Future<?>> writes = new ArrayList<>();
+        final List<Long> checksums = new ArrayList<>();
+        long length = 0;
+
+        try {
+            byte[] chunk;
+            while (failure.get() == null && (chunk = readChunk(in)) != null) {
+                final int index = checksums.size();
+                final IRiakObject object = RiakObjectBuilder
+                    .newBuilder(chunkBucket, Manifest.chunkKey(key, uploadId, index)).withValue(chunk)
+                    .withContentType(Constants.CTYPE_OCTET_STREAM).build();
+                checksums.add(Manifest.crc32(chunk));
+                length += chunk.length;
+
+                acquire(permits);
+                writes.add(executor.submit(new Runnable() {
+                    public void run() {
+                        try {
+                            attempt(new Store(object));
+                        } catch (Exception e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            permits.release();
+                        }
+                    }
+                }));
+            }
+            awaitAll(writes);
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+            cancelAll(writes);
+        }
+
+        long[] crcs = new long[checksums.size()];
+        for (int i = 0; i < crcs.length; i++) {
+            crcs[i] = checksums.get(i);
+        }
+        Manifest manifest = new Manifest(bucket, key, chunkBucket, uploadId, contentType, length, chunkSize, crcs);
+
+        if (failure.get() == null) {
+            try {
+                IRiakObject object = RiakObjectBuilder.newBuilder(bucket, key).withValue(manifest.toJson())
+                    .withContentType(MANIFEST_CONTENT_TYPE).build();
+                attempt(new Store(object));
+            } catch (IOException e) {
+                failure.set(e);
+            }
+        }
+
+        if (failure.get() != null) {
+            deleteChunksQuietly(manifest);
+            Exception e = failure.get();
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            throw new IOException("failed to store " + bucket + "/" + key, e);
+        }
+
+        if (previous != null && !previous.getUploadId().equals(uploadId)) {
+            deleteReplacedChunks(previous);
+        }
+        return manifest;
+    }
+
+    /**
+     * @return the {@link Manifest} of the large object at
+     *         <code>bucket/key</code>, or null if there isn't one
+     * @throws IOException
+     *             if the object there is not a manifest
+     */
+    public Manifest getManifest(String bucket, String key) throws IOException {
+        RiakResponse response = attempt(new Fetch(bucket, key, fetchMeta));
+        IRiakObject latest = null;
+        for (IRiakObject o : response) {
+            if (o.isDeleted()) {
+                continue;
+            }
+            if (latest == null ||
+                (o.getLastModified() != null && latest.getLastModified() != null && o.getLastModified()
+                    .after(latest.getLastModified()))) {
+                latest = o;
+            }
+        }
+        if (latest == null) {
+            return null;
+        }
+        return Manifest.fromJson(bucket, key, latest.getValue());
+    }
+
+    /**
+     * Open the large object at <code>bucket/key</code> for reading.
+     * 
+     * @return a {@link LargeObjectChannel} positioned at the start
+     * @throws IOException
+     *             if there is no large object at <code>bucket/key</code>
+     */
+    public LargeObjectChannel open(String bucket, String key) throws IOException {
+        Manifest manifest = getManifest(bucket, key);
+        if (manifest == null) {
+            throw new IOException("no large object at " + bucket + "/" + key);
+        }
+        return open(manifest);
+    }
+
+    /**
+     * Open the large object described by <code>manifest</code> for reading.
+     */
+    public LargeObjectChannel open(Manifest manifest) {
+        return new LargeObjectChannel(this, manifest, window);
+    }
+
+    /**
+     * @return an {@link InputStream} of the whole large object at
+     *         <code>bucket/key</code>
+     */
+    public InputStream openStream(String bucket, String key) throws IOException {
+        return Channels.newInputStream(open(bucket, key));
+    }
+
+    /**
+     * @param offset
+     *            the first byte to read
+     * @param length
+     *            the most bytes to read
+     * @return an {@link InputStream} of <code>length</code> bytes of the large
+     *         object at <code>bucket/key</code> from <code>offset</code>
+     *         (fewer if the object ends first)
+     */
+    public InputStream openStream(String bucket, String key, long offset, long length) throws IOException {
+        LargeObjectChannel channel = open(bucket, key);
+        channel.position(offset);
+        return new RangeInputStream(Channels.newInputStream(channel), length);
+    }
+
+    /**
+     * Delete the large object at <code>bucket/key</code>: the manifest first,
+     * so readers no longer find it, then the chunks.
+     * 
+     * @return false if there was no large object to delete
+     * @throws IOException
+     *             if the manifest or a chunk could not be deleted
+     */
+    public boolean delete(String bucket, String key) throws IOException {
+        Manifest manifest = getManifest(bucket, key);
+        if (manifest == null) {
+            return false;
+        }
+        attempt(new Delete(bucket, key));
+        int failed = deleteChunksQuietly(manifest);
+        if (failed > 0) {
+            throw new IOException(failed + " chunks of " + bucket + "/" + key + " could not be deleted");
+        }
+        return true;
+    }
+
+    /**
+     * Stop the threads this store created. An executor given to the
+     * {@link Builder} is left running. Chunks of replaced versions still
+     * waiting out their grace period are deleted first.
+     */
+    public void shutdown() {
+        for (ReplacedChunks r : replaced) {
+            if (replaced.remove(r)) {
+                if (r.timeout != null) {
+                    r.timeout.cancel();
+                }
+                deleteChunksQuietly(r.manifest);
+            }
+        }
+        if (ownExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    Future<byte[]> fetchChunk(final Manifest manifest, final int chunk) {
+        return executor.submit(new Callable<byte[]>() {
+            public byte[] call() throws Exception {
+                RiakResponse response = attempt(new Fetch(manifest.getChunkBucket(), manifest.getChunkKey(chunk),
+                                                          fetchMeta));
+                if (!response.hasValue()) {
+                    throw new IOException("chunk " + chunk + " of " + manifest.getBucket() + "/" +
+                                          manifest.getKey() + " is missing");
+                }
+                for (IRiakObject o : response) {
+                    if (manifest.matches(chunk, o.getValue())) {
+                        return o.getValue();
+                    }
+                }
+                throw new CorruptChunkException(manifest, chunk);
+            }
+        });
+    }
+
+    /**
+     * Delete the chunks of a version that <code>put</code> has just replaced,
+     * after the grace period if there is one.
+     */
+    private void deleteReplacedChunks(Manifest manifest) {
+        if (replacedChunkGraceMillis == 0) {
+            deleteChunksQuietly(manifest);
+            return;
+        }
+        ReplacedChunks r = new ReplacedChunks(manifest);
+        replaced.add(r);
+        r.timeout = HashedWheelTimer.shared().schedule(r, replacedChunkGraceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The chunks of a replaced version, deleted when the grace period
+     * expires. Runs on the timer thread so only hands the deletes to the
+     * executor; nothing waits for them.
+     */
+    private final class ReplacedChunks implements Runnable {
+        private final Manifest manifest;
+        private volatile Timeout timeout;
+
+        ReplacedChunks(Manifest manifest) {
+            this.manifest = manifest;
+        }
+
+        public void run() {
+            if (!replaced.remove(this)) {
+                return;
+            }
+            for (int i = 0; i < manifest.getChunkCount(); i++) {
+                final Delete delete = new Delete(manifest.getChunkBucket(), manifest.getChunkKey(i));
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            attempt(delete);
+                        } catch (IOException e) {
+                            // left behind, as with any chunk that could not be deleted
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * @return the number of chunks that could not be deleted
+     */
+    private int deleteChunksQuietly(final Manifest manifest) {
+        List<Future<?>> deletes = new ArrayList<>();
+        final AtomicInteger failed = new AtomicInteger();
+        final Semaphore permits = new Semaphore(window);
+        try {
+            for (int i = 0; i < manifest.getChunkCount(); i++) {
+                final int chunk = i;
+                acquire(permits);
+                deletes.add(executor.submit(new Runnable() {
+                    public void run() {
+                        try {
+                            attempt(new Delete(manifest.getChunkBucket(), manifest.getChunkKey(chunk)));
+                        } catch (IOException e) {
+                            failed.incrementAndGet();
+                        } finally {
+                            permits.release();
+                        }
+                    }
+                }));
+            }
+            awaitAll(deletes);
+        } catch (IOException e) {
+            cancelAll(deletes);
+            return manifest.getChunkCount();
+        }
+        return failed.get();
+    }
+
+    private String chunkBucket(String bucket) {
+        return chunkBucketSuffix == null ? bucket : bucket + chunkBucketSuffix;
+    }
+
+    /**
+     * @return the next chunk from <code>in</code>, short only at the end of
+     *         the stream, or null at the end of the stream
+     */
+    private byte[] readChunk(InputStream in) throws IOException {
+        byte[] buffer = new byte[chunkSize];
+        int filled = 0;
+        while (filled < chunkSize) {
+            int read = in.read(buffer, filled, chunkSize - filled);
+            if (read == -1) {
+                break;
+            }
+            filled += read;
+        }
+        if (filled == 0) {
+            return null;
+        }
+        if (filled < chunkSize) {
+            byte[] last = new byte[filled];
+            System.arraycopy(buffer, 0, last, 0, filled);
+            return last;
+        }
+        return buffer;
+    }
+
+    private <T> T attempt(final Op<T> op) throws IOException {
+        try {
+            return retrier.attempt(new Callable<T>() {
+                public T call() throws Exception {
+                    return op.run(client);
+                }
+            });
+        } catch (RiakRetryFailedException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e);
+        }
+    }
+
+    private static void acquire(Semaphore permits) throws InterruptedIOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private static void awaitAll(List<Future<?>> futures) throws IOException {
+        for (Future<?> f : futures) {
+            await(f);
+        }
+    }
+
+    private static void cancelAll(List<Future<?>> futures) {
+        for (Future<?> f : futures) {
+            f.cancel(true);
+        }
+    }
+
+    static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private interface Op<T> {
+        T run(RawClient node) throws IOException;
+    }
+
+    private class Store implements Op<RiakResponse> {
+        private final IRiakObject object;
+
+        Store(IRiakObject object) {
+            this.object = object;
+        }
+
+        public RiakResponse run(RawClient node) throws IOException {
+            return node.store(object, storeMeta);
+        }
+    }
+
+    private static class Fetch implements Op<RiakResponse> {
+        private final String bucket;
+        private final String key;
+        private final FetchMeta fetchMeta;
+
+        Fetch(String bucket, String key, FetchMeta fetchMeta) {
+            this.bucket = bucket;
+            this.key = key;
+            this.fetchMeta = fetchMeta;
+        }
+
+        public RiakResponse run(RawClient node) throws IOException {
+            return node.fetch(bucket, key, fetchMeta);
+        }
+    }
+
+    private static class Delete implements Op<Void> {
+        private final String bucket;
+        private final String key;
+
+        Delete(String bucket, String key) {
+            this.bucket = bucket;
+            this.key = key;
+        }
+
+        public Void run(RawClient node) throws IOException {
+            node.delete(bucket, key);
+            return null;
+        }
+    }
+
+    private static class RangeInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        RangeInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Builds a {@link LargeObjectStore}. Defaults are 1MB chunks, a window of
+     * 8 chunks in flight, chunks in the same bucket as their manifest, empty
+     * {@link StoreMeta} and {@link FetchMeta}, a {@link DefaultRetrier} of 3
+     * attempts, a thread pool of <code>window</code> threads and a one minute
+     * grace period for replaced chunks.
+     */
+    public static class Builder {
+        private final RawClient client;
+        private int chunkSize = 1024 * 1024;
+        private int window = 8;
+        private String chunkBucketSuffix;
+        private StoreMeta storeMeta = StoreMeta.empty();
+        private FetchMeta fetchMeta = new FetchMeta.Builder().build();
+        private Retrier retrier = DefaultRetrier.attempts(3);
+        private ExecutorService executor;
+        private long replacedChunkGraceMillis = TimeUnit.MINUTES.toMillis(1);
+
+        /**
+         * @param client
+         *            the client to store through, if it is a
+         *            {@link ClusterClient} chunks are spread across its nodes
+         */
+        public Builder(RawClient client) {
+            if (client == null) {
+                throw new IllegalArgumentException("client cannot be null");
+            }
+            this.client = client;
+        }
+
+        /**
+         * @param chunkSize
+         *            the size in bytes of each chunk but the last
+         */
+        public Builder chunkSize(int chunkSize) {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("chunkSize must be at least 1");
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * @param window
+         *            the most chunks being written, or read ahead, at once by
+         *            one put or one reader
+         */
+        public Builder window(int window) {
+            if (window < 1) {
+                throw new IllegalArgumentException("window must be at least 1");
+            }
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Store chunks in <code>&lt;bucket&gt;&lt;suffix&gt;</code> rather
+         * than alongside their manifest, e.g. to keep them out of key
+         * listings of the main bucket.
+         */
+        public Builder chunkBucketSuffix(String chunkBucketSuffix) {
+            this.chunkBucketSuffix = chunkBucketSuffix;
+            return this;
+        }
+
+        public Builder storeMeta(StoreMeta storeMeta) {
+            this.storeMeta = storeMeta;
+            return this;
+        }
+
+        public Builder fetchMeta(FetchMeta fetchMeta) {
+            this.fetchMeta = fetchMeta;
+            return this;
+        }
+
+        public Builder withRetrier(Retrier retrier) {
+            this.retrier = retrier;
+            return this;
+        }
+
+        /**
+         * Run chunk transfers on <code>executor</code> instead of a pool
+         * owned by the store. It needs at least <code>window</code> threads
+         * for a put or read to get full parallelism.
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * How long the chunks of a version replaced by
+         * {@link LargeObjectStore#put(String, String, InputStream, String)}
+         * are kept before they are deleted. A reader that opened the old
+         * version finds its chunks missing if it is still reading after
+         * this. Zero deletes them as soon as the new manifest is stored.
+         */
+        public Builder replacedChunkGrace(long grace, TimeUnit unit) {
+            if (grace < 0) {
+                throw new IllegalArgumentException("grace cannot be negative");
+            }
+            this.replacedChunkGraceMillis = unit.toMillis(grace);
+            return this;
+        }
+
+        public LargeObjectStore build() {
+            return new LargeObjectStore(this);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.largeobject;
+
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Describes a large object: its length, how it was cut into chunks, where the
+ * chunks are stored and the CRC32 of each.
+ * 
+ * <p>
+ * Stored as JSON at the large object's bucket/key. Chunk <em>n</em> is
+ * stored in {@link #getChunkBucket()} at
+ * <code>&lt;key&gt;~&lt;uploadId&gt;~&lt;n&gt;</code>; the upload id is new for
+ * every write, so replacing an object never overwrites the chunks of the
+ * version being replaced while someone may still be reading it.
+ * </p>
+ */
+public final class Manifest {
+
+    static final int VERSION = 1;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String bucket;
+    private final String key;
+    private final String chunkBucket;
+    private final String uploadId;
+    private final String contentType;
+    private final long length;
+    private final int chunkSize;
+    private final long[] checksums;
+
+    Manifest(String bucket, String key, String chunkBucket, String uploadId, String contentType, long length,
+            int chunkSize, long[] checksums) {
+        this.bucket = bucket;
+        this.key = key;
+        this.chunkBucket = chunkBucket;
+        this.uploadId = uploadId;
+        this.contentType = contentType;
+        this.length = length;
+        this.chunkSize = chunkSize;
+        this.checksums = checksums;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the bucket the chunks are stored in
+     */
+    public String getChunkBucket() {
+        return chunkBucket;
+    }
+
+    /**
+     * @return the id that distinguishes this version's chunks from those of
+     *         other writes to the same key
+     */
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    /**
+     * @return the content type given when the object was stored, may be null
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return the length of the object in bytes
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * @return the length of every chunk but the last
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getChunkCount() {
+        return checksums.length;
+    }
+
+    /**
+     * @param chunk
+     *            the chunk index
+     * @return the key chunk <code>chunk</code> is stored at
+     */
+    public String getChunkKey(int chunk) {
+        return chunkKey(key, uploadId, chunk);
+    }
+
+    /**
+     * @param chunk
+     *            the chunk index
+     * @return the length of chunk <code>chunk</code>
+     */
+    public int getChunkLength(int chunk) {
+        return (int) Math.min(chunkSize, length - (long) chunk * chunkSize);
+    }
+
+    /**
+     * @param chunk
+     *            the chunk index
+     * @return the CRC32 of chunk <code>chunk</code>
+     */
+    public long getChecksum(int chunk) {
+        return checksums[chunk];
+    }
+
+    /**
+     * @return true if <code>data</code> is the expected content of chunk
+     *         <code>chunk</code>
+     */
+    boolean matches(int chunk, byte[] data) {
+        return data != null && data.length == getChunkLength(chunk) && crc32(data) == checksums[chunk];
+    }
+
+    static String chunkKey(String key, String uploadId, int chunk) {
+        return key + "~" + uploadId + "~" + chunk;
+    }
+
+    static long crc32(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        return crc.getValue();
+    }
+
+    byte[] toJson() throws IOException {
+        ObjectNode json = MAPPER.createObjectNode();
+        json.put("version", VERSION);
+        json.put("chunkBucket", chunkBucket);
+        json.put("uploadId", uploadId);
+        json.put("contentType", contentType);
+        json.put("length", length);
+        json.put("chunkSize", chunkSize);
+        ArrayNode crc = json.putArray("crc32");
+        for (long checksum : checksums) {
+            crc.add(checksum);
+        }
+        return MAPPER.writeValueAsBytes(json);
+    }
+
+    static Manifest fromJson(String bucket, String key, byte[] data) throws IOException {
+        JsonNode json = MAPPER.readTree(data);
+        if (json == null || !json.has("version") || json.get("version").asInt() != VERSION) {
+            throw new IOException(bucket + "/" + key + " is not a large object manifest");
+        }
+        JsonNode crc = json.get("crc32");
+        long[] checksums = new long[crc.size()];
+        for (int i = 0; i < checksums.length; i++) {
+            checksums[i] = crc.get(i).asLong();
+        }
+        JsonNode contentType = json.get("contentType");
+        return new Manifest(bucket, key, json.get("chunkBucket").asText(), json.get("uploadId").asText(),
+                            contentType == null || contentType.isNull() ? null : contentType.asText(),
+                            json.get("length").asLong(), json.get("chunkSize").asInt(), checksums);
+    }
+
+    @Override public String toString() {
+        return "Manifest [bucket=" + bucket + ", key=" + key + ", uploadId=" + uploadId + ", length=" + length +
+               ", chunkSize=" + chunkSize + ", chunks=" + checksums.length + "]";
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+/**
+ * Values too large to store as one Riak object.
+ * <p>
+ * {@link com.basho.riak.client.raw.largeobject.LargeObjectStore} splits a
+ * stream into fixed size chunks, each stored as its own object, and records
+ * them in a {@link com.basho.riak.client.raw.largeobject.Manifest} stored at
+ * the object's key. Chunks are written and read in parallel, spread over the
+ * nodes of a {@link com.basho.riak.client.raw.ClusterClient}, and are
+ * checked against the checksums in the manifest when read.
+ * </p>
+ */
+package com.basho.riak.client.raw.largeobject;
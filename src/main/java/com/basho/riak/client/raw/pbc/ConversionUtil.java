@@ -20,7 +20,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -32,10 +31,10 @@ import java.util.TreeMap;
 import com.basho.riak.client.http.util.ClientUtils;
 
 import com.basho.riak.client.IRiakObject;
-import com.basho.riak.client.RiakLink;
 import com.basho.riak.client.bucket.BucketProperties;
 import com.basho.riak.client.builders.BucketPropertiesBuilder;
 import com.basho.riak.client.builders.RiakObjectBuilder;
+import com.basho.riak.client.compress.ValueCodecs;
 import com.basho.riak.client.cap.VClock;
 import com.basho.riak.client.convert.ConversionException;
 import com.basho.riak.client.query.LinkWalkStep.Accumulate;
@@ -116,7 +115,18 @@ public final class ConversionUtil {
     static IRiakObject convert(com.basho.riak.pbc.RiakObject o) {
         RiakObjectBuilder builder = RiakObjectBuilder.newBuilder(o.getBucket(), o.getKey());
 
-        builder.withValue(nullSafeToBytes(o.getValue()));
+        byte[] value = nullSafeToBytes(o.getValue());
+        String contentEncoding = o.getContentEncoding();
+        final byte[] decoded = ValueCodecs.tryDecode(contentEncoding, value);
+
+        // hand back values that can't be decoded as stored, with their encoding
+        if (decoded != null) {
+            value = decoded;
+            contentEncoding = null;
+        }
+
+        builder.withValue(value);
+        builder.withContentEncoding(contentEncoding);
         builder.withVClock(nullSafeToBytes(o.getVclock()));
         builder.withVtag(o.getVtag());
         builder.withDeleted(o.getDeleted());
@@ -127,22 +137,24 @@ public final class ConversionUtil {
             builder.withLastModified(lastModified.getTime());
         }
 
-        final Collection<RiakLink> links = new ArrayList<>();
-
-        for (com.basho.riak.pbc.RiakLink link : o.getLinks()) {
-            links.add(convert(link));
+        // most objects have no links, indexes or user meta: leave them unset
+        // so the built object shares the empty instances, and add straight
+        // to the builder rather than through intermediate copies
+        if (o.hasLinks()) {
+            for (com.basho.riak.pbc.RiakLink link : o.getLinks()) {
+                builder.addLink(nullSafeToStringUtf8(link.getBucket()), nullSafeToStringUtf8(link.getKey()),
+                                nullSafeToStringUtf8(link.getTag()));
+            }
         }
 
-        builder.withLinks(links);
-
-        @SuppressWarnings("rawtypes") final Collection<com.basho.riak.client.http.RiakIndex> indexes = o.getIndexes();
-
-        for (@SuppressWarnings("rawtypes") com.basho.riak.client.http.RiakIndex i : indexes) {
-            if (i instanceof com.basho.riak.client.http.IntIndex) {
-                builder.addIndex(i.getName(), (Long) i.getValue());
-            }
-            if (i instanceof com.basho.riak.client.http.BinIndex) {
-                builder.addIndex(i.getName(), (String) i.getValue());
+        if (o.hasIndexes()) {
+            for (@SuppressWarnings("rawtypes") com.basho.riak.client.http.RiakIndex i : o.getIndexes()) {
+                if (i instanceof com.basho.riak.client.http.IntIndex) {
+                    builder.addIndex(i.getName(), (Long) i.getValue());
+                }
+                if (i instanceof com.basho.riak.client.http.BinIndex) {
+                    builder.addIndex(i.getName(), (String) i.getValue());
+                }
             }
         }
 
@@ -155,22 +167,13 @@ public final class ConversionUtil {
             builder.withContentType(ctype + CHARSET + charset);
         }
 
-        final Map<String, String> userMetaData = new HashMap<>(o.getUsermeta());
-
-        builder.withUsermeta(userMetaData);
+        if (o.hasUsermeta()) {
+            o.forEachUsermeta(builder::addUsermeta);
+        }
 
         return builder.build();
     }
 
-    /**
-     * @param link
-     * @return
-     */
-    private static RiakLink convert(com.basho.riak.pbc.RiakLink link) {
-        return new RiakLink(nullSafeToStringUtf8(link.getBucket()), nullSafeToStringUtf8(link.getKey()),
-                            nullSafeToStringUtf8(link.getTag()));
-    }
-
     /**
      * @param vclock
      * @return
@@ -302,6 +305,7 @@ public final class ConversionUtil {
         }
 
         result.setContentType(ctype);
+        result.setContentEncoding(riakObject.getContentEncoding());
         return result;
     }
 
@@ -40,6 +40,7 @@ import com.basho.riak.client.raw.ModifiedException;
 import com.basho.riak.client.raw.RawClient;
 import com.basho.riak.client.raw.RiakResponse;
 import com.basho.riak.client.raw.StoreMeta;
+import com.basho.riak.client.raw.StreamingMapReduceClient;
 import com.basho.riak.client.raw.Transport;
 import com.basho.riak.client.raw.http.ResultCapture;
 import com.basho.riak.client.raw.query.IndexSpec;
@@ -59,6 +60,7 @@ import com.basho.riak.pbc.MapReduceResponseSource;
 import com.basho.riak.pbc.RequestMeta;
 import com.basho.riak.pbc.RiakClient;
 import com.basho.riak.pbc.RiakError;
+import com.basho.riak.pbc.mapreduce.MapReduceResponse;
 import com.google.protobuf.ByteString;
 
 /**
@@ -68,7 +70,7 @@ import com.google.protobuf.ByteString;
  * @author russell
  * 
  */
-public class PBClientAdapter implements RawClient {
+public class PBClientAdapter implements StreamingMapReduceClient {
 
     private static final Object MATCH_FOUND = "match_found";
     private static final Object MODIFIED = "modified";
@@ -417,7 +419,7 @@ public class PBClientAdapter implements RawClient {
         IRequestMeta meta = new RequestMeta();
         meta.contentType(Constants.CTYPE_JSON);
         try {
-            MapReduceResponseSource resp = client.mapReduce(spec.getJSON(), meta);
+            MapReduceResponseSource resp = client.mapReduce(ByteString.copyFrom(spec.getBytes()), meta);
             return convert(resp);
         } catch (RiakError e) {
             if (JSONErrorParser.isTimeoutException(e.getMessage())) {
@@ -428,6 +430,42 @@ public class PBClientAdapter implements RawClient {
         }
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.basho.riak.client.raw.StreamingMapReduceClient#mapReduce(com.basho
+     * .riak.client.raw.query.MapReduceSpec,
+     * com.basho.riak.client.raw.StreamingMapReduceClient.ChunkHandler)
+     */
+    public void mapReduce(MapReduceSpec spec, ChunkHandler handler) throws IOException, MapReduceTimeoutException {
+        IRequestMeta meta = new RequestMeta();
+        meta.contentType(Constants.CTYPE_JSON);
+        MapReduceResponseSource resp = null;
+        boolean complete = false;
+        try {
+            resp = client.mapReduce(ByteString.copyFrom(spec.getBytes()), meta);
+            while (resp.hasNext()) {
+                MapReduceResponse chunk = resp.next();
+                if (chunk.getContent() != null) {
+                    handler.onChunk(chunk.hasPhase() ? chunk.getPhase() : 0, chunk.getContent().toByteArray());
+                }
+            }
+            complete = true;
+        } catch (RiakError e) {
+            if (JSONErrorParser.isTimeoutException(e.getMessage())) {
+                throw new MapReduceTimeoutException();
+            } else {
+                throw new IOException(e.getMessage());
+            }
+        } finally {
+            if (!complete && resp != null) {
+                // the rest of the response is still on the wire
+                resp.cancel();
+            }
+        }
+    }
+
     /*
      * (non-Javadoc)
      * 
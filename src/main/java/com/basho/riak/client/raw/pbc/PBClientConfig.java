@@ -32,6 +32,11 @@ public class PBClientConfig implements Configuration {
     private final long idleConnectionTTLMillis;
     private final long connectionWaitTimeoutMillis;
     private final int requestTimeoutMillis;
+    private final boolean skipClientId;
+    private final int minIdleConnections;
+    private final long validateAfterIdleMillis;
+    private final boolean purgeIdleOnFailure;
+    private final String zone;
 
     /**
      * Creates a new {@link PBClientConfig} instance. Use the {@link Builder}
@@ -58,9 +63,22 @@ public class PBClientConfig implements Configuration {
      * @param requestTimeoutMillis 
      *            How many milliseconds to block/wait trying to read/write from/to
      *            a connection (This is the SO_TIMEOUT parameter on the Socket)
+     * @param skipClientId
+     *            never send client Ids to Riak (for vnode vclock clusters)
+     * @param minIdleConnections
+     *            how many idle connections the pool keeps open, opening new
+     *            ones in the background
+     * @param validateAfterIdleMillis
+     *            ping connections idle at least this long before use, 0 never
+     * @param purgeIdleOnFailure
+     *            close all idle connections when one connection fails
+     * @param zone
+     *            the availability zone or rack of the node, may be null
      */
     private PBClientConfig(int socketBufferSizeKb, String host, int port, int poolSize, int initialPoolSize,
-            long idleConnectionTTLMillis, long connectionWaitTimeoutMillis, int requestTimeoutMillis) {
+            long idleConnectionTTLMillis, long connectionWaitTimeoutMillis, int requestTimeoutMillis,
+            boolean skipClientId, int minIdleConnections, long validateAfterIdleMillis, boolean purgeIdleOnFailure,
+            String zone) {
         this.socketBufferSizeKb = socketBufferSizeKb;
         this.host = host;
         this.port = port;
@@ -69,6 +87,11 @@ public class PBClientConfig implements Configuration {
         this.idleConnectionTTLMillis = idleConnectionTTLMillis;
         this.connectionWaitTimeoutMillis = connectionWaitTimeoutMillis;
         this.requestTimeoutMillis = requestTimeoutMillis;
+        this.skipClientId = skipClientId;
+        this.minIdleConnections = minIdleConnections;
+        this.validateAfterIdleMillis = validateAfterIdleMillis;
+        this.purgeIdleOnFailure = purgeIdleOnFailure;
+        this.zone = zone;
     }
 
     /**
@@ -142,6 +165,43 @@ public class PBClientConfig implements Configuration {
         return requestTimeoutMillis;
     }
 
+    /**
+     * @return true if the connection pool should never send client Ids
+     */
+    public boolean isSkipClientId() {
+        return skipClientId;
+    }
+
+    /**
+     * @return the number of idle connections the pool keeps open
+     */
+    public int getMinIdleConnections() {
+        return minIdleConnections;
+    }
+
+    /**
+     * @return how long (in milliseconds) a connection can be idle before it
+     *         is pinged before use, 0 means never
+     */
+    public long getValidateAfterIdleMillis() {
+        return validateAfterIdleMillis;
+    }
+
+    /**
+     * @return true if the pool closes all idle connections when one fails
+     */
+    public boolean isPurgeIdleOnFailure() {
+        return purgeIdleOnFailure;
+    }
+
+    /**
+     * @return the availability zone or rack of the node, or null if not known
+     * @see com.basho.riak.client.raw.config.ClusterConfig#withLocalZone(String)
+     */
+    public String getZone() {
+        return zone;
+    }
+
     /**
      * Builder for the {@link PBClientConfig} Has the following default values:
      * 
@@ -183,6 +243,26 @@ public class PBClientConfig implements Configuration {
      * <td>requestTimeoutMillis</td>
      * <td>0 (no timeout)</td>
      * </tr>
+     * <tr>
+     * <td>skipClientId</td>
+     * <td>false (client Ids are set on connections when given)</td>
+     * </tr>
+     * <tr>
+     * <td>minIdleConnections</td>
+     * <td>0 (connections are only opened on demand)</td>
+     * </tr>
+     * <tr>
+     * <td>validateAfterIdleMillis</td>
+     * <td>0 (idle connections are not pinged)</td>
+     * </tr>
+     * <tr>
+     * <td>purgeIdleOnFailure</td>
+     * <td>false</td>
+     * </tr>
+     * <tr>
+     * <td>zone</td>
+     * <td>null (unknown)</td>
+     * </tr>
      * </table>
      * 
      * @author russell
@@ -196,11 +276,17 @@ public class PBClientConfig implements Configuration {
         private long idleConnectionTTLMillis = 1000;
         private long connectionWaitTimeoutMillis = 1000;
         private int requestTimeoutMillis = 0;
+        private boolean skipClientId = false;
+        private int minIdleConnections = 0;
+        private long validateAfterIdleMillis = 0;
+        private boolean purgeIdleOnFailure = false;
+        private String zone = null;
 
         public PBClientConfig build() {
             return new PBClientConfig(socketBufferSizeKb, host, port, poolSize, initialPoolSize,
                                       idleConnectionTTLMillis, connectionWaitTimeoutMillis, 
-                                      requestTimeoutMillis );
+                                      requestTimeoutMillis, skipClientId, minIdleConnections,
+                                      validateAfterIdleMillis, purgeIdleOnFailure, zone);
         }
 
         /**
@@ -222,6 +308,11 @@ public class PBClientConfig implements Configuration {
             b.idleConnectionTTLMillis = copyConfig.idleConnectionTTLMillis;
             b.connectionWaitTimeoutMillis = copyConfig.connectionWaitTimeoutMillis;
             b.requestTimeoutMillis = copyConfig.requestTimeoutMillis;
+            b.skipClientId = copyConfig.skipClientId;
+            b.minIdleConnections = copyConfig.minIdleConnections;
+            b.validateAfterIdleMillis = copyConfig.validateAfterIdleMillis;
+            b.purgeIdleOnFailure = copyConfig.purgeIdleOnFailure;
+            b.zone = copyConfig.zone;
             return b;
         }
 
@@ -264,6 +355,46 @@ public class PBClientConfig implements Configuration {
             this.requestTimeoutMillis = requestTimeoutMillis;
             return this;
         }
+
+        /**
+         * Never send client Ids. Riak ignores them when vnode vclocks are
+         * enabled, so setting them only costs a round trip.
+         * 
+         * @param skipClientId
+         * @return this
+         */
+        public Builder withSkipClientId(boolean skipClientId) {
+            this.skipClientId = skipClientId;
+            return this;
+        }
+
+        public Builder withMinIdleConnections(int minIdleConnections) {
+            this.minIdleConnections = minIdleConnections;
+            return this;
+        }
+
+        public Builder withValidateAfterIdleMillis(long validateAfterIdleMillis) {
+            this.validateAfterIdleMillis = validateAfterIdleMillis;
+            return this;
+        }
+
+        public Builder withPurgeIdleOnFailure(boolean purgeIdleOnFailure) {
+            this.purgeIdleOnFailure = purgeIdleOnFailure;
+            return this;
+        }
+
+        /**
+         * Tag the node with the availability zone or rack it runs in, so a
+         * cluster client can prefer nodes in its own zone.
+         * 
+         * @param zone
+         *            any label, compared for equality
+         * @return this
+         */
+        public Builder withZone(String zone) {
+            this.zone = zone;
+            return this;
+        }
         
     }
 }
@@ -17,11 +17,14 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 
 import com.basho.riak.client.raw.ClusterClient;
 import com.basho.riak.client.raw.RawClient;
 import com.basho.riak.client.raw.Transport;
+import com.basho.riak.client.raw.breaker.CircuitBreaker;
 import com.basho.riak.client.raw.config.ClusterConfig;
 import com.basho.riak.pbc.RiakClient;
 import com.basho.riak.pbc.RiakConnectionPool;
@@ -35,6 +38,12 @@ import com.basho.riak.pbc.RiakConnectionPool;
  */
 public class PBClusterClient extends ClusterClient<PBClientConfig> {
 
+    // set by fromConfig, during the super constructor, so no initializers
+    private Semaphore clusterSemaphore;
+    private boolean breakers;
+    // pools waiting for their node's circuit breaker
+    private Map<RawClient, RiakConnectionPool> unbound;
+
     /**
      * @param clusterConfig
      * @throws IOException
@@ -51,10 +60,9 @@ public class PBClusterClient extends ClusterClient<PBClientConfig> {
      * .raw.config.ClusterConfig)
      */
     @Override protected RawClient[] fromConfig(ClusterConfig<PBClientConfig> clusterConfig) throws IOException {
-        final List<PBClientAdapter> clients = new ArrayList<>();
+        final List<RawClient> clients = new ArrayList<>();
 
         int totalMaxConnections = clusterConfig.getTotalMaximumConnections();
-        Semaphore clusterSemaphore = null;
 
         if (totalMaxConnections > RiakConnectionPool.LIMITLESS) {
             // due to the overhead in operating a PoolSemaphore there is no
@@ -63,15 +71,68 @@ public class PBClusterClient extends ClusterClient<PBClientConfig> {
             // Independent pools
             clusterSemaphore = RiakConnectionPool.getSemaphore(totalMaxConnections);
         }
+        breakers = clusterConfig.getCircuitBreakerConfig() != null;
+        unbound = new ConcurrentHashMap<>();
 
         for (PBClientConfig node : clusterConfig.getClients()) {
-            final RiakConnectionPool hostPool = makePool(clusterSemaphore, node);
-            hostPool.start();
-            clients.add(new PBClientAdapter(new RiakClient(hostPool)));
+            clients.add(newClient(node));
         }
         return clients.toArray(new RawClient[clients.size()]);
     }
 
+    /**
+     * Creates and starts a pool for the node, sharing the cluster's connection
+     * limit.
+     */
+    @Override protected RawClient newClient(PBClientConfig nodeConfig) throws IOException {
+        final RiakConnectionPool hostPool = makePool(clusterSemaphore, nodeConfig);
+        hostPool.start();
+        final RawClient client = new PBClientAdapter(new RiakClient(hostPool));
+        if (breakers) {
+            unbound.put(client, hostPool);
+        }
+        return client;
+    }
+
+    @Override protected PBClientConfig configForHost(PBClientConfig template, String host) {
+        return PBClientConfig.Builder.from(template).withHost(host).build();
+    }
+
+    @Override protected String zoneOf(PBClientConfig nodeConfig) {
+        return nodeConfig.getZone();
+    }
+
+    @Override protected int poolCapacity(PBClientConfig nodeConfig) {
+        return nodeConfig.getPoolSize();
+    }
+
+    /**
+     * @return the host and port of the node
+     */
+    @Override protected String nodeName(PBClientConfig nodeConfig) {
+        if (nodeConfig == null) {
+            return super.nodeName(null);
+        }
+        return nodeConfig.getHost() + ":" + nodeConfig.getPort();
+    }
+
+    /**
+     * @return the node's IP address and port
+     */
+    @Override protected String nodeAddress(PBClientConfig nodeConfig) {
+        return resolve(nodeConfig.getHost()) + ":" + nodeConfig.getPort();
+    }
+
+    /**
+     * Stops the node's pool connecting while its breaker is open.
+     */
+    @Override protected void bindCircuitBreaker(RawClient node, CircuitBreaker breaker) {
+        final RiakConnectionPool pool = unbound.remove(node);
+        if (pool != null) {
+            pool.setCircuitBreaker(breaker);
+        }
+    }
+
     /**
      * Creates the {@link RiakConnectionPool} for the given client config
      * 
@@ -98,6 +159,10 @@ public class PBClusterClient extends ClusterClient<PBClientConfig> {
                                           node.getIdleConnectionTTLMillis(),
                                           node.getRequestTimeoutMillis());
         }
+        pool.setSkipClientId(node.isSkipClientId());
+        pool.setMinIdle(node.getMinIdleConnections());
+        pool.setValidateAfterIdleMillis(node.getValidateAfterIdleMillis());
+        pool.setPurgeIdleOnFailure(node.isPurgeIdleOnFailure());
         return pool;
     }
 
@@ -70,6 +70,10 @@ public class PBRiakClientFactory implements RiakClientFactory {
                                                                conf.getIdleConnectionTTLMillis(),
                                                                conf.getRequestTimeoutMillis());
 
+        pool.setSkipClientId(conf.isSkipClientId());
+        pool.setMinIdle(conf.getMinIdleConnections());
+        pool.setValidateAfterIdleMillis(conf.getValidateAfterIdleMillis());
+        pool.setPurgeIdleOnFailure(conf.isPurgeIdleOnFailure());
         pool.start();
         return new PBClientAdapter(new RiakClient(pool));
     }
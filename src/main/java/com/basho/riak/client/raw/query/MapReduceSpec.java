@@ -16,6 +16,7 @@ package com.basho.riak.client.raw.query;
 import com.basho.riak.client.IRiakClient;
 import com.basho.riak.client.query.MapReduce;
 import com.basho.riak.client.raw.RawClient;
+import com.basho.riak.client.util.CharsetUtils;
 
 /**
  * An immutable representation of a Map Reduce Query, run it via
@@ -37,7 +38,9 @@ import com.basho.riak.client.raw.RawClient;
  */
 public class MapReduceSpec {
 
-    private final String mapReduceSpecJSON;
+    // one or the other is given, the other is derived on first use
+    private volatile String mapReduceSpecJSON;
+    private volatile byte[] mapReduceSpecBytes;
 
     /**
      * Create a MapReduceSpec by providing a map reduce job JSON string.
@@ -47,11 +50,43 @@ public class MapReduceSpec {
         this.mapReduceSpecJSON = mapReduceSpecJSON;
     }
 
+    /**
+     * Create a MapReduceSpec from the UTF-8 bytes of a map reduce job, as
+     * written by {@link MapReduce}, so a transport that sends bytes need not
+     * go through a String.
+     * 
+     * @param mapReduceSpecBytes
+     *            UTF-8 JSON describing the m/r job, not copied
+     */
+    public MapReduceSpec(byte[] mapReduceSpecBytes) {
+        this.mapReduceSpecBytes = mapReduceSpecBytes;
+    }
+
     /**
      * Get the JSON of the m/r job spec
      * @return a JSON String of m/r job spec.
      */
     public String getJSON() {
-        return mapReduceSpecJSON;
+        String json = mapReduceSpecJSON;
+        if (json == null) {
+            json = CharsetUtils.asUTF8String(mapReduceSpecBytes);
+            mapReduceSpecJSON = json;
+        }
+        return json;
+    }
+
+    /**
+     * Get the JSON of the m/r job spec as UTF-8.
+     * 
+     * @return the UTF-8 bytes of the m/r job spec, which must not be
+     *         modified
+     */
+    public byte[] getBytes() {
+        byte[] bytes = mapReduceSpecBytes;
+        if (bytes == null) {
+            bytes = CharsetUtils.utf8StringToBytes(mapReduceSpecJSON);
+            mapReduceSpecBytes = bytes;
+        }
+        return bytes;
     }
 }
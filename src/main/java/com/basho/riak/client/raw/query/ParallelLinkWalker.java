@@ -0,0 +1,425 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.query;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.RiakLink;
+import com.basho.riak.client.RiakRetryFailedException;
+import com.basho.riak.client.cap.Deadline;
+import com.basho.riak.client.cap.DefaultRetrier;
+import com.basho.riak.client.cap.Retrier;
+import com.basho.riak.client.query.LinkWalkStep;
+import com.basho.riak.client.query.LinkWalkStep.Accumulate;
+import com.basho.riak.client.query.WalkResult;
+import com.basho.riak.client.raw.FetchMeta;
+import com.basho.riak.client.raw.RawClient;
+import com.basho.riak.client.raw.RiakResponse;
+import com.basho.riak.client.util.RiakThreads;
+import com.basho.riak.client.util.UnmodifiableIterator;
+
+/**
+ * Walks links on the client by fetching objects and following their
+ * {@link RiakLink}s, rather than asking Riak to do it.
+ * 
+ * <p>
+ * Over protocol buffers {@link RawClient#linkWalk(LinkWalkSpec)} runs two
+ * MapReduce jobs, one to find the bucket/keys at each step and one to fetch
+ * them, and buffers both results as JSON. For shallow but wide graphs it is
+ * much quicker to fetch each step's objects directly, in parallel. Each step
+ * fetches every distinct bucket/key linked to by the previous step's objects
+ * (siblings included) that matches the step's bucket and tag, where null,
+ * <code>""</code> and <code>"_"</code> match anything. An object already
+ * fetched by an earlier step is not fetched again, and objects that are not
+ * found are skipped.
+ * </p>
+ * <p>
+ * As with Riak, only steps that keep their results, and the last step, are
+ * part of the {@link WalkResult}. A {@link StepHandler} is given each of
+ * these steps as soon as it completes, before later steps are walked.
+ * </p>
+ * 
+ * <pre>
+ * ParallelLinkWalker walker = new ParallelLinkWalker.Builder(client).concurrency(16).build();
+ * WalkResult result = walker.walk(spec);
+ * </pre>
+ */
+public class ParallelLinkWalker {
+
+    private static final String WILDCARD = "_";
+
+    /**
+     * Receives the objects of each step of a walk that keeps its results, in
+     * step order.
+     */
+    public interface StepHandler {
+        /**
+         * @param step
+         *            the index of the step in the {@link LinkWalkSpec}, from 0
+         * @param objects
+         *            the objects the step reached
+         * @throws IOException
+         *             to abandon the walk
+         */
+        void onStep(int step, Collection<IRiakObject> objects) throws IOException;
+    }
+
+    private final RawClient client;
+    private final FetchMeta fetchMeta;
+    private final Retrier retrier;
+    private final int maxDepth;
+    private final int maxFanOut;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+
+    private ParallelLinkWalker(Builder builder) {
+        this.client = builder.client;
+        this.fetchMeta = builder.fetchMeta;
+        this.retrier = builder.retrier;
+        this.maxDepth = builder.maxDepth;
+        this.maxFanOut = builder.maxFanOut;
+        this.ownsExecutor = builder.executor == null;
+        this.executor = ownsExecutor ? Executors.newFixedThreadPool(builder.concurrency,
+                                                                  RiakThreads.newThreadFactory("riak-link-walker"))
+                                   : builder.executor;
+    }
+
+    /**
+     * Walk <code>spec</code> and gather the kept steps.
+     * 
+     * @param spec
+     *            the walk
+     * @return the objects of each kept step, in step order
+     * @throws IOException
+     *             if a fetch fails, or a step links to more than the
+     *             configured maximum fan out
+     */
+    public WalkResult walk(LinkWalkSpec spec) throws IOException {
+        final List<Collection<IRiakObject>> steps = new ArrayList<Collection<IRiakObject>>();
+        walk(spec, new StepHandler() {
+            public void onStep(int step, Collection<IRiakObject> objects) {
+                steps.add(objects);
+            }
+        });
+        return new WalkResult() {
+            public Iterator<Collection<IRiakObject>> iterator() {
+                return new UnmodifiableIterator<Collection<IRiakObject>>(steps.iterator());
+            }
+        };
+    }
+
+    /**
+     * Walk <code>spec</code>, handing each kept step to <code>handler</code>
+     * as it completes. The calling thread's {@link Deadline}, if any, bounds
+     * every fetch of the walk.
+     * 
+     * @param spec
+     *            the walk
+     * @param handler
+     *            receives the kept steps
+     * @throws IOException
+     *             if a fetch fails, a step links to more than the
+     *             configured maximum fan out, or the handler throws
+     * @throws IllegalArgumentException
+     *             if the walk has more steps than the configured maximum
+     *             depth
+     */
+    public void walk(LinkWalkSpec spec, StepHandler handler) throws IOException {
+        if (spec.size() > maxDepth) {
+            throw new IllegalArgumentException("link walk has " + spec.size() + " steps, the maximum is " + maxDepth);
+        }
+        final Map<BKey, List<IRiakObject>> fetched = new ConcurrentHashMap<BKey, List<IRiakObject>>();
+        Collection<IRiakObject> current = fetchAll(Collections.singleton(new BKey(spec.getStartBucket(),
+                                                                                  spec.getStartKey())), fetched);
+        int index = 0;
+        for (LinkWalkStep step : spec) {
+            if (current.isEmpty()) {
+                // nothing left to walk from, the remaining kept steps are empty
+                current = Collections.emptyList();
+            } else {
+                current = fetchAll(follow(current, step, index), fetched);
+            }
+            if (keep(step, index == spec.size() - 1)) {
+                handler.onStep(index, Collections.unmodifiableCollection(current));
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Stop the walker's threads, if it created them.
+     */
+    public void shutdown() {
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private Set<BKey> follow(Collection<IRiakObject> from, LinkWalkStep step, int index) throws IOException {
+        final Set<BKey> targets = new LinkedHashSet<BKey>();
+        for (IRiakObject o : from) {
+            if (!o.hasLinks()) {
+                continue;
+            }
+            for (RiakLink link : o.getLinks()) {
+                if (matches(step.getBucket(), link.getBucket()) && matches(step.getTag(), link.getTag())) {
+                    targets.add(new BKey(link.getBucket(), link.getKey()));
+                }
+            }
+            if (targets.size() > maxFanOut) {
+                throw new IOException("link walk step " + index + " links to more than " + maxFanOut + " objects");
+            }
+        }
+        return targets;
+    }
+
+    private static boolean matches(String pattern, String value) {
+        return pattern == null || pattern.length() == 0 || WILDCARD.equals(pattern) || pattern.equals(value);
+    }
+
+    private static boolean keep(LinkWalkStep step, boolean last) {
+        return step.getKeep() == Accumulate.YES || (last && step.getKeep() == Accumulate.DEFAULT);
+    }
+
+    private Collection<IRiakObject> fetchAll(Set<BKey> targets, final Map<BKey, List<IRiakObject>> fetched)
+            throws IOException {
+        final List<BKey> order = new ArrayList<BKey>(targets.size());
+        final List<Future<List<IRiakObject>>> futures = new ArrayList<Future<List<IRiakObject>>>();
+        final Deadline deadline = Deadline.current();
+        for (final BKey target : targets) {
+            order.add(target);
+            final List<IRiakObject> known = fetched.get(target);
+            if (known != null) {
+                futures.add(null);
+                continue;
+            }
+            futures.add(executor.submit(new Callable<List<IRiakObject>>() {
+                public List<IRiakObject> call() throws Exception {
+                    final Deadline.Scope scope = Deadline.bind(deadline);
+                    try {
+                        List<IRiakObject> objects = fetch(target);
+                        fetched.put(target, objects);
+                        return objects;
+                    } finally {
+                        scope.close();
+                    }
+                }
+            }));
+        }
+
+        final List<IRiakObject> objects = new ArrayList<IRiakObject>();
+        try {
+            for (int i = 0; i < order.size(); i++) {
+                Future<List<IRiakObject>> f = futures.get(i);
+                objects.addAll(f == null ? fetched.get(order.get(i)) : await(f));
+            }
+        } finally {
+            for (Future<List<IRiakObject>> f : futures) {
+                if (f != null) {
+                    f.cancel(true);
+                }
+            }
+        }
+        return objects;
+    }
+
+    private List<IRiakObject> fetch(final BKey target) throws IOException {
+        final RiakResponse response;
+        try {
+            response = retrier.attempt(new Callable<RiakResponse>() {
+                public RiakResponse call() throws Exception {
+                    return client.fetch(target.bucket, target.key, fetchMeta);
+                }
+            });
+        } catch (RiakRetryFailedException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e);
+        }
+        if (response == null || !response.hasValue()) {
+            return Collections.emptyList();
+        }
+        final List<IRiakObject> objects = new ArrayList<IRiakObject>(response.numberOfValues());
+        for (IRiakObject o : response) {
+            // a tombstone sibling is not something to walk on from
+            if (!o.isDeleted()) {
+                objects.add(o);
+            }
+        }
+        return objects;
+    }
+
+    private static <T> T await(Future<T> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static final class BKey {
+        private final String bucket;
+        private final String key;
+
+        BKey(String bucket, String key) {
+            this.bucket = bucket;
+            this.key = key;
+        }
+
+        @Override public int hashCode() {
+            return 31 * (bucket == null ? 0 : bucket.hashCode()) + key.hashCode();
+        }
+
+        @Override public boolean equals(Object obj) {
+            if (!(obj instanceof BKey)) {
+                return false;
+            }
+            BKey other = (BKey) obj;
+            return key.equals(other.key) && (bucket == null ? other.bucket == null : bucket.equals(other.bucket));
+        }
+    }
+
+    /**
+     * Builds a {@link ParallelLinkWalker}.
+     * 
+     * Defaults: 8 concurrent fetches, at most 8 steps and 10000 objects per
+     * step, an empty {@link FetchMeta} and a {@link DefaultRetrier} of 3
+     * attempts.
+     */
+    public static class Builder {
+        private final RawClient client;
+        private int concurrency = 8;
+        private int maxDepth = 8;
+        private int maxFanOut = 10000;
+        private FetchMeta fetchMeta = new FetchMeta.Builder().build();
+        private Retrier retrier = DefaultRetrier.attempts(3);
+        private ExecutorService executor;
+
+        /**
+         * @param client
+         *            the client to fetch with
+         */
+        public Builder(RawClient client) {
+            if (client == null) {
+                throw new IllegalArgumentException("client cannot be null");
+            }
+            this.client = client;
+        }
+
+        /**
+         * @param concurrency
+         *            the most fetches in flight at once, ignored if an
+         *            executor is given
+         * @return this
+         */
+        public Builder concurrency(int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("concurrency must be at least 1");
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * @param maxDepth
+         *            the most steps a walk may have
+         * @return this
+         */
+        public Builder maxDepth(int maxDepth) {
+            if (maxDepth < 1) {
+                throw new IllegalArgumentException("maxDepth must be at least 1");
+            }
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        /**
+         * @param maxFanOut
+         *            the most distinct objects a single step may link to
+         *            before the walk is abandoned
+         * @return this
+         */
+        public Builder maxFanOut(int maxFanOut) {
+            if (maxFanOut < 1) {
+                throw new IllegalArgumentException("maxFanOut must be at least 1");
+            }
+            this.maxFanOut = maxFanOut;
+            return this;
+        }
+
+        /**
+         * @param fetchMeta
+         *            used for every fetch
+         * @return this
+         */
+        public Builder fetchMeta(FetchMeta fetchMeta) {
+            if (fetchMeta == null) {
+                throw new IllegalArgumentException("fetchMeta cannot be null");
+            }
+            this.fetchMeta = fetchMeta;
+            return this;
+        }
+
+        /**
+         * @param retrier
+         *            retries each fetch
+         * @return this
+         */
+        public Builder withRetrier(Retrier retrier) {
+            if (retrier == null) {
+                throw new IllegalArgumentException("retrier cannot be null");
+            }
+            this.retrier = retrier;
+            return this;
+        }
+
+        /**
+         * @param executor
+         *            runs the fetches, the caller remains responsible for
+         *            shutting it down
+         * @return this
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public ParallelLinkWalker build() {
+            return new ParallelLinkWalker(this);
+        }
+    }
+}
@@ -0,0 +1,584 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.scan;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.basho.riak.client.IndexEntry;
+import com.basho.riak.client.RiakRetryFailedException;
+import com.basho.riak.client.cap.Deadline;
+import com.basho.riak.client.cap.DefaultRetrier;
+import com.basho.riak.client.cap.Retrier;
+import com.basho.riak.client.query.StreamingOperation;
+import com.basho.riak.client.query.indexes.BucketIndex;
+import com.basho.riak.client.query.indexes.KeyIndex;
+import com.basho.riak.client.raw.ClusterClient;
+import com.basho.riak.client.raw.FetchMeta;
+import com.basho.riak.client.raw.RawClient;
+import com.basho.riak.client.raw.RiakResponse;
+import com.basho.riak.client.raw.query.IndexSpec;
+import com.basho.riak.client.util.RiakThreads;
+
+/**
+ * Scans every key in a bucket, in parallel, and optionally fetches the
+ * objects.
+ * 
+ * <p>
+ * {@link RawClient#listKeys(String)} is a single sequential stream, and
+ * walks every key in the cluster to find those of one bucket. This instead
+ * splits the bucket's keyspace into ranges of the <code>$key</code> index,
+ * pages through each range with continuations, and scans several ranges at
+ * once. Through a {@link ClusterClient} the pages are spread over its nodes,
+ * so a full scan gets quicker as nodes are added. A single range uses the <code>$bucket</code> index.
+ * </p>
+ * <p>
+ * Keys are handed to a {@link Handler} from several threads at once, page
+ * by page. Once every key of a page has been handled the page's
+ * continuation is recorded in the {@link ScanCheckpoint}, so a failed or
+ * cancelled scan can be resumed from {@link #getCheckpoint()}.
+ * </p>
+ * <p>
+ * Good split points depend on the keys. {@link Builder#ranges(int)} divides
+ * the printable ASCII range evenly by first character;
+ * {@link #hexSplitPoints(int)} suits hex or UUID keys, and
+ * {@link Builder#splitPoints(String...)} takes any others.
+ * </p>
+ * 
+ * <pre>
+ * BucketScan scan = new BucketScan.Builder(cluster, "users").splitPoints(BucketScan.hexSplitPoints(16))
+ *     .fetchValues(true).build();
+ * scan.run(new BucketScan.Handler() {
+ *     public void onKey(String key, RiakResponse value) {
+ *         export(value);
+ *     }
+ * });
+ * </pre>
+ */
+public class BucketScan {
+
+    /**
+     * The lowest key, so the first range includes every key.
+     */
+    static final String MIN_KEY = "\u0000";
+    /**
+     * A key above any real key: U+10FFFF, the highest code point, four
+     * times.
+     */
+    static final String MAX_KEY = "\uDBFF\uDFFF\uDBFF\uDFFF\uDBFF\uDFFF\uDBFF\uDFFF";
+
+    private static final char FIRST_PRINTABLE = '!';
+    private static final char LAST_PRINTABLE = '~';
+
+    /**
+     * Receives the keys of the bucket. Called from several threads at once.
+     */
+    public interface Handler {
+        /**
+         * @param key
+         *            a key in the bucket
+         * @param value
+         *            the fetched object if values are being fetched,
+         *            otherwise null. Objects deleted since their key was
+         *            listed have no values.
+         * @throws IOException
+         *             to stop the scan
+         */
+        void onKey(String key, RiakResponse value) throws IOException;
+    }
+
+    private final RawClient client;
+    private final String bucket;
+    private final int pageSize;
+    private final int concurrency;
+    private final boolean fetchValues;
+    private final int fetchConcurrency;
+    private final FetchMeta fetchMeta;
+    private final Retrier retrier;
+
+    private final ScanCheckpoint.Range[] ranges;
+    private final AtomicLong keys = new AtomicLong();
+    private final AtomicInteger rangesDone = new AtomicInteger();
+    private volatile boolean cancelled;
+
+    private BucketScan(Builder builder) {
+        this.client = builder.client;
+        this.bucket = builder.bucket;
+        this.pageSize = builder.pageSize;
+        this.concurrency = builder.concurrency;
+        this.fetchValues = builder.fetchValues;
+        this.fetchConcurrency = builder.fetchConcurrency;
+        this.fetchMeta = builder.fetchMeta;
+        this.retrier = builder.retrier;
+
+        final List<ScanCheckpoint.Range> initial;
+        if (builder.resumeFrom != null) {
+            if (!bucket.equals(builder.resumeFrom.getBucket())) {
+                throw new IllegalArgumentException("checkpoint is for bucket " + builder.resumeFrom.getBucket());
+            }
+            initial = builder.resumeFrom.getRanges();
+        } else {
+            initial = rangesFor(builder.splitPoints);
+        }
+        this.ranges = initial.toArray(new ScanCheckpoint.Range[initial.size()]);
+        for (ScanCheckpoint.Range r : ranges) {
+            if (r.isDone()) {
+                rangesDone.incrementAndGet();
+            }
+        }
+    }
+
+    private static List<ScanCheckpoint.Range> rangesFor(String[] splitPoints) {
+        final List<ScanCheckpoint.Range> ranges = new ArrayList<ScanCheckpoint.Range>();
+        if (splitPoints.length == 0) {
+            ranges.add(new ScanCheckpoint.Range(null, null, true, null, false));
+            return ranges;
+        }
+        String start = MIN_KEY;
+        boolean inclusive = true;
+        for (String point : splitPoints) {
+            ranges.add(new ScanCheckpoint.Range(start, point, inclusive, null, false));
+            start = point;
+            inclusive = false;
+        }
+        ranges.add(new ScanCheckpoint.Range(start, MAX_KEY, false, null, false));
+        return ranges;
+    }
+
+    /**
+     * Split points that divide keys made of lower case hex digits, such as
+     * UUIDs, into <code>ranges</code> roughly equal ranges.
+     * 
+     * @param ranges
+     *            the number of ranges, from 1 to 256
+     * @return the split points
+     */
+    public static String[] hexSplitPoints(int ranges) {
+        if (ranges < 1 || ranges > 256) {
+            throw new IllegalArgumentException("ranges must be from 1 to 256");
+        }
+        final String[] points = new String[ranges - 1];
+        for (int i = 1; i < ranges; i++) {
+            int prefix = i * 256 / ranges;
+            points[i - 1] = String.format("%02x", prefix);
+        }
+        return points;
+    }
+
+    /**
+     * Run the scan, or the rest of it if resumed from a checkpoint, and wait
+     * for it to finish.
+     * 
+     * The calling thread's {@link Deadline}, if any, bounds every listing and
+     * fetch of the scan, whichever thread makes it.
+     * 
+     * @param handler
+     *            receives every key
+     * @return the final checkpoint, complete unless the scan was cancelled
+     * @throws IOException
+     *             if listing or fetching fails after retrying, or the
+     *             handler throws. {@link #getCheckpoint()} can be resumed
+     *             from.
+     */
+    public ScanCheckpoint run(final Handler handler) throws IOException {
+        final ExecutorService scanners = Executors.newFixedThreadPool(concurrency,
+                                                                      RiakThreads.newThreadFactory("riak-bucket-scan"));
+        final ExecutorService fetchers = fetchValues
+                ? Executors.newFixedThreadPool(fetchConcurrency, RiakThreads.newThreadFactory("riak-bucket-scan-fetch"))
+                : null;
+        final List<Future<?>> futures = new ArrayList<Future<?>>();
+        final Deadline deadline = Deadline.current();
+        try {
+            for (int i = 0; i < ranges.length; i++) {
+                if (ranges[i].isDone()) {
+                    continue;
+                }
+                final int range = i;
+                futures.add(scanners.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        final Deadline.Scope scope = Deadline.bind(deadline);
+                        try {
+                            scan(range, handler, fetchers);
+                            return null;
+                        } finally {
+                            scope.close();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                await(f);
+            }
+        } catch (IOException e) {
+            cancelled = true;
+            throw e;
+        } finally {
+            scanners.shutdownNow();
+            if (fetchers != null) {
+                fetchers.shutdownNow();
+            }
+        }
+        return getCheckpoint();
+    }
+
+    /**
+     * Stop the scan after the pages being handled now. {@link #run(Handler)}
+     * returns a checkpoint to resume from.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return the progress so far, safe to call while the scan runs
+     */
+    public ScanCheckpoint getCheckpoint() {
+        synchronized (ranges) {
+            return new ScanCheckpoint(bucket, Arrays.asList(ranges));
+        }
+    }
+
+    /**
+     * @return the number of keys handled by this scan, not counting those of
+     *         a scan it was resumed from
+     */
+    public long getKeysScanned() {
+        return keys.get();
+    }
+
+    /**
+     * @return the number of ranges finished
+     */
+    public int getRangesDone() {
+        return rangesDone.get();
+    }
+
+    /**
+     * @return the number of ranges the keyspace is split into
+     */
+    public int getRangeCount() {
+        return ranges.length;
+    }
+
+    private void scan(int range, Handler handler, ExecutorService fetchers) throws IOException {
+        ScanCheckpoint.Range r;
+        synchronized (ranges) {
+            r = ranges[range];
+        }
+        while (!r.isDone() && !cancelled) {
+            final IndexSpec spec = pageSpec(r);
+            final Page page = attempt(new Callable<Page>() {
+                public Page call() throws Exception {
+                    StreamingOperation<IndexEntry> op = client.fetchIndex(spec);
+                    List<IndexEntry> entries = op.getAll();
+                    return new Page(entries, op.hasContinuation() ? op.getContinuation() : null);
+                }
+            });
+
+            final List<String> pageKeys = new ArrayList<String>(page.entries.size());
+            for (IndexEntry e : page.entries) {
+                String key = e.getObjectKey();
+                // the previous range ends with its start key
+                if (r.isStartInclusive() || !key.equals(r.getStart())) {
+                    pageKeys.add(key);
+                }
+            }
+            handle(pageKeys, handler, fetchers);
+
+            synchronized (ranges) {
+                r = r.advance(page.continuation);
+                ranges[range] = r;
+            }
+            keys.addAndGet(pageKeys.size());
+        }
+        if (r.isDone()) {
+            rangesDone.incrementAndGet();
+        }
+    }
+
+    private IndexSpec pageSpec(ScanCheckpoint.Range r) {
+        final IndexSpec.Builder b;
+        if (r.getStart() == null) {
+            b = new IndexSpec.Builder(bucket, BucketIndex.index.getFullname()).withIndexKey(bucket);
+        } else {
+            b = new IndexSpec.Builder(bucket, KeyIndex.index.getFullname()).withRangeStart(r.getStart())
+                .withRangeEnd(r.getEnd());
+        }
+        return b.withMaxResults(pageSize).withContinuation(r.getContinuation()).build();
+    }
+
+    private void handle(List<String> pageKeys, final Handler handler, ExecutorService fetchers)
+            throws IOException {
+        if (fetchers == null) {
+            for (String key : pageKeys) {
+                handler.onKey(key, null);
+            }
+            return;
+        }
+        final List<Future<?>> fetches = new ArrayList<Future<?>>(pageKeys.size());
+        // bound by run() on this scanner thread
+        final Deadline deadline = Deadline.current();
+        try {
+            for (final String key : pageKeys) {
+                fetches.add(fetchers.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        final Deadline.Scope scope = Deadline.bind(deadline);
+                        try {
+                            RiakResponse value = attempt(new Callable<RiakResponse>() {
+                                public RiakResponse call() throws Exception {
+                                    return client.fetch(bucket, key, fetchMeta);
+                                }
+                            });
+                            handler.onKey(key, value);
+                            return null;
+                        } finally {
+                            scope.close();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : fetches) {
+                await(f);
+            }
+        } finally {
+            for (Future<?> f : fetches) {
+                f.cancel(true);
+            }
+        }
+    }
+
+    private <T> T attempt(Callable<T> op) throws IOException {
+        try {
+            return retrier.attempt(op);
+        } catch (RiakRetryFailedException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static void await(Future<?> f) throws IOException {
+        try {
+            f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static final class Page {
+        final List<IndexEntry> entries;
+        final String continuation;
+
+        Page(List<IndexEntry> entries, String continuation) {
+            this.entries = entries;
+            this.continuation = continuation;
+        }
+    }
+
+    /**
+     * Builds a {@link BucketScan}.
+     * 
+     * Defaults: a single <code>$bucket</code> range, pages of 1000 keys, as
+     * many scanning threads as ranges (at most 16), keys only, and a
+     * {@link DefaultRetrier} of 3 attempts. Fetching values uses 16 threads
+     * and an empty {@link FetchMeta}.
+     */
+    public static class Builder {
+        private final RawClient client;
+        private final String bucket;
+        private String[] splitPoints = new String[0];
+        private int pageSize = 1000;
+        private int concurrency = -1;
+        private boolean fetchValues;
+        private int fetchConcurrency = 16;
+        private FetchMeta fetchMeta = new FetchMeta.Builder().build();
+        private Retrier retrier = DefaultRetrier.attempts(3);
+        private ScanCheckpoint resumeFrom;
+
+        /**
+         * @param client
+         *            the client to scan with, if it is a
+         *            {@link ClusterClient} pages are spread across its nodes
+         * @param bucket
+         *            the bucket to scan
+         */
+        public Builder(RawClient client, String bucket) {
+            if (client == null) {
+                throw new IllegalArgumentException("client cannot be null");
+            }
+            if (bucket == null || bucket.length() == 0) {
+                throw new IllegalArgumentException("bucket cannot be null or empty");
+            }
+            this.client = client;
+            this.bucket = bucket;
+        }
+
+        /**
+         * Split the keyspace into <code>ranges</code> ranges by the first
+         * character of the key, evenly over printable ASCII.
+         * 
+         * @param ranges
+         *            the number of ranges, from 1 to 94
+         * @return this
+         */
+        public Builder ranges(int ranges) {
+            final int span = LAST_PRINTABLE - FIRST_PRINTABLE + 1;
+            if (ranges < 1 || ranges > span) {
+                throw new IllegalArgumentException("ranges must be from 1 to " + span);
+            }
+            final String[] points = new String[ranges - 1];
+            for (int i = 1; i < ranges; i++) {
+                points[i - 1] = String.valueOf((char) (FIRST_PRINTABLE + i * span / ranges));
+            }
+            this.splitPoints = points;
+            return this;
+        }
+
+        /**
+         * Split the keyspace at these keys. Each split point is the last key
+         * of one range; the next range starts after it.
+         * 
+         * @param splitPoints
+         *            keys in ascending order
+         * @return this
+         */
+        public Builder splitPoints(String... splitPoints) {
+            for (int i = 0; i < splitPoints.length; i++) {
+                if (splitPoints[i] == null || splitPoints[i].length() == 0) {
+                    throw new IllegalArgumentException("split points cannot be null or empty");
+                }
+                if (i > 0 && splitPoints[i - 1].compareTo(splitPoints[i]) >= 0) {
+                    throw new IllegalArgumentException("split points must be in ascending order");
+                }
+            }
+            this.splitPoints = splitPoints.clone();
+            return this;
+        }
+
+        /**
+         * @param pageSize
+         *            keys per 2i request
+         * @return this
+         */
+        public Builder pageSize(int pageSize) {
+            if (pageSize < 1) {
+                throw new IllegalArgumentException("pageSize must be at least 1");
+            }
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * @param concurrency
+         *            ranges scanned at once
+         * @return this
+         */
+        public Builder concurrency(int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("concurrency must be at least 1");
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * @param fetchValues
+         *            fetch each key's object and pass it to the
+         *            {@link Handler}
+         * @return this
+         */
+        public Builder fetchValues(boolean fetchValues) {
+            this.fetchValues = fetchValues;
+            return this;
+        }
+
+        /**
+         * @param fetchConcurrency
+         *            objects fetched at once, across all ranges
+         * @return this
+         */
+        public Builder fetchConcurrency(int fetchConcurrency) {
+            if (fetchConcurrency < 1) {
+                throw new IllegalArgumentException("fetchConcurrency must be at least 1");
+            }
+            this.fetchConcurrency = fetchConcurrency;
+            return this;
+        }
+
+        /**
+         * @param fetchMeta
+         *            used when fetching values
+         * @return this
+         */
+        public Builder fetchMeta(FetchMeta fetchMeta) {
+            if (fetchMeta == null) {
+                throw new IllegalArgumentException("fetchMeta cannot be null");
+            }
+            this.fetchMeta = fetchMeta;
+            return this;
+        }
+
+        /**
+         * @param retrier
+         *            retries each page and fetch
+         * @return this
+         */
+        public Builder withRetrier(Retrier retrier) {
+            if (retrier == null) {
+                throw new IllegalArgumentException("retrier cannot be null");
+            }
+            this.retrier = retrier;
+            return this;
+        }
+
+        /**
+         * Carry on a scan from a checkpoint. Its ranges replace any split
+         * points.
+         * 
+         * @param checkpoint
+         *            from {@link BucketScan#getCheckpoint()} of a scan of the
+         *            same bucket
+         * @return this
+         */
+        public Builder resumeFrom(ScanCheckpoint checkpoint) {
+            this.resumeFrom = checkpoint;
+            return this;
+        }
+
+        public BucketScan build() {
+            if (concurrency < 0) {
+                int ranges = resumeFrom != null ? resumeFrom.getRanges().size() : splitPoints.length + 1;
+                concurrency = Math.min(ranges, 16);
+            }
+            return new BucketScan(this);
+        }
+    }
+}
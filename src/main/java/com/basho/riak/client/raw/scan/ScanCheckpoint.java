@@ -0,0 +1,188 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.scan;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Where a {@link BucketScan} has got to: for each range of the keyspace, the
+ * continuation of the next page to read, or that the range is done.
+ * 
+ * <p>
+ * A page is only recorded once every key in it has been handled, so
+ * resuming from a checkpoint may hand over some keys a second time but
+ * never misses one. Continuations are only valid for the same range of the
+ * same bucket, which is why the ranges are part of the checkpoint.
+ * </p>
+ * 
+ * @see BucketScan#getCheckpoint()
+ * @see BucketScan.Builder#resumeFrom(ScanCheckpoint)
+ */
+public final class ScanCheckpoint {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * One range of the keyspace and how far through it the scan is.
+     */
+    public static final class Range {
+        private final String start;
+        private final String end;
+        private final boolean startInclusive;
+        private final String continuation;
+        private final boolean done;
+
+        Range(String start, String end, boolean startInclusive, String continuation, boolean done) {
+            this.start = start;
+            this.end = end;
+            this.startInclusive = startInclusive;
+            this.continuation = continuation;
+            this.done = done;
+        }
+
+        /**
+         * @return the first key of the range, null for a scan of the whole
+         *         <code>$bucket</code> index
+         */
+        public String getStart() {
+            return start;
+        }
+
+        /**
+         * @return the last key of the range, inclusive
+         */
+        public String getEnd() {
+            return end;
+        }
+
+        /**
+         * @return false if a key equal to {@link #getStart()} belongs to the
+         *         previous range
+         */
+        public boolean isStartInclusive() {
+            return startInclusive;
+        }
+
+        /**
+         * @return the continuation of the next page, null to start from the
+         *         beginning of the range
+         */
+        public String getContinuation() {
+            return continuation;
+        }
+
+        /**
+         * @return true once every key in the range has been handled
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        Range advance(String nextContinuation) {
+            return new Range(start, end, startInclusive, nextContinuation, nextContinuation == null);
+        }
+    }
+
+    private final String bucket;
+    private final List<Range> ranges;
+
+    ScanCheckpoint(String bucket, List<Range> ranges) {
+        this.bucket = bucket;
+        this.ranges = Collections.unmodifiableList(new ArrayList<Range>(ranges));
+    }
+
+    /**
+     * @return the bucket being scanned
+     */
+    public String getBucket() {
+        return bucket;
+    }
+
+    /**
+     * @return the ranges, in key order
+     */
+    public List<Range> getRanges() {
+        return ranges;
+    }
+
+    /**
+     * @return true if every range is done
+     */
+    public boolean isComplete() {
+        for (Range r : ranges) {
+            if (!r.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return this checkpoint as JSON, to be stored and read back with
+     *         {@link #fromJSON(String)}
+     */
+    public String toJSON() {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("bucket", bucket);
+        ArrayNode array = root.putArray("ranges");
+        for (Range r : ranges) {
+            ObjectNode range = array.addObject();
+            range.put("start", r.start);
+            range.put("end", r.end);
+            range.put("startInclusive", r.startInclusive);
+            range.put("continuation", r.continuation);
+            range.put("done", r.done);
+        }
+        return root.toString();
+    }
+
+    /**
+     * Read a checkpoint written by {@link #toJSON()}.
+     * 
+     * @param json
+     *            the checkpoint
+     * @return the checkpoint
+     * @throws IOException
+     *             if <code>json</code> is not a checkpoint
+     */
+    public static ScanCheckpoint fromJSON(String json) throws IOException {
+        JsonNode root = MAPPER.readTree(json);
+        if (root == null || !root.hasNonNull("bucket") || !root.path("ranges").isArray()) {
+            throw new IOException("not a scan checkpoint: " + json);
+        }
+        List<Range> ranges = new ArrayList<Range>();
+        for (JsonNode range : root.get("ranges")) {
+            ranges.add(new Range(text(range, "start"), text(range, "end"), range.path("startInclusive").asBoolean(),
+                                 text(range, "continuation"), range.path("done").asBoolean()));
+        }
+        return new ScanCheckpoint(root.get("bucket").asText(), ranges);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    @Override public String toString() {
+        return "ScanCheckpoint " + toJSON();
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+/**
+ * Concurrent, resumable scans of every key in a bucket.
+ * <p>
+ * A {@link com.basho.riak.client.raw.scan.BucketScan} splits a bucket's
+ * keyspace into ranges of the <code>$key</code> index and pages through them
+ * in parallel across the nodes of a cluster, recording its progress in a
+ * {@link com.basho.riak.client.raw.scan.ScanCheckpoint} it can be resumed
+ * from.
+ * </p>
+ */
+package com.basho.riak.client.raw.scan;
@@ -0,0 +1,152 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.stats;
+
+import java.util.EnumMap;
+
+import com.basho.riak.client.query.NodeStats;
+
+/**
+ * The result of polling one node: its {@link NodeStats} and how each
+ * {@link StatsMetric} changed since the node's previous successful poll, or
+ * the exception if this poll failed.
+ */
+public final class NodeSample {
+
+    private final String node;
+    private final NodeStats stats;
+    private final Exception error;
+    private final long latencyMillis;
+    private final long elapsedMillis;
+    private final long takenAtMillis;
+    private final EnumMap<StatsMetric, Long> deltas;
+
+    private NodeSample(String node, NodeStats stats, Exception error, long latencyMillis, long elapsedMillis,
+            long takenAtMillis, EnumMap<StatsMetric, Long> deltas) {
+        this.node = node;
+        this.stats = stats;
+        this.error = error;
+        this.latencyMillis = latencyMillis;
+        this.elapsedMillis = elapsedMillis;
+        this.takenAtMillis = takenAtMillis;
+        this.deltas = deltas;
+    }
+
+    static NodeSample failed(String node, Exception error, long latencyMillis) {
+        return new NodeSample(node, null, error, latencyMillis, 0, 0,
+                              new EnumMap<StatsMetric, Long>(StatsMetric.class));
+    }
+
+    /**
+     * @param previous
+     *            the node's last successful sample, may be null
+     */
+    static NodeSample of(String node, NodeStats stats, long latencyMillis, long takenAtMillis, NodeSample previous) {
+        EnumMap<StatsMetric, Long> deltas = new EnumMap<StatsMetric, Long>(StatsMetric.class);
+        long elapsed = 0;
+        if (previous != null) {
+            elapsed = takenAtMillis - previous.takenAtMillis;
+            for (StatsMetric metric : StatsMetric.values()) {
+                long now = metric.valueOf(stats);
+                long before = metric.valueOf(previous.stats);
+                // a counter that went backwards means the node restarted
+                deltas.put(metric, metric.isCounter() && now < before ? now : now - before);
+            }
+        }
+        return new NodeSample(node, stats, null, latencyMillis, elapsed, takenAtMillis, deltas);
+    }
+
+    /**
+     * @return the node's name in
+     *         {@link com.basho.riak.client.raw.ClusterClient#getNodeNames()},
+     *         null if the client polled was not a cluster
+     */
+    public String getNode() {
+        return node;
+    }
+
+    /**
+     * @return the node's Erlang node name, null if the poll failed
+     */
+    public String getNodeName() {
+        return stats == null ? null : stats.nodename();
+    }
+
+    /**
+     * @return false if the node could not be polled
+     */
+    public boolean isAvailable() {
+        return error == null;
+    }
+
+    /**
+     * @return the stats, null if the poll failed
+     */
+    public NodeStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return why the poll failed, null if it didn't
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    /**
+     * @return how long the stats request took, a rough measure of how
+     *         responsive the node is
+     */
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    /**
+     * @return true if there was an earlier sample of this node to compute
+     *         deltas against
+     */
+    public boolean hasDeltas() {
+        return !deltas.isEmpty();
+    }
+
+    /**
+     * @return the change in <code>metric</code> since the previous sample, 0
+     *         if there is no previous sample
+     */
+    public long delta(StatsMetric metric) {
+        Long delta = deltas.get(metric);
+        return delta == null ? 0 : delta;
+    }
+
+    /**
+     * @return the per second rate of a counter since the previous sample, 0
+     *         if there is no previous sample or <code>metric</code> is a
+     *         gauge (see {@link StatsMetric#isCounter()}); use
+     *         {@link #delta(StatsMetric)} for how a gauge moved
+     */
+    public double rate(StatsMetric metric) {
+        if (!metric.isCounter() || elapsedMillis <= 0) {
+            return 0;
+        }
+        return delta(metric) * 1000d / elapsedMillis;
+    }
+
+    @Override public String toString() {
+        if (error != null) {
+            return "NodeSample [node=" + node + ", error=" + error + "]";
+        }
+        return "NodeSample [node=" + node + ", name=" + getNodeName() + ", latencyMillis=" + latencyMillis +
+               ", deltas=" + deltas + "]";
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.stats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.basho.riak.client.query.NodeStats;
+import com.basho.riak.client.raw.ClusterClient;
+import com.basho.riak.client.raw.RawClient;
+import com.basho.riak.client.util.RiakThreads;
+
+/**
+ * Polls the stats of every node in a cluster on a fixed interval.
+ * 
+ * <p>
+ * {@link ClusterClient#stats()} asks each node in turn and fails as a whole
+ * if any node is down. This asks all nodes at once, so a poll takes as long
+ * as the slowest node, records unreachable nodes in the snapshot rather than
+ * failing, and keeps the previous sample of each node so a
+ * {@link StatsSnapshot} carries deltas and rates rather than raw totals.
+ * </p>
+ * <p>
+ * Only the HTTP transport supports stats; polling a protocol buffers node
+ * records an {@link UnsupportedOperationException} for it.
+ * </p>
+ * 
+ * <pre>
+ * StatsCollector stats = new StatsCollector.Builder(cluster)
+ *     .interval(30, TimeUnit.SECONDS)
+ *     .listener(new StatsCollector.Listener() {
+ *         public void onSnapshot(StatsSnapshot s) {
+ *             log(s.rate(StatsMetric.NODE_GETS_TOTAL));
+ *         }
+ *     }).build();
+ * stats.start();
+ * </pre>
+ */
+public class StatsCollector {
+
+    /**
+     * Told about each snapshot as it is taken, on a collector thread.
+     */
+    public interface Listener {
+        void onSnapshot(StatsSnapshot snapshot);
+    }
+
+    private final RawClient client;
+    private final long intervalMillis;
+    private final long timeoutMillis;
+    private final Listener listener;
+    private final ExecutorService pollers;
+    private final boolean ownsPollers;
+    private final ScheduledExecutorService scheduler;
+
+    // last successful sample of each node, by name; guarded by this
+    private final Map<String, NodeSample> previous = new HashMap<String, NodeSample>();
+    private volatile StatsSnapshot latest;
+
+    private StatsCollector(Builder builder) {
+        this.client = builder.client;
+        this.intervalMillis = builder.intervalMillis;
+        this.timeoutMillis = builder.timeoutMillis == 0 ? builder.intervalMillis : builder.timeoutMillis;
+        this.listener = builder.listener;
+        this.ownsPollers = builder.executor == null;
+        this.pollers = ownsPollers
+                ? Executors.newCachedThreadPool(RiakThreads.newThreadFactory("riak-stats-poller"))
+                : builder.executor;
+        this.scheduler = Executors
+            .newSingleThreadScheduledExecutor(RiakThreads.newThreadFactory("riak-stats-collector"));
+    }
+
+    /**
+     * Start polling, the first poll is immediate.
+     */
+    public void start() {
+        scheduler.scheduleAtFixedRate(new Runnable() {
+            public void run() {
+                try {
+                    poll();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    // keep the schedule alive, the next poll may succeed
+                }
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop polling and release the collector's threads.
+     */
+    public void stop() {
+        scheduler.shutdownNow();
+        if (ownsPollers) {
+            pollers.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the most recent snapshot, null before the first poll completes
+     */
+    public StatsSnapshot getLatest() {
+        return latest;
+    }
+
+    /**
+     * Poll every node now and wait for them all to answer, fail or time out.
+     * A node that has not answered within the timeout is recorded as failed
+     * with a {@link TimeoutException} and its request is cancelled. The nodes
+     * of a {@link ClusterClient} are read afresh for each poll, so nodes added
+     * since the last one are included and removed ones are not.
+     * 
+     * @return the new snapshot, also passed to the {@link Listener}
+     * @throws InterruptedException
+     *             if interrupted while waiting for the nodes
+     */
+    public synchronized StatsSnapshot poll() throws InterruptedException {
+        final long takenAt = System.currentTimeMillis();
+        final List<String> names = client instanceof ClusterClient ? ((ClusterClient<?>) client).getNodeNames()
+                : Collections.<String> singletonList(null);
+        final int nodes = names.size();
+        final List<Future<NodeStats>> calls = new ArrayList<Future<NodeStats>>(nodes);
+        final long[] started = new long[nodes];
+        final long[] finished = new long[nodes];
+
+        for (int i = 0; i < nodes; i++) {
+            final int node = i;
+            started[i] = System.nanoTime();
+            calls.add(pollers.submit(new Callable<NodeStats>() {
+                public NodeStats call() throws Exception {
+                    try {
+                        return stats(names.get(node));
+                    } finally {
+                        finished[node] = System.nanoTime();
+                    }
+                }
+            }));
+        }
+
+        final long giveUp = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        final List<NodeSample> samples = new ArrayList<NodeSample>(nodes);
+        final Map<String, NodeSample> polled = new HashMap<String, NodeSample>();
+        for (int i = 0; i < nodes; i++) {
+            final String name = names.get(i);
+            NodeSample sample;
+            try {
+                NodeStats stats = calls.get(i).get(Math.max(0, giveUp - System.nanoTime()), TimeUnit.NANOSECONDS);
+                sample = NodeSample.of(name, stats, millisBetween(started[i], finished[i]), takenAt,
+                                       previous.get(name));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                sample = NodeSample.failed(name, cause instanceof Exception ? (Exception) cause : e,
+                                           millisBetween(started[i], finished[i]));
+            } catch (TimeoutException e) {
+                calls.get(i).cancel(true);
+                sample = NodeSample.failed(name, new TimeoutException("no stats from " + name + " within " +
+                                                                      timeoutMillis + "ms"),
+                                           millisBetween(started[i], System.nanoTime()));
+            }
+            samples.add(sample);
+            polled.put(name, sample.isAvailable() ? sample : previous.get(name));
+        }
+        // forget nodes that have left the cluster
+        previous.clear();
+        for (Map.Entry<String, NodeSample> e : polled.entrySet()) {
+            if (e.getValue() != null) {
+                previous.put(e.getKey(), e.getValue());
+            }
+        }
+
+        StatsSnapshot snapshot = new StatsSnapshot(takenAt, samples);
+        latest = snapshot;
+        if (listener != null) {
+            listener.onSnapshot(snapshot);
+        }
+        return snapshot;
+    }
+
+    private NodeStats stats(String node) throws IOException {
+        if (node == null) {
+            return client.stats();
+        }
+        return ((ClusterClient<?>) client).execute(node, RawClient::stats);
+    }
+
+    private static long millisBetween(long startNanos, long endNanos) {
+        // finished is written by the poller before its future completes
+        return endNanos == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos);
+    }
+
+    /**
+     * Builds a {@link StatsCollector}.
+     */
+    public static class Builder {
+        private final RawClient client;
+        private long intervalMillis = TimeUnit.SECONDS.toMillis(60);
+        private long timeoutMillis;
+        private Listener listener;
+        private ExecutorService executor;
+
+        /**
+         * @param client
+         *            the client to poll, if it is a {@link ClusterClient}
+         *            each of its nodes is polled
+         */
+        public Builder(RawClient client) {
+            if (client == null) {
+                throw new IllegalArgumentException("client cannot be null");
+            }
+            this.client = client;
+        }
+
+        /**
+         * @param interval
+         *            time between polls, Riak itself only updates its
+         *            sliding window stats once a minute
+         * @param unit
+         *            the unit of <code>interval</code>
+         * @return this
+         */
+        public Builder interval(long interval, TimeUnit unit) {
+            if (unit.toMillis(interval) < 1) {
+                throw new IllegalArgumentException("interval must be at least 1ms");
+            }
+            this.intervalMillis = unit.toMillis(interval);
+            return this;
+        }
+
+        /**
+         * @param timeout
+         *            how long a poll waits for the nodes before recording
+         *            the ones that have not answered as failed, defaults to
+         *            the interval
+         * @param unit
+         *            the unit of <code>timeout</code>
+         * @return this
+         */
+        public Builder timeout(long timeout, TimeUnit unit) {
+            if (unit.toMillis(timeout) < 1) {
+                throw new IllegalArgumentException("timeout must be at least 1ms");
+            }
+            this.timeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * @param listener
+         *            told about each snapshot
+         * @return this
+         */
+        public Builder listener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * @param executor
+         *            runs the per node stats calls, if not set the
+         *            collector creates and owns a pool that grows to a thread
+         *            per node
+         * @return this
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public StatsCollector build() {
+            return new StatsCollector(this);
+        }
+    }
+}
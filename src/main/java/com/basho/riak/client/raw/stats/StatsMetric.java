@@ -0,0 +1,120 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.stats;
+
+import java.math.BigInteger;
+
+import com.basho.riak.client.query.NodeStats;
+
+/**
+ * The {@link NodeStats} values a {@link StatsSnapshot} computes deltas for.
+ * 
+ * <p>
+ * Counters only ever grow while a node is up, so their delta over an
+ * interval is the amount of work done in it and has a rate. Gauges, such as
+ * the FSM times, are already computed by Riak over a sliding minute; their
+ * delta is simply how much they moved.
+ * </p>
+ */
+public enum StatsMetric {
+
+    VNODE_GETS_TOTAL(true) {
+        BigInteger read(NodeStats stats) {
+            return stats.vnodeGetsTotal();
+        }
+    },
+    VNODE_PUTS_TOTAL(true) {
+        BigInteger read(NodeStats stats) {
+            return stats.vnodePutsTotal();
+        }
+    },
+    VNODE_INDEX_READS_TOTAL(true) {
+        BigInteger read(NodeStats stats) {
+            return stats.vnodeIndexReadsTotal();
+        }
+    },
+    VNODE_INDEX_WRITES_TOTAL(true) {
+        BigInteger read(NodeStats stats) {
+            return stats.vnodeIndexWritesTotal();
+        }
+    },
+    NODE_GETS_TOTAL(true) {
+        BigInteger read(NodeStats stats) {
+            return stats.nodeGetsTotal();
+        }
+    },
+    NODE_PUTS_TOTAL(true) {
+        BigInteger read(NodeStats stats) {
+            return stats.nodePutsTotal();
+        }
+    },
+    READ_REPAIRS_TOTAL(true) {
+        BigInteger read(NodeStats stats) {
+            return stats.readRepairsTotal();
+        }
+    },
+    COORD_REDIRS_TOTAL(true) {
+        BigInteger read(NodeStats stats) {
+            return stats.coordRedirsTotal();
+        }
+    },
+    PBC_CONNECTS_TOTAL(true) {
+        BigInteger read(NodeStats stats) {
+            return stats.pbcConnectsTotal();
+        }
+    },
+    NODE_GET_FSM_TIME_MEAN(false) {
+        BigInteger read(NodeStats stats) {
+            return stats.nodeGetFsmTimeMean();
+        }
+    },
+    NODE_GET_FSM_TIME_95(false) {
+        BigInteger read(NodeStats stats) {
+            return stats.nodeGetFsmTime95();
+        }
+    },
+    NODE_PUT_FSM_TIME_MEAN(false) {
+        BigInteger read(NodeStats stats) {
+            return stats.nodePutFsmTimeMean();
+        }
+    },
+    NODE_PUT_FSM_TIME_95(false) {
+        BigInteger read(NodeStats stats) {
+            return stats.nodePutFsmTime95();
+        }
+    };
+
+    private final boolean counter;
+
+    private StatsMetric(boolean counter) {
+        this.counter = counter;
+    }
+
+    /**
+     * @return true for monotonic counters, false for gauges
+     */
+    public boolean isCounter() {
+        return counter;
+    }
+
+    /**
+     * @return the value of this metric in <code>stats</code>, 0 if absent
+     */
+    public long valueOf(NodeStats stats) {
+        BigInteger value = read(stats);
+        return value == null ? 0 : value.longValue();
+    }
+
+    abstract BigInteger read(NodeStats stats);
+}
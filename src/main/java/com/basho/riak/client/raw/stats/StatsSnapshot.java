@@ -0,0 +1,93 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.stats;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The stats of every node from one poll of a {@link StatsCollector}.
+ */
+public final class StatsSnapshot {
+
+    private final long takenAtMillis;
+    private final List<NodeSample> nodes;
+
+    StatsSnapshot(long takenAtMillis, List<NodeSample> nodes) {
+        this.takenAtMillis = takenAtMillis;
+        this.nodes = Collections.unmodifiableList(nodes);
+    }
+
+    /**
+     * @return when the poll started, in epoch milliseconds
+     */
+    public long getTakenAtMillis() {
+        return takenAtMillis;
+    }
+
+    /**
+     * @return one sample per node, in the order the nodes were polled
+     */
+    public List<NodeSample> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the sample for node <code>index</code>
+     */
+    public NodeSample getNode(int index) {
+        return nodes.get(index);
+    }
+
+    /**
+     * @return the number of nodes that answered
+     */
+    public int getAvailableNodes() {
+        int available = 0;
+        for (NodeSample n : nodes) {
+            if (n.isAvailable()) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    /**
+     * @return the sum of <code>metric</code>'s delta over the available
+     *         nodes
+     */
+    public long delta(StatsMetric metric) {
+        long delta = 0;
+        for (NodeSample n : nodes) {
+            delta += n.delta(metric);
+        }
+        return delta;
+    }
+
+    /**
+     * @return the cluster wide per second rate of a counter: the sum of the
+     *         nodes' rates, 0 for a gauge
+     */
+    public double rate(StatsMetric metric) {
+        double rate = 0;
+        for (NodeSample n : nodes) {
+            rate += n.rate(metric);
+        }
+        return rate;
+    }
+
+    @Override public String toString() {
+        return "StatsSnapshot [takenAtMillis=" + takenAtMillis + ", nodes=" + nodes + "]";
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+/**
+ * Periodic collection of Riak node statistics.
+ * <p>
+ * A {@link com.basho.riak.client.raw.stats.StatsCollector} polls every node
+ * of a {@link com.basho.riak.client.raw.ClusterClient} in parallel and
+ * publishes a {@link com.basho.riak.client.raw.stats.StatsSnapshot} per
+ * interval, with per node deltas and rates for the counters in
+ * {@link com.basho.riak.client.raw.stats.StatsMetric}.
+ * </p>
+ */
+package com.basho.riak.client.raw.stats;
@@ -0,0 +1,281 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A coarse timer for the client's housekeeping: idle connection reaping,
+ * pool shutdown polling and reaping abandoned streams.
+ * 
+ * <p>
+ * Tasks are hashed into a ring of slots by deadline and one daemon thread
+ * advances round the ring a tick at a time, running whatever is due.
+ * Scheduling and cancelling are O(1) and never block, so thousands of
+ * streams each holding a timeout cost no threads and little CPU. The price is
+ * precision: tasks run up to one tick late. Tasks run on the timer thread and
+ * must be short; anything slow should be handed to an executor.
+ * </p>
+ * <p>
+ * Request timeouts are not run here. A protocol buffers request blocks in a
+ * socket read, which only the socket's own SO_TIMEOUT can bound without
+ * closing the connection under it, so the pool sets that from the request
+ * timeout and any {@link com.basho.riak.client.cap.Deadline} when a connection
+ * is handed out.
+ * </p>
+ * <p>
+ * Use {@link #shared()} unless you need an isolated timer.
+ * </p>
+ */
+public final class HashedWheelTimer {
+
+    private static final AtomicInteger TIMER_COUNT = new AtomicInteger();
+
+    /**
+     * A handle on a scheduled task.
+     */
+    public interface Timeout {
+        /**
+         * Stop the task running (again). Safe to call more than once and from
+         * the task itself.
+         */
+        void cancel();
+
+        /**
+         * @return true if {@link #cancel()} has been called
+         */
+        boolean isCancelled();
+    }
+
+    private static final class SharedHolder {
+        static final HashedWheelTimer INSTANCE = new HashedWheelTimer("riak-client-timer", 100,
+                                                                      TimeUnit.MILLISECONDS, 512);
+    }
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<List<Task>> wheel;
+    private final ConcurrentLinkedQueue<Task> added = new ConcurrentLinkedQueue<Task>();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean stopped = false;
+    // only touched by the worker thread
+    private long tick = 0;
+
+    /**
+     * The client wide timer: 100 millisecond ticks, 512 slots, one daemon
+     * thread started on first use.
+     * 
+     * @return the shared timer
+     */
+    public static HashedWheelTimer shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Create and start a timer with its own daemon thread.
+     * 
+     * @param name
+     *            the name of the timer thread
+     * @param tick
+     *            how often the timer looks for due tasks
+     * @param unit
+     *            the unit of <code>tick</code>
+     * @param slots
+     *            the number of slots in the wheel, rounded up to a power of
+     *            two. More slots means fewer tasks looked at each tick
+     */
+    public HashedWheelTimer(String name, long tick, TimeUnit unit, int slots) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("tick must be positive");
+        }
+        if (slots < 1 || slots > (1 << 30)) {
+            throw new IllegalArgumentException("slots must be between 1 and 2^30");
+        }
+        this.tickNanos = unit.toNanos(tick);
+        int size = Integer.highestOneBit(slots);
+        if (size < slots) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.wheel = new ArrayList<List<Task>>(size);
+        for (int i = 0; i < size; i++) {
+            wheel.add(new ArrayList<Task>());
+        }
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name + "-" + TIMER_COUNT.incrementAndGet());
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Run <code>task</code> once after <code>delay</code>.
+     * 
+     * @param task
+     *            the task
+     * @param delay
+     *            how long to wait
+     * @param unit
+     *            the unit of <code>delay</code>
+     * @return a {@link Timeout} to cancel the task with
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return add(task, unit.toNanos(delay), 0);
+    }
+
+    /**
+     * Run <code>task</code> every <code>period</code>, starting after
+     * <code>initialDelay</code>, until it is cancelled. A task that throws
+     * keeps its schedule.
+     * 
+     * @param task
+     *            the task
+     * @param initialDelay
+     *            how long to wait before the first run
+     * @param period
+     *            how long between runs
+     * @param unit
+     *            the unit of <code>initialDelay</code> and <code>period</code>
+     * @return a {@link Timeout} to cancel the task with
+     */
+    public Timeout scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        return add(task, unit.toNanos(initialDelay), unit.toNanos(period));
+    }
+
+    /**
+     * Stop the timer thread. Pending tasks never run. The {@link #shared()}
+     * timer cannot be stopped.
+     */
+    public void stop() {
+        if (this == SharedHolder.INSTANCE) {
+            throw new IllegalStateException("the shared timer cannot be stopped");
+        }
+        stopped = true;
+        LockSupport.unpark(worker);
+    }
+
+    private Timeout add(Runnable runnable, long delayNanos, long periodNanos) {
+        if (runnable == null) {
+            throw new IllegalArgumentException("task cannot be null");
+        }
+        if (stopped) {
+            throw new IllegalStateException("timer stopped");
+        }
+        Task task = new Task(runnable, System.nanoTime() + Math.max(0, delayNanos), periodNanos);
+        added.add(task);
+        return task;
+    }
+
+    private void run() {
+        while (!stopped) {
+            final long tickDeadline = startNanos + (tick + 1) * tickNanos;
+            long sleep;
+            while ((sleep = tickDeadline - System.nanoTime()) > 0 && !stopped) {
+                LockSupport.parkNanos(this, sleep);
+            }
+            if (stopped) {
+                return;
+            }
+            Task t;
+            while ((t = added.poll()) != null) {
+                place(t, tick);
+            }
+            expire(wheel.get((int) (tick & mask)));
+            tick++;
+        }
+    }
+
+    /**
+     * Put <code>t</code> in the slot for its deadline. <code>from</code> is
+     * the first tick whose slot has not yet been expired; a task already due
+     * runs on that tick.
+     */
+    private void place(Task t, long from) {
+        if (t.cancelled) {
+            return;
+        }
+        long due = Math.max((t.deadlineNanos - startNanos) / tickNanos, from);
+        t.rounds = (due - from) / wheel.size();
+        wheel.get((int) (due & mask)).add(t);
+    }
+
+    private void expire(List<Task> slot) {
+        final int size = slot.size();
+        int kept = 0;
+        List<Task> rescheduled = null;
+        for (int i = 0; i < size; i++) {
+            Task t = slot.get(i);
+            if (t.cancelled) {
+                continue;
+            }
+            if (t.rounds > 0) {
+                t.rounds--;
+                slot.set(kept++, t);
+                continue;
+            }
+            try {
+                t.runnable.run();
+            } catch (Throwable e) {
+                // don't let one task kill the timer thread
+                RiakThreads.reportUncaught(e);
+            }
+            if (t.periodNanos > 0 && !t.cancelled) {
+                t.deadlineNanos += t.periodNanos;
+                if (rescheduled == null) {
+                    rescheduled = new ArrayList<Task>();
+                }
+                rescheduled.add(t);
+            }
+        }
+        for (int i = size - 1; i >= kept; i--) {
+            slot.remove(i);
+        }
+        if (rescheduled != null) {
+            // from the next tick so a short period can't land back in this slot
+            for (Task t : rescheduled) {
+                place(t, tick + 1);
+            }
+        }
+    }
+
+    private static final class Task implements Timeout {
+        private final Runnable runnable;
+        private final long periodNanos;
+        private long deadlineNanos;
+        private long rounds;
+        private volatile boolean cancelled = false;
+
+        Task(Runnable runnable, long deadlineNanos, long periodNanos) {
+            this.runnable = runnable;
+            this.deadlineNanos = deadlineNanos;
+            this.periodNanos = periodNanos;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Where the client gets the threads it runs work on.
+ * 
+ * <p>
+ * Internal threads (PB connectors and bulk readers, circuit breaker probes,
+ * cluster refresh, bucket scans, write behind, large objects, parallel link
+ * walks and stats collection) all come from {@link #newThreadFactory(String)},
+ * which defaults to {@link #PLATFORM} daemon threads. Applications that run
+ * a virtual thread per request on Java 21 or later can have the client do the
+ * same:
+ * </p>
+ * 
+ * <pre>
+ * RiakThreads.setFactory(RiakThreads.virtual());
+ * MultiFetchObject.setVirtualThreads(true);
+ * </pre>
+ * 
+ * <p>
+ * The client is compiled for Java 8 so virtual threads are reached by
+ * reflection; {@link #isVirtualThreadSupported()} says whether the running
+ * JVM has them. The housekeeping timer, {@link HashedWheelTimer}, keeps its
+ * one platform thread.
+ * </p>
+ */
+public final class RiakThreads {
+
+    /**
+     * Makes the {@link ThreadFactory} for one of the client's components.
+     */
+    public interface Factory {
+        /**
+         * @param prefix
+         *            names the component, e.g. <code>riak-bucket-scan</code>
+         * @return a factory for its threads, which must not stop the JVM
+         *         exiting
+         */
+        ThreadFactory newThreadFactory(String prefix);
+    }
+
+    /**
+     * Daemon platform threads named <code>prefix-n</code>.
+     */
+    public static final Factory PLATFORM = new Factory() {
+        public ThreadFactory newThreadFactory(final String prefix) {
+            final AtomicInteger count = new AtomicInteger();
+            return new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, prefix + "-" + count.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                }
+            };
+        }
+    };
+
+    private static volatile Factory factory = PLATFORM;
+
+    private RiakThreads() {}
+
+    /**
+     * @param prefix
+     *            names the component
+     * @return a {@link ThreadFactory} from the current {@link Factory}
+     */
+    public static ThreadFactory newThreadFactory(String prefix) {
+        return factory.newThreadFactory(prefix);
+    }
+
+    /**
+     * Change where internal threads come from. Components created afterwards
+     * use the new factory; ones already running keep theirs.
+     * 
+     * @param factory
+     *            the new factory, e.g. {@link #virtual()}
+     */
+    public static void setFactory(Factory factory) {
+        if (factory == null) {
+            throw new IllegalArgumentException("factory cannot be null");
+        }
+        RiakThreads.factory = factory;
+    }
+
+    /**
+     * @return the current factory
+     */
+    public static Factory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Hand an exception that a background task has no caller to throw to, to
+     * the current thread's {@link Thread.UncaughtExceptionHandler}, so it
+     * ends up wherever the application logs uncaught exceptions. The thread
+     * carries on.
+     * 
+     * @param t
+     *            the exception
+     */
+    public static void reportUncaught(Throwable t) {
+        final Thread current = Thread.currentThread();
+        current.getUncaughtExceptionHandler().uncaughtException(current, t);
+    }
+
+    /**
+     * @return true if the running JVM has virtual threads (Java 21 or later)
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreads.OF_VIRTUAL != null;
+    }
+
+    /**
+     * Virtual threads named <code>prefix-n</code>.
+     * 
+     * @return a {@link Factory} of virtual threads
+     * @throws UnsupportedOperationException
+     *             if the JVM has no virtual threads
+     */
+    public static Factory virtual() {
+        checkVirtualThreadSupported();
+        return new Factory() {
+            public ThreadFactory newThreadFactory(String prefix) {
+                try {
+                    Object builder = VirtualThreads.OF_VIRTUAL.invoke(null);
+                    builder = VirtualThreads.NAME.invoke(builder, prefix + "-", 0L);
+                    return (ThreadFactory) VirtualThreads.FACTORY.invoke(builder);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                } catch (InvocationTargetException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        };
+    }
+
+    /**
+     * An executor that starts a new virtual thread for each task, for work
+     * that spends its time waiting on Riak.
+     * 
+     * @return <code>Executors.newVirtualThreadPerTaskExecutor()</code>
+     * @throws UnsupportedOperationException
+     *             if the JVM has no virtual threads
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        checkVirtualThreadSupported();
+        try {
+            return (ExecutorService) VirtualThreads.PER_TASK_EXECUTOR.invoke(null);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void checkVirtualThreadSupported() {
+        if (!isVirtualThreadSupported()) {
+            throw new UnsupportedOperationException("virtual threads need Java 21 or later, this is "
+                                                    + System.getProperty("java.version"));
+        }
+    }
+
+    /**
+     * The Java 21 methods, all null on older JVMs.
+     */
+    private static final class VirtualThreads {
+        static final Method OF_VIRTUAL;
+        static final Method NAME;
+        static final Method FACTORY;
+        static final Method PER_TASK_EXECUTOR;
+
+        static {
+            Method ofVirtual = null;
+            Method name = null;
+            Method factory = null;
+            Method perTask = null;
+            try {
+                // 19 and 20 have them only as a preview
+                if (featureVersion() < 21) {
+                    throw new ClassNotFoundException();
+                }
+                Class<?> builder = Class.forName("java.lang.Thread$Builder");
+                name = builder.getMethod("name", String.class, long.class);
+                factory = builder.getMethod("factory");
+                perTask = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+            } catch (ClassNotFoundException e) {
+                // before Java 21
+            } catch (NoSuchMethodException e) {
+                // before Java 21
+            }
+            OF_VIRTUAL = ofVirtual;
+            NAME = name;
+            FACTORY = factory;
+            PER_TASK_EXECUTOR = perTask;
+        }
+
+        private static int featureVersion() {
+            // "1.8" before Java 9, then "9", "10" ...
+            final String spec = System.getProperty("java.specification.version", "1.8");
+            try {
+                return spec.startsWith("1.") ? 8 : Integer.parseInt(spec);
+            } catch (NumberFormatException e) {
+                return 8;
+            }
+        }
+    }
+}
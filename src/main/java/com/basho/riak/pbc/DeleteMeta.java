@@ -13,6 +13,7 @@
  */
 package com.basho.riak.pbc;
 
+import com.basho.riak.client.cap.Deadline;
 import com.basho.riak.protobuf.RiakKvPB.RpbDelReq.Builder;
 import com.google.protobuf.ByteString;
 
@@ -90,8 +91,10 @@ public class DeleteMeta {
             builder.setVclock(ByteString.copyFrom(vclock));
         }
         
-        if (timeout != null) {
-            builder.setTimeout(timeout);
+        // capped by the calling thread's deadline, if it has one
+        final Integer serverTimeout = Deadline.capTimeout(timeout);
+        if (serverTimeout != null) {
+            builder.setTimeout(serverTimeout);
         }
     }
 
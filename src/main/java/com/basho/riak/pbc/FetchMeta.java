@@ -13,6 +13,7 @@
  */
 package com.basho.riak.pbc;
 
+import com.basho.riak.client.cap.Deadline;
 import com.basho.riak.client.cap.VClock;
 import com.basho.riak.protobuf.RiakKvPB.RpbCounterGetReq;
 import com.basho.riak.protobuf.RiakKvPB.RpbGetReq;
@@ -96,8 +97,10 @@ public class FetchMeta {
             b.setIfModified(ByteString.copyFrom(ifModifiedVClock.getBytes()));
         }
         
-        if (timeout != null) {
-            b.setTimeout(timeout);
+        // capped by the calling thread's deadline, if it has one
+        final Integer serverTimeout = Deadline.capTimeout(timeout);
+        if (serverTimeout != null) {
+            b.setTimeout(serverTimeout);
         }
     }
 
@@ -18,6 +18,7 @@
 
 package com.basho.riak.pbc;
 
+import com.basho.riak.client.cap.Deadline;
 import com.google.protobuf.ByteString;
 
 /**
@@ -76,8 +77,10 @@ public class RequestMeta implements IRequestMeta {
             builder.setAsis(asis);
         }
         
-        if (timeout != null) {
-            builder.setTimeout(timeout);
+        // capped by the calling thread's deadline, if it has one
+        final Integer serverTimeout = Deadline.capTimeout(timeout);
+        if (serverTimeout != null) {
+            builder.setTimeout(serverTimeout);
         }
 	}
 
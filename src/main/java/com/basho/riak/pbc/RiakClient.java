@@ -36,6 +36,7 @@ import org.json.JSONObject;
 
 import com.basho.riak.client.http.util.Constants;
 import com.basho.riak.client.util.CharsetUtils;
+import com.basho.riak.client.util.RiakThreads;
 import com.basho.riak.protobuf.RiakKvPB;
 import com.basho.riak.protobuf.RiakKvPB.RpbCounterGetResp;
 import com.basho.riak.protobuf.RiakKvPB.RpbCounterUpdateResp;
@@ -558,7 +559,7 @@ public class RiakClient implements RiakMessageCodes {
 		RiakConnection c = getConnection();
 		try {
 			BulkReader reader = new BulkReader(c, values.length);
-			Thread worker = new Thread(reader);
+			Thread worker = RiakThreads.newThreadFactory("riak-pb-bulk-reader").newThread(reader);
 			worker.start();
 
 			DataOutputStream dout = c.getOutputStream();
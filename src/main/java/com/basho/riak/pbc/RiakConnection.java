@@ -36,9 +36,11 @@ class RiakConnection implements Comparable<RiakConnection>
 	private DataOutputStream dout;
 	private DataInputStream din;
 	private final RiakConnectionPool pool;
-	// Guarded by the intrinsic lock 'this'
-	private byte[] clientId;
+	// volatile rather than locked: set while the connection is checked out, read by the pool when matching idle connections
+	private volatile byte[] clientId;
 	private volatile long idleStart;
+	private int soTimeout;
+	private volatile boolean failed;
 
 	public RiakConnection(InetAddress addr, int port, int bufferSizeKb, final RiakConnectionPool pool, final long connectTimeoutMillis, final int requestTimeoutMillis) throws IOException {
 		this(new InetSocketAddress(addr, port), bufferSizeKb, pool, connectTimeoutMillis, requestTimeoutMillis);
@@ -56,6 +58,7 @@ class RiakConnection implements Comparable<RiakConnection>
         // With the original Java IO the SO_TIMEOUT value is used for read/write operations
         if (requestTimeoutMillis > 0) {
             sock.setSoTimeout(requestTimeoutMillis);
+            soTimeout = requestTimeoutMillis;
         }
 		
         sock.connect(addr, (int) connectTimeoutMillis);
@@ -76,7 +79,7 @@ class RiakConnection implements Comparable<RiakConnection>
 			dout.flush();
 		} catch (IOException e) {
 			// Explicitly close our Socket on an IOException then rethrow
-			close();
+			fail();
 			throw e;
 		}
 	}
@@ -88,7 +91,7 @@ class RiakConnection implements Comparable<RiakConnection>
 			dout.flush();
 		} catch (IOException e) {
 			// Explicitly close our Socket on an IOException then rethrow
-			close();
+			fail();
 			throw e;
 		}
 
@@ -109,7 +112,7 @@ class RiakConnection implements Comparable<RiakConnection>
 			}
 		} catch (IOException e) {
 			// Explicitly close our Socket on an IOException then rethrow
-			close();
+			fail();
 			throw e;
 		}
 
@@ -138,7 +141,7 @@ class RiakConnection implements Comparable<RiakConnection>
 			}
 		} catch (IOException e) {
 			// Explicitly close our Socket on an IOException then rethrow
-			close();
+			fail();
 			throw e;
 		}
 
@@ -147,6 +150,39 @@ class RiakConnection implements Comparable<RiakConnection>
 		}
 	}
 
+	/**
+	 * Change the read timeout (SO_TIMEOUT) for the next request, 0 means
+	 * none. Only touches the socket if it changes.
+	 */
+	void setRequestTimeout(int requestTimeoutMillis) {
+		if (requestTimeoutMillis == soTimeout || isClosed()) {
+			return;
+		}
+		try {
+			sock.setSoTimeout(requestTimeoutMillis);
+			soTimeout = requestTimeoutMillis;
+		} catch (SocketException e) {
+			fail();
+		}
+	}
+
+	/**
+	 * Close the connection because it broke, rather than because the caller
+	 * is done with it, see {@link #hasFailed()}.
+	 */
+	void fail() {
+		failed = true;
+		close();
+	}
+
+	/**
+	 * @return true if the connection was closed by an I/O error. Connections
+	 *         closed on purpose, e.g. to abandon a stream, have not failed
+	 */
+	boolean hasFailed() {
+		return failed;
+	}
+
 	void close() {
 		if (isClosed()) {
 			return;
@@ -175,7 +211,7 @@ class RiakConnection implements Comparable<RiakConnection>
 		return sock == null || sock.isClosed();
 	}
 
-	public synchronized void beginIdle()  {
+	public void beginIdle()  {
 		this.idleStart = System.nanoTime();
 	}
 
@@ -193,14 +229,14 @@ class RiakConnection implements Comparable<RiakConnection>
 	/**
 	 * @return the clientId
 	 */
-	public synchronized byte[] getClientId() {
+	public byte[] getClientId() {
 		return clientId;
 	}
 
 	/**
 	 * @param clientId the clientId to set
 	 */
-	public synchronized void setClientId(byte[] clientId) {
+	public void setClientId(byte[] clientId) {
 		this.clientId = clientId;
 	}
 
@@ -208,9 +244,10 @@ class RiakConnection implements Comparable<RiakConnection>
 	 * @return true if a clientId has been *explicitly set* (IE not default from
 	 *         Riak server) on this connection
 	 */
-	public synchronized boolean hasClientId()
+	public boolean hasClientId()
 	{
-		return clientId != null && clientId.length > 0;
+		final byte[] id = clientId;
+		return id != null && id.length > 0;
 	}
 
     /** 
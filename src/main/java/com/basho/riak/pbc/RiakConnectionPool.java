@@ -17,13 +17,30 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.SocketTimeoutException;
 import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.basho.riak.client.cap.Deadline;
+import com.basho.riak.client.cap.DeadlineExceededException;
+import com.basho.riak.client.raw.breaker.CircuitBreaker;
+import com.basho.riak.client.raw.breaker.CircuitOpenException;
 import com.basho.riak.client.raw.pbc.PoolSemaphore;
+import com.basho.riak.client.util.HashedWheelTimer;
+import com.basho.riak.client.util.HashedWheelTimer.Timeout;
+import com.basho.riak.client.util.RiakThreads;
 import com.basho.riak.protobuf.RiakKvPB.RpbSetClientIdReq;
 import com.google.protobuf.ByteString;
 import java.util.Iterator;
@@ -34,8 +51,16 @@ import java.util.concurrent.LinkedBlockingDeque;
  * 
  * The pool is designed to be threadsafe, and ideally to be used as a singleton.
  * Due to backwards compatibility requirements it has not been implemented as a singleton.
- * This is really a host connection pool. There is a minor optimization for reusing a connection
- * by client Id, but more work needs doing here.
+ * This is really a host connection pool. Idle connections already carrying the requested client Id
+ * are preferred, so threads using different client Ids don't pay a SetClientId round trip on most
+ * borrows (see {@link #getSetClientIdCount()}). For clusters using vnode vclocks client Ids are
+ * unused and can be skipped entirely with {@link #setSkipClientId(boolean)}.
+ * 
+ * Connections are opened in parallel on background threads: the initial connections at
+ * {@link #start()}, and more whenever fewer than {@link #setMinIdle(int)} are idle, so
+ * request threads rarely pay connect latency. Idle connections can be checked with a ping
+ * before use ({@link #setValidateAfterIdleMillis(long)}) and all idle connections can be
+ * dropped after a connection fails ({@link #setPurgeIdleOnFailure(boolean)}).
  * 
  * @author russell
  * 
@@ -130,6 +155,14 @@ public class RiakConnectionPool {
      * Constant to use for <code>maxSize</code> when creating an unbounded pool
      */
     public static final int LIMITLESS = 0;
+    /**
+     * How many idle connections to look at for one with a matching client Id
+     * before settling for the most recently used one.
+     */
+    static final int CLIENT_ID_SCAN_LIMIT = 16;
+    private static final int MAX_CONNECTOR_THREADS = 4;
+    private static final long MAINTENANCE_PERIOD_MILLIS = 1000;
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
     private final InetAddress host;
     private final int port;
     private final Semaphore permits;
@@ -140,10 +173,28 @@ public class RiakConnectionPool {
     private final int initialSize;
     private final long idleConnectionTTLNanos;
     private final int requestTimeoutMillis;
-    private final ScheduledExecutorService idleReaper;
-    private final ScheduledExecutorService shutdownExecutor;
+    // idle reaping, top up and shutdown polling run on the client wide timer
+    private final HashedWheelTimer timer;
+    private volatile Timeout idleReaper;
+    private volatile Timeout maintenance;
+    private volatile Timeout shutdownPoll;
+    private final ThreadPoolExecutor connector;
+    private final AtomicInteger pendingConnects = new AtomicInteger();
     // what state the pool is in (see enum State)
     private volatile State state;
+    private volatile boolean skipClientId = false;
+    private final AtomicLong setClientIdCount = new AtomicLong();
+    private final AtomicLong clientIdMatchCount = new AtomicLong();
+    private volatile int minIdle = 0;
+    private volatile long validateAfterIdleNanos = 0;
+    private volatile boolean purgeIdleOnFailure = false;
+    private final AtomicLong connectAheadCount = new AtomicLong();
+    private final AtomicLong validationFailureCount = new AtomicLong();
+    private final AtomicLong purgeCount = new AtomicLong();
+    private volatile CircuitBreaker circuitBreaker;
+    // guards start and shutdown; a lock rather than a monitor so a virtual
+    // thread warming the pool up does not pin its carrier
+    private final ReentrantLock lifecycle = new ReentrantLock();
 
     /**
      * Crate a new host connection pool. NOTE: before using you must call
@@ -225,8 +276,10 @@ public class RiakConnectionPool {
         this.requestTimeoutMillis = requestTimeoutMillis;
         this.initialSize = initialSize;
         this.idleConnectionTTLNanos = TimeUnit.NANOSECONDS.convert(idleConnectionTTLMillis, TimeUnit.MILLISECONDS);
-        this.idleReaper = Executors.newScheduledThreadPool(1);
-        this.shutdownExecutor = Executors.newScheduledThreadPool(1);
+        this.timer = HashedWheelTimer.shared();
+        this.connector = new ThreadPoolExecutor(MAX_CONNECTOR_THREADS, MAX_CONNECTOR_THREADS, 30, TimeUnit.SECONDS,
+                                                new LinkedBlockingQueue<Runnable>(), connectorThreads(host, port));
+        this.connector.allowCoreThreadTimeOut(true);
         this.state = State.CREATED;
         
     }
@@ -234,19 +287,24 @@ public class RiakConnectionPool {
     /**
      * Starts the reaper thread
      */
-    public synchronized void start() {
-        state.start(this);
+    public void start() {
+        lifecycle.lock();
+        try {
+            state.start(this);
+        } finally {
+            lifecycle.unlock();
+        }
     }
 
-    private synchronized void doStart() {
+    private void doStart() {
         if (idleConnectionTTLNanos > 0) {
-            idleReaper.scheduleWithFixedDelay(() -> {
+            idleReaper = timer.scheduleAtFixedRate(() -> {
                 // Note this will not throw a ConncurrentModificationException
                 // and if hasNext() returns true you are guaranteed that
                 // the next() will return a value (even if it has already
                 // been removed from the Deque between those calls).
                 Iterator<RiakConnection> i = available.descendingIterator();
-                while (i.hasNext()) {
+                while (i.hasNext() && available.size() > minIdle) {
                     RiakConnection c = i.next();
                     long connIdleStartNanos = c.getIdleStartTimeNanos();
                     if (connIdleStartNanos + idleConnectionTTLNanos < System.nanoTime()) {
@@ -270,6 +328,13 @@ public class RiakConnectionPool {
         }
         warmUp();
         state = State.RUNNING;
+        maintenance = timer.scheduleAtFixedRate(this::topUp, MAINTENANCE_PERIOD_MILLIS, MAINTENANCE_PERIOD_MILLIS,
+                                                TimeUnit.MILLISECONDS);
+    }
+
+    private static ThreadFactory connectorThreads(InetAddress host, int port) {
+        return RiakThreads.newThreadFactory("riak-pb-connect-" + POOL_COUNT.incrementAndGet() + "-"
+                                            + host.getHostAddress() + ":" + port);
     }
 
     /**
@@ -289,21 +354,220 @@ public class RiakConnectionPool {
     }
 
     /**
-     * If there are any initial connections to create, do it.
-     * @throws IOException
+     * Open the initial connections (or <code>minIdle</code> if that is more)
+     * in parallel and wait for them. Connections that fail to open are left
+     * for the background top up to retry.
      */
     private void warmUp() {
-        
-        for (int i = 0; i < this.initialSize; i++) {
+        final int target = Math.max(initialSize, minIdle);
+        final List<Future<?>> connects = new ArrayList<Future<?>>(target);
+        for (int i = 0; i < target; i++) {
+            connects.add(connector.submit(() -> {
+                addIdleConnection();
+                return null;
+            }));
+        }
+        final long connectTimeoutNanos = connectionWaitTimeoutNanos + TimeUnit.SECONDS.toNanos(1);
+        for (Future<?> f : connects) {
             try {
-                RiakConnection c = new RiakConnection(host, port, bufferSizeKb, this, TimeUnit.MILLISECONDS.convert(connectionWaitTimeoutNanos, TimeUnit.NANOSECONDS), requestTimeoutMillis);
-                c.beginIdle();
-                available.add(c);
-            } catch (IOException ex) {
-               // No-op
+                f.get(connectTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (ExecutionException ex) {
+                // No-op
+            } catch (TimeoutException ex) {
+                // No-op, it will be added when it does connect
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
             }
         }
-        
+    }
+
+    /**
+     * Open a connection and push it on the idle stack.
+     */
+    private void addIdleConnection() throws IOException {
+        RiakConnection c = newConnection();
+        if (state == State.SHUTTING_DOWN || state == State.SHUTDOWN) {
+            c.close();
+            return;
+        }
+        c.beginIdle();
+        available.offerFirst(c);
+    }
+
+    private RiakConnection newConnection() throws IOException {
+        return newConnection(null);
+    }
+
+    private RiakConnection newConnection(Deadline deadline) throws IOException {
+        final CircuitBreaker breaker = circuitBreaker;
+        if (breaker != null && breaker.getState() == CircuitBreaker.State.OPEN) {
+            // don't stack up threads in connect timeouts to a sick node
+            throw new CircuitOpenException(host.getHostAddress() + ":" + port + " has an open circuit");
+        }
+        long connectTimeoutMillis = TimeUnit.MILLISECONDS.convert(connectionWaitTimeoutNanos, TimeUnit.NANOSECONDS);
+        if (deadline != null) {
+            // 0 is no timeout
+            long remaining = Math.max(1, deadline.remainingMillis());
+            connectTimeoutMillis = connectTimeoutMillis > 0 ? Math.min(connectTimeoutMillis, remaining) : remaining;
+        }
+        return new RiakConnection(host, port, bufferSizeKb, this, connectTimeoutMillis, requestTimeoutMillis);
+    }
+
+    /**
+     * Open connections in the background until there are
+     * <code>minIdle</code> idle (counting connections still being opened).
+     */
+    private void topUp() {
+        final CircuitBreaker breaker = circuitBreaker;
+        if (state != State.RUNNING || (breaker != null && breaker.getState() != CircuitBreaker.State.CLOSED)) {
+            return;
+        }
+        int wanted = minIdle - available.size() - pendingConnects.get();
+        for (; wanted > 0; wanted--) {
+            pendingConnects.incrementAndGet();
+            try {
+                connector.execute(() -> {
+                    try {
+                        addIdleConnection();
+                        connectAheadCount.incrementAndGet();
+                    } catch (IOException e) {
+                        // node unreachable, the next top up tries again
+                    } finally {
+                        pendingConnects.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                pendingConnects.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Keep at least this many connections idle, opening new ones in the
+     * background when borrowing takes the idle count below it. The idle reaper
+     * will not close connections below this number either. Defaults to 0.
+     * 
+     * @param minIdle
+     *            the number of idle connections to keep open
+     */
+    public void setMinIdle(int minIdle) {
+        if (minIdle < 0) {
+            throw new IllegalArgumentException("minIdle must be >= 0");
+        }
+        this.minIdle = minIdle;
+    }
+
+    /**
+     * @return the minimum number of idle connections
+     */
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    /**
+     * Ping idle connections that have been idle for at least
+     * <code>validateAfterIdleMillis</code> before handing them out, and
+     * discard any that fail. 0 (the default) turns validation off.
+     * 
+     * @param validateAfterIdleMillis
+     *            how long a connection may be idle before it is checked
+     */
+    public void setValidateAfterIdleMillis(long validateAfterIdleMillis) {
+        if (validateAfterIdleMillis < 0) {
+            throw new IllegalArgumentException("validateAfterIdleMillis must be >= 0");
+        }
+        this.validateAfterIdleNanos = TimeUnit.NANOSECONDS.convert(validateAfterIdleMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * When a connection fails (it comes back closed, fails validation, or a
+     * new connection can't be opened) close every idle connection too, since
+     * they are likely to be just as dead, and start opening fresh ones.
+     * Defaults to false.
+     * 
+     * @param purgeIdleOnFailure
+     */
+    public void setPurgeIdleOnFailure(boolean purgeIdleOnFailure) {
+        this.purgeIdleOnFailure = purgeIdleOnFailure;
+    }
+
+    /**
+     * @return the number of connections opened in the background to keep
+     *         <code>minIdle</code> connections idle
+     */
+    public long getConnectAheadCount() {
+        return connectAheadCount.get();
+    }
+
+    /**
+     * @return the number of idle connections discarded because they failed
+     *         a ping
+     */
+    public long getValidationFailureCount() {
+        return validationFailureCount.get();
+    }
+
+    /**
+     * @return the number of times the idle connections were purged after a
+     *         failure
+     */
+    public long getPurgeCount() {
+        return purgeCount.get();
+    }
+
+    /**
+     * @return the number of idle connections
+     */
+    public int getIdleCount() {
+        return available.size();
+    }
+
+    /**
+     * @return the number of connections borrowed and not yet released
+     */
+    public int getInUseCount() {
+        return inUse.size();
+    }
+
+    /**
+     * A connection failed, purge the idle stack if so configured and start
+     * replacing connections.
+     */
+    private void onConnectionFailure() {
+        if (purgeIdleOnFailure) {
+            purgeCount.incrementAndGet();
+            RiakConnection c = available.poll();
+            while (c != null) {
+                c.close();
+                c = available.poll();
+            }
+        }
+        topUp();
+    }
+
+    /**
+     * @return true if <code>c</code> is open and, if it has been idle long
+     *         enough to need it, answers a ping
+     */
+    private boolean validate(RiakConnection c) {
+        if (c.isClosed()) {
+            return false;
+        }
+        final long validateAfter = validateAfterIdleNanos;
+        if (validateAfter > 0 && System.nanoTime() - c.getIdleStartTimeNanos() >= validateAfter) {
+            try {
+                c.send(RiakMessageCodes.MSG_PingReq);
+                c.receive_code(RiakMessageCodes.MSG_PingResp);
+            } catch (IOException e) {
+                c.close();
+                validationFailureCount.incrementAndGet();
+                onConnectionFailure();
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -329,13 +593,104 @@ public class RiakConnectionPool {
     }
 
     private RiakConnection doGetConection(byte[] clientId) throws IOException {
-        RiakConnection c = getConnection();
-        if (clientId != null && !Arrays.equals(clientId, c.getClientId())) {
-            setClientIdOnConnection(c, clientId);
+        if (skipClientId) {
+            clientId = null;
+        }
+        final Deadline deadline = Deadline.current();
+        RiakConnection c = acquireConnection(clientId, deadline);
+        if (deadline != null) {
+            try {
+                deadline.check("waiting for a connection");
+            } catch (DeadlineExceededException e) {
+                releaseConnection(c);
+                throw e;
+            }
+            // reads and writes give up when the deadline does. It may pass
+            // in between, but a 0 SO_TIMEOUT would mean wait forever
+            long remaining = Math.max(1, deadline.remainingMillis());
+            c.setRequestTimeout((int) (requestTimeoutMillis > 0 ? Math.min(remaining, requestTimeoutMillis)
+                    : Math.min(remaining, Integer.MAX_VALUE)));
+        }
+        if (clientId != null) {
+            if (Arrays.equals(clientId, c.getClientId())) {
+                clientIdMatchCount.incrementAndGet();
+            } else {
+                setClientIdOnConnection(c, clientId);
+            }
         }
         return c;
     }
 
+    /**
+     * Don't send client Ids to Riak at all. Safe when the cluster uses vnode
+     * vclocks (Riak 1.0+ with <code>vnode_vclocks</code> true, the default),
+     * where the client Id is ignored.
+     * 
+     * @param skipClientId
+     *            true to never send SetClientId
+     */
+    public void setSkipClientId(boolean skipClientId) {
+        this.skipClientId = skipClientId;
+    }
+
+    /**
+     * @return true if client Ids are not being sent
+     * @see #setSkipClientId(boolean)
+     */
+    public boolean isSkipClientId() {
+        return skipClientId;
+    }
+
+    /**
+     * @return the host this pool holds connections to
+     */
+    public InetAddress getHost() {
+        return host;
+    }
+
+    /**
+     * @return the port on the host this pool holds connections to
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Have the pool honour the circuit breaker of its node: while the breaker
+     * is open no new connections are made, borrowers that would need one get
+     * a {@link CircuitOpenException} at once, and idle connections are not
+     * topped up until it closes again.
+     * 
+     * @param circuitBreaker
+     *            the breaker for this pool's node, or null for none
+     */
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * @return the breaker this pool honours, or null
+     * @see #setCircuitBreaker(CircuitBreaker)
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * @return the number of SetClientId requests this pool has sent
+     */
+    public long getSetClientIdCount() {
+        return setClientIdCount.get();
+    }
+
+    /**
+     * @return the number of borrows with a client Id that got a connection
+     *         already carrying it
+     */
+    public long getClientIdMatchCount() {
+        return clientIdMatchCount.get();
+    }
+
     /**
      * Calls the Riak PB API to set the client Id on a the given connection
      * 
@@ -349,6 +704,7 @@ public class RiakConnectionPool {
     private void setClientIdOnConnection(RiakConnection c, byte[] clientId) throws IOException {
         RpbSetClientIdReq req = com.basho.riak.protobuf.RiakKvPB.RpbSetClientIdReq.newBuilder().setClientId(ByteString.copyFrom(clientId)).build();
 
+        setClientIdCount.incrementAndGet();
         try {
             c.send(RiakMessageCodes.MSG_SetClientIdReq, req);
             c.receive_code(RiakMessageCodes.MSG_SetClientIdResp);
@@ -370,22 +726,45 @@ public class RiakConnectionPool {
      * are available, throws IOException if timeout occurs. Will re-try if
      * interrupted waiting for the connection.
      * 
+     * @param clientId
+     *            prefer an idle connection with this client Id, may be null
+     * @param deadline
+     *            the calling thread's {@link Deadline}, wait no longer than
+     *            it allows, may be null
      * @return a connection from the pool, or a new connection
      * @throws IOException
      */
-    private RiakConnection getConnection() throws IOException {
+    private RiakConnection acquireConnection(byte[] clientId, Deadline deadline) throws IOException {
         RiakConnection c = null;
+        long waitNanos = connectionWaitTimeoutNanos;
+        if (deadline != null) {
+            deadline.check("before acquiring a connection");
+            waitNanos = Math.min(waitNanos, deadline.remainingNanos());
+        }
         try {
-            if (permits.tryAcquire(connectionWaitTimeoutNanos, TimeUnit.NANOSECONDS)) {
-                c = available.poll();
+            if (permits.tryAcquire(waitNanos, TimeUnit.NANOSECONDS)) {
+                c = pollAvailable(clientId);
+                while (c != null && !validate(c)) {
+                    c = pollAvailable(clientId);
+                }
+                if (minIdle > 0) {
+                    topUp();
+                }
                 if (c == null) {
                     boolean releasePermit = true;
                     try {
-                        c = new RiakConnection(host, port, bufferSizeKb, this, TimeUnit.MILLISECONDS.convert(connectionWaitTimeoutNanos, TimeUnit.NANOSECONDS), requestTimeoutMillis);
+                        c = newConnection(deadline);
                         releasePermit = false;
                     } catch (SocketTimeoutException e) {
+                        if (deadline != null && deadline.isExpired()) {
+                            throw deadline.exceeded("connecting to " + host + ":" + port, e);
+                        }
+                        onConnectionFailure();
                         throw new AcquireConnectionTimeoutException("timeout from socket connection " + e.getMessage(), e);
+                    } catch (CircuitOpenException e) {
+                        throw e;
                     } catch (IOException e) {
+                        onConnectionFailure();
                         throw e;
                     } finally {
                         if (releasePermit) {
@@ -393,6 +772,8 @@ public class RiakConnectionPool {
                         }
                     }
                 }
+            } else if (deadline != null && deadline.isExpired()) {
+                throw deadline.exceeded("waiting for a connection permit", null);
             } else {
                 throw new AcquireConnectionTimeoutException("timeout acquiring connection permit from pool");
             }
@@ -406,6 +787,30 @@ public class RiakConnectionPool {
         
     }
 
+    /**
+     * Take an idle connection, preferring the most recently used one that
+     * already has <code>clientId</code>. Only the first
+     * {@link #CLIENT_ID_SCAN_LIMIT} connections are looked at, so the deque
+     * stays roughly LIFO for the idle reaper.
+     * 
+     * @param clientId
+     *            the client Id wanted, or null for any connection
+     * @return an idle connection or null if there are none
+     */
+    private RiakConnection pollAvailable(byte[] clientId) {
+        if (clientId != null) {
+            Iterator<RiakConnection> i = available.iterator();
+            for (int scanned = 0; scanned < CLIENT_ID_SCAN_LIMIT && i.hasNext(); scanned++) {
+                RiakConnection c = i.next();
+                // remove() fails if another thread took it first
+                if (Arrays.equals(clientId, c.getClientId()) && available.remove(c)) {
+                    return c;
+                }
+            }
+        }
+        return available.poll();
+    }
+
     /**
      * Returns a connection to the pool (unless the connection is closed (for some
      * reason))
@@ -428,11 +833,20 @@ public class RiakConnectionPool {
 
         if (inUse.remove(c)) {
             // don't put a closed connection in the pool
-            if (!c.isClosed()) {
+            final boolean closed = c.isClosed();
+            if (!closed) {
+                c.setRequestTimeout(requestTimeoutMillis);
                 c.beginIdle();
                 available.offerFirst(c);
-            } 
+            }
             permits.release();
+            // a cancelled stream closes its connection on purpose, that says
+            // nothing about the others
+            if (c.hasFailed()) {
+                onConnectionFailure();
+            } else if (closed) {
+                topUp();
+            }
         } else {
             // not our connection?
             throw new IllegalArgumentException("connection not managed by this pool");
@@ -456,16 +870,21 @@ public class RiakConnectionPool {
      * {@link IllegalStateException} for calls to getConnection. While shutting
      * down it will still accept calls to releaseConnection.
      */
-    public synchronized void shutdown() {
-        state.shutdown(this);
+    public void shutdown() {
+        lifecycle.lock();
+        try {
+            state.shutdown(this);
+        } finally {
+            lifecycle.unlock();
+        }
     }
 
     /**
      * Shuts the pool down.
      * 
      * Close all connections in available.
-     * Stop the reaper thread.
-     * Start a thread that checks the inUse queue is empty.
+     * Stop the reaper and top up tasks.
+     * Poll until the inUse queue is empty.
      */
     private void doShutdown() {
         state = State.SHUTTING_DOWN;
@@ -477,16 +896,24 @@ public class RiakConnectionPool {
             c = available.poll();
         }
 
-        shutdownExecutor.scheduleWithFixedDelay(() -> {
+        cancel(idleReaper);
+        cancel(maintenance);
+        shutdownPoll = timer.scheduleAtFixedRate(() -> {
             // when all connections are returned, and the available pool is empty
             if(inUse.isEmpty() && available.isEmpty()) {
                 state = State.SHUTDOWN;
-                shutdownExecutor.shutdown();
-                idleReaper.shutdown();
+                cancel(shutdownPoll);
+                connector.shutdown();
             }
         }, 0, 1, TimeUnit.SECONDS);
     }
 
+    private static void cancel(Timeout timeout) {
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
     /**
      * Convenience method to check the state of the pool.
      * 
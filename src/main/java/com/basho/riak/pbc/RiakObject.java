@@ -27,6 +27,7 @@ import com.basho.riak.protobuf.RiakPB.RpbPair;
 import com.google.protobuf.ByteString;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 
 /**
  * PBC model of the data/meta data for a bucket/key entry in Riak
@@ -250,6 +251,10 @@ public class RiakObject {
         this.charset = charset;
     }
 
+    public void setContentEncoding(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
     public void addLink(String tag, String bucket, String key) {
         links.add(new RiakLink(bucket, key, tag));
     }
@@ -262,6 +267,22 @@ public class RiakObject {
        return links != null ? Collections.unmodifiableList(links) : Collections.EMPTY_LIST;
     }
 
+    /**
+     * @return true if this object has any links
+     */
+    public boolean hasLinks() {
+        return links != null && !links.isEmpty();
+    }
+
+    /**
+     * @return true if this object has any user meta data, without copying it
+     */
+    public boolean hasUsermeta() {
+        synchronized (userMetaDataLock) {
+            return !userMetaData.isEmpty();
+        }
+    }
+
     /**
      * Return a copy of the user meta data map (does not read or write through
      * to map backing RiakObject)
@@ -274,6 +295,20 @@ public class RiakObject {
         }
     }
 
+    /**
+     * Pass each item of user meta data to <code>action</code>, in order,
+     * without copying the map. <code>action</code> runs while the user meta
+     * data is locked, so it must not call back into this object.
+     * 
+     * @param action
+     *            given the key and value of each item
+     */
+    public void forEachUsermeta(BiConsumer<String, String> action) {
+        synchronized (userMetaDataLock) {
+            userMetaData.forEach(action);
+        }
+    }
+
     /**
      * Add an item to the user meta data for this RiakObject.
      * @param key the key of the user meta data item
@@ -311,6 +346,13 @@ public class RiakObject {
         return this.charset;
     }
 
+    /**
+     * @return the content-encoding of the value, or null if not encoded
+     */
+    public String getContentEncoding() {
+        return this.contentEncoding;
+    }
+
     /**
      * @return a *copy* of the list of {@link RiakIndex}es for this object
      */
@@ -320,6 +362,16 @@ public class RiakObject {
         }
     }
 
+    /**
+     * @return true if this object has any secondary indexes, without copying
+     *         them
+     */
+    public boolean hasIndexes() {
+        synchronized (indexLock) {
+            return !indexes.isEmpty();
+        }
+    }
+
     /**
      * Add a binary index to the object
      * 
@@ -22,8 +22,11 @@ import com.google.protobuf.ByteString;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.util.Iterator;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.basho.riak.client.util.HashedWheelTimer;
+import com.basho.riak.client.util.HashedWheelTimer.Timeout;
 
 /**
  * A general purpose stream -> iterator adaptor.
@@ -31,12 +34,13 @@ import java.util.TimerTask;
  */
 public abstract class RiakStreamClient<T> implements Iterable<T> {
 
-    static Timer TIMER = new Timer("riak-stream-timeout-thread", true);
-
 	private RiakClient client;
 	protected RiakConnection conn;
     protected ByteString continuation;
 	private ReaperTask reaper;
+	// locks rather than monitors: close() returns the connection to the pool
+	// and must not pin a virtual thread's carrier while it does
+	private final ReentrantLock lock = new ReentrantLock();
 
 	protected RiakStreamClient(RiakClient client, RiakConnection conn) {
 		this.client = client;
@@ -54,52 +58,77 @@ public abstract class RiakStreamClient<T> implements Iterable<T> {
         return continuation;
     }
     
-	static class ReaperTask extends TimerTask {
+	/**
+	 * Closes the connection if the stream is garbage collected without being
+	 * closed. Runs every second on the shared {@link HashedWheelTimer} until
+	 * cancelled.
+	 */
+	static class ReaperTask implements Runnable {
 		private final RiakConnection conn;
+		private final Timeout timeout;
 		private WeakReference<?> ref;
+		private final ReentrantLock lock = new ReentrantLock();
 
 		ReaperTask (Object holder, RiakConnection conn) {
 			this.conn = conn;
 			this.ref = new WeakReference<>(holder);
-			TIMER.scheduleAtFixedRate(this, 1000, 1000);
+			this.timeout = HashedWheelTimer.shared().scheduleAtFixedRate(this, 1000, 1000, TimeUnit.MILLISECONDS);
 		}
 		
-		@Override
-		public synchronized void run() {
-			if (ref == null) { 
-				// do nothing; we were explicitly cancelled //
-			} else if (ref.get() == null) {
-				
-				// the reference was lost; cancel this timer and
-				// close the connection
-				cancel();
-				conn.close();
-				conn.release();
-			} else if (conn.isClosed()) {
-				cancel();
+		public void run() {
+			lock.lock();
+			try {
+				if (ref == null) {
+					// do nothing; we were explicitly cancelled //
+				} else if (ref.get() == null) {
+
+					// the reference was lost; cancel this timer and
+					// close the connection
+					cancel();
+					conn.close();
+					conn.release();
+				} else if (conn.isClosed()) {
+					cancel();
+				}
+			} finally {
+				lock.unlock();
 			}
 		}
 
-		@Override
-		public synchronized boolean cancel() {
-			ref = null;
-			return super.cancel();
+		public void cancel() {
+			lock.lock();
+			try {
+				ref = null;
+				timeout.cancel();
+			} finally {
+				lock.unlock();
+			}
 		}
 	}
 	
-    public synchronized void cancel() {
-        if (!isClosed())
-        {
-            conn.close();
-            close();
+    public void cancel() {
+        lock.lock();
+        try {
+            if (!isClosed())
+            {
+                conn.close();
+                close();
+            }
+        } finally {
+            lock.unlock();
         }
     }
     
-	public synchronized void close() {
-		if (!isClosed()) {
-			reaper.cancel();
-			client.release(conn);
-			conn = null;
+	public void close() {
+		lock.lock();
+		try {
+			if (!isClosed()) {
+				reaper.cancel();
+				client.release(conn);
+				conn = null;
+			}
+		} finally {
+			lock.unlock();
 		}
 	}
 	
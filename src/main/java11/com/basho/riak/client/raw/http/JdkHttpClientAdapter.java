@@ -0,0 +1,480 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.http;
+
+import static com.basho.riak.client.raw.http.ConversionUtil.convert;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.message.BasicNameValuePair;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.http.RiakClient;
+import com.basho.riak.client.http.RiakConfig;
+import com.basho.riak.client.http.request.RequestMeta;
+import com.basho.riak.client.http.response.DefaultHttpResponse;
+import com.basho.riak.client.http.response.FetchResponse;
+import com.basho.riak.client.http.response.HttpResponse;
+import com.basho.riak.client.http.response.StoreResponse;
+import com.basho.riak.client.http.util.ClientUtils;
+import com.basho.riak.client.http.util.Constants;
+import com.basho.riak.client.raw.AsyncRawClient;
+import com.basho.riak.client.raw.DeleteMeta;
+import com.basho.riak.client.raw.FetchMeta;
+import com.basho.riak.client.raw.MatchFoundException;
+import com.basho.riak.client.raw.ModifiedException;
+import com.basho.riak.client.raw.RiakResponse;
+import com.basho.riak.client.raw.StoreMeta;
+import com.basho.riak.client.util.CharsetUtils;
+
+/**
+ * An {@link HTTPClientAdapter} that sends fetch, store, delete and ping with
+ * the JDK's <code>java.net.http.HttpClient</code>, without blocking a thread
+ * per request. All other operations go through Apache HttpClient as before.
+ * 
+ * <p>
+ * Created by {@link HTTPRiakClientFactory} for an {@link HTTPClientConfig}
+ * with {@link HTTPClientConfig.Engine#JDK}. Requests use HTTP/1.1 and
+ * connections are kept alive and reused by the JDK client's own pool. At most
+ * {@link HTTPClientConfig#getMaxConnections()} requests (64 if unset) are in
+ * flight at once; requests over that limit wait in a queue and are sent as
+ * earlier ones complete, so callers are never blocked.
+ * </p>
+ * 
+ * <p>
+ * The JDK client's pool is tuned with system properties set when the JVM
+ * starts, e.g. <code>-Djdk.httpclient.keepalive.timeout=30</code> (seconds an
+ * idle connection is kept) and
+ * <code>-Djdk.httpclient.connectionPoolSize=64</code> (idle connections kept
+ * per host, unlimited by default). They are process wide, so this class
+ * leaves them alone.
+ * </p>
+ */
+public class JdkHttpClientAdapter extends HTTPClientAdapter implements AsyncRawClient {
+
+    private static final int DEFAULT_MAX_IN_FLIGHT = 64;
+
+    /**
+     * Headers the JDK client sets itself and refuses from callers.
+     */
+    private static final Set<String> RESTRICTED_HEADERS = new HashSet<>(Arrays.asList("connection",
+                                                                                      "content-length",
+                                                                                      "expect", "host",
+                                                                                      "upgrade"));
+
+    private final RiakClient client;
+    private final RiakConfig riakConfig;
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    private final Semaphore inFlight;
+    private final ConcurrentLinkedQueue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    // calls to startWaiting not yet looked at by the thread draining the queue
+    private final AtomicInteger drainCalls = new AtomicInteger();
+
+    /**
+     * @param config
+     *            the {@link HTTPClientConfig}, for the timeout and the limit
+     *            on requests in flight
+     * @param client
+     *            the {@link RiakClient} built from <code>config</code>, used
+     *            for everything else
+     */
+    public JdkHttpClientAdapter(HTTPClientConfig config, RiakClient client) {
+        super(client);
+        this.client = client;
+        this.riakConfig = client.getConfig();
+
+        Integer millis = config.getTimeout();
+        this.timeout = millis == null ? null : Duration.ofMillis(millis);
+
+        HttpClient.Builder builder = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1);
+        if (timeout != null) {
+            builder.connectTimeout(timeout);
+        }
+        this.httpClient = builder.build();
+
+        Integer maxConnections = config.getMaxConnections();
+        this.inFlight = new Semaphore(maxConnections == null ? DEFAULT_MAX_IN_FLIGHT : maxConnections);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.basho.riak.client.raw.AsyncRawClient#fetchAsync(java.lang.String,
+     * java.lang.String, com.basho.riak.client.raw.FetchMeta)
+     */
+    public CompletableFuture<RiakResponse> fetchAsync(final String bucket, final String key, FetchMeta fetchMeta) {
+        validate(bucket, key);
+        RequestMeta rm = fetchMeta == null ? new RequestMeta() : convert(fetchMeta);
+        setAcceptHeader(rm);
+
+        HttpGet get = new HttpGet(ClientUtils.makeURI(riakConfig, bucket, key));
+        return send(bucket, key, get, rm).thenApply(r -> handleBodyResponse(new FetchResponse(r, client)));
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.basho.riak.client.raw.AsyncRawClient#storeAsync(com.basho.riak.client
+     * .IRiakObject, com.basho.riak.client.raw.StoreMeta)
+     */
+    public CompletableFuture<RiakResponse> storeAsync(IRiakObject object, StoreMeta storeMeta) {
+        if (object == null || object.getBucket() == null) {
+            throw new IllegalArgumentException("cannot store a null RiakObject, or a RiakObject without a bucket");
+        }
+        final StoreMeta meta = storeMeta == null ? StoreMeta.empty() : storeMeta;
+
+        com.basho.riak.client.http.RiakObject riakObject = convert(object, client);
+        RequestMeta rm = convert(meta);
+        if (rm.getQueryParam(Constants.QP_RETURN_BODY) == null) {
+            rm.setQueryParam(Constants.QP_RETURN_BODY, "true");
+        }
+        if (rm.getClientId() == null) {
+            rm.setClientId(ClientUtils.encodeClientId(client.getClientId()));
+        }
+        setAcceptHeader(rm);
+
+        final String bucket = object.getBucket();
+        String key = object.getKey();
+        String url = ClientUtils.makeURI(riakConfig, bucket, key);
+        HttpRequestBase storeMethod = key == null ? new HttpPost(url) : new HttpPut(url);
+        riakObject.writeToHttpMethod(storeMethod);
+
+        return send(bucket, key, storeMethod, rm).thenCompose(r -> {
+            StoreResponse resp = new StoreResponse(new FetchResponse(r, client));
+
+            if (!resp.isSuccess()) {
+                if (resp.getStatusCode() == HttpStatus.SC_PRECONDITION_FAILED) {
+                    if (meta.hasIfNoneMatch() && meta.getIfNoneMatch()) {
+                        return failed(new MatchFoundException());
+                    } else if (meta.hasIfNotModified() && meta.getIfNotModified()) {
+                        return failed(new ModifiedException());
+                    }
+                }
+                return failed(new IOException(resp.getStatusCode() + " " + resp.getBodyAsString()));
+            }
+
+            if (meta.hasReturnBody() && meta.getReturnBody()) {
+                return CompletableFuture.completedFuture(handleBodyResponse(resp));
+            } else if (meta.hasReturnHead() && meta.getReturnHead()) {
+                // fake a returnHead by doing a head fetch now
+                return headAsync(bucket, r.getKey());
+            }
+            return CompletableFuture.completedFuture(RiakResponse.empty());
+        });
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.basho.riak.client.raw.AsyncRawClient#deleteAsync(java.lang.String,
+     * java.lang.String, com.basho.riak.client.raw.DeleteMeta)
+     */
+    public CompletableFuture<Void> deleteAsync(String bucket, String key, DeleteMeta deleteMeta) {
+        HttpDelete delete = new HttpDelete(ClientUtils.makeURI(riakConfig, bucket, key));
+        return send(bucket, key, delete, convert(deleteMeta)).thenCompose(r -> {
+            if (!r.isSuccess()) {
+                return failed(new IOException(r.getBodyAsString()));
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Same as {@link RiakClient#fetchMeta(String, String)}: a HEAD, followed
+     * by a full fetch if there are siblings.
+     */
+    private CompletableFuture<RiakResponse> headAsync(final String bucket, final String key) {
+        final RequestMeta rm = new RequestMeta();
+        setAcceptHeader(rm);
+
+        HttpHead head = new HttpHead(ClientUtils.makeURI(riakConfig, bucket, key));
+        return send(bucket, key, head, rm).thenCompose(r -> {
+            if (r.getStatusCode() == HttpStatus.SC_MULTIPLE_CHOICES) {
+                return fetchAsync(bucket, key, null);
+            }
+            return CompletableFuture.completedFuture(handleBodyResponse(new FetchResponse(r, client)));
+        });
+    }
+
+    @Override public RiakResponse fetch(String bucket, String key) throws IOException {
+        return await(fetchAsync(bucket, key, null));
+    }
+
+    @Override public RiakResponse fetch(String bucket, String key, int readQuorum) throws IOException {
+        return await(fetchAsync(bucket, key, FetchMeta.withR(readQuorum)));
+    }
+
+    @Override public RiakResponse fetch(String bucket, String key, FetchMeta fetchMeta) throws IOException {
+        return await(fetchAsync(bucket, key, fetchMeta));
+    }
+
+    @Override public RiakResponse store(IRiakObject object, StoreMeta storeMeta) throws IOException {
+        return await(storeAsync(object, storeMeta));
+    }
+
+    @Override public void delete(String bucket, String key) throws IOException {
+        await(deleteAsync(bucket, key, null));
+    }
+
+    @Override public void delete(String bucket, String key, int deleteQuorum) throws IOException {
+        await(deleteAsync(bucket, key, new DeleteMeta(null, null, null, null, null, deleteQuorum, null, null)));
+    }
+
+    @Override public void delete(String bucket, String key, DeleteMeta deleteMeta) throws IOException {
+        await(deleteAsync(bucket, key, deleteMeta));
+    }
+
+    @Override public void ping() throws IOException {
+        HttpResponse resp = await(send(null, null, new HttpGet(riakConfig.getPingUrl()), null));
+
+        if (!resp.isSuccess()) {
+            throw new IOException(resp.getBodyAsString());
+        }
+    }
+
+    /**
+     * Send <code>method</code> once there is room under the in flight limit.
+     * 
+     * @return the response as the blocking client would have built it
+     */
+    private CompletableFuture<HttpResponse> send(final String bucket, final String key,
+                                                 final HttpRequestBase method, final RequestMeta meta) {
+        return limit(() -> {
+            final HttpRequest request;
+            try {
+                request = toRequest(method, meta);
+            } catch (IOException e) {
+                return failed(e);
+            }
+            return httpClient.sendAsync(request, BodyHandlers.ofByteArray())
+                .thenApply(r -> toResponse(bucket, key, method, r));
+        });
+    }
+
+    private <T> CompletableFuture<T> limit(final Supplier<CompletableFuture<T>> call) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<T> f;
+            try {
+                f = call.get();
+            } catch (RuntimeException e) {
+                f = failed(e);
+            }
+            f.whenComplete((value, error) -> {
+                inFlight.release();
+                startWaiting();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+
+        if (inFlight.tryAcquire()) {
+            start.run();
+        } else {
+            waiting.add(start);
+            startWaiting();
+        }
+        return result;
+    }
+
+    /**
+     * Start queued requests while there are permits. Called after queueing
+     * as well as after a completion, so a request queued just as the last
+     * permit came back is not stranded.
+     * 
+     * <p>
+     * One thread drains at a time. A request that completes as it starts
+     * (e.g. it could not be built) calls back in here from
+     * <code>next.run()</code>; that call, like one from any other thread
+     * while the queue is being drained, only counts itself in
+     * <code>drainCalls</code> and the draining thread goes round again,
+     * rather than recursing once per queued request.
+     * </p>
+     */
+    private void startWaiting() {
+        if (drainCalls.getAndIncrement() != 0) {
+            return;
+        }
+        int calls = 1;
+        do {
+            while (!waiting.isEmpty() && inFlight.tryAcquire()) {
+                Runnable next = waiting.poll();
+                if (next == null) {
+                    inFlight.release();
+                } else {
+                    next.run();
+                }
+            }
+            calls = drainCalls.addAndGet(-calls);
+        } while (calls != 0);
+    }
+
+    private HttpRequest toRequest(HttpRequestBase method, RequestMeta meta) throws IOException {
+        URI uri = method.getURI();
+        if (meta != null) {
+            Map<String, String> queryParams = meta.getQueryParamMap();
+            if (!queryParams.isEmpty()) {
+                List<BasicNameValuePair> query = new ArrayList<>(queryParams.size());
+                for (Map.Entry<String, String> qp : queryParams.entrySet()) {
+                    query.add(new BasicNameValuePair(qp.getKey(), qp.getValue()));
+                }
+                String encoded = URLEncodedUtils.format(query, CharsetUtils.UTF_8.name());
+                uri = URI.create(uri.toString() + (uri.getRawQuery() == null ? "?" : "&") + encoded);
+            }
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri);
+        if (timeout != null) {
+            builder.timeout(timeout);
+        }
+        for (Header header : method.getAllHeaders()) {
+            addHeader(builder, header.getName(), header.getValue());
+        }
+        if (meta != null) {
+            for (Map.Entry<String, String> header : meta.getHeaders().entrySet()) {
+                addHeader(builder, header.getKey(), header.getValue());
+            }
+        }
+
+        BodyPublisher body = BodyPublishers.noBody();
+        if (method instanceof HttpEntityEnclosingRequestBase) {
+            HttpEntity entity = ((HttpEntityEnclosingRequestBase) method).getEntity();
+            if (entity != null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                entity.writeTo(out);
+                body = BodyPublishers.ofByteArray(out.toByteArray());
+                if (entity.getContentType() != null) {
+                    addHeader(builder, entity.getContentType().getName(), entity.getContentType().getValue());
+                }
+                if (entity.getContentEncoding() != null) {
+                    addHeader(builder, entity.getContentEncoding().getName(),
+                              entity.getContentEncoding().getValue());
+                }
+            }
+        }
+        return builder.method(method.getMethod(), body).build();
+    }
+
+    private static void addHeader(HttpRequest.Builder builder, String name, String value) {
+        if (value != null && !RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+            builder.header(name, value);
+        }
+    }
+
+    private static HttpResponse toResponse(String bucket, String key, HttpRequestBase method,
+                                           java.net.http.HttpResponse<byte[]> response) {
+        Map<String, String> headers = new HashMap<>();
+        for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+            headers.put(header.getKey().toLowerCase(), String.join(", ", header.getValue()));
+        }
+
+        if (key == null) {
+            String location = headers.get(Constants.HDR_LOCATION);
+            if (location != null) {
+                key = location.substring(location.lastIndexOf('/') + 1);
+            }
+        }
+        return new DefaultHttpResponse(bucket, key, response.statusCode(), headers, response.body(), null, null,
+                                       method);
+    }
+
+    /**
+     * Ensure that Accept includes multipart/mixed so that siblings can be
+     * parsed, as {@link RiakClient} does.
+     */
+    private static void setAcceptHeader(RequestMeta meta) {
+        String accept = meta.getHeader(Constants.HDR_ACCEPT);
+        if (accept == null) {
+            meta.setHeader(Constants.HDR_ACCEPT, Constants.CTYPE_ANY + ", " + Constants.CTYPE_MULTIPART_MIXED);
+        } else {
+            meta.setHeader(Constants.HDR_ACCEPT, accept + ", " + Constants.CTYPE_MULTIPART_MIXED);
+        }
+    }
+
+    private static void validate(String bucket, String key) {
+        if (bucket == null || bucket.trim().equals("")) {
+            throw new IllegalArgumentException(
+                                               "bucket must not be null and bucket.getName() must not be null or empty "
+                                                       + "or just whitespace.");
+        }
+
+        if (key == null || key.trim().equals("")) {
+            throw new IllegalArgumentException("Key cannot be null or empty or just whitespace");
+        }
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable t) {
+        CompletableFuture<T> f = new CompletableFuture<>();
+        f.completeExceptionally(t);
+        return f;
+    }
+
+    /**
+     * Wait for <code>future</code>, rethrowing what the blocking call would
+     * have thrown.
+     */
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
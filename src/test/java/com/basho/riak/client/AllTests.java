@@ -26,13 +26,19 @@ import org.junit.runner.notification.RunListener;
 import org.junit.runners.Suite;
 
 import com.basho.riak.client.bucket.Bucket;
+import com.basho.riak.client.bucket.BucketPropertiesCacheTest;
 import com.basho.riak.client.bucket.LazyBucketPropertiesTest;
 import com.basho.riak.client.bucket.WriteBucketTest;
 import com.basho.riak.client.cap.ClobberMutationTest;
+import com.basho.riak.client.cap.DeadlineTest;
 import com.basho.riak.client.cap.QuoraTest;
+import com.basho.riak.client.compress.CompressionTest;
+import com.basho.riak.client.convert.BinaryConverterTest;
+import com.basho.riak.client.convert.CachingJSONConverterTest;
 import com.basho.riak.client.convert.ConversionUtilTest;
 import com.basho.riak.client.convert.RiakBeanSerializerModifierTest;
 import com.basho.riak.client.convert.RiakJacksonModuleTest;
+import com.basho.riak.client.convert.reflect.AccessorsTest;
 import com.basho.riak.client.http.TestRiakBucketInfo;
 import com.basho.riak.client.http.TestRiakClient;
 import com.basho.riak.client.http.TestRiakConfig;
@@ -59,6 +65,7 @@ import com.basho.riak.client.http.response.TestStoreResponse;
 import com.basho.riak.client.http.response.TestStreamedKeysCollection;
 import com.basho.riak.client.http.response.TestStreamedSiblingsCollection;
 import com.basho.riak.client.http.response.TestWalkResponse;
+import com.basho.riak.client.http.util.RequestTemplatesTest;
 import com.basho.riak.client.http.util.TestBranchableInputStream;
 import com.basho.riak.client.http.util.TestClientHelper;
 import com.basho.riak.client.http.util.TestClientUtils;
@@ -83,23 +90,43 @@ import com.basho.riak.client.itest.ITestHTTPTombstone;
 import com.basho.riak.client.itest.ITestPBMultiFetch;
 import com.basho.riak.client.operations.DeleteObjectTest;
 import com.basho.riak.client.operations.FetchObjectTest;
+import com.basho.riak.client.operations.MultiFetchObjectTest;
 import com.basho.riak.client.operations.StoreObjectTest;
 import com.basho.riak.client.query.BuckeyKeyMapReduceTest;
+import com.basho.riak.client.query.PreparedMapReduceTest;
+import com.basho.riak.client.query.StreamingReduceTest;
+import com.basho.riak.client.query.filter.CompiledKeyFilterTest;
 import com.basho.riak.client.query.filter.LogicalAndFilterTest;
 import com.basho.riak.client.query.serialize.FunctionToJsonTest;
+import com.basho.riak.client.raw.ClusterClientMembershipTest;
 import com.basho.riak.client.raw.ClusterClientTest;
+import com.basho.riak.client.raw.ClusterClientZoneTest;
+import com.basho.riak.client.raw.breaker.CircuitBreakerTest;
 import com.basho.riak.client.raw.RawClient;
+import com.basho.riak.client.raw.WriteBehindStoreTest;
 import com.basho.riak.client.raw.config.ClusterConfigTest;
 import com.basho.riak.client.raw.http.HTTPRiakClientFactoryTest;
+import com.basho.riak.client.raw.http.JdkHttpClientAdapterTest;
 import com.basho.riak.client.raw.http.NamedErlangFunctionDeserializerTest;
 import com.basho.riak.client.raw.http.QuorumDeserializerTest;
+import com.basho.riak.client.raw.http.StreamingValueTest;
 import com.basho.riak.client.raw.http.TestKeySource;
+import com.basho.riak.client.raw.largeobject.LargeObjectStoreTest;
+import com.basho.riak.client.raw.pbc.FetchPathAllocationTest;
 import com.basho.riak.client.raw.itest.ITestHTTPClientAdapter;
 import com.basho.riak.client.raw.itest.ITestPBClientAdapter;
+import com.basho.riak.client.raw.query.ParallelLinkWalkerTest;
 import com.basho.riak.client.raw.query.indexes.IndexQueryEqualsHashCodeTest;
+import com.basho.riak.client.raw.scan.BucketScanTest;
+import com.basho.riak.client.raw.stats.StatsCollectorTest;
 import com.basho.riak.client.util.CharsetUtilsTest;
+import com.basho.riak.client.util.HashedWheelTimerTest;
+import com.basho.riak.client.util.RiakThreadsTest;
 import com.basho.riak.client.util.UnmodifiableIteratorTest;
 import com.basho.riak.pbc.RiakObjectTest;
+import com.basho.riak.pbc.RiakConnectionPoolClientIdTest;
+import com.basho.riak.pbc.RiakConnectionPoolDeadlineTest;
+import com.basho.riak.pbc.RiakConnectionPoolMaintenanceTest;
 import com.basho.riak.pbc.TestBucketProperties;
 import com.basho.riak.pbc.itest.ITestRiakConnectionPool;
 
@@ -108,16 +135,30 @@ import com.basho.riak.pbc.itest.ITestRiakConnectionPool;
  *
  */
 @RunWith(Suite.class)
-@Suite.SuiteClasses({BuckeyKeyMapReduceTest.class,
+@Suite.SuiteClasses({AccessorsTest.class,
+    BuckeyKeyMapReduceTest.class,
+    BinaryConverterTest.class,
+    BucketPropertiesCacheTest.class,
+    BucketScanTest.class,
+    CachingJSONConverterTest.class,
     CharsetUtilsTest.class,
     ClobberMutationTest.class,
+    CompiledKeyFilterTest.class,
+    CompressionTest.class,
+    CircuitBreakerTest.class,
+    ClusterClientMembershipTest.class,
     ClusterClientTest.class,
+    ClusterClientZoneTest.class,
     ClusterConfigTest.class,
     ConversionUtilTest.class,
     com.basho.riak.client.raw.http.ConversionUtilTest.class,
+    DeadlineTest.class,
     DeleteObjectTest.class,
     FetchObjectTest.class,
+    MultiFetchObjectTest.class,
     FunctionToJsonTest.class,
+    HashedWheelTimerTest.class,
+    RiakThreadsTest.class,
     HTTPRiakClientFactoryTest.class,
     ITestBasic.class,
     com.basho.riak.pbc.itest.ITestBasic.class,
@@ -151,16 +192,28 @@ import com.basho.riak.pbc.itest.ITestRiakConnectionPool;
     ITestStreaming.class,
     ITestWalk.class,
     IndexQueryEqualsHashCodeTest.class,
+    JdkHttpClientAdapterTest.class,
+    LargeObjectStoreTest.class,
+    FetchPathAllocationTest.class,
     LogicalAndFilterTest.class,
     NamedErlangFunctionDeserializerTest.class,
+    ParallelLinkWalkerTest.class,
+    PreparedMapReduceTest.class,
     QuoraTest.class,
     QuorumDeserializerTest.class,
+    RequestTemplatesTest.class,
     RiakBeanSerializerModifierTest.class,
     RiakFactoryTest.class,
     RiakJacksonModuleTest.class,
     RiakObjectTest.class,
+    StatsCollectorTest.class,
     StoreObjectTest.class,
+    StreamingReduceTest.class,
+    StreamingValueTest.class,
     TestBranchableInputStream.class,
+    RiakConnectionPoolClientIdTest.class,
+    RiakConnectionPoolDeadlineTest.class,
+    RiakConnectionPoolMaintenanceTest.class,
     TestBucketProperties.class,
     TestBucketResponse.class,
     TestClientHelper.class,
@@ -195,6 +248,7 @@ import com.basho.riak.pbc.itest.ITestRiakConnectionPool;
     TestStreamedSiblingsCollection.class,
     TestWalkResponse.class,
     UnmodifiableIteratorTest.class,
+    WriteBehindStoreTest.class,
     WriteBucketTest.class,
     LazyBucketPropertiesTest.class,
     com.basho.riak.client.itest.ITestMapReduceHTTP.class,
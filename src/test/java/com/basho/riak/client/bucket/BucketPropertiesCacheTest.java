@@ -0,0 +1,181 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.bucket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.basho.riak.client.RiakRetryFailedException;
+import com.basho.riak.client.builders.BucketPropertiesBuilder;
+import com.basho.riak.client.cap.DefaultRetrier;
+import com.basho.riak.client.cap.Retrier;
+import com.basho.riak.test.util.StubRawClient;
+
+public class BucketPropertiesCacheTest {
+
+    private static final Retrier RETRIER = DefaultRetrier.attempts(1);
+
+    private static class CountingClient extends StubRawClient {
+        final AtomicInteger fetches = new AtomicInteger();
+        final AtomicInteger updates = new AtomicInteger();
+        volatile CountDownLatch gate;
+        volatile boolean fail;
+
+        @Override public BucketProperties fetchBucket(String bucketName) throws IOException {
+            fetches.incrementAndGet();
+            if (gate != null) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            if (fail) {
+                throw new IOException("down");
+            }
+            return new BucketPropertiesBuilder().nVal(fetches.get()).build();
+        }
+
+        @Override public void updateBucket(String name, BucketProperties bucketProperties) throws IOException {
+            updates.incrementAndGet();
+        }
+    }
+
+    @Test public void hitsAfterFirstFetch() throws Exception {
+        CountingClient client = new CountingClient();
+        BucketPropertiesCache cache = new BucketPropertiesCache.Builder().build();
+
+        BucketProperties first = cache.get(client, RETRIER, "b");
+        assertSame(first, cache.get(client, RETRIER, "b"));
+        assertEquals(1, client.fetches.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        cache.invalidate("b");
+        assertEquals(Integer.valueOf(2), cache.get(client, RETRIER, "b").getNVal());
+    }
+
+    @Test public void expiredEntriesAreRefetched() throws Exception {
+        CountingClient client = new CountingClient();
+        BucketPropertiesCache cache = new BucketPropertiesCache.Builder().ttl(1, TimeUnit.MILLISECONDS).build();
+
+        cache.get(client, RETRIER, "b");
+        Thread.sleep(5);
+        cache.get(client, RETRIER, "b");
+        assertEquals(2, client.fetches.get());
+    }
+
+    @Test public void concurrentMissesShareOneFetch() throws Exception {
+        final CountingClient client = new CountingClient();
+        client.gate = new CountDownLatch(1);
+        final BucketPropertiesCache cache = new BucketPropertiesCache.Builder().build();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Callable<BucketProperties> get = () -> cache.get(client, RETRIER, "b");
+            Future<BucketProperties> a = pool.submit(get);
+            Future<BucketProperties> b = pool.submit(get);
+            Future<BucketProperties> c = pool.submit(get);
+            Thread.sleep(50);
+            client.gate.countDown();
+            assertSame(a.get(), b.get());
+            assertSame(a.get(), c.get());
+            assertEquals(1, client.fetches.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test public void interruptedWaiterKeepsItsInterrupt() throws Exception {
+        final CountingClient client = new CountingClient();
+        client.gate = new CountDownLatch(1);
+        final BucketPropertiesCache cache = new BucketPropertiesCache.Builder().build();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<BucketProperties> fetching = pool.submit(() -> cache.get(client, RETRIER, "b"));
+            while (client.fetches.get() == 0) {
+                Thread.sleep(5);
+            }
+            Thread.currentThread().interrupt();
+            try {
+                cache.get(client, RETRIER, "b");
+                fail("expected RiakRetryFailedException");
+            } catch (RiakRetryFailedException e) {
+                assertTrue(e.getCause() instanceof InterruptedException);
+            }
+            assertTrue(Thread.interrupted());
+            client.gate.countDown();
+            fetching.get();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test public void failuresAreNotCached() throws Exception {
+        CountingClient client = new CountingClient();
+        BucketPropertiesCache cache = new BucketPropertiesCache.Builder().build();
+        client.fail = true;
+        try {
+            cache.get(client, RETRIER, "b");
+            fail("expected RiakRetryFailedException");
+        } catch (RiakRetryFailedException e) {
+            // NO-OP
+        }
+        assertEquals(0, cache.size());
+        client.fail = false;
+        cache.get(client, RETRIER, "b");
+        assertEquals(1, cache.size());
+    }
+
+    @Test public void evictsWhenFull() throws Exception {
+        CountingClient client = new CountingClient();
+        BucketPropertiesCache cache = new BucketPropertiesCache.Builder().maxBuckets(2).build();
+        cache.get(client, RETRIER, "a");
+        cache.get(client, RETRIER, "b");
+        cache.get(client, RETRIER, "c");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test public void operationsReadThroughAndWriteInvalidates() throws Exception {
+        CountingClient client = new CountingClient();
+        BucketPropertiesCache cache = new BucketPropertiesCache.Builder().build();
+
+        new FetchBucket(client, "b", RETRIER).withCache(cache).execute();
+        Bucket bucket = new FetchBucket(client, "b", RETRIER).withCache(cache).execute();
+        assertEquals(1, client.fetches.get());
+        assertEquals(Integer.valueOf(1), bucket.getNVal());
+
+        Bucket written = new WriteBucket(client, "b", RETRIER).withCache(cache).nVal(5).execute();
+        assertEquals(1, client.updates.get());
+        assertEquals(2, client.fetches.get());
+        assertEquals(Integer.valueOf(2), written.getNVal());
+
+        Bucket lazy = new FetchBucket(client, "b", RETRIER).withCache(cache).lazyLoadBucketProperties().execute();
+        assertEquals(Integer.valueOf(2), lazy.getNVal());
+        assertEquals(2, client.fetches.get());
+    }
+}
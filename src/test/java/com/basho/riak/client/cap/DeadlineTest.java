@@ -0,0 +1,127 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.cap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.basho.riak.client.operations.FetchObject;
+import com.basho.riak.client.raw.FetchMeta;
+import com.basho.riak.client.raw.RiakResponse;
+import com.basho.riak.test.util.StubRawClient;
+
+public class DeadlineTest {
+
+    @Test public void bindKeepsTheEarlierDeadline() {
+        Deadline soon = Deadline.in(1, TimeUnit.SECONDS);
+        Deadline later = Deadline.in(1, TimeUnit.MINUTES);
+
+        assertNull(Deadline.current());
+        try (Deadline.Scope outer = Deadline.bind(later)) {
+            assertSame(later, Deadline.current());
+            try (Deadline.Scope inner = Deadline.bind(soon)) {
+                assertSame(soon, Deadline.current());
+                try (Deadline.Scope ignored = Deadline.bind(later)) {
+                    assertSame(soon, Deadline.current());
+                }
+                assertSame(soon, Deadline.current());
+            }
+            assertSame(later, Deadline.current());
+        }
+        assertNull(Deadline.current());
+    }
+
+    @Test public void capTimeoutUsesTheSmaller() {
+        assertNull(Deadline.capTimeout(null));
+        assertEquals(Integer.valueOf(5000), Deadline.capTimeout(5000));
+        try (Deadline.Scope scope = Deadline.bind(Deadline.in(200, TimeUnit.MILLISECONDS))) {
+            assertEquals(Integer.valueOf(50), Deadline.capTimeout(50));
+            assertTrue(Deadline.capTimeout(5000) <= 200);
+            assertTrue(Deadline.capTimeout(null) <= 200);
+        }
+    }
+
+    @Test public void expiredDeadlineFailsBeforeSending() {
+        try (Deadline.Scope scope = Deadline.bind(Deadline.in(-1, TimeUnit.MILLISECONDS))) {
+            Deadline.capTimeout(100);
+            fail("expected DeadlineExceededException");
+        } catch (DeadlineExceededException e) {
+            // NO-OP
+        }
+    }
+
+    @Test public void retrierStopsAtTheDeadline() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        try (Deadline.Scope scope = Deadline.bind(Deadline.in(100, TimeUnit.MILLISECONDS))) {
+            DefaultRetrier.attempts(1000).attempt(() -> {
+                calls.incrementAndGet();
+                Thread.sleep(30);
+                throw new IOException("down");
+            });
+            fail("expected DeadlineExceededException");
+        } catch (DeadlineExceededException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertTrue(calls.get() <= 5);
+    }
+
+    @Test public void retrierWithoutDeadlineStillRetries() {
+        final AtomicInteger calls = new AtomicInteger();
+        try {
+            DefaultRetrier.attempts(2).attempt(() -> {
+                calls.incrementAndGet();
+                throw new IOException("down");
+            });
+            fail("expected RiakRetryFailedException");
+        } catch (Exception e) {
+            assertTrue(e.getClass().getName(), e instanceof com.basho.riak.client.RiakRetryFailedException);
+        }
+        assertEquals(3, calls.get());
+    }
+
+    @Test public void fetchObjectHonoursItsDeadline() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        StubRawClient slow = new StubRawClient() {
+            @Override public RiakResponse fetch(String bucket, String key, FetchMeta fetchMeta) throws IOException {
+                calls.incrementAndGet();
+                try {
+                    Thread.sleep(40);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                throw new IOException("timeout");
+            }
+        };
+        long start = System.nanoTime();
+        try {
+            new FetchObject<Object>(slow, "b", "k", DefaultRetrier.attempts(100))
+                .withDeadline(Deadline.in(100, TimeUnit.MILLISECONDS)).execute();
+            fail("expected DeadlineExceededException");
+        } catch (DeadlineExceededException e) {
+            // NO-OP
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertTrue(calls.get() < 5);
+        assertNull(Deadline.current());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.compress;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.builders.RiakObjectBuilder;
+import com.basho.riak.client.util.CharsetUtils;
+
+/**
+ * Codecs and the {@link Compression} policy
+ */
+public class CompressionTest {
+
+    private static final ValueCodec[] CODECS = { ValueCodecs.GZIP, ValueCodecs.DEFLATE, ValueCodecs.LZ4 };
+
+    @Test public void codecsRoundTrip() throws IOException {
+        Random random = new Random(42);
+        for (byte[] value : values(random)) {
+            for (ValueCodec codec : CODECS) {
+                assertArrayEquals(codec.getEncoding() + " " + value.length, value,
+                                  codec.decode(codec.encode(value)));
+            }
+        }
+    }
+
+    @Test public void lz4Compresses() throws IOException {
+        byte[] json = CharsetUtils.utf8StringToBytes(repeat("{\"name\":\"value\",\"count\":12345},", 500));
+        byte[] encoded = ValueCodecs.LZ4.encode(json);
+
+        assertTrue(encoded.length < json.length / 4);
+    }
+
+    @Test public void lz4RejectsCorruptValues() throws IOException {
+        byte[] encoded = ValueCodecs.LZ4.encode(CharsetUtils.utf8StringToBytes(repeat("abcdefgh", 100)));
+
+        expectIOException(Arrays.copyOf(encoded, encoded.length - 3));
+        byte[] badLength = encoded.clone();
+        badLength[3]++;
+        expectIOException(badLength);
+        expectIOException(new byte[] { 0x7f, 0, 0, 0, 0 });
+    }
+
+    @Test public void lookupIsCaseInsensitive() {
+        assertSame(ValueCodecs.GZIP, ValueCodecs.forEncoding(" GZip "));
+        assertNull(ValueCodecs.forEncoding(null));
+        assertNull(ValueCodecs.forEncoding("identity"));
+        assertNull(ValueCodecs.tryDecode("gzip", new byte[] { 1, 2, 3 }));
+    }
+
+    @Test public void compressesOverThreshold() throws IOException {
+        Compression compression = new Compression(ValueCodecs.LZ4, 100);
+        IRiakObject small = object(new byte[99]);
+        IRiakObject large = object(new byte[100]);
+
+        assertSame(small, compression.compress(small));
+
+        IRiakObject compressed = compression.compress(large);
+        assertEquals(LZ4Codec.ENCODING, compressed.getContentEncoding());
+        assertEquals(large.getKey(), compressed.getKey());
+        assertEquals(large.getContentType(), compressed.getContentType());
+        assertEquals("v", compressed.getUsermeta("m"));
+        assertArrayEquals(new byte[100], ValueCodecs.LZ4.decode(compressed.getValue()));
+
+        // already encoded
+        assertSame(compressed, compression.compress(compressed));
+    }
+
+    @Test public void incompressibleValuesAreLeftAlone() throws IOException {
+        byte[] noise = new byte[2048];
+        new Random(7).nextBytes(noise);
+        IRiakObject o = object(noise);
+
+        assertSame(o, Compression.gzip().compress(o));
+    }
+
+    private static IRiakObject object(byte[] value) {
+        return RiakObjectBuilder.newBuilder("b", "k").withValue(value).withContentType("application/json")
+            .addUsermeta("m", "v").build();
+    }
+
+    private static byte[][] values(Random random) {
+        byte[] noise = new byte[70000];
+        random.nextBytes(noise);
+        byte[] runs = new byte[100000];
+        for (int i = 0; i < runs.length; i++) {
+            runs[i] = (byte) ((i / 300) % 7);
+        }
+        byte[] text = CharsetUtils.utf8StringToBytes(repeat("the quick brown fox jumps over the lazy dog ", 2000));
+        return new byte[][] { new byte[0], new byte[] { 1 }, new byte[12], new byte[13], new byte[20], noise, runs,
+                             text };
+    }
+
+    private static void expectIOException(byte[] corrupt) {
+        try {
+            ValueCodecs.LZ4.decode(corrupt);
+            fail("expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static String repeat(String s, int n) {
+        StringBuilder sb = new StringBuilder(s.length() * n);
+        for (int i = 0; i < n; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+}
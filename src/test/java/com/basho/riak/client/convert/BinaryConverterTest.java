@@ -0,0 +1,119 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.convert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.builders.RiakObjectBuilder;
+import com.basho.riak.client.convert.CachingJSONConverterTest.Item;
+import com.basho.riak.client.http.util.Constants;
+import com.basho.riak.protobuf.RiakKvPB.RpbGetReq;
+import com.google.protobuf.ByteString;
+
+/**
+ * Smile, CBOR and protocol buffers converters, and reading across formats
+ */
+public class BinaryConverterTest {
+
+    private final JSONConverter<Item> json = new JSONConverter<>(Item.class);
+    private final SmileConverter<Item> smile = new SmileConverter<>(Item.class);
+    private final CBORConverter<Item> cbor = new CBORConverter<>(Item.class);
+
+    @Test public void smileRoundTrip() throws Exception {
+        IRiakObject o = smile.fromDomain("b", new Item("key", "a value", 7), null);
+
+        assertEquals(Constants.CTYPE_SMILE, o.getContentType());
+        assertEquals(':', o.getValue()[0]); // Smile header ":)\n"
+        assertItem(smile.toDomain(o));
+    }
+
+    @Test public void cborRoundTrip() throws Exception {
+        IRiakObject o = cbor.fromDomain("b", new Item("key", "a value", 7), null);
+
+        assertEquals(Constants.CTYPE_CBOR, o.getContentType());
+        assertItem(cbor.toDomain(o));
+    }
+
+    @Test public void readsDetectStoredFormat() throws Exception {
+        Item item = new Item("key", "a value", 7);
+        IRiakObject fromJson = json.fromDomain("b", item, null);
+        IRiakObject fromSmile = smile.fromDomain("b", item, null);
+        IRiakObject fromCbor = cbor.fromDomain("b", item, null);
+
+        assertTrue(fromSmile.getValue().length < fromJson.getValue().length);
+        assertTrue(fromCbor.getValue().length < fromJson.getValue().length);
+
+        for (Converter<Item> reader : new Converter[] { json, smile, cbor }) {
+            assertItem(reader.toDomain(fromJson));
+            assertItem(reader.toDomain(fromSmile));
+            assertItem(reader.toDomain(fromCbor));
+        }
+    }
+
+    @Test public void contentTypeParametersAreIgnored() {
+        assertEquals(ObjectMapperSelector.SMILE_OBJECT_MAPPER,
+                     ObjectMapperSelector.mapperForContentType("Application/X-Jackson-Smile; v=1"));
+        assertEquals(ObjectMapperSelector.OBJECT_MAPPER, ObjectMapperSelector.mapperForContentType(null));
+        assertEquals(ObjectMapperSelector.OBJECT_MAPPER,
+                     ObjectMapperSelector.mapperForContentType(Constants.CTYPE_JSON_UTF8));
+    }
+
+    @Test public void protobufRoundTrip() throws Exception {
+        ProtobufConverter<RpbGetReq> converter = new ProtobufConverter<>(RpbGetReq.PARSER,
+                                                                         m -> m.getKey().toStringUtf8());
+        RpbGetReq message = RpbGetReq.newBuilder().setBucket(ByteString.copyFromUtf8("b"))
+            .setKey(ByteString.copyFromUtf8("k")).setR(2).build();
+
+        IRiakObject o = converter.fromDomain("b", message, null);
+
+        assertEquals("k", o.getKey());
+        assertEquals(Constants.CTYPE_PROTOBUF, o.getContentType());
+        assertEquals(message, converter.toDomain(o));
+    }
+
+    @Test public void protobufFallsBackForOtherContentTypes() throws Exception {
+        final RpbGetReq fromJson = RpbGetReq.newBuilder().setBucket(ByteString.copyFromUtf8("b"))
+            .setKey(ByteString.copyFromUtf8("legacy")).build();
+        Converter<RpbGetReq> legacy = new Converter<RpbGetReq>() {
+            public IRiakObject fromDomain(String bucket, RpbGetReq domainObject,
+                                          com.basho.riak.client.cap.VClock vclock) {
+                throw new UnsupportedOperationException();
+            }
+
+            public RpbGetReq toDomain(IRiakObject riakObject) {
+                return fromJson;
+            }
+        };
+        ProtobufConverter<RpbGetReq> converter = new ProtobufConverter<>(RpbGetReq.PARSER,
+                                                                         m -> m.getKey().toStringUtf8(), legacy);
+
+        IRiakObject old = RiakObjectBuilder.newBuilder("b", "legacy").withValue("{}")
+            .withContentType(Constants.CTYPE_JSON_UTF8).build();
+
+        assertEquals(fromJson, converter.toDomain(old));
+        assertNull(converter.toDomain(null));
+    }
+
+    private static void assertItem(Item back) {
+        assertEquals("key", back.key);
+        assertEquals("a value", back.value);
+        assertEquals(7, back.count);
+        assertEquals("owner-7", back.owner);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.convert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.http.util.Constants;
+
+/**
+ * {@link CachingJSONConverter} must produce exactly what {@link JSONConverter}
+ * does
+ */
+public class CachingJSONConverterTest {
+
+    private final JSONConverter<Item> plain = new JSONConverter<>(Item.class);
+    private final CachingJSONConverter<Item> caching = new CachingJSONConverter<>(Item.class);
+
+    @Test public void sameOutputAsJSONConverter() throws Exception {
+        for (int size : new int[] { 1, 10000, 3, 200000, 5 }) {
+            Item item = new Item("k" + size, repeat('x', size), size);
+
+            IRiakObject expected = plain.fromDomain("b", item, null);
+            IRiakObject actual = caching.fromDomain("b", item, null);
+
+            assertArrayEquals(expected.getValue(), actual.getValue());
+            assertEquals(expected.getKey(), actual.getKey());
+            assertEquals(Constants.CTYPE_JSON_UTF8, actual.getContentType());
+            assertEquals("owner-" + size, actual.getUsermeta("owner"));
+        }
+    }
+
+    @Test public void roundTrip() throws Exception {
+        Item item = new Item("key", "a value", 42);
+        Item back = caching.toDomain(caching.fromDomain("b", item, null));
+
+        assertEquals("key", back.key);
+        assertEquals("a value", back.value);
+        assertEquals(42, back.count);
+        assertEquals("owner-42", back.owner);
+    }
+
+    @Test public void afterburnerIsOptional() {
+        CachingJSONConverter<Item> c = new CachingJSONConverter<>(ObjectMapperSelector.DEFAULT_SELECTOR, Item.class,
+                                                                  true);
+        if (!CachingJSONConverter.isAfterburnerAvailable()) {
+            assertFalse(c.isAfterburner());
+        }
+    }
+
+    private static String repeat(char c, int n) {
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    public static class Item {
+        @RiakKey public String key;
+        @RiakUsermeta(key = "owner") public String owner;
+        public String value;
+        public int count;
+
+        public Item() {}
+
+        Item(String key, String value, int count) {
+            this.key = key;
+            this.value = value;
+            this.count = count;
+            this.owner = "owner-" + count;
+        }
+    }
+}
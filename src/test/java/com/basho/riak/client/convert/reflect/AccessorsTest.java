@@ -0,0 +1,130 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.convert.reflect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+/**
+ * Checks compiled and reflective {@link Accessor}s behave the same
+ */
+public class AccessorsTest {
+
+    @Test public void privateField() throws Exception {
+        Field f = ClassUtil.checkAndFixAccess(Bean.class.getDeclaredField("key"));
+        for (Accessor a : new Accessor[] { Accessors.forField(f), Accessors.reflective(f) }) {
+            Bean b = new Bean();
+            assertEquals("k", a.get(b));
+            a.set(b, "k2");
+            assertEquals("k2", a.get(b));
+        }
+    }
+
+    @Test public void primitiveField() throws Exception {
+        Field f = ClassUtil.checkAndFixAccess(Bean.class.getDeclaredField("deleted"));
+        Accessor a = Accessors.forField(f);
+        Bean b = new Bean();
+        assertEquals(Boolean.FALSE, a.get(b));
+        a.set(b, Boolean.TRUE);
+        assertEquals(Boolean.TRUE, a.get(b));
+    }
+
+    @Test public void publicMethods() throws Exception {
+        Method getter = Bean.class.getMethod("getName");
+        Method setter = Bean.class.getMethod("setName", String.class);
+        for (Accessor a : new Accessor[] { Accessors.forMethods(getter, setter),
+                                          Accessors.reflective(getter, setter) }) {
+            Bean b = new Bean();
+            assertNull(a.get(b));
+            a.set(b, "n");
+            assertEquals("n", a.get(b));
+        }
+    }
+
+    @Test public void privateMethods() throws Exception {
+        Method getter = ClassUtil.checkAndFixAccess(Bean.class.getDeclaredMethod("secret"));
+        Accessor a = Accessors.forMethods(getter, null);
+        Bean b = new Bean();
+        assertEquals("s", a.get(b));
+        // no setter, no-op
+        a.set(b, "ignored");
+        assertEquals("s", a.get(b));
+    }
+
+    @Test public void absentMembers() {
+        Accessor a = Accessors.forField(null);
+        assertNull(a.get(new Bean()));
+        a.set(new Bean(), "x");
+
+        a = Accessors.forMethods(null, null);
+        assertNull(a.get(new Bean()));
+    }
+
+    @Test(expected = IllegalStateException.class) public void failingGetterIsWrapped() throws Exception {
+        Method getter = ClassUtil.checkAndFixAccess(Bean.class.getDeclaredMethod("explode"));
+        Accessors.forMethods(getter, null).get(new Bean());
+    }
+
+    @Test public void failingPublicMethodsAreWrapped() throws Exception {
+        Method getter = Bean.class.getMethod("getBroken");
+        Method setter = Bean.class.getMethod("setName", String.class);
+        for (Accessor a : new Accessor[] { Accessors.forMethods(getter, setter),
+                                          Accessors.reflective(getter, setter) }) {
+            try {
+                a.get(new Bean());
+                fail("expected IllegalStateException");
+            } catch (IllegalStateException e) {
+                assertEquals("Unable to get Riak annotated method value", e.getMessage());
+            }
+            try {
+                a.set(new Bean(), 42);
+                fail("expected IllegalStateException");
+            } catch (IllegalStateException e) {
+                assertEquals("Unable to set Riak annotated method value", e.getMessage());
+            }
+        }
+    }
+
+    public static class Bean {
+        private String key = "k";
+        private boolean deleted;
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getBroken() {
+            throw new UnsupportedOperationException();
+        }
+
+        @SuppressWarnings("unused") private String secret() {
+            return "s";
+        }
+
+        @SuppressWarnings("unused") private String explode() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.http.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URLEncoder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.basho.riak.client.http.RiakConfig;
+
+public class RequestTemplatesTest {
+
+    @Test public void objectUriMatchesUrlEncoder() throws Exception {
+        RiakConfig config = new RiakConfig("http://localhost:8098/riak/");
+        String bucket = "my bucket/é";
+        String key = "k+1 ~x";
+
+        assertEquals("http://localhost:8098/riak/" + URLEncoder.encode(bucket, "UTF-8") + "/" +
+                     URLEncoder.encode(key, "UTF-8"), ClientUtils.makeURI(config, bucket, key));
+        assertEquals("http://localhost:8098/riak/" + URLEncoder.encode(bucket, "UTF-8"),
+                     ClientUtils.makeURI(config, bucket));
+        assertEquals("http://localhost:8098/riak/b/k_1.-*", ClientUtils.makeURI(config, "b", "k_1.-*"));
+    }
+
+    @Test public void unreservedStringsAreNotEncoded() {
+        String s = "Plain_key-1.2*";
+        assertTrue(RequestTemplates.isUnreserved(s));
+        assertSame(s, ClientUtils.urlEncode(s));
+        assertFalse(RequestTemplates.isUnreserved("a~b"));
+        assertEquals("a%7Eb", ClientUtils.urlEncode("a~b"));
+    }
+
+    @Test public void queryIsAppendedAfterExistingQuery() {
+        Map<String, String> params = new LinkedHashMap<String, String>();
+        params.put(Constants.QP_R, "2");
+        params.put("returnbody", "true");
+        params.put("odd name", "a&b=c");
+        params.put("flag", null);
+
+        assertEquals("http://h/riak/b/k?r=2&returnbody=true&odd+name=a%26b%3Dc&flag",
+                     RequestTemplates.withQuery("http://h/riak/b/k", params));
+        assertEquals("http://h/riak/b?keys=true&r=2&returnbody=true&odd+name=a%26b%3Dc&flag",
+                     RequestTemplates.withQuery("http://h/riak/b?keys=true", params));
+        assertEquals("http://h/riak/b", RequestTemplates.withQuery("http://h/riak/b",
+                                                                    new LinkedHashMap<String, String>()));
+    }
+
+    @Test public void headersAreShared() {
+        assertSame(RequestTemplates.sharedHeader("accept", "*/*"), RequestTemplates.sharedHeader("accept", "*/*"));
+        assertEquals("*/*", RequestTemplates.sharedHeader("accept", "*/*").getValue());
+        assertNull(RequestTemplates.sharedHeader("accept", "text/plain"));
+        assertNull(RequestTemplates.sharedHeader("x-riak-clientid", "abc"));
+    }
+
+    @Test public void onlyFixedParamsAreShared() {
+        assertSame(RequestTemplates.encodedParam("returnbody", "true"),
+                   RequestTemplates.encodedParam("returnbody", "true"));
+        assertEquals("timeout=123", RequestTemplates.encodedParam("timeout", "123"));
+        assertEquals("r=a%26b", RequestTemplates.encodedParam("r", "a&b"));
+    }
+}
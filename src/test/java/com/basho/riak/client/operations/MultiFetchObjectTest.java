@@ -0,0 +1,147 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.operations;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.builders.RiakObjectBuilder;
+import com.basho.riak.client.cap.DefaultResolver;
+import com.basho.riak.client.cap.DefaultRetrier;
+import com.basho.riak.client.convert.PassThroughConverter;
+import com.basho.riak.client.query.MultiFetchFuture;
+import com.basho.riak.client.raw.FetchMeta;
+import com.basho.riak.client.raw.RiakResponse;
+import com.basho.riak.client.util.RiakThreads;
+import com.basho.riak.test.util.StubRawClient;
+
+public class MultiFetchObjectTest {
+
+    private static final String BUCKET = "bucket";
+
+    @After public void poolThreads() {
+        if (RiakThreads.isVirtualThreadSupported()) {
+            MultiFetchObject.setVirtualThreads(false);
+        }
+    }
+
+    @Test public void fetchesEveryKey() throws Exception {
+        List<MultiFetchFuture<IRiakObject>> futures = multiFetch(new SlowClient(0), keys(20)).execute();
+
+        assertEquals(20, futures.size());
+        for (MultiFetchFuture<IRiakObject> f : futures) {
+            assertEquals(f.getKey(), f.get(5, TimeUnit.SECONDS).getKey());
+        }
+    }
+
+    @Test public void runsOnTheOperationsExecutor() throws Exception {
+        final AtomicInteger executed = new AtomicInteger();
+        Executor callerRuns = r -> {
+            executed.incrementAndGet();
+            r.run();
+        };
+
+        List<MultiFetchFuture<IRiakObject>> futures = multiFetch(new SlowClient(0), keys(3)).withExecutor(callerRuns)
+            .execute();
+
+        assertEquals(3, executed.get());
+        for (MultiFetchFuture<IRiakObject> f : futures) {
+            assertTrue(f.isDone());
+        }
+    }
+
+    @Test public void virtualThreadsNeedJava21() {
+        Assume.assumeTrue(!RiakThreads.isVirtualThreadSupported());
+        try {
+            MultiFetchObject.setVirtualThreads(true);
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            assertFalse(MultiFetchObject.isVirtualThreads());
+        }
+    }
+
+    /**
+     * 10,000 fetches that each block for 200ms all wait at once on virtual
+     * threads, rather than queueing for the few pooled threads.
+     */
+    @Test public void tenThousandConcurrentFetchesOnVirtualThreads() throws Exception {
+        Assume.assumeTrue(RiakThreads.isVirtualThreadSupported());
+        MultiFetchObject.setVirtualThreads(true);
+        assertTrue(MultiFetchObject.isVirtualThreads());
+
+        SlowClient client = new SlowClient(200);
+        List<MultiFetchFuture<IRiakObject>> futures = multiFetch(client, keys(10000)).execute();
+
+        for (MultiFetchFuture<IRiakObject> f : futures) {
+            assertEquals(f.getKey(), f.get(30, TimeUnit.SECONDS).getKey());
+        }
+        assertEquals(10000, client.fetches.get());
+        assertTrue("only " + client.maxConcurrent.get() + " fetches overlapped",
+                   client.maxConcurrent.get() > MultiFetchObject.DEFAULT_POOL_MAX_SIZE * 10);
+    }
+
+    private static MultiFetchObject<IRiakObject> multiFetch(StubRawClient client, List<String> keys) {
+        return new MultiFetchObject<IRiakObject>(client, BUCKET, keys, new DefaultRetrier(1))
+            .withConverter(PassThroughConverter.getInstance())
+            .withResolver(DefaultResolver.<IRiakObject> getInstance());
+    }
+
+    private static List<String> keys(int n) {
+        List<String> keys = new ArrayList<String>(n);
+        for (int i = 0; i < n; i++) {
+            keys.add("key-" + i);
+        }
+        return keys;
+    }
+
+    private static class SlowClient extends StubRawClient {
+        final AtomicInteger fetches = new AtomicInteger();
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        private final long sleepMillis;
+
+        SlowClient(long sleepMillis) {
+            this.sleepMillis = sleepMillis;
+        }
+
+        @Override public RiakResponse fetch(String bucket, String key, FetchMeta fetchMeta) throws IOException {
+            int now = concurrent.incrementAndGet();
+            maxConcurrent.accumulateAndGet(now, Math::max);
+            try {
+                if (sleepMillis > 0) {
+                    Thread.sleep(sleepMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } finally {
+                concurrent.decrementAndGet();
+            }
+            fetches.incrementAndGet();
+            return new RiakResponse(new byte[] { 1 },
+                                    new IRiakObject[] { RiakObjectBuilder.newBuilder(bucket, key).build() });
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.query;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.basho.riak.client.RiakException;
+import com.basho.riak.client.cap.Deadline;
+import com.basho.riak.client.cap.DeadlineExceededException;
+import com.basho.riak.client.query.functions.JSSourceFunction;
+import com.basho.riak.client.query.functions.NamedErlangFunction;
+import com.basho.riak.client.raw.query.MapReduceSpec;
+import com.basho.riak.client.raw.query.MapReduceTimeoutException;
+import com.basho.riak.client.util.CharsetUtils;
+import com.basho.riak.test.util.StubRawClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class PreparedMapReduceTest {
+
+    private final CapturingClient client = new CapturingClient();
+
+    @Test public void preparedJobMatchesDirectExecution() throws Exception {
+        MapReduce job = new BucketKeyMapReduce(client).addInput("b", "k1").addInput("b", "k2", "data")
+            .addMapPhase(NamedErlangFunction.MAP_OBJECT_VALUE, "arg")
+            .addReducePhase(new JSSourceFunction("function(v) { return v; }")).timeout(5000);
+
+        job.execute();
+        String direct = client.last.getJSON();
+
+        PreparedMapReduce prepared = job.prepare();
+        prepared.execute(new BucketKeyMapReduce(client).addInput("b", "k1").addInput("b", "k2", "data"));
+
+        assertEquals(direct, client.last.getJSON());
+        JsonNode spec = new ObjectMapper().readTree(direct);
+        assertEquals(5000, spec.get("timeout").asInt());
+        assertEquals(2, spec.get("query").size());
+        assertEquals("k2", spec.get("inputs").get(1).get(1).asText());
+    }
+
+    @Test public void inputsChangePhasesDoNot() throws Exception {
+        PreparedMapReduce prepared = new BucketKeyMapReduce(client)
+            .addReducePhase(NamedErlangFunction.REDUCE_IDENTITY).prepare();
+
+        MapReduceSpec overKeys = prepared.spec(new BucketKeyMapReduce(client).addInput("b", "k"));
+        MapReduceSpec overBucket = prepared.spec(new BucketMapReduce(client, "über")
+            .addMapPhase(NamedErlangFunction.MAP_OBJECT_VALUE));
+
+        JsonNode keys = new ObjectMapper().readTree(overKeys.getBytes());
+        JsonNode bucket = new ObjectMapper().readTree(overBucket.getBytes());
+        assertEquals("b", keys.get("inputs").get(0).get(0).asText());
+        assertEquals("über", bucket.get("inputs").asText());
+        // the inputs job's own phases are not used
+        assertEquals(keys.get("query"), bucket.get("query"));
+        assertEquals(1, bucket.get("query").size());
+    }
+
+    @Test public void timeoutIsCappedByTheDeadline() throws Exception {
+        PreparedMapReduce prepared = new BucketKeyMapReduce(client)
+            .addReducePhase(NamedErlangFunction.REDUCE_IDENTITY).timeout(60000).prepare();
+
+        prepared.execute(new BucketKeyMapReduce(client).addInput("b", "k")
+            .withDeadline(Deadline.in(500, TimeUnit.MILLISECONDS)));
+        long timeout = new ObjectMapper().readTree(client.last.getJSON()).get("timeout").asLong();
+        assertTrue(timeout > 0 && timeout <= 500);
+
+        prepared.execute(new BucketKeyMapReduce(client).addInput("b", "k"));
+        assertEquals(60000, new ObjectMapper().readTree(client.last.getJSON()).get("timeout").asLong());
+
+        try {
+            prepared.execute(new BucketKeyMapReduce(client).addInput("b", "k")
+                .withDeadline(Deadline.in(-1, TimeUnit.MILLISECONDS)));
+            fail("expected DeadlineExceededException");
+        } catch (DeadlineExceededException e) {
+            // NO-OP
+        }
+    }
+
+    @Test public void noInputs() throws RiakException {
+        PreparedMapReduce prepared = new BucketKeyMapReduce(client).prepare();
+        try {
+            prepared.execute(new BucketKeyMapReduce(client));
+            fail("expected NoInputsException");
+        } catch (NoInputsException e) {
+            // NO-OP
+        }
+    }
+
+    @Test public void specConvertsBetweenStringAndBytes() {
+        String json = "{\"inputs\":\"über\",\"query\":[]}";
+
+        assertArrayEquals(CharsetUtils.utf8StringToBytes(json), new MapReduceSpec(json).getBytes());
+        assertEquals(json, new MapReduceSpec(CharsetUtils.utf8StringToBytes(json)).getJSON());
+    }
+
+    private static class CapturingClient extends StubRawClient {
+        MapReduceSpec last;
+
+        @Override public MapReduceResult mapReduce(MapReduceSpec spec) throws IOException,
+                MapReduceTimeoutException {
+            last = spec;
+            return null;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.basho.riak.client.convert.ConversionException;
+import com.basho.riak.client.query.functions.NamedErlangFunction;
+import com.basho.riak.client.raw.StreamingMapReduceClient;
+import com.basho.riak.client.raw.query.MapReduceSpec;
+import com.basho.riak.client.raw.query.MapReduceTimeoutException;
+import com.basho.riak.client.util.CharsetUtils;
+import com.basho.riak.test.util.StubRawClient;
+
+public class StreamingReduceTest {
+
+    @Test public void reducesEveryChunkInOrder() throws Exception {
+        ChunkingClient client = new ChunkingClient();
+        List<Long> expected = new ArrayList<Long>();
+        long n = 0;
+        for (int chunk = 0; chunk < 50; chunk++) {
+            StringBuilder json = new StringBuilder("[");
+            for (int i = 0; i < 37; i++) {
+                json.append(i == 0 ? "" : ",").append(n);
+                expected.add(n++);
+            }
+            client.chunks.add(new Object[] { 0, json.append("]").toString() });
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            StreamingReduce<Long, List<Long>> all = new StreamingReduce.Builder<Long, List<Long>>(client, Long.class,
+                    Collectors.<Long> toList()).pool(pool).maxPendingChunks(2).splitThreshold(5).build();
+            StreamingReduce<Long, Long> sum = new StreamingReduce.Builder<Long, Long>(client, Long.class,
+                    Collectors.summingLong((Long l) -> l)).pool(pool).splitThreshold(5).build();
+
+            assertEquals(expected, all.execute(new MapReduceSpec("{}")));
+            assertEquals(Long.valueOf(n * (n - 1) / 2), sum.execute(new MapReduceSpec("{}")));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test public void onlyTheChosenPhase() throws Exception {
+        ChunkingClient client = new ChunkingClient();
+        client.chunks.add(new Object[] { 0, "[1,2]" });
+        client.chunks.add(new Object[] { 1, "[10]" });
+        client.chunks.add(new Object[] { 0, "[3]" });
+        client.chunks.add(new Object[] { 1, "[20]" });
+
+        StreamingReduce<Integer, Integer> phase1 = new StreamingReduce.Builder<Integer, Integer>(client,
+                Integer.class, Collectors.summingInt((Integer i) -> i)).phase(1).build();
+
+        assertEquals(Integer.valueOf(30), phase1.execute(new MapReduceSpec("{}")));
+    }
+
+    @Test public void noResults() throws Exception {
+        StreamingReduce<Long, Long> count = new StreamingReduce.Builder<Long, Long>(new ChunkingClient(), Long.class,
+                Collectors.counting()).build();
+
+        assertEquals(Long.valueOf(0), count.execute(new MapReduceSpec("{}")));
+    }
+
+    @Test public void runsJobsAndFallsBackToWholeResults() throws Exception {
+        WholeResultClient client = new WholeResultClient("[\"a\",\"b\",\"c\"]");
+        StreamingReduce<String, String> joined = new StreamingReduce.Builder<String, String>(client, String.class,
+                Collectors.joining()).build();
+
+        String result = joined.execute(new BucketKeyMapReduce(null).addInput("b", "k")
+            .addMapPhase(NamedErlangFunction.MAP_OBJECT_VALUE));
+
+        assertEquals("abc", result);
+        assertTrue(client.spec.getJSON().contains("map_object_value"));
+    }
+
+    @Test public void wholeResultsAreKeptWhateverThePhase() throws Exception {
+        StreamingReduce<String, String> joined = new StreamingReduce.Builder<String, String>(
+                new WholeResultClient("[\"a\",\"b\"]"), String.class, Collectors.joining()).phase(1).build();
+
+        assertEquals("ab", joined.execute(new MapReduceSpec("{}")));
+    }
+
+    @Test public void unreadableChunkFailsTheJob() throws Exception {
+        ChunkingClient client = new ChunkingClient();
+        client.chunks.add(new Object[] { 0, "[1]" });
+        client.chunks.add(new Object[] { 0, "[\"not a number\"]" });
+
+        StreamingReduce<Long, Long> sum = new StreamingReduce.Builder<Long, Long>(client, Long.class,
+                Collectors.summingLong((Long l) -> l)).build();
+        try {
+            sum.execute(new MapReduceSpec("{}"));
+            fail("expected IOException");
+        } catch (IOException e) {
+            // NO-OP
+        }
+    }
+
+    private static class ChunkingClient extends StubRawClient implements StreamingMapReduceClient {
+        final List<Object[]> chunks = new ArrayList<Object[]>();
+
+        public void mapReduce(MapReduceSpec spec, ChunkHandler handler) throws IOException,
+                MapReduceTimeoutException {
+            for (Object[] chunk : chunks) {
+                handler.onChunk((Integer) chunk[0], CharsetUtils.utf8StringToBytes((String) chunk[1]));
+            }
+        }
+    }
+
+    private static class WholeResultClient extends StubRawClient {
+        private final String raw;
+        MapReduceSpec spec;
+
+        WholeResultClient(String raw) {
+            this.raw = raw;
+        }
+
+        @Override public MapReduceResult mapReduce(MapReduceSpec spec) throws IOException,
+                MapReduceTimeoutException {
+            this.spec = spec;
+            return new MapReduceResult() {
+                public <T> Collection<T> getResult(Class<T> resultType) throws ConversionException {
+                    throw new UnsupportedOperationException();
+                }
+
+                public String getResultRaw() {
+                    return raw;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.query.filter;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import com.basho.riak.client.query.BucketMapReduce;
+
+public class CompiledKeyFilterTest {
+
+    @Test public void tokenizeAndCompareNumerically() {
+        Predicate<String> p = CompiledKeyFilter.compile(new TokenizeFilter("-", 2), new StringToIntFilter(),
+                                                        new GreaterThanFilter(2011));
+
+        assertTrue(p.test("log-2012-03"));
+        assertFalse(p.test("log-2011-12"));
+        // numeric, not lexical
+        assertTrue(p.test("log-10000-01"));
+        // no second token, or not a number: no match rather than an error
+        assertFalse(p.test("log"));
+        assertFalse(p.test("log-abc"));
+    }
+
+    @Test public void tokenizeSkipsEmptyTokens() {
+        Predicate<String> p = CompiledKeyFilter.compile(new TokenizeFilter("/", 2), new EqualToFilter("b"));
+
+        assertTrue(p.test("a//b/c"));
+        assertTrue(p.test("/a/b"));
+    }
+
+    @Test public void betweenIsInclusive() {
+        Predicate<String> p = CompiledKeyFilter.compile(new StringToFloatFilter(), new BetweenFilter(1.5, 2.5));
+
+        assertTrue(p.test("1.5"));
+        assertTrue(p.test("2.5"));
+        assertFalse(p.test("2.51"));
+    }
+
+    @Test public void stringPredicates() {
+        assertTrue(CompiledKeyFilter.compile(new StartsWithFilter("user_")).test("user_1"));
+        assertTrue(CompiledKeyFilter.compile(new EndsWithFilter(".jpg")).test("a.jpg"));
+        assertTrue(CompiledKeyFilter.compile(new MatchFilter("[0-9]{3}")).test("abc123def"));
+        assertTrue(CompiledKeyFilter.compile(new ToUpperFilter(), new EqualToFilter("ABC")).test("abc"));
+        assertTrue(CompiledKeyFilter.compile(new UrlDecodeFilter(), new EqualToFilter("a b/c")).test("a%20b%2Fc"));
+        assertTrue(CompiledKeyFilter.compile(new SimilarToFilter("hippo", 2)).test("hipper"));
+        assertFalse(CompiledKeyFilter.compile(new SimilarToFilter("hippo", 1)).test("hipper"));
+        assertTrue(CompiledKeyFilter.compile(new NotEqualToFilter("x")).test("y"));
+    }
+
+    @Test public void setMembership() {
+        Predicate<String> names = CompiledKeyFilter.compile(new SetMemberFilter("rita", "sue", "bob"));
+        assertTrue(names.test("sue"));
+        assertFalse(names.test("ann"));
+
+        Predicate<String> ids = CompiledKeyFilter.compile(new StringToIntFilter(),
+                                                          new SetMemberFilter(new int[] { 1, 2, 3 }));
+        assertTrue(ids.test("2"));
+        assertFalse(ids.test("4"));
+    }
+
+    @Test public void logicalFilters() {
+        Predicate<String> p = CompiledKeyFilter
+            .compile(new LogicalOrFilter(new StartsWithFilter("a"),
+                                         new LogicalFilterGroup(new StringToIntFilter(), new LessThanFilter(10))),
+                     new LogicalNotFilter(new EndsWithFilter("z")));
+
+        assertTrue(p.test("abc"));
+        assertTrue(p.test("7"));
+        assertFalse(p.test("az"));
+        assertFalse(p.test("42"));
+
+        Predicate<String> and = CompiledKeyFilter.compile(new LogicalAndFilter(new StartsWithFilter("a"),
+                                                                               new EndsWithFilter("c")));
+        assertTrue(and.test("abc"));
+        assertFalse(and.test("abd"));
+    }
+
+    @Test public void compilesBucketMapReduceFilters() {
+        BucketMapReduce mr = new BucketMapReduce(null, "b");
+        mr.addKeyFilter(new TokenizeFilter("_", 1)).addKeyFilter(new LessThanOrEqualFilter("m"));
+
+        Predicate<String> p = CompiledKeyFilter.compile(mr);
+
+        assertTrue(p.test("alpha_1"));
+        assertTrue(p.test("m_1"));
+        assertFalse(p.test("zulu_1"));
+        assertTrue(Arrays.asList("alpha_1", "zulu_1").stream().filter(p).count() == 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void unknownFilter() {
+        CompiledKeyFilter.compile(new KeyFilter() {
+            public Object[] asArray() {
+                return new Object[] { "no_such_filter" };
+            }
+        });
+    }
+}
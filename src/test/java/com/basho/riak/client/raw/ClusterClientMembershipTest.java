@@ -0,0 +1,414 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.convert.ConversionException;
+import com.basho.riak.client.query.MapReduceResult;
+import com.basho.riak.client.raw.config.ClusterConfig;
+import com.basho.riak.client.raw.config.Configuration;
+import com.basho.riak.client.raw.config.DnsHostListProvider;
+import com.basho.riak.client.raw.config.FileHostListProvider;
+import com.basho.riak.client.raw.config.HostListProvider;
+import com.basho.riak.client.raw.query.MapReduceSpec;
+import com.basho.riak.client.raw.query.MapReduceTimeoutException;
+import com.basho.riak.test.util.StubRawClient;
+
+/**
+ * Adding, draining, weighing and removing {@link ClusterClient} nodes at
+ * runtime.
+ */
+public class ClusterClientMembershipTest {
+
+    private final Map<String, CountingNode> made = new HashMap<String, CountingNode>();
+    private final Map<String, String> addresses = new HashMap<String, String>();
+    private TestCluster cluster;
+
+    @Before public void setUp() throws IOException {
+        cluster = new TestCluster(new TestClusterConfig().addHosts("a"));
+    }
+
+    @Test public void addedNodesShareByWeight() throws IOException {
+        assertEquals("b", cluster.addNode(new HostConfig("b"), 2));
+        assertEquals(Arrays.asList("a", "b"), cluster.getNodeNames());
+
+        fetch(30);
+        assertEquals(10, made.get("a").calls.get());
+        assertEquals(20, made.get("b").calls.get());
+
+        try {
+            cluster.addNode(new HostConfig("b"));
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // already a member
+        }
+    }
+
+    @Test public void drainedNodesGetNoRequests() throws IOException {
+        cluster.addNode(new HostConfig("b"));
+        assertTrue(cluster.drainNode("b"));
+        assertFalse(cluster.drainNode("nope"));
+
+        fetch(10);
+        assertEquals(10, made.get("a").calls.get());
+        assertEquals(0, made.get("b").calls.get());
+        assertEquals(2, cluster.getNodes().length);
+
+        assertTrue(cluster.setNodeWeight("b", 1));
+        fetch(10);
+        assertEquals(5, made.get("b").calls.get());
+
+        cluster.drainNode("a");
+        cluster.drainNode("b");
+        try {
+            cluster.fetch("b", "k");
+            fail("expected IOException");
+        } catch (IOException e) {
+            // nothing taking requests
+        }
+    }
+
+    @Test public void removeWaitsForRequestsInFlight() throws Exception {
+        final CountingNode a = made.get("a");
+        a.gate = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        a.started = started;
+        cluster.addNode(new HostConfig("b"));
+
+        Thread caller = new Thread(() -> {
+            try {
+                cluster.fetch("b", "k");
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        caller.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(1, cluster.getInFlight("a"));
+
+        final AtomicInteger drained = new AtomicInteger(-1);
+        Thread remover = new Thread(() -> {
+            try {
+                drained.set(cluster.removeNode("a", 5, TimeUnit.SECONDS) ? 1 : 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        remover.start();
+
+        // out of the cluster at once, but not shut down while busy
+        while (cluster.getNodeNames().contains("a")) {
+            Thread.sleep(5);
+        }
+        fetch(3);
+        assertEquals(3, made.get("b").calls.get());
+        assertFalse(a.shutdown);
+
+        a.gate.countDown();
+        remover.join(5000);
+        caller.join(5000);
+        assertEquals(1, drained.get());
+        assertTrue(a.shutdown);
+        assertFalse(cluster.removeNode("a", 1, TimeUnit.SECONDS));
+    }
+
+    @Test public void refreshFollowsTheHostList() throws Exception {
+        File hosts = File.createTempFile("riak-hosts", ".txt");
+        hosts.deleteOnExit();
+        Files.write(hosts.toPath(), Arrays.asList("# riak nodes", "a", "", "b", "c"), StandardCharsets.UTF_8);
+        HostListProvider provider = new FileHostListProvider(hosts);
+
+        assertTrue(cluster.refresh(provider, new HostConfig(null)));
+        assertEquals(Arrays.asList("a", "b", "c"), cluster.getNodeNames());
+        assertFalse(cluster.refresh(provider, new HostConfig(null)));
+
+        Files.write(hosts.toPath(), Arrays.asList("c", "d"), StandardCharsets.UTF_8);
+        assertTrue(cluster.refresh(provider, new HostConfig(null)));
+        assertEquals(Arrays.asList("c", "d"), cluster.getNodeNames());
+        assertTrue(made.get("a").shutdown);
+        assertTrue(made.get("b").shutdown);
+
+        // an empty list is a broken provider, not an empty cluster
+        assertFalse(cluster.refresh(() -> Collections.<String> emptyList(), new HostConfig(null)));
+        assertEquals(2, cluster.getNodes().length);
+    }
+
+    @Test public void refreshMatchesNodesByAddress() throws Exception {
+        addresses.put("a", "10.0.0.1");
+        addresses.put("10.0.0.1", "10.0.0.1");
+        cluster = new TestCluster(new TestClusterConfig().addHosts("a"));
+
+        assertTrue(cluster.refresh(() -> Arrays.asList("10.0.0.1", "b"), new HostConfig(null)));
+        assertEquals(Arrays.asList("a", "b"), cluster.getNodeNames());
+        assertFalse(made.get("a").shutdown);
+        assertFalse(made.containsKey("10.0.0.1"));
+
+        try {
+            cluster.addNode(new HostConfig("10.0.0.1"));
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // a by another name
+        }
+    }
+
+    @Test public void periodicRefreshFromResolver() throws Exception {
+        final InetAddress[][] answer = { { InetAddress.getByName("10.0.0.1"), InetAddress.getByName("10.0.0.2") } };
+        HostListProvider dns = new DnsHostListProvider("riak.example", name -> answer[0]);
+
+        cluster.startRefresh(dns, new HostConfig(null), 50, TimeUnit.MILLISECONDS);
+        try {
+            waitForNodes(Arrays.asList("10.0.0.1", "10.0.0.2"));
+            answer[0] = new InetAddress[] { InetAddress.getByName("10.0.0.2") };
+            waitForNodes(Collections.singletonList("10.0.0.2"));
+        } finally {
+            cluster.shutdown();
+        }
+    }
+
+    @Test public void executeReachesTheNamedNode() throws Exception {
+        cluster.addNode(new HostConfig("b"));
+        cluster.drainNode("b");
+
+        cluster.execute("b", node -> node.fetch("b", "k"));
+        assertEquals(1, made.get("b").calls.get());
+        assertEquals(0, made.get("a").calls.get());
+        assertEquals(0, cluster.getInFlight("b"));
+
+        assertTrue(cluster.removeNode("b", 1, TimeUnit.SECONDS));
+        try {
+            cluster.execute("b", node -> node.fetch("b", "k"));
+            fail("expected IOException");
+        } catch (IOException e) {
+            // no longer a member
+        }
+        assertEquals(1, made.get("b").calls.get());
+    }
+
+    @Test public void streamsFromTheNextNode() throws Exception {
+        final List<Integer> phases = new ArrayList<Integer>();
+        final List<String> chunks = new ArrayList<String>();
+        cluster.mapReduce(new MapReduceSpec("{}"), (phase, json) -> {
+            phases.add(phase);
+            chunks.add(new String(json, StandardCharsets.UTF_8));
+        });
+
+        // the stub node cannot stream, so the whole result comes as one chunk
+        assertEquals(Collections.singletonList(StreamingMapReduceClient.ALL_PHASES), phases);
+        assertEquals(Collections.singletonList("[1]"), chunks);
+        assertEquals(1, made.get("a").calls.get());
+        assertEquals(0, cluster.getInFlight("a"));
+    }
+
+    @Test public void streamsValuesOnlyThroughNodesThatCan() throws Exception {
+        try {
+            cluster.fetchStream("b", "k", new FetchMeta.Builder().build(), new ByteArrayOutputStream());
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // "a" is a plain node
+        }
+        assertEquals(0, made.get("a").calls.get());
+        assertEquals(0, cluster.getInFlight("a"));
+
+        cluster.addNode(new HostConfig("http"));
+        assertTrue(cluster.removeNode("a", 1, TimeUnit.SECONDS));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cluster.fetchStream("b", "k", new FetchMeta.Builder().build(), out);
+
+        assertEquals("value", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(1, made.get("http").calls.get());
+        assertEquals(0, cluster.getInFlight("http"));
+    }
+
+    @Test public void refreshFailuresReachTheListener() throws Exception {
+        final CountDownLatch failed = new CountDownLatch(1);
+        HostListProvider broken = () -> {
+            throw new IOException("no hosts file");
+        };
+
+        cluster.startRefresh(broken, new HostConfig(null), 20, TimeUnit.MILLISECONDS, e -> {
+            if ("no hosts file".equals(e.getMessage())) {
+                failed.countDown();
+            }
+        });
+        try {
+            assertTrue(failed.await(5, TimeUnit.SECONDS));
+        } finally {
+            cluster.shutdown();
+        }
+    }
+
+    private void waitForNodes(List<String> expected) throws InterruptedException {
+        long giveUp = System.currentTimeMillis() + 5000;
+        while (!cluster.getNodeNames().equals(expected) && System.currentTimeMillis() < giveUp) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, cluster.getNodeNames());
+    }
+
+    private void fetch(int times) throws IOException {
+        for (int i = 0; i < times; i++) {
+            cluster.fetch("b", "k");
+        }
+    }
+
+    private static class HostConfig implements Configuration {
+        final String host;
+
+        HostConfig(String host) {
+            this.host = host;
+        }
+    }
+
+    private static class TestClusterConfig extends ClusterConfig<HostConfig> {
+        TestClusterConfig() {
+            super(0);
+        }
+
+        @Override protected ClusterConfig<HostConfig> addHosts(String... hosts) {
+            return addHosts(null, hosts);
+        }
+
+        @Override protected ClusterConfig<HostConfig> addHosts(HostConfig config, String... hosts) {
+            for (String host : hosts) {
+                addClient(new HostConfig(host));
+            }
+            return this;
+        }
+    }
+
+    private class TestCluster extends ClusterClient<HostConfig> {
+        TestCluster(ClusterConfig<HostConfig> config) throws IOException {
+            super(config);
+        }
+
+        @Override protected RawClient[] fromConfig(ClusterConfig<HostConfig> clusterConfig) throws IOException {
+            RawClient[] nodes = new RawClient[clusterConfig.getClients().size()];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = newClient(clusterConfig.getClients().get(i));
+            }
+            return nodes;
+        }
+
+        @Override protected RawClient newClient(HostConfig nodeConfig) {
+            CountingNode node = "http".equals(nodeConfig.host) ? new StreamingNode() : new CountingNode();
+            made.put(nodeConfig.host, node);
+            return node;
+        }
+
+        @Override protected HostConfig configForHost(HostConfig template, String host) {
+            return new HostConfig(host);
+        }
+
+        @Override protected String nodeName(HostConfig nodeConfig) {
+            return nodeConfig.host;
+        }
+
+        @Override protected String nodeAddress(HostConfig nodeConfig) {
+            final String address = addresses.get(nodeConfig.host);
+            return address == null ? nodeConfig.host : address;
+        }
+
+        public Transport getTransport() {
+            return null;
+        }
+    }
+
+    private static class CountingNode extends StubRawClient {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile CountDownLatch started;
+        volatile CountDownLatch gate;
+        volatile boolean shutdown;
+
+        @Override public RiakResponse fetch(String bucket, String key) throws IOException {
+            calls.incrementAndGet();
+            if (started != null) {
+                started.countDown();
+            }
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return RiakResponse.empty();
+        }
+
+        @Override public MapReduceResult mapReduce(MapReduceSpec spec) throws IOException,
+                MapReduceTimeoutException {
+            calls.incrementAndGet();
+            return new MapReduceResult() {
+                public <T> Collection<T> getResult(Class<T> resultType) throws ConversionException {
+                    throw new UnsupportedOperationException();
+                }
+
+                public String getResultRaw() {
+                    return "[1]";
+                }
+            };
+        }
+
+        @Override public void shutdown() {
+            shutdown = true;
+        }
+    }
+
+    private static class StreamingNode extends CountingNode implements StreamingRawClient {
+        public RiakResponse storeStream(IRiakObject object, InputStream value, long length, StoreMeta storeMeta)
+                throws IOException {
+            calls.incrementAndGet();
+            return RiakResponse.empty();
+        }
+
+        public RiakResponse fetchStream(String bucket, String key, FetchMeta fetchMeta, OutputStream out)
+                throws IOException {
+            calls.incrementAndGet();
+            out.write("value".getBytes(StandardCharsets.UTF_8));
+            return RiakResponse.empty();
+        }
+
+        public RiakResponse fetchStream(String bucket, String key, FetchMeta fetchMeta, WritableByteChannel out)
+                throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.basho.riak.client.raw.breaker.CircuitBreakerConfig;
+import com.basho.riak.client.raw.config.ClusterConfig;
+import com.basho.riak.client.raw.config.Configuration;
+import com.basho.riak.test.util.StubRawClient;
+
+/**
+ * {@link ClusterClient} preferring nodes in its own zone.
+ */
+public class ClusterClientZoneTest {
+
+    private final Map<String, ZoneNode> made = new HashMap<String, ZoneNode>();
+
+    @Test public void localNodesOnly() throws IOException {
+        ZoneCluster cluster = cluster(new ZoneClusterConfig().add("a", "z1", 0).add("b", "z2", 0).add("c", "z1", 0)
+            .withLocalZone("z1"));
+
+        fetch(cluster, 10);
+        assertEquals(5, made.get("a").calls.get());
+        assertEquals(0, made.get("b").calls.get());
+        assertEquals(5, made.get("c").calls.get());
+        assertEquals(10, cluster.getLocalRequestCount());
+        assertEquals(0, cluster.getRemoteRequestCount());
+        assertEquals("z2", cluster.getNodeZone("b"));
+    }
+
+    @Test public void noLocalZoneIsPlainRoundRobin() throws IOException {
+        ZoneCluster cluster = cluster(new ZoneClusterConfig().add("a", "z1", 0).add("b", "z2", 0));
+
+        fetch(cluster, 10);
+        assertEquals(5, made.get("a").calls.get());
+        assertEquals(5, made.get("b").calls.get());
+        assertEquals(0, cluster.getLocalRequestCount());
+    }
+
+    @Test public void spillsWhenLocalIsSaturated() throws Exception {
+        final ZoneCluster cluster = cluster(new ZoneClusterConfig().add("a", "z1", 2).add("b", "z2", 0)
+            .withLocalZone("z1").withSaturationThreshold(50));
+        final ZoneNode a = made.get("a");
+        a.gate = new CountDownLatch(1);
+        a.started = new CountDownLatch(1);
+
+        Thread busy = new Thread(() -> {
+            try {
+                cluster.fetch("b", "k");
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        busy.start();
+        assertTrue(a.started.await(5, TimeUnit.SECONDS));
+
+        // one of two connections busy is 50%
+        fetch(cluster, 3);
+        assertEquals(3, made.get("b").calls.get());
+        assertEquals(1, cluster.getLocalRequestCount());
+        assertEquals(3, cluster.getRemoteRequestCount());
+
+        a.gate.countDown();
+        busy.join(5000);
+        fetch(cluster, 1);
+        assertEquals(2, a.calls.get());
+    }
+
+    @Test public void spillsWhenLocalIsUnhealthyOrDrained() throws IOException {
+        ZoneCluster cluster = cluster(new ZoneClusterConfig().add("a", "z1", 0).add("b", "z2", 0).add("c", "z1", 0)
+            .withLocalZone("z1").withCircuitBreaker(new CircuitBreakerConfig.Builder().withWindowSize(1)
+                .withMinimumCalls(1).withOpenDuration(1, TimeUnit.MINUTES).build()));
+        made.get("a").failure = new IOException("connection refused");
+
+        int failures = 0;
+        for (int i = 0; i < 10; i++) {
+            try {
+                cluster.fetch("b", "k");
+            } catch (IOException e) {
+                failures++;
+            }
+        }
+        assertEquals(1, failures);
+        assertEquals(9, made.get("c").calls.get());
+        assertEquals(0, made.get("b").calls.get());
+
+        cluster.drainNode("c");
+        fetch(cluster, 2);
+        assertEquals(2, made.get("b").calls.get());
+        assertEquals(2, cluster.getRemoteRequestCount());
+        cluster.shutdown();
+    }
+
+    private static void fetch(ClusterClient<?> cluster, int times) throws IOException {
+        for (int i = 0; i < times; i++) {
+            cluster.fetch("b", "k");
+        }
+    }
+
+    private ZoneCluster cluster(ClusterConfig<ZoneConfig> config) throws IOException {
+        return new ZoneCluster(config);
+    }
+
+    private static class ZoneConfig implements Configuration {
+        final String host;
+        final String zone;
+        final int capacity;
+
+        ZoneConfig(String host, String zone, int capacity) {
+            this.host = host;
+            this.zone = zone;
+            this.capacity = capacity;
+        }
+    }
+
+    private static class ZoneClusterConfig extends ClusterConfig<ZoneConfig> {
+        ZoneClusterConfig() {
+            super(0);
+        }
+
+        ZoneClusterConfig add(String host, String zone, int capacity) {
+            addClient(new ZoneConfig(host, zone, capacity));
+            return this;
+        }
+
+        @Override protected ClusterConfig<ZoneConfig> addHosts(String... hosts) {
+            return this;
+        }
+
+        @Override protected ClusterConfig<ZoneConfig> addHosts(ZoneConfig config, String... hosts) {
+            return this;
+        }
+    }
+
+    private class ZoneCluster extends ClusterClient<ZoneConfig> {
+        ZoneCluster(ClusterConfig<ZoneConfig> config) throws IOException {
+            super(config);
+        }
+
+        @Override protected RawClient[] fromConfig(ClusterConfig<ZoneConfig> clusterConfig) {
+            RawClient[] nodes = new RawClient[clusterConfig.getClients().size()];
+            for (int i = 0; i < nodes.length; i++) {
+                ZoneNode node = new ZoneNode();
+                made.put(clusterConfig.getClients().get(i).host, node);
+                nodes[i] = node;
+            }
+            return nodes;
+        }
+
+        @Override protected String nodeName(ZoneConfig nodeConfig) {
+            return nodeConfig.host;
+        }
+
+        @Override protected String zoneOf(ZoneConfig nodeConfig) {
+            return nodeConfig.zone;
+        }
+
+        @Override protected int poolCapacity(ZoneConfig nodeConfig) {
+            return nodeConfig.capacity;
+        }
+
+        public Transport getTransport() {
+            return null;
+        }
+    }
+
+    private static class ZoneNode extends StubRawClient {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile IOException failure;
+        volatile CountDownLatch started;
+        volatile CountDownLatch gate;
+
+        @Override public RiakResponse fetch(String bucket, String key) throws IOException {
+            calls.incrementAndGet();
+            if (started != null) {
+                started.countDown();
+            }
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return RiakResponse.empty();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.builders.RiakObjectBuilder;
+import com.basho.riak.client.cap.DefaultRetrier;
+import com.basho.riak.client.raw.WriteBehindStore.OverflowPolicy;
+import com.basho.riak.test.util.StubRawClient;
+
+/**
+ * Tests queueing, coalescing and overflow behaviour of {@link WriteBehindStore}
+ */
+public class WriteBehindStoreTest {
+
+    private static final String BUCKET = "b";
+
+    private final List<String> stored = Collections.synchronizedList(new ArrayList<String>());
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch firstWrite = new CountDownLatch(1);
+
+    private final RawClient client = new StubRawClient() {
+        @Override public RiakResponse store(IRiakObject object, StoreMeta storeMeta) throws IOException {
+            firstWrite.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            stored.add(object.getKey() + "=" + object.getValueAsString());
+            return null;
+        }
+    };
+
+    private WriteBehindStore store;
+
+    @After public void tearDown() throws InterruptedException {
+        release.countDown();
+        if (store != null) {
+            store.shutdown();
+            store.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test public void coalescesPendingWritesToTheSameKey() throws Exception {
+        store = new WriteBehindStore.Builder(client).build();
+
+        assertTrue(store.store(object("k", "1")));
+        assertTrue(firstWrite.await(5, TimeUnit.SECONDS));
+
+        // k=1 is in flight, these wait behind it and collapse to one write
+        store.store(object("k", "2"));
+        store.store(object("k", "3"));
+        store.store(object("other", "1"));
+
+        WriteBehindStats stats = store.getStats();
+        assertEquals(2, stats.getQueueDepth());
+        assertEquals(1, stats.getInFlight());
+        assertEquals(1, stats.getCoalesced());
+
+        release.countDown();
+        assertTrue(store.flush(5, TimeUnit.SECONDS));
+
+        assertEquals(3, stored.size());
+        assertEquals("k=1", stored.get(0));
+        assertTrue(stored.contains("k=3"));
+        assertTrue(stored.contains("other=1"));
+        assertEquals(3, store.getStats().getWritten());
+    }
+
+    @Test public void dropNewestWhenFull() throws Exception {
+        store = new WriteBehindStore.Builder(client).capacity(1).overflowPolicy(OverflowPolicy.DROP_NEWEST).build();
+
+        store.store(object("a", "1"));
+        assertTrue(firstWrite.await(5, TimeUnit.SECONDS));
+        assertTrue(store.store(object("b", "1")));
+        assertFalse(store.store(object("c", "1")));
+        // coalescing never needs room
+        assertTrue(store.store(object("b", "2")));
+
+        release.countDown();
+        assertTrue(store.flush(5, TimeUnit.SECONDS));
+        assertEquals(1, store.getStats().getDropped());
+        assertEquals(2, stored.size());
+        assertTrue(stored.contains("b=2"));
+    }
+
+    @Test public void dropOldestWhenFull() throws Exception {
+        store = new WriteBehindStore.Builder(client).capacity(1).overflowPolicy(OverflowPolicy.DROP_OLDEST).build();
+
+        store.store(object("a", "1"));
+        assertTrue(firstWrite.await(5, TimeUnit.SECONDS));
+        store.store(object("b", "1"));
+        assertTrue(store.store(object("c", "1")));
+
+        release.countDown();
+        assertTrue(store.flush(5, TimeUnit.SECONDS));
+        assertEquals(1, store.getStats().getDropped());
+        assertFalse(stored.contains("b=1"));
+        assertTrue(stored.contains("c=1"));
+    }
+
+    @Test(expected = RejectedExecutionException.class) public void failWhenFull() throws Exception {
+        store = new WriteBehindStore.Builder(client).capacity(1).overflowPolicy(OverflowPolicy.FAIL).build();
+
+        store.store(object("a", "1"));
+        assertTrue(firstWrite.await(5, TimeUnit.SECONDS));
+        store.store(object("b", "1"));
+        store.store(object("c", "1"));
+    }
+
+    @Test public void blockTimesOut() throws Exception {
+        store = new WriteBehindStore.Builder(client).capacity(1).offerTimeoutMillis(10).build();
+
+        store.store(object("a", "1"));
+        assertTrue(firstWrite.await(5, TimeUnit.SECONDS));
+        store.store(object("b", "1"));
+        assertFalse(store.store(object("c", "1")));
+    }
+
+    @Test public void failuresReachTheHandler() throws Exception {
+        final IOException boom = new IOException("boom");
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        RawClient failing = new StubRawClient() {
+            @Override public RiakResponse store(IRiakObject object, StoreMeta storeMeta) throws IOException {
+                throw boom;
+            }
+        };
+
+        store = new WriteBehindStore.Builder(failing).withRetrier(DefaultRetrier.attempts(1))
+            .failureHandler((object, cause) -> failure.set(cause)).build();
+        store.store(object("a", "1"));
+
+        assertTrue(store.flush(5, TimeUnit.SECONDS));
+        assertSame(boom, failure.get());
+        assertEquals(1, store.getStats().getFailed());
+    }
+
+    @Test public void throwingHandlerDoesNotStopTheWriter() throws Exception {
+        final AtomicInteger handled = new AtomicInteger();
+        RawClient failing = new StubRawClient() {
+            @Override public RiakResponse store(IRiakObject object, StoreMeta storeMeta) throws IOException {
+                throw new IOException("boom");
+            }
+        };
+
+        store = new WriteBehindStore.Builder(failing).withRetrier(DefaultRetrier.attempts(1)).failureHandler(
+            (object, cause) -> {
+                handled.incrementAndGet();
+                throw new IllegalStateException("handler bug");
+            }).build();
+        store.store(object("a", "1"));
+        assertTrue(store.flush(5, TimeUnit.SECONDS));
+        store.store(object("b", "1"));
+        assertTrue(store.flush(5, TimeUnit.SECONDS));
+
+        assertEquals(2, handled.get());
+        assertEquals(2, store.getStats().getFailed());
+    }
+
+    @Test(expected = RejectedExecutionException.class) public void rejectsAfterShutdown() throws Exception {
+        store = new WriteBehindStore.Builder(client).build();
+        store.shutdown();
+        store.store(object("a", "1"));
+    }
+
+    private static IRiakObject object(String key, String value) {
+        return RiakObjectBuilder.newBuilder(BUCKET, key).withValue(value).build();
+    }
+}
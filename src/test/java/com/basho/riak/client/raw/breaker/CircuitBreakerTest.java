@@ -0,0 +1,302 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.breaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.basho.riak.client.raw.ClusterClient;
+import com.basho.riak.client.raw.RawClient;
+import com.basho.riak.client.raw.RiakResponse;
+import com.basho.riak.client.raw.Transport;
+import com.basho.riak.client.raw.config.ClusterConfig;
+import com.basho.riak.client.raw.config.Configuration;
+import com.basho.riak.pbc.RiakConnectionPool;
+import com.basho.riak.pbc.RiakError;
+import com.basho.riak.protobuf.RiakPB.RpbErrorResp;
+import com.basho.riak.test.util.StubRawClient;
+import com.google.protobuf.ByteString;
+
+public class CircuitBreakerTest {
+
+    private final List<String> events = new CopyOnWriteArrayList<String>();
+
+    private final CircuitBreakerListener recorder = new CircuitBreakerListener() {
+        public void onStateChange(CircuitBreaker breaker, CircuitBreaker.State from, CircuitBreaker.State to) {
+            events.add(breaker.getName() + " " + from + "->" + to);
+        }
+    };
+
+    private CircuitBreakerConfig.Builder config() {
+        return new CircuitBreakerConfig.Builder().withWindowSize(4).withMinimumCalls(4)
+            .withOpenDuration(200, TimeUnit.MILLISECONDS).withListener(recorder);
+    }
+
+    @Test public void opensOnFailureRate() {
+        CircuitBreaker breaker = new CircuitBreaker("n", config().build(), () -> {});
+
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+        breaker.onSuccess(0);
+        assertEquals(-1f, breaker.getFailureRate(), 0f);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        // 2 of 4 is the default 50%
+        breaker.onSuccess(0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(!breaker.tryAcquirePermission());
+        assertEquals(1, breaker.getNotPermittedCount());
+        assertEquals("[n CLOSED->OPEN]", events.toString());
+        breaker.shutdown();
+    }
+
+    @Test public void throwingListenerIsReported() {
+        final IllegalStateException bug = new IllegalStateException("listener bug");
+        CircuitBreakerConfig breakerConfig = new CircuitBreakerConfig.Builder().withWindowSize(1).withMinimumCalls(1)
+            .withListener(new CircuitBreakerListener() {
+                public void onStateChange(CircuitBreaker breaker, CircuitBreaker.State from, CircuitBreaker.State to) {
+                    throw bug;
+                }
+            }).withListener(recorder).build();
+        CircuitBreaker breaker = new CircuitBreaker("n", breakerConfig, () -> {});
+        final AtomicReference<Throwable> reported = new AtomicReference<Throwable>();
+        Thread current = Thread.currentThread();
+        Thread.UncaughtExceptionHandler handler = current.getUncaughtExceptionHandler();
+        current.setUncaughtExceptionHandler((t, e) -> reported.set(e));
+        try {
+            breaker.onFailure(0);
+        } finally {
+            current.setUncaughtExceptionHandler(handler);
+            breaker.shutdown();
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(bug, reported.get());
+        assertEquals("[n CLOSED->OPEN]", events.toString());
+    }
+
+    @Test public void windowForgetsOldCalls() {
+        CircuitBreaker breaker = new CircuitBreaker("n", config().withFailureRateThreshold(75).build(), () -> {});
+
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+        for (int i = 0; i < 10; i++) {
+            breaker.onSuccess(0);
+        }
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+        assertEquals(50f, breaker.getFailureRate(), 0f);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure(0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        breaker.shutdown();
+    }
+
+    @Test public void opensOnSlowCalls() {
+        CircuitBreaker breaker = new CircuitBreaker("n", config().withSlowCallDuration(10, TimeUnit.MILLISECONDS)
+            .withSlowCallRateThreshold(75).build(), () -> {});
+        long slow = TimeUnit.MILLISECONDS.toNanos(20);
+
+        breaker.onSuccess(0);
+        breaker.onSuccess(slow);
+        breaker.onSuccess(slow);
+        breaker.onSuccess(0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onSuccess(slow);
+        assertEquals(75f, breaker.getSlowCallRate(), 0f);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        breaker.shutdown();
+    }
+
+    @Test public void probeClosesOrReopens() throws Exception {
+        final AtomicInteger probes = new AtomicInteger();
+        final CircuitBreaker breaker = new CircuitBreaker("n", config().build(), () -> {
+            if (probes.incrementAndGet() == 1) {
+                throw new IOException("still down");
+            }
+        });
+
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure(0);
+        }
+        waitFor(breaker, CircuitBreaker.State.CLOSED);
+
+        assertEquals(2, probes.get());
+        assertEquals(2, breaker.getOpenedCount());
+        assertEquals("[n CLOSED->OPEN, n OPEN->HALF_OPEN, n HALF_OPEN->OPEN, n OPEN->HALF_OPEN, n HALF_OPEN->CLOSED]",
+                     events.toString());
+        // closed with an empty window
+        assertEquals(-1f, breaker.getFailureRate(), 0f);
+    }
+
+    @Test public void clusterSkipsOpenNodes() throws IOException {
+        final FlakyNode sick = new FlakyNode(new IOException("connection refused"));
+        final FlakyNode healthy = new FlakyNode(null);
+        ClusterClient<Configuration> cluster = cluster(config().withOpenDuration(1, TimeUnit.MINUTES).build(), sick,
+                                                       healthy);
+
+        int failures = 0;
+        for (int i = 0; i < 20; i++) {
+            try {
+                cluster.fetch("b", "k");
+            } catch (IOException e) {
+                failures++;
+            }
+        }
+
+        // four failures open the sick node, then everything goes to the other
+        assertEquals(4, failures);
+        assertEquals(4, sick.calls.get());
+        assertEquals(16, healthy.calls.get());
+        assertEquals(CircuitBreaker.State.OPEN, cluster.getCircuitBreaker("node-0").getState());
+        assertEquals(CircuitBreaker.State.CLOSED, cluster.getCircuitBreaker("node-1").getState());
+        assertEquals("[node-0 CLOSED->OPEN]", events.toString());
+        // passing over the open node for the healthy one refuses no call
+        assertEquals(0, cluster.getCircuitBreaker("node-0").getNotPermittedCount());
+        assertEquals(Arrays.asList("node-0", "node-1"), new ArrayList<String>(cluster.getCircuitBreakers().keySet()));
+        assertNull(cluster.getCircuitBreaker("node-2"));
+        cluster.shutdown();
+    }
+
+    @Test public void errorsFromRiakDoNotOpen() throws IOException {
+        RiakError notFound = new RiakError(RpbErrorResp.newBuilder().setErrcode(0)
+            .setErrmsg(ByteString.copyFromUtf8("no such thing")).build());
+        ClusterClient<Configuration> cluster = cluster(config().build(), new FlakyNode(notFound));
+
+        for (int i = 0; i < 10; i++) {
+            try {
+                cluster.fetch("b", "k");
+                fail("expected the error");
+            } catch (RiakError e) {
+                // the node answered
+            }
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, cluster.getCircuitBreaker("node-0").getState());
+        cluster.shutdown();
+    }
+
+    @Test public void allOpenFailsFast() throws IOException {
+        FlakyNode sick = new FlakyNode(new IOException("connection refused"));
+        ClusterClient<Configuration> cluster = cluster(config().withOpenDuration(1, TimeUnit.MINUTES).build(), sick);
+
+        for (int i = 0; i < 4; i++) {
+            try {
+                cluster.fetch("b", "k");
+            } catch (IOException e) {
+                // opening
+            }
+        }
+        try {
+            cluster.fetch("b", "k");
+            fail("expected CircuitOpenException");
+        } catch (CircuitOpenException e) {
+            assertEquals(4, sick.calls.get());
+        }
+        assertEquals(1, cluster.getCircuitBreaker("node-0").getNotPermittedCount());
+        try {
+            cluster.execute("node-0", node -> node.fetch("b", "k"));
+            fail("expected CircuitOpenException");
+        } catch (CircuitOpenException e) {
+            assertEquals(2, cluster.getCircuitBreaker("node-0").getNotPermittedCount());
+        }
+        cluster.getCircuitBreaker("node-0").reset();
+        assertEquals(CircuitBreaker.State.CLOSED, cluster.getCircuitBreaker("node-0").getState());
+        cluster.shutdown();
+    }
+
+    @Test public void poolRefusesToConnectWhileOpen() throws IOException {
+        ServerSocket server = new ServerSocket(0);
+        RiakConnectionPool pool = new RiakConnectionPool(0, 2, InetAddress.getLoopbackAddress(),
+                                                         server.getLocalPort(), 1000, 1, 0, 0);
+        pool.start();
+        CircuitBreaker breaker = new CircuitBreaker("n", config().withMinimumCalls(1).build(), () -> {});
+        pool.setCircuitBreaker(breaker);
+        try {
+            breaker.onFailure(0);
+            try {
+                pool.getConnection(null);
+                fail("expected CircuitOpenException");
+            } catch (CircuitOpenException e) {
+                // no connect attempted
+            }
+        } finally {
+            breaker.shutdown();
+            pool.shutdown();
+            server.close();
+        }
+    }
+
+    private static void waitFor(CircuitBreaker breaker, CircuitBreaker.State state) throws InterruptedException {
+        long giveUp = System.currentTimeMillis() + 5000;
+        while (breaker.getState() != state && System.currentTimeMillis() < giveUp) {
+            Thread.sleep(20);
+        }
+        assertEquals(state, breaker.getState());
+    }
+
+    private static ClusterClient<Configuration> cluster(CircuitBreakerConfig breakers, final RawClient... nodes)
+            throws IOException {
+        ClusterConfig<Configuration> config = new ClusterConfig<Configuration>(0) {
+            @Override protected ClusterConfig<Configuration> addHosts(String... hosts) {
+                return this;
+            }
+
+            @Override protected ClusterConfig<Configuration> addHosts(Configuration config, String... hosts) {
+                return this;
+            }
+        };
+        config.withCircuitBreaker(breakers);
+        return new ClusterClient<Configuration>(config) {
+            @Override protected RawClient[] fromConfig(ClusterConfig<Configuration> clusterConfig) {
+                return nodes;
+            }
+
+            public Transport getTransport() {
+                return null;
+            }
+        };
+    }
+
+    private static class FlakyNode extends StubRawClient {
+        final AtomicInteger calls = new AtomicInteger();
+        final IOException failure;
+
+        FlakyNode(IOException failure) {
+            this.failure = failure;
+        }
+
+        @Override public RiakResponse fetch(String bucket, String key) throws IOException {
+            calls.incrementAndGet();
+            if (failure != null) {
+                throw failure;
+            }
+            return RiakResponse.empty();
+        }
+    }
+}
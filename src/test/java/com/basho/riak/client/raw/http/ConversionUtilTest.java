@@ -13,6 +13,7 @@
  */
 package com.basho.riak.client.raw.http;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -28,11 +29,14 @@ import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.basho.riak.client.IRiakObject;
 import com.basho.riak.client.bucket.BucketProperties;
 import com.basho.riak.client.builders.BucketPropertiesBuilder;
+import com.basho.riak.client.builders.RiakObjectBuilder;
 import com.basho.riak.client.cap.BasicVClock;
 import com.basho.riak.client.cap.Quora;
 import com.basho.riak.client.cap.Quorum;
+import com.basho.riak.client.compress.Compression;
 import com.basho.riak.client.http.RiakBucketInfo;
 import com.basho.riak.client.http.request.RequestMeta;
 import com.basho.riak.client.http.response.BucketResponse;
@@ -147,4 +151,29 @@ public class ConversionUtilTest {
         assertEquals("Expected rw of 6", "6", rm.getQueryParam(Constants.QP_RW));
         assertEquals("Expected vclock of 'vclock'", "vclock", rm.getHeader(Constants.HDR_VCLOCK));
     }
+
+    /**
+     * Test method for
+     * {@link com.basho.riak.client.raw.http.ConversionUtil#convert(com.basho.riak.client.IRiakObject, com.basho.riak.client.http.RiakClient)}
+     * and back, with a compressed value
+     */
+    @Test public void contentEncodingIsSentAndDecoded() throws Exception {
+        byte[] plain = new byte[4096];
+        IRiakObject compressed = Compression.gzip().compress(RiakObjectBuilder.newBuilder("b", "k")
+            .withValue(plain).withContentType(Constants.CTYPE_OCTET_STREAM)
+            .withVClock(CharsetUtils.utf8StringToBytes("vclock")).build());
+
+        com.basho.riak.client.http.RiakObject sent = ConversionUtil.convert(compressed, null);
+        assertEquals("gzip", sent.getContentEncoding());
+        assertTrue(sent.getValueAsBytes().length < plain.length);
+
+        IRiakObject fetched = ConversionUtil.convert(sent);
+        assertNull(fetched.getContentEncoding());
+        assertArrayEquals(plain, fetched.getValue());
+
+        sent.setContentEncoding("x-unknown");
+        fetched = ConversionUtil.convert(sent);
+        assertEquals("x-unknown", fetched.getContentEncoding());
+        assertArrayEquals(compressed.getValue(), fetched.getValue());
+    }
 }
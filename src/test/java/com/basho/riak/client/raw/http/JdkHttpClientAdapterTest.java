@@ -0,0 +1,212 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.builders.RiakObjectBuilder;
+import com.basho.riak.client.raw.AsyncRawClient;
+import com.basho.riak.client.raw.RawClient;
+import com.basho.riak.client.raw.RiakResponse;
+import com.basho.riak.client.raw.StoreMeta;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Drives the java.net.http engine against a minimal in-process stand in for
+ * Riak's HTTP key/value resource.
+ */
+public class JdkHttpClientAdapterTest {
+
+    private static final String VCLOCK = "a85hYGBgzGDKBVIcypz/fgaUHjmdwZTImMfKwHD3/SG+LAA=";
+
+    private final Map<String, byte[]> data = new ConcurrentHashMap<String, byte[]>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+
+    @Before public void startServer() throws IOException {
+        Assume.assumeTrue(jdkClientAvailable());
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/riak", this::handle);
+        server.createContext("/ping", this::handle);
+        server.start();
+    }
+
+    @After public void stopServer() {
+        if (server != null) {
+            gate.countDown();
+            server.stop(0);
+            serverThreads.shutdownNow();
+        }
+    }
+
+    @Test public void storeFetchAndDelete() throws Exception {
+        AsyncRawClient client = newClient(null);
+        IRiakObject object = RiakObjectBuilder.newBuilder("b", "k").withValue("{\"a\":1}")
+            .withContentType("application/json").build();
+
+        RiakResponse stored = client.storeAsync(object, new StoreMeta.Builder().returnBody(true).build())
+            .get(5, TimeUnit.SECONDS);
+        assertTrue(stored.hasValue());
+
+        RiakResponse fetched = client.fetchAsync("b", "k", null).get(5, TimeUnit.SECONDS);
+        assertTrue(fetched.hasValue());
+        assertEquals("{\"a\":1}", fetched.getRiakObjects()[0].getValueAsString());
+        assertEquals("application/json", fetched.getRiakObjects()[0].getContentType());
+        assertArrayEquals(VCLOCK.getBytes("UTF-8"), fetched.getVclock().getBytes());
+
+        client.delete("b", "k");
+        assertFalse(client.fetch("b", "k").hasValue());
+        client.ping();
+        client.shutdown();
+    }
+
+    @Test public void requestsOverTheLimitQueue() throws Exception {
+        AsyncRawClient client = newClient(2);
+        data.put("/riak/b/k", "v".getBytes("UTF-8"));
+        gate = new CountDownLatch(1);
+
+        List<CompletableFuture<RiakResponse>> futures = new ArrayList<CompletableFuture<RiakResponse>>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(client.fetchAsync("b", "k", null));
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (active.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertEquals(2, active.get());
+
+        gate.countDown();
+        for (CompletableFuture<RiakResponse> f : futures) {
+            assertEquals("v", f.get(5, TimeUnit.SECONDS).getRiakObjects()[0].getValueAsString());
+        }
+        assertEquals(2, maxActive.get());
+        client.shutdown();
+    }
+
+    private AsyncRawClient newClient(Integer maxConnections) {
+        HTTPClientConfig.Builder builder = new HTTPClientConfig.Builder()
+            .withUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/riak")
+            .withEngine(HTTPClientConfig.Engine.JDK);
+        if (maxConnections != null) {
+            builder.withMaxConnections(maxConnections);
+        }
+        HTTPClientConfig config = builder.build();
+        RawClient client = HTTPRiakClientFactory.getInstance().newClient(config);
+        assertTrue(client instanceof AsyncRawClient);
+        return (AsyncRawClient) client;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int now = active.incrementAndGet();
+        maxActive.accumulateAndGet(now, Math::max);
+        try {
+            gate.await();
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+
+            if (path.equals("/ping")) {
+                respond(exchange, 200, "OK".getBytes("UTF-8"));
+            } else if (method.equals("PUT")) {
+                byte[] body = readAll(exchange.getRequestBody());
+                data.put(path, body);
+                exchange.getResponseHeaders().add("X-Riak-Vclock", VCLOCK);
+                exchange.getResponseHeaders().add("Content-Type",
+                                                  exchange.getRequestHeaders().getFirst("Content-Type"));
+                respond(exchange, 200, body);
+            } else if (method.equals("DELETE")) {
+                data.remove(path);
+                respond(exchange, 204, null);
+            } else {
+                byte[] body = data.get(path);
+                if (body == null) {
+                    respond(exchange, 404, "not found".getBytes("UTF-8"));
+                } else {
+                    exchange.getResponseHeaders().add("X-Riak-Vclock", VCLOCK);
+                    exchange.getResponseHeaders().add("Content-Type", "application/json");
+                    respond(exchange, 200, body);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            active.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean jdkClientAvailable() {
+        try {
+            Class.forName("com.basho.riak.client.raw.http.JdkHttpClientAdapter");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
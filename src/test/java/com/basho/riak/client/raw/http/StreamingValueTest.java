@@ -0,0 +1,153 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.builders.RiakObjectBuilder;
+import com.basho.riak.client.raw.RiakResponse;
+import com.basho.riak.client.raw.StoreMeta;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Streams values through {@link HTTPClientAdapter} to and from a minimal
+ * in-process stand in for Riak's HTTP key/value resource.
+ */
+public class StreamingValueTest {
+
+    private final Map<String, byte[]> data = new ConcurrentHashMap<String, byte[]>();
+    private final Map<String, String> transferEncodings = new ConcurrentHashMap<String, String>();
+
+    private HttpServer server;
+    private HTTPClientAdapter client;
+
+    @Before public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/riak", new com.sun.net.httpserver.HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                StreamingValueTest.this.handle(exchange);
+            }
+        });
+        server.start();
+        client = new HTTPClientAdapter("http://127.0.0.1:" + server.getAddress().getPort() + "/riak");
+    }
+
+    @After public void stopServer() {
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test public void unknownLengthIsSentChunked() throws Exception {
+        byte[] value = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(value);
+        IRiakObject object = RiakObjectBuilder.newBuilder("media", "big").withContentType("video/mp4").build();
+
+        RiakResponse stored = client.storeStream(object, new ByteArrayInputStream(value), -1, null);
+
+        assertFalse(stored.hasValue());
+        assertEquals("chunked", transferEncodings.get("/riak/media/big"));
+        assertArrayEquals(value, data.get("/riak/media/big"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RiakResponse fetched = client.fetchStream("media", "big", null, out);
+
+        assertArrayEquals(value, out.toByteArray());
+        assertTrue(fetched.hasValue());
+        assertEquals("video/mp4", fetched.getRiakObjects()[0].getContentType());
+        assertNull(fetched.getRiakObjects()[0].getValue());
+    }
+
+    @Test public void knownLengthAndChannel() throws Exception {
+        byte[] value = "a small value".getBytes("UTF-8");
+        IRiakObject object = RiakObjectBuilder.newBuilder("media", "small").withContentType("text/plain").build();
+
+        client.storeStream(object, new ByteArrayInputStream(value), value.length, StoreMeta.empty());
+        assertFalse(transferEncodings.containsKey("/riak/media/small"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        client.fetchStream("media", "small", null, Channels.newChannel(out));
+        assertArrayEquals(value, out.toByteArray());
+
+        out.reset();
+        assertFalse(client.fetchStream("media", "missing", null, out).hasValue());
+        assertEquals(0, out.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void returnBodyIsRejected() throws Exception {
+        IRiakObject object = RiakObjectBuilder.newBuilder("media", "k").build();
+        client.storeStream(object, new ByteArrayInputStream(new byte[1]), 1,
+                           new StoreMeta.Builder().returnBody(true).build());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        try {
+            if (exchange.getRequestMethod().equals("PUT")) {
+                String te = exchange.getRequestHeaders().getFirst("Transfer-Encoding");
+                if (te != null) {
+                    transferEncodings.put(path, te);
+                }
+                data.put(path, readAll(exchange.getRequestBody()));
+                data.put(path + "#ctype", exchange.getRequestHeaders().getFirst("Content-Type").getBytes("UTF-8"));
+                exchange.sendResponseHeaders(204, -1);
+                return;
+            }
+            byte[] body = data.get(path);
+            if (body == null) {
+                byte[] notFound = "not found".getBytes("UTF-8");
+                exchange.sendResponseHeaders(404, notFound.length);
+                exchange.getResponseBody().write(notFound);
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", new String(data.get(path + "#ctype"), "UTF-8"));
+            exchange.getResponseHeaders().add("X-Riak-Vclock", "vclock");
+            exchange.sendResponseHeaders(200, body.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
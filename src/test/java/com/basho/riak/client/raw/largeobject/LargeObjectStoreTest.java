@@ -0,0 +1,223 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.largeobject;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.builders.RiakObjectBuilder;
+import com.basho.riak.client.cap.DefaultRetrier;
+import com.basho.riak.client.raw.FetchMeta;
+import com.basho.riak.client.raw.RiakResponse;
+import com.basho.riak.client.raw.StoreMeta;
+import com.basho.riak.client.util.CharsetUtils;
+import com.basho.riak.test.util.StubRawClient;
+
+public class LargeObjectStoreTest {
+
+    private final MemoryClient client = new MemoryClient();
+    private final LargeObjectStore store = new LargeObjectStore.Builder(client).chunkSize(1000).window(3)
+        .withRetrier(DefaultRetrier.attempts(1)).build();
+
+    @After public void shutdown() {
+        store.shutdown();
+    }
+
+    @Test public void roundTrip() throws IOException {
+        byte[] value = randomBytes(10500);
+
+        Manifest manifest = store.put("b", "k", new ByteArrayInputStream(value), "video/mp4");
+
+        assertEquals(11, manifest.getChunkCount());
+        assertEquals(10500, manifest.getLength());
+        assertEquals(500, manifest.getChunkLength(10));
+        assertEquals(12, client.data.size());
+        assertEquals("video/mp4", store.getManifest("b", "k").getContentType());
+        assertArrayEquals(value, readAll(store.openStream("b", "k")));
+    }
+
+    @Test public void rangeReads() throws IOException {
+        byte[] value = randomBytes(5000);
+        store.put("b", "k", new ByteArrayInputStream(value), null);
+
+        byte[] range = readAll(store.openStream("b", "k", 1990, 1020));
+        assertEquals(1020, range.length);
+        for (int i = 0; i < range.length; i++) {
+            assertEquals(value[1990 + i], range[i]);
+        }
+
+        LargeObjectChannel channel = store.open("b", "k");
+        assertEquals(5000, channel.size());
+        channel.position(4998);
+        ByteBuffer buffer = ByteBuffer.allocate(10);
+        assertEquals(2, channel.read(buffer));
+        assertEquals(-1, channel.read(buffer));
+        channel.position(0);
+        buffer.clear();
+        assertEquals(10, channel.read(buffer));
+        assertEquals(value[9], buffer.get(9));
+        channel.close();
+        assertFalse(channel.isOpen());
+    }
+
+    @Test public void replacingKeepsOldChunksForReaders() throws IOException {
+        byte[] first = randomBytes(3000);
+        store.put("b", "k", new ByteArrayInputStream(first), null);
+        LargeObjectChannel reader = store.open("b", "k");
+        byte[] second = randomBytes(1500);
+        store.put("b", "k", new ByteArrayInputStream(second), null);
+
+        assertEquals(6, client.data.size());
+        assertArrayEquals(first, readAll(Channels.newInputStream(reader)));
+        assertArrayEquals(second, readAll(store.openStream("b", "k")));
+
+        store.shutdown();
+        assertEquals(3, client.data.size());
+    }
+
+    @Test public void replacedChunksAreDeletedAfterTheGracePeriod() throws Exception {
+        LargeObjectStore quick = new LargeObjectStore.Builder(client).chunkSize(1000)
+            .withRetrier(DefaultRetrier.attempts(1)).replacedChunkGrace(200, TimeUnit.MILLISECONDS).build();
+        try {
+            Manifest first = quick.put("b", "k", new ByteArrayInputStream(randomBytes(3000)), null);
+            quick.put("b", "k", new ByteArrayInputStream(randomBytes(1500)), null);
+            assertTrue(client.data.containsKey("b/" + first.getChunkKey(0)));
+
+            long giveUp = System.currentTimeMillis() + 5000;
+            while (client.data.size() > 3 && System.currentTimeMillis() < giveUp) {
+                Thread.sleep(20);
+            }
+            assertEquals(3, client.data.size());
+        } finally {
+            quick.shutdown();
+        }
+    }
+
+    @Test public void replacingWithNoGraceRemovesOldChunks() throws IOException {
+        LargeObjectStore eager = new LargeObjectStore.Builder(client).chunkSize(1000)
+            .withRetrier(DefaultRetrier.attempts(1)).replacedChunkGrace(0, TimeUnit.SECONDS).build();
+        try {
+            Manifest first = eager.put("b", "k", new ByteArrayInputStream(randomBytes(3000)), null);
+            eager.put("b", "k", new ByteArrayInputStream(randomBytes(1500)), null);
+            assertFalse(client.data.containsKey("b/" + first.getChunkKey(0)));
+            assertEquals(3, client.data.size());
+        } finally {
+            eager.shutdown();
+        }
+    }
+
+    @Test public void deleteRemovesManifestAndChunks() throws IOException {
+        store.put("b", "k", new ByteArrayInputStream(randomBytes(1500)), null);
+
+        assertTrue(store.delete("b", "k"));
+        assertTrue(client.data.isEmpty());
+        assertFalse(store.delete("b", "k"));
+        assertNull(store.getManifest("b", "k"));
+    }
+
+    @Test public void emptyObject() throws IOException {
+        Manifest manifest = store.put("b", "k", new ByteArrayInputStream(new byte[0]), null);
+        assertEquals(0, manifest.getChunkCount());
+        assertEquals(0, readAll(store.openStream("b", "k")).length);
+    }
+
+    @Test public void corruptChunkIsDetected() throws IOException {
+        Manifest manifest = store.put("b", "k", new ByteArrayInputStream(randomBytes(2500)), null);
+        byte[] chunk = client.data.get("b/" + manifest.getChunkKey(1));
+        chunk[7] ^= 1;
+
+        try {
+            readAll(store.openStream("b", "k"));
+            fail("expected CorruptChunkException");
+        } catch (CorruptChunkException e) {
+            assertEquals(1, e.getChunk());
+        }
+    }
+
+    @Test public void failedPutLeavesNoChunks() throws IOException {
+        client.failStoresAfter = 2;
+        try {
+            store.put("b", "k", new ByteArrayInputStream(randomBytes(5000)), null);
+            fail("expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+        assertTrue(client.data.isEmpty());
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] value = new byte[length];
+        new Random(length).nextBytes(value);
+        return value;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[333];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    private static class MemoryClient extends StubRawClient {
+        final Map<String, byte[]> data = new ConcurrentHashMap<String, byte[]>();
+        volatile int failStoresAfter = Integer.MAX_VALUE;
+
+        @Override public RiakResponse store(IRiakObject object, StoreMeta storeMeta) throws IOException {
+            synchronized (this) {
+                if (failStoresAfter-- <= 0) {
+                    throw new IOException("store failed");
+                }
+            }
+            data.put(object.getBucket() + "/" + object.getKey(), object.getValue().clone());
+            return RiakResponse.empty();
+        }
+
+        @Override public RiakResponse fetch(String bucket, String key, FetchMeta fetchMeta) throws IOException {
+            byte[] value = data.get(bucket + "/" + key);
+            if (value == null) {
+                return RiakResponse.empty();
+            }
+            IRiakObject o = RiakObjectBuilder.newBuilder(bucket, key).withValue(value.clone())
+                .withVClock(CharsetUtils.utf8StringToBytes("vclock")).build();
+            return new RiakResponse(CharsetUtils.utf8StringToBytes("vclock"), new IRiakObject[] { o });
+        }
+
+        @Override public void delete(String bucket, String key) throws IOException {
+            data.remove(bucket + "/" + key);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.pbc;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.RiakLink;
+import com.basho.riak.client.cap.Quora;
+import com.basho.riak.client.raw.FetchMeta;
+import com.basho.riak.client.raw.RiakResponse;
+import com.basho.riak.pbc.RiakObject;
+import com.google.protobuf.ByteString;
+
+/**
+ * Checks the PB fetch path does not allocate for what a fetched object does
+ * not have. The bytes allocated per conversion are only checked when asked
+ * for, as the budget holds only once the JIT's escape analysis has done its
+ * work: not under <code>-Xint</code>, C1 alone, coverage instrumentation or
+ * every JVM. Run it with
+ * 
+ * <pre>
+ * mvn test -Dtest=FetchPathAllocationTest -DargLine="-Dcom.basho.riak.allocation.budget=true"
+ * </pre>
+ * 
+ * or measure with <code>FetchPathBenchmark</code> and <code>-prof gc</code>.
+ * 
+ * @see ConversionUtil#convert(RiakObject[])
+ */
+public class FetchPathAllocationTest {
+
+    /**
+     * Bytes allocated converting one plain sibling: about 560 under JMH and
+     * 650 here, where escape analysis has had less time. It was over 900 when
+     * every object got its own empty links, indexes and user meta.
+     */
+    private static final long PLAIN_BYTES_BUDGET = 800;
+
+    @Test public void plainObjectConvertsWithinBudget() {
+        Assume.assumeTrue(Boolean.getBoolean("com.basho.riak.allocation.budget"));
+        final com.sun.management.ThreadMXBean threads = threadMXBean();
+        final RiakObject[] siblings = { plain() };
+        final int iterations = 20000;
+
+        // let the JIT settle before measuring
+        for (int i = 0; i < iterations; i++) {
+            ConversionUtil.convert(siblings);
+        }
+
+        final long thread = Thread.currentThread().getId();
+        final long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < iterations; i++) {
+            ConversionUtil.convert(siblings);
+        }
+        final long perConvert = (threads.getThreadAllocatedBytes(thread) - before) / iterations;
+
+        assertTrue(perConvert + " bytes per convert, budget " + PLAIN_BYTES_BUDGET, perConvert <= PLAIN_BYTES_BUDGET);
+    }
+
+    @Test public void plainObjectsDoNotShareWhatIsAddedLater() {
+        final RiakObject[] siblings = { plain() };
+        IRiakObject first = ConversionUtil.convert(siblings).getRiakObjects()[0];
+        IRiakObject second = ConversionUtil.convert(siblings).getRiakObjects()[0];
+
+        assertFalse(first.hasLinks());
+        assertFalse(first.hasUsermeta());
+        assertTrue(first.allBinIndexes().isEmpty());
+
+        final Iterable<Map.Entry<String, String>> meta = first.userMetaEntries();
+        assertFalse(meta.iterator().hasNext());
+
+        first.addLink(new RiakLink("b", "k", "t"));
+        first.addUsermeta("owner", "me");
+        first.addIndex("email_bin", "me@example.com");
+        first.addIndex("age_int", 42);
+
+        assertEquals(1, first.numLinks());
+        assertEquals("me", first.getUsermeta("owner"));
+        // a view taken before the first entry still sees it
+        assertEquals("owner", meta.iterator().next().getKey());
+        assertEquals(1, first.getBinIndex("email_bin").size());
+        assertEquals(1, first.getIntIndexV2("age_int").size());
+
+        assertFalse(second.hasLinks());
+        assertFalse(second.hasUsermeta());
+        assertTrue(second.getBinIndex("email_bin").isEmpty());
+        assertTrue(second.getIntIndexV2("age_int").isEmpty());
+
+        first.removeLink(new RiakLink("b", "k", "t"));
+        second.removeLink(new RiakLink("b", "k", "t"));
+        second.removeUsermeta("owner");
+        second.removeBinIndex("email_bin");
+        assertFalse(first.hasLinks());
+        assertTrue(second.allIntIndexesV2().isEmpty());
+    }
+
+    @Test public void richObjectKeepsLinksIndexesAndUsermeta() {
+        RiakObject o = plain();
+        o.addLink("tag", "bucket", "other");
+        o.addUsermetaItem("owner", "me");
+        o.addIndex("email_bin", "me@example.com");
+        o.addIndex("age_int", 42);
+
+        RiakResponse response = ConversionUtil.convert(new RiakObject[] { o });
+        IRiakObject converted = response.getRiakObjects()[0];
+
+        assertEquals(1, converted.numLinks());
+        assertTrue(converted.hasLink(new RiakLink("bucket", "other", "tag")));
+        assertEquals("me", converted.getUsermeta("owner"));
+        assertTrue(converted.getBinIndex("email_bin").contains("me@example.com"));
+        assertTrue(converted.getIntIndexV2("age_int").contains(42L));
+    }
+
+    @Test public void quorumOnlyFetchMetaIsShared() {
+        FetchMeta a = new FetchMeta.Builder().r(2).pr(Quora.QUORUM).notFoundOK(true).build();
+        FetchMeta b = new FetchMeta.Builder().r(2).pr(Quora.QUORUM).notFoundOK(true).build();
+
+        assertSame(a, b);
+        assertSame(new FetchMeta.Builder().build(), new FetchMeta.Builder().build());
+        assertSame(FetchMeta.withR(3), FetchMeta.withR(3));
+        assertNotSame(a, new FetchMeta.Builder().r(2).pr(Quora.QUORUM).notFoundOK(false).build());
+        assertNotSame(new FetchMeta.Builder().r(100).build(), new FetchMeta.Builder().r(100).build());
+        assertNotSame(new FetchMeta.Builder().r(2).timeout(10).build(), new FetchMeta.Builder().r(2).timeout(10).build());
+        assertEquals(2, a.getR().getIntValue());
+        assertEquals(Quora.QUORUM, a.getPr().getSymbolicValue());
+        assertTrue(a.getNotFoundOK());
+        assertNull(a.getBasicQuorum());
+    }
+
+    @Test public void builderFromKeepsHeadOnlyAndTimeout() {
+        FetchMeta fm = new FetchMeta.Builder().r(1).headOnly(true).timeout(500).build();
+        FetchMeta copy = FetchMeta.Builder.from(fm).build();
+
+        assertTrue(copy.getHeadOnly());
+        assertEquals(Integer.valueOf(500), copy.getTimeout());
+    }
+
+    private static RiakObject plain() {
+        RiakObject o = new RiakObject(ByteString.copyFromUtf8("vclock"), ByteString.copyFromUtf8("bucket"),
+                                      ByteString.copyFromUtf8("key"), ByteString.copyFromUtf8("{\"a\":1}"));
+        o.setContentType("application/json");
+        return o;
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) threads;
+        Assume.assumeTrue(sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled());
+        return sun;
+    }
+}
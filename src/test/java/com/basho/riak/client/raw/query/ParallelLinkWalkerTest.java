@@ -0,0 +1,207 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.builders.RiakObjectBuilder;
+import com.basho.riak.client.cap.Deadline;
+import com.basho.riak.client.cap.DefaultRetrier;
+import com.basho.riak.client.query.LinkWalkStep;
+import com.basho.riak.client.query.LinkWalkStep.Accumulate;
+import com.basho.riak.client.query.WalkResult;
+import com.basho.riak.client.raw.FetchMeta;
+import com.basho.riak.client.raw.RiakResponse;
+import com.basho.riak.test.util.StubRawClient;
+
+public class ParallelLinkWalkerTest {
+
+    private final GraphClient client = new GraphClient();
+    private final ParallelLinkWalker walker = new ParallelLinkWalker.Builder(client).concurrency(4)
+        .withRetrier(DefaultRetrier.attempts(1)).build();
+
+    @After public void shutdown() {
+        walker.shutdown();
+    }
+
+    @Test public void walksTaggedLinksAndKeepsLastStep() throws IOException {
+        client.put(RiakObjectBuilder.newBuilder("people", "ann").addLink("people", "bob", "friend")
+            .addLink("people", "cat", "friend").addLink("pets", "rex", "owns").build());
+        client.put(RiakObjectBuilder.newBuilder("people", "bob").addLink("people", "dan", "friend").build());
+        client.put(RiakObjectBuilder.newBuilder("people", "cat").addLink("people", "dan", "friend").build());
+        client.put(RiakObjectBuilder.newBuilder("people", "dan").build());
+        client.put(RiakObjectBuilder.newBuilder("pets", "rex").build());
+
+        WalkResult result = walker.walk(spec("people", "ann", new LinkWalkStep("people", "friend", true),
+                                             new LinkWalkStep("_", "friend")));
+
+        Iterator<Collection<IRiakObject>> steps = result.iterator();
+        assertEquals(Arrays.asList("bob", "cat"), keys(steps.next()));
+        // dan is linked from both bob and cat but fetched once
+        assertEquals(Arrays.asList("dan"), keys(steps.next()));
+        assertTrue(!steps.hasNext());
+        assertEquals(1, client.fetches("dan"));
+    }
+
+    @Test public void fetchesRunUnderTheCallersDeadline() throws IOException {
+        client.put(RiakObjectBuilder.newBuilder("b", "a").addLink("b", "x", "t").addLink("b", "y", "t").build());
+        client.put(RiakObjectBuilder.newBuilder("b", "x").build());
+        client.put(RiakObjectBuilder.newBuilder("b", "y").build());
+
+        Deadline deadline = Deadline.in(1, TimeUnit.MINUTES);
+        Deadline.Scope scope = Deadline.bind(deadline);
+        try {
+            walker.walk(spec("b", "a", new LinkWalkStep("b", "t")));
+        } finally {
+            scope.close();
+        }
+        assertEquals(3, client.deadlines.size());
+        for (Deadline seen : client.deadlines) {
+            assertSame(deadline, seen);
+        }
+    }
+
+    @Test public void unkeptStepsAreWalkedButNotReturned() throws IOException {
+        client.put(RiakObjectBuilder.newBuilder("b", "a").addLink("b", "x", "t").build());
+        client.put(RiakObjectBuilder.newBuilder("b", "x").addLink("b", "y", "t").addLink("b", "gone", "t").build());
+        client.put(RiakObjectBuilder.newBuilder("b", "y").build());
+
+        final List<Integer> handled = new ArrayList<Integer>();
+        walker.walk(spec("b", "a", new LinkWalkStep(null, null, Accumulate.NO), new LinkWalkStep("b", "")),
+                    new ParallelLinkWalker.StepHandler() {
+                        public void onStep(int step, Collection<IRiakObject> objects) {
+                            handled.add(step);
+                            assertEquals(Arrays.asList("y"), keys(objects));
+                        }
+                    });
+
+        assertEquals(Arrays.asList(1), handled);
+    }
+
+    @Test public void tombstonesAreSkipped() throws IOException {
+        client.put(RiakObjectBuilder.newBuilder("b", "a").addLink("b", "x", "t").addLink("b", "y", "t").build());
+        client.put(RiakObjectBuilder.newBuilder("b", "x").withDeleted(true).build());
+        client.put(RiakObjectBuilder.newBuilder("b", "y").build());
+
+        WalkResult result = walker.walk(spec("b", "a", new LinkWalkStep("b", "t")));
+
+        assertEquals(Arrays.asList("y"), keys(result.iterator().next()));
+    }
+
+    @Test public void missingStartGivesEmptySteps() throws IOException {
+        WalkResult result = walker.walk(spec("b", "nothing", new LinkWalkStep("b", "t")));
+
+        Iterator<Collection<IRiakObject>> steps = result.iterator();
+        assertTrue(steps.next().isEmpty());
+        assertTrue(!steps.hasNext());
+    }
+
+    @Test public void fanOutIsBounded() throws IOException {
+        RiakObjectBuilder hub = RiakObjectBuilder.newBuilder("b", "hub");
+        for (int i = 0; i < 5; i++) {
+            hub.addLink("b", "k" + i, "t");
+        }
+        client.put(hub.build());
+        ParallelLinkWalker narrow = new ParallelLinkWalker.Builder(client).maxFanOut(4).build();
+        try {
+            narrow.walk(spec("b", "hub", new LinkWalkStep("b", "t")));
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertEquals(0, client.fetches("k0"));
+        } finally {
+            narrow.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void depthIsBounded() throws IOException {
+        ParallelLinkWalker shallow = new ParallelLinkWalker.Builder(client).maxDepth(1).build();
+        try {
+            shallow.walk(spec("b", "a", new LinkWalkStep("b", "t"), new LinkWalkStep("b", "t")));
+        } finally {
+            shallow.shutdown();
+        }
+    }
+
+    @Test public void fetchFailureFailsTheWalk() {
+        client.put(RiakObjectBuilder.newBuilder("b", "a").addLink("b", "broken", "t").build());
+        client.broken = "broken";
+        try {
+            walker.walk(spec("b", "a", new LinkWalkStep("b", "t")));
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertEquals("broken", e.getMessage());
+        }
+    }
+
+    private static LinkWalkSpec spec(String bucket, String key, LinkWalkStep... steps) {
+        return new LinkWalkSpec(new LinkedList<LinkWalkStep>(Arrays.asList(steps)), bucket, key);
+    }
+
+    private static List<String> keys(Collection<IRiakObject> objects) {
+        List<String> keys = new ArrayList<String>();
+        for (IRiakObject o : objects) {
+            keys.add(o.getKey());
+        }
+        return keys;
+    }
+
+    private static class GraphClient extends StubRawClient {
+        private final Map<String, IRiakObject> objects = new ConcurrentHashMap<String, IRiakObject>();
+        private final Map<String, AtomicInteger> fetches = new ConcurrentHashMap<String, AtomicInteger>();
+        final List<Deadline> deadlines = new CopyOnWriteArrayList<Deadline>();
+        volatile String broken;
+
+        void put(IRiakObject o) {
+            objects.put(o.getBucket() + "/" + o.getKey(), o);
+        }
+
+        int fetches(String key) {
+            AtomicInteger count = fetches.get(key);
+            return count == null ? 0 : count.get();
+        }
+
+        @Override public RiakResponse fetch(String bucket, String key, FetchMeta fetchMeta) throws IOException {
+            fetches.putIfAbsent(key, new AtomicInteger());
+            fetches.get(key).incrementAndGet();
+            if (Deadline.current() != null) {
+                deadlines.add(Deadline.current());
+            }
+            if (key.equals(broken)) {
+                throw new IOException("broken");
+            }
+            IRiakObject o = objects.get(bucket + "/" + key);
+            return o == null ? RiakResponse.empty() : new RiakResponse(new byte[0], new IRiakObject[] { o });
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.scan;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.IndexEntry;
+import com.basho.riak.client.builders.RiakObjectBuilder;
+import com.basho.riak.client.cap.DefaultRetrier;
+import com.basho.riak.client.query.StreamingOperation;
+import com.basho.riak.client.raw.ClusterClient;
+import com.basho.riak.client.raw.FetchMeta;
+import com.basho.riak.client.raw.RawClient;
+import com.basho.riak.client.raw.RiakResponse;
+import com.basho.riak.client.raw.Transport;
+import com.basho.riak.client.raw.config.ClusterConfig;
+import com.basho.riak.client.raw.config.Configuration;
+import com.basho.riak.client.raw.query.IndexSpec;
+import com.basho.riak.test.util.StubRawClient;
+
+public class BucketScanTest {
+
+    private final NavigableSet<String> keys = new TreeSet<String>();
+
+    public BucketScanTest() {
+        for (int i = 0; i < 300; i++) {
+            keys.add(Integer.toHexString(i * 7919 % 65536));
+        }
+        // keys on and around the split points of ranges(4)
+        Collections.addAll(keys, "8", "8a", "Q", "Qz", "Z", "!", "~~", "été");
+    }
+
+    @Test public void everyKeyOnceAcrossRangesAndNodes() throws IOException {
+        IndexNode a = new IndexNode(keys);
+        IndexNode b = new IndexNode(keys);
+        BucketScan scan = new BucketScan.Builder(cluster(a, b), "b").ranges(4).pageSize(7).build();
+
+        Collected seen = new Collected();
+        ScanCheckpoint done = scan.run(seen);
+
+        assertEquals(keys, new TreeSet<String>(seen.keys.keySet()));
+        assertEquals(keys.size(), seen.total.get());
+        assertEquals(keys.size(), scan.getKeysScanned());
+        assertEquals(4, scan.getRangesDone());
+        assertTrue(done.isComplete());
+        assertTrue(a.pages.get() > 0 && b.pages.get() > 0);
+    }
+
+    @Test public void hexSplitsAndFetchedValues() throws IOException {
+        IndexNode node = new IndexNode(keys);
+        BucketScan scan = new BucketScan.Builder(node, "b").splitPoints(BucketScan.hexSplitPoints(8)).pageSize(50)
+            .fetchValues(true).fetchConcurrency(4).build();
+
+        Collected seen = new Collected();
+        scan.run(seen);
+
+        assertEquals(keys.size(), seen.total.get());
+        assertEquals(keys.size(), seen.values.get());
+    }
+
+    @Test public void singleRangeUsesBucketIndex() throws IOException {
+        IndexNode node = new IndexNode(keys);
+        Collected seen = new Collected();
+
+        new BucketScan.Builder(node, "b").pageSize(100).build().run(seen);
+
+        assertEquals(keys.size(), seen.total.get());
+        assertEquals(Collections.singleton("$bucket"), node.indexes);
+    }
+
+    @Test public void resumesFromCheckpoint() throws IOException {
+        IndexNode node = new IndexNode(keys);
+        node.failAfterPages = 5;
+        BucketScan scan = new BucketScan.Builder(node, "b").ranges(3).pageSize(10)
+            .withRetrier(DefaultRetrier.attempts(1)).build();
+
+        Collected first = new Collected();
+        try {
+            scan.run(first);
+            fail("expected IOException");
+        } catch (IOException e) {
+            // NO-OP
+        }
+        ScanCheckpoint checkpoint = ScanCheckpoint.fromJSON(scan.getCheckpoint().toJSON());
+        assertFalse(checkpoint.isComplete());
+
+        node.failAfterPages = -1;
+        Collected rest = new Collected();
+        new BucketScan.Builder(node, "b").resumeFrom(checkpoint).pageSize(10).build().run(rest);
+
+        Set<String> all = new TreeSet<String>(first.keys.keySet());
+        all.addAll(rest.keys.keySet());
+        assertEquals(keys, all);
+        // only pages that were in flight when the scan failed are repeated
+        assertTrue(first.total.get() + rest.total.get() < keys.size() + 3 * 10);
+    }
+
+    @Test public void hexSplitPoints() {
+        assertArrayEquals(new String[] { "40", "80", "c0" }, BucketScan.hexSplitPoints(4));
+        assertEquals(0, BucketScan.hexSplitPoints(1).length);
+    }
+
+    @Test public void checkpointJSON() throws IOException {
+        ScanCheckpoint cp = new BucketScan.Builder(new IndexNode(keys), "b").ranges(2).build().getCheckpoint();
+
+        ScanCheckpoint read = ScanCheckpoint.fromJSON(cp.toJSON());
+
+        assertEquals("b", read.getBucket());
+        assertEquals(2, read.getRanges().size());
+        assertEquals(BucketScan.MIN_KEY, read.getRanges().get(0).getStart());
+        assertEquals(BucketScan.MAX_KEY, read.getRanges().get(1).getEnd());
+        assertFalse(read.getRanges().get(1).isStartInclusive());
+        assertNull(read.getRanges().get(1).getContinuation());
+    }
+
+    private static class Collected implements BucketScan.Handler {
+        final Map<String, Boolean> keys = new ConcurrentHashMap<String, Boolean>();
+        final AtomicInteger total = new AtomicInteger();
+        final AtomicInteger values = new AtomicInteger();
+
+        public void onKey(String key, RiakResponse value) {
+            keys.put(key, Boolean.TRUE);
+            total.incrementAndGet();
+            if (value != null && value.hasValue()) {
+                values.incrementAndGet();
+            }
+        }
+    }
+
+    private static RawClient cluster(final RawClient... nodes) throws IOException {
+        ClusterConfig<Configuration> config = new ClusterConfig<Configuration>(0) {
+            @Override protected ClusterConfig<Configuration> addHosts(String... hosts) {
+                return this;
+            }
+
+            @Override protected ClusterConfig<Configuration> addHosts(Configuration config, String... hosts) {
+                return this;
+            }
+        };
+        return new ClusterClient<Configuration>(config) {
+            @Override protected RawClient[] fromConfig(ClusterConfig<Configuration> clusterConfig) {
+                return nodes;
+            }
+
+            public Transport getTransport() {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Serves $key ranges and $bucket from a sorted set, with the last key of
+     * a page as its continuation.
+     */
+    private static class IndexNode extends StubRawClient {
+        private final NavigableSet<String> keys;
+        final AtomicInteger pages = new AtomicInteger();
+        final Set<String> indexes = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        volatile int failAfterPages = -1;
+
+        IndexNode(NavigableSet<String> keys) {
+            this.keys = keys;
+        }
+
+        @Override public StreamingOperation<IndexEntry> fetchIndex(IndexSpec spec) throws IOException {
+            int page = pages.incrementAndGet();
+            if (failAfterPages >= 0 && page > failAfterPages) {
+                throw new IOException("node down");
+            }
+            indexes.add(spec.getIndexName());
+            NavigableSet<String> range = spec.getRangeStart() == null ? keys
+                    : keys.subSet(spec.getRangeStart(), true, spec.getRangeEnd(), true);
+            if (spec.getContinuation() != null) {
+                range = range.tailSet(spec.getContinuation(), false);
+            }
+            final List<IndexEntry> entries = new ArrayList<IndexEntry>();
+            for (String key : range) {
+                if (entries.size() == spec.getMaxResults()) {
+                    break;
+                }
+                entries.add(new IndexEntry(key));
+            }
+            String last = entries.isEmpty() ? null : entries.get(entries.size() - 1).getObjectKey();
+            final String continuation = last != null && range.higher(last) != null ? last : null;
+            return new ListOperation(entries, continuation);
+        }
+
+        @Override public RiakResponse fetch(String bucket, String key, FetchMeta fetchMeta) {
+            IRiakObject o = RiakObjectBuilder.newBuilder(bucket, key).withValue(key).build();
+            return new RiakResponse(new byte[0], new IRiakObject[] { o });
+        }
+    }
+
+    private static class ListOperation implements StreamingOperation<IndexEntry> {
+        private final List<IndexEntry> entries;
+        private final Iterator<IndexEntry> it;
+        private final String continuation;
+
+        ListOperation(List<IndexEntry> entries, String continuation) {
+            this.entries = entries;
+            this.it = entries.iterator();
+            this.continuation = continuation;
+        }
+
+        public Iterator<IndexEntry> iterator() {
+            return this;
+        }
+
+        public boolean hasNext() {
+            return it.hasNext();
+        }
+
+        public IndexEntry next() {
+            return it.next();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public List<IndexEntry> getAll() {
+            return entries;
+        }
+
+        public void cancel() {
+        }
+
+        public boolean hasContinuation() {
+            return continuation != null;
+        }
+
+        public String getContinuation() {
+            return continuation;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.raw.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.basho.riak.client.query.NodeStats;
+import com.basho.riak.client.raw.ClusterClient;
+import com.basho.riak.client.raw.RawClient;
+import com.basho.riak.client.raw.Transport;
+import com.basho.riak.client.raw.config.ClusterConfig;
+import com.basho.riak.client.raw.config.Configuration;
+import com.basho.riak.test.util.StubRawClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class StatsCollectorTest {
+
+    private StatsCollector collector;
+
+    @After public void stop() {
+        if (collector != null) {
+            collector.stop();
+        }
+    }
+
+    @Test public void firstPollHasNoDeltas() throws Exception {
+        StatsNode node = new StatsNode("riak@a");
+        collector = new StatsCollector.Builder(node).build();
+
+        node.next = stats("riak@a", 100, 10, 2000);
+        StatsSnapshot snapshot = collector.poll();
+
+        assertEquals(1, snapshot.getNodes().size());
+        NodeSample sample = snapshot.getNode(0);
+        assertTrue(sample.isAvailable());
+        assertEquals("riak@a", sample.getNodeName());
+        assertFalse(sample.hasDeltas());
+        assertEquals(0, sample.delta(StatsMetric.NODE_GETS_TOTAL));
+        assertSame(snapshot, collector.getLatest());
+    }
+
+    @Test public void deltasAcrossNodesAndRestarts() throws Exception {
+        StatsNode a = new StatsNode("riak@a");
+        StatsNode b = new StatsNode("riak@b");
+        collector = new StatsCollector.Builder(cluster(a, b)).build();
+
+        a.next = stats("riak@a", 100, 10, 2000);
+        b.next = stats("riak@b", 500, 50, 3000);
+        collector.poll();
+
+        a.next = stats("riak@a", 160, 15, 1500);
+        // b restarted, its counters began again from zero
+        b.next = stats("riak@b", 40, 4, 3500);
+        StatsSnapshot snapshot = collector.poll();
+
+        assertEquals(60, snapshot.getNode(0).delta(StatsMetric.NODE_GETS_TOTAL));
+        assertEquals(40, snapshot.getNode(1).delta(StatsMetric.NODE_GETS_TOTAL));
+        assertEquals(100, snapshot.delta(StatsMetric.NODE_GETS_TOTAL));
+        assertEquals(9, snapshot.delta(StatsMetric.READ_REPAIRS_TOTAL));
+        // gauges move both ways
+        assertEquals(-500, snapshot.getNode(0).delta(StatsMetric.NODE_GET_FSM_TIME_MEAN));
+        assertEquals(500, snapshot.getNode(1).delta(StatsMetric.NODE_GET_FSM_TIME_MEAN));
+    }
+
+    @Test public void unreachableNodeIsRecordedNotThrown() throws Exception {
+        StatsNode a = new StatsNode("riak@a");
+        StatsNode b = new StatsNode("riak@b");
+        collector = new StatsCollector.Builder(cluster(a, b)).build();
+
+        a.next = stats("riak@a", 1, 1, 1);
+        b.failure = new IOException("connection refused");
+        StatsSnapshot snapshot = collector.poll();
+
+        assertEquals(1, snapshot.getAvailableNodes());
+        assertFalse(snapshot.getNode(1).isAvailable());
+        assertNull(snapshot.getNode(1).getStats());
+        assertEquals("connection refused", snapshot.getNode(1).getError().getMessage());
+
+        // b's first good sample after the outage has nothing to compare to
+        b.failure = null;
+        a.next = stats("riak@a", 2, 1, 1);
+        b.next = stats("riak@b", 10, 1, 1);
+        snapshot = collector.poll();
+        assertEquals(1, snapshot.getNode(0).delta(StatsMetric.NODE_GETS_TOTAL));
+        assertFalse(snapshot.getNode(1).hasDeltas());
+    }
+
+    @Test public void slowNodeIsRecordedAsTimedOut() throws Exception {
+        StatsNode a = new StatsNode("riak@a");
+        StatsNode b = new StatsNode("riak@b");
+        collector = new StatsCollector.Builder(cluster(a, b)).timeout(100, TimeUnit.MILLISECONDS).build();
+        a.next = stats("riak@a", 1, 1, 1);
+        b.hang = new CountDownLatch(1);
+
+        StatsSnapshot snapshot = collector.poll();
+
+        assertEquals(1, snapshot.getAvailableNodes());
+        assertTrue(snapshot.getNode(1).getError() instanceof TimeoutException);
+        b.hang.countDown();
+    }
+
+    @Test public void followsClusterMembership() throws Exception {
+        StatsNode a = new StatsNode("riak@a");
+        StatsNode b = new StatsNode("riak@b");
+        ClusterClient<?> cluster = (ClusterClient<?>) cluster(a, b);
+        collector = new StatsCollector.Builder(cluster).build();
+        a.next = stats("riak@a", 1, 1, 1);
+        b.next = stats("riak@b", 1, 1, 1);
+        collector.poll();
+
+        String removed = cluster.getNodeNames().get(0);
+        assertTrue(cluster.removeNode(removed, 1, TimeUnit.SECONDS));
+        b.next = stats("riak@b", 3, 1, 1);
+        StatsSnapshot snapshot = collector.poll();
+
+        assertEquals(1, snapshot.getNodes().size());
+        assertEquals(cluster.getNodeNames().get(0), snapshot.getNode(0).getNode());
+        assertEquals(2, snapshot.getNode(0).delta(StatsMetric.NODE_GETS_TOTAL));
+    }
+
+    @Test public void scheduledPollsReachListener() throws Exception {
+        StatsNode node = new StatsNode("riak@a");
+        node.next = stats("riak@a", 1, 1, 1);
+        final CountDownLatch polled = new CountDownLatch(2);
+        final AtomicReference<StatsSnapshot> last = new AtomicReference<StatsSnapshot>();
+        collector = new StatsCollector.Builder(node).interval(10, TimeUnit.MILLISECONDS)
+            .listener(new StatsCollector.Listener() {
+                public void onSnapshot(StatsSnapshot snapshot) {
+                    last.set(snapshot);
+                    polled.countDown();
+                }
+            }).build();
+
+        collector.start();
+
+        assertTrue(polled.await(5, TimeUnit.SECONDS));
+        assertTrue(last.get().getNode(0).hasDeltas());
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void subMillisecondInterval() {
+        new StatsCollector.Builder(new StatsNode("riak@a")).interval(500, TimeUnit.MICROSECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void nullClient() {
+        new StatsCollector.Builder(null);
+    }
+
+    private static NodeStats stats(String name, long nodeGets, long readRepairs, long getFsmMean) throws IOException {
+        String json = "{\"nodename\":\"" + name + "\",\"node_gets_total\":" + nodeGets + ",\"read_repairs_total\":" +
+                      readRepairs + ",\"node_get_fsm_time_mean\":" + getFsmMean + "}";
+        return new ObjectMapper().readValue(json, NodeStats.class);
+    }
+
+    private static RawClient cluster(final RawClient... nodes) throws IOException {
+        ClusterConfig<Configuration> config = new ClusterConfig<Configuration>(0) {
+            @Override protected ClusterConfig<Configuration> addHosts(String... hosts) {
+                return this;
+            }
+
+            @Override protected ClusterConfig<Configuration> addHosts(Configuration config, String... hosts) {
+                return this;
+            }
+        };
+        return new ClusterClient<Configuration>(config) {
+            @Override protected RawClient[] fromConfig(ClusterConfig<Configuration> clusterConfig) {
+                return nodes;
+            }
+
+            public Transport getTransport() {
+                return null;
+            }
+        };
+    }
+
+    private static class StatsNode extends StubRawClient {
+        private final String name;
+        volatile NodeStats next;
+        volatile IOException failure;
+        volatile CountDownLatch hang;
+
+        StatsNode(String name) {
+            this.name = name;
+        }
+
+        @Override public NodeStats stats() throws IOException {
+            if (hang != null) {
+                try {
+                    hang.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return next;
+        }
+
+        @Override public String toString() {
+            return name;
+        }
+    }
+}
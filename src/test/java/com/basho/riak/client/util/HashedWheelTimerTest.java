@@ -0,0 +1,94 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.basho.riak.client.util.HashedWheelTimer.Timeout;
+
+public class HashedWheelTimerTest {
+
+    private HashedWheelTimer timer;
+
+    @Before public void setUp() {
+        // a small wheel so delays wrap round it
+        timer = new HashedWheelTimer("test-timer", 10, TimeUnit.MILLISECONDS, 4);
+    }
+
+    @After public void tearDown() {
+        timer.stop();
+    }
+
+    @Test public void runsOnceAfterDelay() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        timer.schedule(ran::countDown, 100, TimeUnit.MILLISECONDS);
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+    }
+
+    @Test public void cancelledTasksDoNotRun() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        Timeout t = timer.schedule(runs::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        t.cancel();
+        assertTrue(t.isCancelled());
+        Thread.sleep(150);
+        assertEquals(0, runs.get());
+    }
+
+    @Test public void repeatsUntilCancelled() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch three = new CountDownLatch(3);
+        Timeout t = timer.scheduleAtFixedRate(() -> {
+            runs.incrementAndGet();
+            three.countDown();
+        }, 0, 20, TimeUnit.MILLISECONDS);
+        assertTrue(three.await(2, TimeUnit.SECONDS));
+        t.cancel();
+        int after = runs.get();
+        Thread.sleep(100);
+        assertTrue(runs.get() <= after + 1);
+    }
+
+    @Test public void throwingTaskKeepsItsSchedule() throws Exception {
+        final CountDownLatch twice = new CountDownLatch(2);
+        Timeout t = timer.scheduleAtFixedRate(() -> {
+            twice.countDown();
+            throw new IllegalStateException("expected by the test");
+        }, 0, 20, TimeUnit.MILLISECONDS);
+        assertTrue(twice.await(2, TimeUnit.SECONDS));
+        t.cancel();
+    }
+
+    @Test public void manyTasksAllRun() throws Exception {
+        final CountDownLatch all = new CountDownLatch(1000);
+        for (int i = 0; i < 1000; i++) {
+            timer.schedule(all::countDown, i % 97, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(all.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalStateException.class) public void sharedTimerCannotBeStopped() {
+        HashedWheelTimer.shared().stop();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.client.util;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class RiakThreadsTest {
+
+    @After public void restoreFactory() {
+        RiakThreads.setFactory(RiakThreads.PLATFORM);
+    }
+
+    @Test public void platformThreadsAreNamedDaemons() {
+        ThreadFactory threads = RiakThreads.newThreadFactory("riak-test");
+        Thread first = threads.newThread(() -> {});
+        Thread second = threads.newThread(() -> {});
+
+        assertEquals("riak-test-0", first.getName());
+        assertEquals("riak-test-1", second.getName());
+        assertTrue(first.isDaemon());
+    }
+
+    @Test public void newThreadFactoryUsesTheCurrentFactory() {
+        final ThreadFactory custom = r -> new Thread(r, "custom");
+        RiakThreads.setFactory(prefix -> custom);
+
+        assertSame(custom, RiakThreads.newThreadFactory("riak-test"));
+        assertEquals("custom", RiakThreads.newThreadFactory("riak-test").newThread(() -> {}).getName());
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void nullFactoryIsRejected() {
+        RiakThreads.setFactory(null);
+    }
+
+    @Test public void virtualThreadsWhenSupported() throws Exception {
+        if (!RiakThreads.isVirtualThreadSupported()) {
+            try {
+                RiakThreads.virtual();
+                fail("expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+            try {
+                RiakThreads.newVirtualThreadPerTaskExecutor();
+                fail("expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+            return;
+        }
+
+        final CountDownLatch ran = new CountDownLatch(2);
+        Thread t = RiakThreads.virtual().newThreadFactory("riak-virtual").newThread(ran::countDown);
+        assertEquals("riak-virtual-0", t.getName());
+        assertTrue(t.isDaemon());
+        t.start();
+
+        ExecutorService executor = RiakThreads.newVirtualThreadPerTaskExecutor();
+        executor.execute(ran::countDown);
+        executor.shutdown();
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.pbc;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A local socket that answers every PB request with an empty response whose
+ * code is the request code + 1, enough for ping and SetClientId.
+ */
+class AckingPBServer {
+
+    private final ServerSocket server;
+    private final Set<Socket> accepted = ConcurrentHashMap.newKeySet();
+
+    AckingPBServer() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(() -> {
+            while (!server.isClosed()) {
+                try {
+                    final Socket s = server.accept();
+                    accepted.add(s);
+                    Thread t = new Thread(() -> ack(s));
+                    t.setDaemon(true);
+                    t.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    InetAddress getAddress() {
+        return InetAddress.getLoopbackAddress();
+    }
+
+    int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * @return the number of connections accepted and still open
+     */
+    int getConnectionCount() {
+        return accepted.size();
+    }
+
+    /**
+     * Close every accepted connection, as a restarted node would.
+     */
+    void dropConnections() {
+        for (Socket s : accepted) {
+            close(s);
+        }
+    }
+
+    void close() throws IOException {
+        server.close();
+        dropConnections();
+    }
+
+    private void ack(Socket s) {
+        try {
+            DataInputStream in = new DataInputStream(s.getInputStream());
+            DataOutputStream out = new DataOutputStream(s.getOutputStream());
+            while (true) {
+                int len = in.readInt();
+                int code = in.read();
+                in.readFully(new byte[len - 1]);
+                out.writeInt(1);
+                out.write(code + 1);
+                out.flush();
+            }
+        } catch (IOException e) {
+            close(s);
+        }
+    }
+
+    private void close(Socket s) {
+        accepted.remove(s);
+        try {
+            s.close();
+        } catch (IOException e) {
+            // NO-OP
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.pbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the pool prefers idle connections already carrying the requested
+ * client id, against a local socket that acks every request.
+ */
+public class RiakConnectionPoolClientIdTest {
+
+    private AckingPBServer server;
+    private RiakConnectionPool pool;
+
+    @Before public void setUp() throws IOException {
+        server = new AckingPBServer();
+        pool = new RiakConnectionPool(0, 4, server.getAddress(), server.getPort(), 1000, 1, 0, 0);
+        pool.start();
+    }
+
+    @After public void tearDown() throws IOException {
+        pool.shutdown();
+        server.close();
+    }
+
+    @Test public void prefersConnectionWithSameClientId() throws IOException {
+        byte[] a = new byte[] { 1, 2, 3, 4 };
+        byte[] b = new byte[] { 5, 6, 7, 8 };
+
+        RiakConnection ca = pool.getConnection(a);
+        RiakConnection cb = pool.getConnection(b);
+        assertEquals(2, pool.getSetClientIdCount());
+        pool.releaseConnection(ca);
+        pool.releaseConnection(cb);
+
+        // alternate ids, each borrow should find its own connection
+        for (int i = 0; i < 10; i++) {
+            RiakConnection c = pool.getConnection(a);
+            assertSame(ca, c);
+            pool.releaseConnection(c);
+            c = pool.getConnection(b);
+            assertSame(cb, c);
+            pool.releaseConnection(c);
+        }
+        assertEquals(2, pool.getSetClientIdCount());
+        assertEquals(20, pool.getClientIdMatchCount());
+    }
+
+    @Test public void skipClientIdNeverSetsIt() throws IOException {
+        pool.setSkipClientId(true);
+        for (int i = 0; i < 5; i++) {
+            RiakConnection c = pool.getConnection(new byte[] { (byte) i, 0, 0, 0 });
+            pool.releaseConnection(c);
+        }
+        assertEquals(0, pool.getSetClientIdCount());
+    }
+}
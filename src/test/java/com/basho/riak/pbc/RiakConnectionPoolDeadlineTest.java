@@ -0,0 +1,59 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.pbc;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.basho.riak.client.cap.Deadline;
+import com.basho.riak.client.cap.DeadlineExceededException;
+
+public class RiakConnectionPoolDeadlineTest {
+
+    private AckingPBServer server;
+    private RiakConnectionPool pool;
+
+    @Before public void setUp() throws IOException {
+        server = new AckingPBServer();
+        // one connection, and a long wait for it
+        pool = new RiakConnectionPool(0, 1, server.getAddress(), server.getPort(), 10000, 1, 0, 0);
+        pool.start();
+    }
+
+    @After public void tearDown() throws IOException {
+        pool.shutdown();
+        server.close();
+    }
+
+    @Test public void permitWaitStopsAtTheDeadline() throws IOException {
+        RiakConnection held = pool.getConnection(null);
+        long start = System.nanoTime();
+        try (Deadline.Scope scope = Deadline.bind(Deadline.in(100, TimeUnit.MILLISECONDS))) {
+            pool.getConnection(null);
+            fail("expected DeadlineExceededException");
+        } catch (DeadlineExceededException e) {
+            // NO-OP
+        } finally {
+            pool.releaseConnection(held);
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+    }
+}
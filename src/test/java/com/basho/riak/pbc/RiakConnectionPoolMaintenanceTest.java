@@ -0,0 +1,114 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.pbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Background connection opening, idle validation and purging, against a
+ * local socket that acks every request.
+ */
+public class RiakConnectionPoolMaintenanceTest {
+
+    private AckingPBServer server;
+    private RiakConnectionPool pool;
+
+    @Before public void setUp() throws IOException {
+        server = new AckingPBServer();
+    }
+
+    @After public void tearDown() throws IOException {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        server.close();
+    }
+
+    private RiakConnectionPool pool(int initialSize) throws IOException {
+        pool = new RiakConnectionPool(initialSize, 10, server.getAddress(), server.getPort(), 1000, 1, 0, 0);
+        return pool;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test public void warmsUpAndKeepsMinIdle() throws Exception {
+        pool(0).setMinIdle(3);
+        pool.start();
+        assertEquals(3, pool.getIdleCount());
+
+        RiakConnection c = pool.getConnection(null);
+        await(() -> pool.getIdleCount() == 3);
+        assertTrue(pool.getConnectAheadCount() >= 1);
+        pool.releaseConnection(c);
+        assertEquals(4, pool.getIdleCount());
+    }
+
+    @Test public void staleIdleConnectionsAreReplaced() throws Exception {
+        pool(2).setValidateAfterIdleMillis(1);
+        pool.start();
+        await(() -> server.getConnectionCount() == 2);
+        server.dropConnections();
+        Thread.sleep(5);
+
+        RiakConnection c = pool.getConnection(null);
+        assertFalse(c.isClosed());
+        assertEquals(2, pool.getValidationFailureCount());
+        assertEquals(0, pool.getIdleCount());
+        pool.releaseConnection(c);
+    }
+
+    @Test public void failedConnectionPurgesIdle() throws Exception {
+        pool(3).setPurgeIdleOnFailure(true);
+        pool.start();
+        assertEquals(3, pool.getIdleCount());
+
+        RiakConnection broken = pool.getConnection(null);
+        broken.fail();
+        pool.releaseConnection(broken);
+        assertEquals(0, pool.getIdleCount());
+        assertEquals(1, pool.getPurgeCount());
+
+        RiakConnection fresh = pool.getConnection(null);
+        assertNotSame(broken, fresh);
+        pool.releaseConnection(fresh);
+    }
+
+    @Test public void closingOnPurposeDoesNotPurge() throws Exception {
+        pool(3).setPurgeIdleOnFailure(true);
+        pool.start();
+
+        // as a cancelled stream does
+        RiakConnection abandoned = pool.getConnection(null);
+        abandoned.close();
+        pool.releaseConnection(abandoned);
+        assertEquals(2, pool.getIdleCount());
+        assertEquals(0, pool.getPurgeCount());
+    }
+}
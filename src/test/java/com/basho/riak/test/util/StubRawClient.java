@@ -0,0 +1,155 @@
+/*
+ * This file is provided to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.basho.riak.test.util;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import com.basho.riak.client.IRiakObject;
+import com.basho.riak.client.IndexEntry;
+import com.basho.riak.client.bucket.BucketProperties;
+import com.basho.riak.client.query.MapReduceResult;
+import com.basho.riak.client.query.NodeStats;
+import com.basho.riak.client.query.StreamingOperation;
+import com.basho.riak.client.query.WalkResult;
+import com.basho.riak.client.raw.DeleteMeta;
+import com.basho.riak.client.raw.FetchMeta;
+import com.basho.riak.client.raw.RawClient;
+import com.basho.riak.client.raw.RiakResponse;
+import com.basho.riak.client.raw.StoreMeta;
+import com.basho.riak.client.raw.Transport;
+import com.basho.riak.client.raw.query.IndexSpec;
+import com.basho.riak.client.raw.query.LinkWalkSpec;
+import com.basho.riak.client.raw.query.MapReduceSpec;
+import com.basho.riak.client.raw.query.MapReduceTimeoutException;
+import com.basho.riak.client.raw.query.indexes.IndexQuery;
+
+/**
+ * A {@link RawClient} where every operation throws
+ * {@link UnsupportedOperationException}. Tests extend it and override only the
+ * operations they exercise.
+ */
+public class StubRawClient implements RawClient {
+
+    public RiakResponse head(String bucket, String key, FetchMeta fetchMeta) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public RiakResponse fetch(String bucket, String key) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public RiakResponse fetch(String bucket, String key, int readQuorum) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public RiakResponse fetch(String bucket, String key, FetchMeta fetchMeta) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public RiakResponse store(IRiakObject object, StoreMeta storeMeta) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public void store(IRiakObject object) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public void delete(String bucket, String key) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public void delete(String bucket, String key, int deleteQuorum) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public void delete(String bucket, String key, DeleteMeta deleteMeta) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public Set<String> listBuckets() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public StreamingOperation<String> listBucketsStreaming() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public BucketProperties fetchBucket(String bucketName) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public void updateBucket(String name, BucketProperties bucketProperties) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public void resetBucketProperties(String bucketName) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public StreamingOperation<String> listKeys(String bucketName) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public WalkResult linkWalk(LinkWalkSpec linkWalkSpec) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public MapReduceResult mapReduce(MapReduceSpec spec) throws IOException, MapReduceTimeoutException {
+        throw new UnsupportedOperationException();
+    }
+
+    public byte[] generateAndSetClientId() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public void setClientId(byte[] clientId) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public byte[] getClientId() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public void ping() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public List<String> fetchIndex(IndexQuery indexQuery) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public StreamingOperation<IndexEntry> fetchIndex(IndexSpec indexSpec) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public Long incrementCounter(String bucket, String counter, long increment, StoreMeta meta) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public Long fetchCounter(String bucket, String counter, FetchMeta meta) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    public Transport getTransport() {
+        return null;
+    }
+
+    public void shutdown() {}
+
+    public NodeStats stats() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+}